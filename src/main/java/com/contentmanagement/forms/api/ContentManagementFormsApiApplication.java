@@ -4,12 +4,17 @@ import com.contentmanagement.forms.api.config.FormProcessingProperties;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.ConfigurableApplicationContext;
 
 @SpringBootApplication
 @EnableConfigurationProperties(FormProcessingProperties.class)
 public class ContentManagementFormsApiApplication {
 
     public static void main(String[] args) {
-        SpringApplication.run(ContentManagementFormsApiApplication.class, args);
+        ConfigurableApplicationContext context = SpringApplication.run(ContentManagementFormsApiApplication.class, args);
+        if (context.getEnvironment().getProperty("form.processing.batch.enabled", Boolean.class, false)) {
+            // Nothing else keeps a batch process alive; exit with BatchRunner's outcome, not the JVM's default status.
+            System.exit(SpringApplication.exit(context));
+        }
     }
 }
@@ -0,0 +1,271 @@
+package com.contentmanagement.forms.api.batch;
+
+import com.contentmanagement.forms.api.config.FormProcessingProperties;
+import com.contentmanagement.forms.api.model.PdfProcessingResult;
+import com.contentmanagement.forms.api.model.ProcessingMode;
+import com.contentmanagement.forms.api.service.PathMultipartFile;
+import com.contentmanagement.forms.api.service.PdfProcessingService;
+import com.contentmanagement.forms.api.service.extraction.CpuBudget;
+import com.contentmanagement.forms.api.service.extraction.ExtractionScope;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.ExitCodeGenerator;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Offline bulk extraction without the HTTP layer: walks {@code batch.input-directory}, runs every PDF and image
+ * through {@link PdfProcessingService} on {@code batch.parallelism} threads (default: one per extraction slot)
+ * and writes the results below {@code batch.output-directory}, then exits. Start it with the {@code batch}
+ * profile, which also switches the web server off.
+ *
+ * <p>With {@code JSON} output every input gets {@code <relative path>.json}, written to a temporary file and
+ * moved into place, so an existing file means the input is done; a {@code PARTIAL} result goes to
+ * {@code <relative path>.partial.json} instead. With {@code NDJSON} all results are appended to
+ * {@code results.ndjson}, one {@code {"source": ..., "result": ...}} line per attempt; a line cut short by a crash
+ * is ignored. Either way a restarted run skips inputs with a complete result and retries the ones that failed or
+ * were cut short by the deadline.
+ */
+@Component
+@ConditionalOnProperty(prefix = "form.processing.batch", name = "enabled", havingValue = "true")
+public class BatchRunner implements ApplicationRunner, ExitCodeGenerator {
+
+    private static final Logger log = LoggerFactory.getLogger(BatchRunner.class);
+
+    private static final String NDJSON_FILE = "results.ndjson";
+    private static final String JSON_SUFFIX = ".json";
+    private static final String PARTIAL_SUFFIX = ".partial.json";
+    private static final Map<String, String> INPUT_TYPES = Map.of(
+            "pdf", "application/pdf",
+            "png", "image/png",
+            "jpg", "image/jpeg",
+            "jpeg", "image/jpeg",
+            "tif", "image/tiff",
+            "tiff", "image/tiff");
+
+    private final PdfProcessingService processingService;
+    private final FormProcessingProperties.Batch settings;
+    private final CpuBudget cpuBudget;
+    private final ObjectMapper objectMapper;
+    private volatile int exitCode;
+
+    public BatchRunner(PdfProcessingService processingService,
+                       FormProcessingProperties properties,
+                       CpuBudget cpuBudget,
+                       ObjectMapper objectMapper) {
+        this.processingService = processingService;
+        this.settings = properties.getBatch();
+        this.cpuBudget = cpuBudget;
+        this.objectMapper = objectMapper;
+    }
+
+    private record BatchLine(String source, PdfProcessingResult result) {
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        Path input = requiredDirectory(settings.getInputDirectory(), "input-directory");
+        Path output = requiredDirectory(settings.getOutputDirectory(), "output-directory");
+        Files.createDirectories(output);
+        int parallelism = settings.getParallelism() > 0 ? settings.getParallelism() : cpuBudget.concurrentExtractions();
+        boolean ndjson = settings.getFormat() == FormProcessingProperties.Batch.Format.NDJSON;
+        Path ndjsonFile = output.resolve(NDJSON_FILE);
+        Set<String> done = ndjson ? readFinished(ndjsonFile) : Set.of();
+        log.info("Batch extraction of {} into {} ({}, {} thread(s))", input, output, settings.getFormat(), parallelism);
+
+        Totals totals = new Totals();
+        long started = System.nanoTime();
+        ExecutorService workers = Executors.newFixedThreadPool(parallelism);
+        // Bounds the queued tasks, so walking a directory of millions of files does not queue them all up front.
+        Semaphore inFlight = new Semaphore(parallelism * 2);
+        try (BufferedWriter ndjsonWriter = ndjson ? openForAppend(ndjsonFile) : null;
+             Stream<Path> files = Files.walk(input)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                if (!Files.isRegularFile(file) || file.startsWith(output) || !INPUT_TYPES.containsKey(extension(file))) {
+                    continue;
+                }
+                String source = input.relativize(file).toString().replace('\\', '/');
+                Path target = output.resolve(source + JSON_SUFFIX);
+                if (ndjson ? done.contains(source) : Files.exists(target)) {
+                    totals.skipped.incrementAndGet();
+                    continue;
+                }
+                inFlight.acquire();
+                workers.submit(() -> {
+                    try {
+                        PdfProcessingResult result = process(file, source);
+                        boolean partial = PdfProcessingResult.PARTIAL.equals(result.status());
+                        Path partialTarget = output.resolve(source + PARTIAL_SUFFIX);
+                        if (ndjson) {
+                            appendLine(ndjsonWriter, new BatchLine(source, result));
+                        } else if (partial) {
+                            // Kept for inspection, but not under the name that marks the input as done.
+                            writeAtomically(partialTarget, result);
+                        } else {
+                            writeAtomically(target, result);
+                            Files.deleteIfExists(partialTarget);
+                        }
+                        totals.record(result);
+                    } catch (RuntimeException | IOException ex) {
+                        totals.failed.incrementAndGet();
+                        log.error("Batch extraction of {} failed", source, ex);
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+            }
+            workers.shutdown();
+            if (!workers.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS)) {
+                throw new IllegalStateException("Batch workers did not finish");
+            }
+        } finally {
+            workers.shutdownNow();
+        }
+
+        totals.logSummary(System.nanoTime() - started);
+        exitCode = totals.failed.get() > 0 ? 1 : 0;
+    }
+
+    @Override
+    public int getExitCode() {
+        return exitCode;
+    }
+
+    private PdfProcessingResult process(Path file, String source) throws IOException {
+        String extension = extension(file);
+        ProcessingMode mode = settings.getMode() != null ? settings.getMode()
+                : "pdf".equals(extension) ? ProcessingMode.PDF_BOX_WITH_OPENCV : ProcessingMode.OPENCV_ONLY;
+        PathMultipartFile upload = new PathMultipartFile(file, source, INPUT_TYPES.get(extension), Files.size(file));
+        return processingService.processPdf(upload, mode, ExtractionScope.ALL, settings.getTimeout());
+    }
+
+    // Sources with a complete result; PARTIAL lines and a torn last line do not count, so those inputs run again.
+    private Set<String> readFinished(Path ndjsonFile) throws IOException {
+        Set<String> done = new HashSet<>();
+        if (!Files.exists(ndjsonFile)) {
+            return done;
+        }
+        try (Stream<String> lines = Files.lines(ndjsonFile, StandardCharsets.UTF_8)) {
+            lines.forEach(line -> {
+                try {
+                    JsonNode parsed = objectMapper.readTree(line);
+                    JsonNode source = parsed.path("source");
+                    if (source.isTextual()
+                            && !PdfProcessingResult.PARTIAL.equals(parsed.path("result").path("status").asText())) {
+                        done.add(source.asText());
+                    }
+                } catch (IOException ex) {
+                    log.warn("Ignoring an incomplete line in {}", ndjsonFile);
+                }
+            });
+        }
+        return done;
+    }
+
+    private BufferedWriter openForAppend(Path ndjsonFile) throws IOException {
+        boolean tornTail = false;
+        if (Files.exists(ndjsonFile) && Files.size(ndjsonFile) > 0) {
+            try (RandomAccessFile raf = new RandomAccessFile(ndjsonFile.toFile(), "r")) {
+                raf.seek(raf.length() - 1);
+                tornTail = raf.read() != '\n';
+            }
+        }
+        BufferedWriter writer = Files.newBufferedWriter(ndjsonFile, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        if (tornTail) {
+            // Keeps the torn line on its own, so the first new result does not run into it.
+            writer.newLine();
+        }
+        return writer;
+    }
+
+    private void appendLine(BufferedWriter writer, BatchLine line) throws IOException {
+        String json = objectMapper.writeValueAsString(line);
+        synchronized (writer) {
+            writer.write(json);
+            writer.newLine();
+            writer.flush();
+        }
+    }
+
+    private void writeAtomically(Path target, PdfProcessingResult result) throws IOException {
+        Files.createDirectories(target.getParent());
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        try {
+            objectMapper.writeValue(temp.toFile(), result);
+            try {
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException ex) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private static Path requiredDirectory(String configured, String name) {
+        if (configured == null || configured.isBlank()) {
+            throw new IllegalStateException("form.processing.batch." + name + " must be set for batch extraction");
+        }
+        return Paths.get(configured).toAbsolutePath().normalize();
+    }
+
+    private static String extension(Path file) {
+        String name = file.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        return dot < 0 ? "" : name.substring(dot + 1).toLowerCase(Locale.ROOT);
+    }
+
+    private static final class Totals {
+
+        private final AtomicInteger processed = new AtomicInteger();
+        private final AtomicInteger partial = new AtomicInteger();
+        private final AtomicInteger failed = new AtomicInteger();
+        private final AtomicInteger skipped = new AtomicInteger();
+        private final AtomicLong pages = new AtomicLong();
+        private final AtomicLong bytes = new AtomicLong();
+
+        void record(PdfProcessingResult result) {
+            processed.incrementAndGet();
+            if (PdfProcessingResult.PARTIAL.equals(result.status())) {
+                partial.incrementAndGet();
+            }
+            pages.addAndGet(result.document() != null ? result.document().pages().size() : 0);
+            bytes.addAndGet(result.fileSize());
+        }
+
+        void logSummary(long elapsedNanos) {
+            double seconds = Math.max(elapsedNanos / 1_000_000_000d, 1e-9);
+            log.info(String.format(Locale.ROOT,
+                    "Batch finished in %.1fs: %d processed (%d partial), %d failed, %d skipped as already done; "
+                            + "%d page(s), %.2f files/s, %.2f pages/s, %.2f MB/s",
+                    seconds, processed.get(), partial.get(), failed.get(), skipped.get(), pages.get(),
+                    processed.get() / seconds, pages.get() / seconds, bytes.get() / seconds / (1024 * 1024)));
+        }
+    }
+}
@@ -1,9 +1,13 @@
 package com.contentmanagement.forms.api.config;
 
 import com.contentmanagement.forms.api.model.ProcessingMode;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
 
 @ConfigurationProperties(prefix = "form.processing")
 public class FormProcessingProperties {
@@ -14,6 +18,23 @@ public class FormProcessingProperties {
     private boolean ocrEnabled = true;
     private String ocrLanguage = "eng";
     private String tessDataPath = "classpath:tessdata";
+    private String tessDataCacheDir;
+    private boolean nativeLeakDetectionEnabled = false;
+    private double blankRegionInkThreshold = 0.01;
+    private double checkboxCheckedInkThreshold = 0.12;
+    private final OcrCache ocrCache = new OcrCache();
+    private final OcrProfiles ocrProfiles = new OcrProfiles();
+    private final Warmup warmup = new Warmup();
+    private final Artifacts artifacts = new Artifacts();
+    private final Queue queue = new Queue();
+    private final Results results = new Results();
+    private final Memory memory = new Memory();
+    private final RenderDpi renderDpi = new RenderDpi();
+    private final VectorLayout vectorLayout = new VectorLayout();
+    private final ScanImage scanImage = new ScanImage();
+    private final Cpu cpu = new Cpu();
+    private final Deadline deadline = new Deadline();
+    private final Batch batch = new Batch();
 
     public ProcessingMode getDefaultMode() {
         return defaultMode;
@@ -62,4 +83,703 @@ public class FormProcessingProperties {
     public void setTessDataPath(String tessDataPath) {
         this.tessDataPath = tessDataPath;
     }
+
+    public String getTessDataCacheDir() {
+        return tessDataCacheDir;
+    }
+
+    public void setTessDataCacheDir(String tessDataCacheDir) {
+        this.tessDataCacheDir = tessDataCacheDir;
+    }
+
+    public boolean isNativeLeakDetectionEnabled() {
+        return nativeLeakDetectionEnabled;
+    }
+
+    public void setNativeLeakDetectionEnabled(boolean nativeLeakDetectionEnabled) {
+        this.nativeLeakDetectionEnabled = nativeLeakDetectionEnabled;
+    }
+
+    public double getBlankRegionInkThreshold() {
+        return blankRegionInkThreshold;
+    }
+
+    public void setBlankRegionInkThreshold(double blankRegionInkThreshold) {
+        this.blankRegionInkThreshold = blankRegionInkThreshold;
+    }
+
+    public double getCheckboxCheckedInkThreshold() {
+        return checkboxCheckedInkThreshold;
+    }
+
+    public void setCheckboxCheckedInkThreshold(double checkboxCheckedInkThreshold) {
+        this.checkboxCheckedInkThreshold = checkboxCheckedInkThreshold;
+    }
+
+    public OcrCache getOcrCache() {
+        return ocrCache;
+    }
+
+    public OcrProfiles getOcrProfiles() {
+        return ocrProfiles;
+    }
+
+    public Warmup getWarmup() {
+        return warmup;
+    }
+
+    public Artifacts getArtifacts() {
+        return artifacts;
+    }
+
+    public Queue getQueue() {
+        return queue;
+    }
+
+    public Results getResults() {
+        return results;
+    }
+
+    public Memory getMemory() {
+        return memory;
+    }
+
+    public RenderDpi getRenderDpi() {
+        return renderDpi;
+    }
+
+    public VectorLayout getVectorLayout() {
+        return vectorLayout;
+    }
+
+    public ScanImage getScanImage() {
+        return scanImage;
+    }
+
+    public Cpu getCpu() {
+        return cpu;
+    }
+
+    public Deadline getDeadline() {
+        return deadline;
+    }
+
+    public Batch getBatch() {
+        return batch;
+    }
+
+    public static class Warmup {
+
+        private boolean enabled = false;
+        private int iterations = 3;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getIterations() {
+            return iterations;
+        }
+
+        public void setIterations(int iterations) {
+            this.iterations = iterations;
+        }
+    }
+
+    public static class Artifacts {
+
+        private boolean enabled = false;
+        private String directory;
+        private Duration ttl = Duration.ofDays(7);
+        private DataSize maxSize = DataSize.ofGigabytes(5);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public String getDirectory() {
+            return directory;
+        }
+
+        public void setDirectory(String directory) {
+            this.directory = directory;
+        }
+
+        public Duration getTtl() {
+            return ttl;
+        }
+
+        public void setTtl(Duration ttl) {
+            this.ttl = ttl;
+        }
+
+        public DataSize getMaxSize() {
+            return maxSize;
+        }
+
+        public void setMaxSize(DataSize maxSize) {
+            this.maxSize = maxSize;
+        }
+    }
+
+    public static class Queue {
+
+        public enum Type {
+            IN_MEMORY,
+            FILESYSTEM
+        }
+
+        private boolean enabled = false;
+        private Type type = Type.IN_MEMORY;
+        private String directory;
+        private int shardPages = 4;
+        private Integer workers;
+        private int maxAttempts = 3;
+        private Duration leaseDuration = Duration.ofMinutes(5);
+        private Duration pollInterval = Duration.ofMillis(500);
+        private Duration resultTimeout = Duration.ofMinutes(30);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public Type getType() {
+            return type;
+        }
+
+        public void setType(Type type) {
+            this.type = type;
+        }
+
+        public String getDirectory() {
+            return directory;
+        }
+
+        public void setDirectory(String directory) {
+            this.directory = directory;
+        }
+
+        public int getShardPages() {
+            return shardPages;
+        }
+
+        public void setShardPages(int shardPages) {
+            this.shardPages = shardPages;
+        }
+
+        public Integer getWorkers() {
+            return workers;
+        }
+
+        public void setWorkers(Integer workers) {
+            this.workers = workers;
+        }
+
+        public int getMaxAttempts() {
+            return maxAttempts;
+        }
+
+        public void setMaxAttempts(int maxAttempts) {
+            this.maxAttempts = maxAttempts;
+        }
+
+        public Duration getLeaseDuration() {
+            return leaseDuration;
+        }
+
+        public void setLeaseDuration(Duration leaseDuration) {
+            this.leaseDuration = leaseDuration;
+        }
+
+        public Duration getPollInterval() {
+            return pollInterval;
+        }
+
+        public void setPollInterval(Duration pollInterval) {
+            this.pollInterval = pollInterval;
+        }
+
+        public Duration getResultTimeout() {
+            return resultTimeout;
+        }
+
+        public void setResultTimeout(Duration resultTimeout) {
+            this.resultTimeout = resultTimeout;
+        }
+    }
+
+    public static class Results {
+
+        private boolean enabled = false;
+        private String directory;
+        private Duration ttl = Duration.ofHours(24);
+        private DataSize maxSize = DataSize.ofMegabytes(512);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public String getDirectory() {
+            return directory;
+        }
+
+        public void setDirectory(String directory) {
+            this.directory = directory;
+        }
+
+        public Duration getTtl() {
+            return ttl;
+        }
+
+        public void setTtl(Duration ttl) {
+            this.ttl = ttl;
+        }
+
+        public DataSize getMaxSize() {
+            return maxSize;
+        }
+
+        public void setMaxSize(DataSize maxSize) {
+            this.maxSize = maxSize;
+        }
+    }
+
+    public static class Memory {
+
+        private boolean enabled = true;
+        private DataSize budget;
+        private int minDpi = 100;
+        private Duration acquireTimeout = Duration.ofMinutes(2);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public DataSize getBudget() {
+            return budget;
+        }
+
+        public void setBudget(DataSize budget) {
+            this.budget = budget;
+        }
+
+        public int getMinDpi() {
+            return minDpi;
+        }
+
+        public void setMinDpi(int minDpi) {
+            this.minDpi = minDpi;
+        }
+
+        public Duration getAcquireTimeout() {
+            return acquireTimeout;
+        }
+
+        public void setAcquireTimeout(Duration acquireTimeout) {
+            this.acquireTimeout = acquireTimeout;
+        }
+    }
+
+    public static class Deadline {
+
+        private Duration defaultTimeout = Duration.ofMinutes(5);
+        private Duration maxTimeout = Duration.ofMinutes(30);
+
+        public Duration getDefaultTimeout() {
+            return defaultTimeout;
+        }
+
+        public void setDefaultTimeout(Duration defaultTimeout) {
+            this.defaultTimeout = defaultTimeout;
+        }
+
+        public Duration getMaxTimeout() {
+            return maxTimeout;
+        }
+
+        public void setMaxTimeout(Duration maxTimeout) {
+            this.maxTimeout = maxTimeout;
+        }
+    }
+
+    public static class Batch {
+
+        public enum Format {
+            JSON,
+            NDJSON
+        }
+
+        private boolean enabled = false;
+        private String inputDirectory;
+        private String outputDirectory;
+        private Format format = Format.JSON;
+        private int parallelism = 0;
+        private ProcessingMode mode;
+        private Duration timeout;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public String getInputDirectory() {
+            return inputDirectory;
+        }
+
+        public void setInputDirectory(String inputDirectory) {
+            this.inputDirectory = inputDirectory;
+        }
+
+        public String getOutputDirectory() {
+            return outputDirectory;
+        }
+
+        public void setOutputDirectory(String outputDirectory) {
+            this.outputDirectory = outputDirectory;
+        }
+
+        public Format getFormat() {
+            return format;
+        }
+
+        public void setFormat(Format format) {
+            this.format = format;
+        }
+
+        public int getParallelism() {
+            return parallelism;
+        }
+
+        public void setParallelism(int parallelism) {
+            this.parallelism = parallelism;
+        }
+
+        public ProcessingMode getMode() {
+            return mode;
+        }
+
+        public void setMode(ProcessingMode mode) {
+            this.mode = mode;
+        }
+
+        public Duration getTimeout() {
+            return timeout;
+        }
+
+        public void setTimeout(Duration timeout) {
+            this.timeout = timeout;
+        }
+    }
+
+    public static class Cpu {
+
+        private int cores = 0;
+        private int concurrentExtractions = 0;
+        private Duration acquireTimeout = Duration.ofMinutes(2);
+
+        public int getCores() {
+            return cores;
+        }
+
+        public void setCores(int cores) {
+            this.cores = cores;
+        }
+
+        public int getConcurrentExtractions() {
+            return concurrentExtractions;
+        }
+
+        public void setConcurrentExtractions(int concurrentExtractions) {
+            this.concurrentExtractions = concurrentExtractions;
+        }
+
+        public Duration getAcquireTimeout() {
+            return acquireTimeout;
+        }
+
+        public void setAcquireTimeout(Duration acquireTimeout) {
+            this.acquireTimeout = acquireTimeout;
+        }
+    }
+
+    public static class RenderDpi {
+
+        private boolean adaptive = true;
+        private int defaultDpi = 200;
+        private int minDpi = 100;
+        private int maxDpi = 300;
+        private int targetFontHeightPx = 28;
+        private long maxPagePixels = 24_000_000L;
+
+        public boolean isAdaptive() {
+            return adaptive;
+        }
+
+        public void setAdaptive(boolean adaptive) {
+            this.adaptive = adaptive;
+        }
+
+        public int getDefaultDpi() {
+            return defaultDpi;
+        }
+
+        public void setDefaultDpi(int defaultDpi) {
+            this.defaultDpi = defaultDpi;
+        }
+
+        public int getMinDpi() {
+            return minDpi;
+        }
+
+        public void setMinDpi(int minDpi) {
+            this.minDpi = minDpi;
+        }
+
+        public int getMaxDpi() {
+            return maxDpi;
+        }
+
+        public void setMaxDpi(int maxDpi) {
+            this.maxDpi = maxDpi;
+        }
+
+        public int getTargetFontHeightPx() {
+            return targetFontHeightPx;
+        }
+
+        public void setTargetFontHeightPx(int targetFontHeightPx) {
+            this.targetFontHeightPx = targetFontHeightPx;
+        }
+
+        public long getMaxPagePixels() {
+            return maxPagePixels;
+        }
+
+        public void setMaxPagePixels(long maxPagePixels) {
+            this.maxPagePixels = maxPagePixels;
+        }
+    }
+
+    public static class VectorLayout {
+
+        private boolean enabled = true;
+        private int minShapes = 3;
+        private double maxImageCoverage = 0.1;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getMinShapes() {
+            return minShapes;
+        }
+
+        public void setMinShapes(int minShapes) {
+            this.minShapes = minShapes;
+        }
+
+        public double getMaxImageCoverage() {
+            return maxImageCoverage;
+        }
+
+        public void setMaxImageCoverage(double maxImageCoverage) {
+            this.maxImageCoverage = maxImageCoverage;
+        }
+    }
+
+    public static class ScanImage {
+
+        private boolean enabled = true;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+    }
+
+    public static class OcrCache {
+
+        private boolean enabled = false;
+        private int maxEntries = 10_000;
+        private int maxHammingDistance = 0;
+        private int sizeBucketPx = 8;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getMaxEntries() {
+            return maxEntries;
+        }
+
+        public void setMaxEntries(int maxEntries) {
+            this.maxEntries = maxEntries;
+        }
+
+        public int getMaxHammingDistance() {
+            return maxHammingDistance;
+        }
+
+        public void setMaxHammingDistance(int maxHammingDistance) {
+            this.maxHammingDistance = maxHammingDistance;
+        }
+
+        public int getSizeBucketPx() {
+            return sizeBucketPx;
+        }
+
+        public void setSizeBucketPx(int sizeBucketPx) {
+            this.sizeBucketPx = sizeBucketPx;
+        }
+    }
+
+    public static class OcrProfiles {
+
+        private String defaultProfile = "block";
+        private Map<String, String> byComponentType = new LinkedHashMap<>();
+        private Map<String, String> byWidgetType = new LinkedHashMap<>();
+        private Map<String, Definition> definitions = new LinkedHashMap<>();
+
+        public String getDefaultProfile() {
+            return defaultProfile;
+        }
+
+        public void setDefaultProfile(String defaultProfile) {
+            this.defaultProfile = defaultProfile;
+        }
+
+        public Map<String, String> getByComponentType() {
+            return byComponentType;
+        }
+
+        public void setByComponentType(Map<String, String> byComponentType) {
+            this.byComponentType = byComponentType;
+        }
+
+        public Map<String, String> getByWidgetType() {
+            return byWidgetType;
+        }
+
+        public void setByWidgetType(Map<String, String> byWidgetType) {
+            this.byWidgetType = byWidgetType;
+        }
+
+        public Map<String, Definition> getDefinitions() {
+            return definitions;
+        }
+
+        public void setDefinitions(Map<String, Definition> definitions) {
+            this.definitions = definitions;
+        }
+
+        public static class Definition {
+
+            private int pageSegMode = 6;
+            private double scaleFactor = 2.0;
+            private int targetTextHeightPx = 0;
+            private double minScale = 1.0;
+            private double maxScale = 3.0;
+            private List<String> filters = new ArrayList<>(List.of("BILATERAL"));
+            private boolean morphologyClose = true;
+            private String characterWhitelist;
+
+            public int getPageSegMode() {
+                return pageSegMode;
+            }
+
+            public void setPageSegMode(int pageSegMode) {
+                this.pageSegMode = pageSegMode;
+            }
+
+            public double getScaleFactor() {
+                return scaleFactor;
+            }
+
+            public void setScaleFactor(double scaleFactor) {
+                this.scaleFactor = scaleFactor;
+            }
+
+            public int getTargetTextHeightPx() {
+                return targetTextHeightPx;
+            }
+
+            public void setTargetTextHeightPx(int targetTextHeightPx) {
+                this.targetTextHeightPx = targetTextHeightPx;
+            }
+
+            public double getMinScale() {
+                return minScale;
+            }
+
+            public void setMinScale(double minScale) {
+                this.minScale = minScale;
+            }
+
+            public double getMaxScale() {
+                return maxScale;
+            }
+
+            public void setMaxScale(double maxScale) {
+                this.maxScale = maxScale;
+            }
+
+            public List<String> getFilters() {
+                return filters;
+            }
+
+            public void setFilters(List<String> filters) {
+                this.filters = filters;
+            }
+
+            public boolean isMorphologyClose() {
+                return morphologyClose;
+            }
+
+            public void setMorphologyClose(boolean morphologyClose) {
+                this.morphologyClose = morphologyClose;
+            }
+
+            public String getCharacterWhitelist() {
+                return characterWhitelist;
+            }
+
+            public void setCharacterWhitelist(String characterWhitelist) {
+                this.characterWhitelist = characterWhitelist;
+            }
+        }
+    }
 }
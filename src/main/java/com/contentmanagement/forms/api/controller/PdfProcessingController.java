@@ -3,9 +3,15 @@ package com.contentmanagement.forms.api.controller;
 import com.contentmanagement.forms.api.model.PdfProcessingResult;
 import com.contentmanagement.forms.api.model.ProcessingMode;
 import com.contentmanagement.forms.api.service.PdfProcessingService;
+import com.contentmanagement.forms.api.service.extraction.ArtifactStage;
+import com.contentmanagement.forms.api.service.extraction.ExtractionScope;
+import com.contentmanagement.forms.api.service.extraction.OpenCvImageLoader;
+import com.contentmanagement.forms.api.service.extraction.UnsupportedUploadException;
+import java.time.Duration;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
@@ -27,10 +33,35 @@ public class PdfProcessingController {
     @PostMapping(consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
     public ResponseEntity<PdfProcessingResult> uploadPdf(
             @RequestPart(value = "file", required = false) MultipartFile file,
-            @RequestParam(name = "mode", required = false) ProcessingMode mode) {
+            @RequestParam(name = "mode", required = false) ProcessingMode mode,
+            @RequestParam(name = "pages", required = false) String pages,
+            @RequestParam(name = "regions", required = false) String regions,
+            @RequestParam(name = "timeout", required = false) String timeout) {
         ProcessingMode effectiveMode = mode != null ? mode : ProcessingMode.OPENCV_ONLY;
         MultipartFile effectiveFile = resolveFileForMode(file, effectiveMode);
-        PdfProcessingResult result = pdfProcessingService.processPdf(effectiveFile, effectiveMode);
+        ExtractionScope scope = RequestParameters.parseScope(pages, regions);
+        Duration effectiveTimeout = RequestParameters.parseTimeout(timeout);
+        try {
+            PdfProcessingResult result = pdfProcessingService.processPdf(effectiveFile, effectiveMode, scope,
+                    effectiveTimeout);
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(result);
+        } catch (UnsupportedUploadException ex) {
+            // Uploads OPENCV_ONLY cannot decode (corrupt or unsupported images) are the caller's to fix.
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, ex.getMessage(), ex);
+        }
+    }
+
+    @PostMapping(path = "/{documentId}/reprocess")
+    public ResponseEntity<PdfProcessingResult> reprocess(
+            @PathVariable("documentId") String documentId,
+            @RequestParam(name = "mode", required = false) ProcessingMode mode,
+            @RequestParam(name = "from", required = false) ArtifactStage from,
+            @RequestParam(name = "pages", required = false) String pages,
+            @RequestParam(name = "regions", required = false) String regions,
+            @RequestParam(name = "timeout", required = false) String timeout) {
+        PdfProcessingResult result = pdfProcessingService
+                .reprocess(documentId, mode, from, RequestParameters.parseScope(pages, regions), RequestParameters.parseTimeout(timeout))
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "No stored source for document " + documentId));
         return ResponseEntity.status(HttpStatus.ACCEPTED).body(result);
     }
 
@@ -41,8 +72,15 @@ public class PdfProcessingController {
             }
             return file;
         }
-        // NOTE: The uploaded file is currently ignored in OPENCV_ONLY mode because the workflow
-        // relies on resource-backed imagery until the original PDF asset becomes available.
-        return null;
+        // OPENCV_ONLY decodes uploaded PNG/JPEG/TIFF images and falls back to the configured
+        // resource imagery when nothing was uploaded.
+        if (file == null || file.isEmpty()) {
+            return null;
+        }
+        if (OpenCvImageLoader.isPdf(file)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "PDF uploads require mode=PDF_BOX_WITH_OPENCV; OPENCV_ONLY accepts PNG, JPEG and TIFF images");
+        }
+        return file;
     }
 }
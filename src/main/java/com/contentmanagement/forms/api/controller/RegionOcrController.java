@@ -0,0 +1,70 @@
+package com.contentmanagement.forms.api.controller;
+
+import com.contentmanagement.forms.api.model.RegionOcrRequest;
+import com.contentmanagement.forms.api.model.RegionOcrResult;
+import com.contentmanagement.forms.api.service.extraction.InvalidRegionRequestException;
+import com.contentmanagement.forms.api.service.extraction.RegionOcrService;
+import com.contentmanagement.forms.api.service.extraction.UnsupportedUploadException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.List;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RequestPart;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * OCR of caller-supplied boxes on one page, without layout detection. {@code regions} is a JSON array of
+ * {@link RegionOcrRequest}, for example
+ * {@code [{"id":"loan","x":72,"y":140,"width":180,"height":18,"widgetType":"number"}]}.
+ */
+@RestController
+@RequestMapping(path = "/api/ocr", produces = MediaType.APPLICATION_JSON_VALUE)
+public class RegionOcrController {
+
+    private static final TypeReference<List<RegionOcrRequest>> REGIONS = new TypeReference<>() {
+    };
+
+    private final RegionOcrService regionOcrService;
+    private final ObjectMapper objectMapper;
+
+    public RegionOcrController(RegionOcrService regionOcrService, ObjectMapper objectMapper) {
+        this.regionOcrService = regionOcrService;
+        this.objectMapper = objectMapper;
+    }
+
+    @PostMapping(consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<RegionOcrResult> recognize(
+            @RequestPart("file") MultipartFile file,
+            @RequestParam(name = "regions") String regions,
+            @RequestParam(name = "page", defaultValue = "1") int page,
+            @RequestParam(name = "timeout", required = false) String timeout) {
+        if (!regionOcrService.isAvailable()) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "OCR is disabled");
+        }
+        if (page < 1) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Page numbers start at 1");
+        }
+        try {
+            return ResponseEntity.ok(regionOcrService.recognize(file, page - 1, parseRegions(regions),
+                    RequestParameters.parseTimeout(timeout)));
+        } catch (InvalidRegionRequestException | UnsupportedUploadException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, ex.getMessage(), ex);
+        }
+    }
+
+    private List<RegionOcrRequest> parseRegions(String regions) {
+        try {
+            return objectMapper.readValue(regions, REGIONS);
+        } catch (JsonProcessingException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid regions: " + ex.getOriginalMessage(), ex);
+        }
+    }
+}
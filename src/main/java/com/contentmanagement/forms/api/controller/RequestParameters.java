@@ -0,0 +1,38 @@
+package com.contentmanagement.forms.api.controller;
+
+import com.contentmanagement.forms.api.service.extraction.ExtractionScope;
+import java.time.Duration;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+/** Parsing of request parameters shared by the extraction endpoints. */
+final class RequestParameters {
+
+    private RequestParameters() {
+    }
+
+    static ExtractionScope parseScope(String pages, String regions) {
+        try {
+            return ExtractionScope.parse(pages, regions);
+        } catch (IllegalArgumentException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, ex.getMessage(), ex);
+        }
+    }
+
+    // Accepts the same forms as Duration properties: 30s, 2m, 1500ms or ISO-8601.
+    static Duration parseTimeout(String timeout) {
+        if (timeout == null || timeout.isBlank()) {
+            return null;
+        }
+        try {
+            Duration parsed = DurationStyle.detectAndParse(timeout.trim());
+            if (parsed.isNegative() || parsed.isZero()) {
+                throw new IllegalArgumentException("must be positive");
+            }
+            return parsed;
+        } catch (IllegalArgumentException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid timeout '" + timeout + "': " + ex.getMessage(), ex);
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.contentmanagement.forms.api.controller;
+
+import com.contentmanagement.forms.api.model.FormPage;
+import com.contentmanagement.forms.api.model.LayoutNode;
+import com.contentmanagement.forms.api.model.NodeType;
+import com.contentmanagement.forms.api.model.ProcessingMode;
+import com.contentmanagement.forms.api.model.StoredResultSummary;
+import com.contentmanagement.forms.api.service.result.FormResultStore;
+import java.util.List;
+import java.util.Set;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Serves stored results. A document has one result per processing mode and scope; {@code pages} and
+ * {@code regions} select the scope as they did on the request that produced it, and without {@code mode} the most
+ * recently stored result of that scope is returned.
+ */
+@RestController
+@RequestMapping(path = "/api/results", produces = MediaType.APPLICATION_JSON_VALUE)
+public class ResultController {
+
+    private static final int MAX_PAGE_LIMIT = 50;
+
+    private final FormResultStore resultStore;
+
+    public ResultController(FormResultStore resultStore) {
+        this.resultStore = resultStore;
+    }
+
+    @GetMapping("/{documentId}")
+    public StoredResultSummary summary(
+            @PathVariable("documentId") String documentId,
+            @RequestParam(name = "mode", required = false) ProcessingMode mode,
+            @RequestParam(name = "pages", required = false) String pages,
+            @RequestParam(name = "regions", required = false) String regions) {
+        return resultStore.summary(documentId, mode, RequestParameters.parseScope(pages, regions))
+                .orElseThrow(() -> notFound(documentId));
+    }
+
+    @GetMapping("/{documentId}/pages")
+    public List<FormPage> pages(
+            @PathVariable("documentId") String documentId,
+            @RequestParam(name = "mode", required = false) ProcessingMode mode,
+            @RequestParam(name = "pages", required = false) String pages,
+            @RequestParam(name = "regions", required = false) String regions,
+            @RequestParam(name = "offset", defaultValue = "0") int offset,
+            @RequestParam(name = "limit", defaultValue = "10") int limit) {
+        if (offset < 0 || limit < 1 || limit > MAX_PAGE_LIMIT) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "offset must be >= 0 and limit between 1 and " + MAX_PAGE_LIMIT);
+        }
+        return resultStore.pages(documentId, mode, RequestParameters.parseScope(pages, regions), offset, limit)
+                .orElseThrow(() -> notFound(documentId));
+    }
+
+    @GetMapping("/{documentId}/pages/{pageIndex}")
+    public FormPage page(
+            @PathVariable("documentId") String documentId,
+            @PathVariable("pageIndex") int pageIndex,
+            @RequestParam(name = "mode", required = false) ProcessingMode mode,
+            @RequestParam(name = "pages", required = false) String pages,
+            @RequestParam(name = "regions", required = false) String regions) {
+        return resultStore.page(documentId, mode, RequestParameters.parseScope(pages, regions), pageIndex)
+                .orElseThrow(() -> notFound(documentId, pageIndex));
+    }
+
+    @GetMapping("/{documentId}/pages/{pageIndex}/nodes")
+    public List<LayoutNode> nodes(
+            @PathVariable("documentId") String documentId,
+            @PathVariable("pageIndex") int pageIndex,
+            @RequestParam(name = "mode", required = false) ProcessingMode mode,
+            @RequestParam(name = "pages", required = false) String pages,
+            @RequestParam(name = "regions", required = false) String regions,
+            @RequestParam(name = "ids", required = false) Set<String> ids,
+            @RequestParam(name = "type", required = false) NodeType type) {
+        return resultStore.nodes(documentId, mode, RequestParameters.parseScope(pages, regions), pageIndex, ids, type)
+                .orElseThrow(() -> notFound(documentId, pageIndex));
+    }
+
+    @DeleteMapping("/{documentId}")
+    public ResponseEntity<Void> delete(@PathVariable("documentId") String documentId) {
+        if (!resultStore.delete(documentId)) {
+            throw notFound(documentId);
+        }
+        return ResponseEntity.noContent().build();
+    }
+
+    private static ResponseStatusException notFound(String documentId) {
+        return new ResponseStatusException(HttpStatus.NOT_FOUND, "No stored result for document " + documentId);
+    }
+
+    private static ResponseStatusException notFound(String documentId, int pageIndex) {
+        return new ResponseStatusException(HttpStatus.NOT_FOUND,
+                "No stored page " + pageIndex + " for document " + documentId);
+    }
+}
@@ -15,6 +15,8 @@ public record LayoutNode(
         NodeStyle style,
         WidgetSpec widget,
         List<String> children,
-        NodeAssociations associations
+        NodeAssociations associations,
+        List<TableColumn> columns,
+        List<TableRow> rows
 ) {
 }
@@ -4,10 +4,15 @@ import com.fasterxml.jackson.annotation.JsonInclude;
 
 @JsonInclude(JsonInclude.Include.NON_NULL)
 public record PdfProcessingResult(
+        String documentId,
         String fileName,
         long fileSize,
         ProcessingMode processingMode,
         String status,
-        FormDocument document
+        FormDocument document,
+        String detail
 ) {
+
+    public static final String PROCESSED = "PROCESSED";
+    public static final String PARTIAL = "PARTIAL";
 }
@@ -0,0 +1,18 @@
+package com.contentmanagement.forms.api.model;
+
+/**
+ * A caller-supplied box to read. Coordinates follow the {@code regions} convention of {@code /api/pdf}: PDF points
+ * with a top-left origin for PDFs, pixels for images. {@code profile} names an OCR profile; otherwise
+ * {@code widgetType} selects the profile configured for that widget, and without either the default profile is
+ * used.
+ */
+public record RegionOcrRequest(
+        String id,
+        double x,
+        double y,
+        double width,
+        double height,
+        String profile,
+        WidgetType widgetType
+) {
+}
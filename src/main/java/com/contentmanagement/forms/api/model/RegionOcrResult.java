@@ -0,0 +1,22 @@
+package com.contentmanagement.forms.api.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import java.util.List;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record RegionOcrResult(
+        String fileName,
+        int page,
+        String status,
+        String detail,
+        List<RegionText> regions
+) {
+
+    /**
+     * @param confidence Tesseract's word confidence averaged over the characters read, from 0 to 1; {@code null}
+     *                   when nothing was read
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public record RegionText(String id, String profile, String text, Double confidence) {
+    }
+}
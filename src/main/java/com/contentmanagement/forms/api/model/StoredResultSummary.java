@@ -0,0 +1,30 @@
+package com.contentmanagement.forms.api.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Everything about a stored result except its pages, which are fetched one at a time or in slices.
+ *
+ * @param detail why a {@code PARTIAL} result stopped early
+ * @param requestedPages the {@code pages} the result was limited to; absent for the whole document
+ * @param requestedRegions the {@code regions} the result was limited to; absent when there were none
+ * @param pages indices of the stored pages, in order
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record StoredResultSummary(
+        String documentId,
+        String fileName,
+        long fileSize,
+        ProcessingMode processingMode,
+        String status,
+        String detail,
+        String requestedPages,
+        String requestedRegions,
+        FormMeta meta,
+        List<Integer> pages,
+        Instant storedAt,
+        Instant expiresAt
+) {
+}
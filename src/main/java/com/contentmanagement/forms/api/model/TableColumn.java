@@ -0,0 +1,11 @@
+package com.contentmanagement.forms.api.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record TableColumn(
+        String key,
+        String header,
+        Double width
+) {
+}
@@ -0,0 +1,26 @@
+package com.contentmanagement.forms.api.model;
+
+import com.fasterxml.jackson.annotation.JsonAnyGetter;
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * One table row. Cell text is written inline under the {@link TableColumn#key()} of its column, matching the
+ * {@code rows} shape of the v2 form schema; empty cells are omitted.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record TableRow(
+        String id,
+        @JsonAnyGetter Map<String, String> cells
+) {
+
+    /** Reads the inline shape back, so documents handed between workers survive a JSON round trip. */
+    @JsonCreator(mode = JsonCreator.Mode.DELEGATING)
+    static TableRow fromJson(Map<String, String> properties) {
+        Map<String, String> cells = new LinkedHashMap<>(properties);
+        String id = cells.remove("id");
+        return new TableRow(id, cells);
+    }
+}
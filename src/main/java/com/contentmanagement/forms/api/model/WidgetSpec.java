@@ -8,6 +8,7 @@ public record WidgetSpec(
         WidgetType type,
         String name,
         List<String> options,
-        Boolean required
+        Boolean required,
+        Boolean checked
 ) {
 }
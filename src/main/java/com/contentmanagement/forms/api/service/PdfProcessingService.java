@@ -4,11 +4,21 @@ import com.contentmanagement.forms.api.config.FormProcessingProperties;
 import com.contentmanagement.forms.api.model.FormDocument;
 import com.contentmanagement.forms.api.model.PdfProcessingResult;
 import com.contentmanagement.forms.api.model.ProcessingMode;
+import com.contentmanagement.forms.api.service.extraction.ArtifactStage;
+import com.contentmanagement.forms.api.service.extraction.CpuBudget;
+import com.contentmanagement.forms.api.service.extraction.ExtractionDeadline;
+import com.contentmanagement.forms.api.service.extraction.ExtractionScope;
 import com.contentmanagement.forms.api.service.extraction.FormExtractionContext;
 import com.contentmanagement.forms.api.service.extraction.FormExtractionStrategy;
+import com.contentmanagement.forms.api.service.extraction.StageArtifactStore;
+import com.contentmanagement.forms.api.service.queue.ShardCoordinator;
+import com.contentmanagement.forms.api.service.result.FormResultStore;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.EnumMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
@@ -21,29 +31,127 @@ public class PdfProcessingService {
 
     private final Map<ProcessingMode, FormExtractionStrategy> strategies;
     private final FormProcessingProperties properties;
+    private final StageArtifactStore artifactStore;
+    private final ShardCoordinator shardCoordinator;
+    private final FormResultStore resultStore;
+    private final CpuBudget cpuBudget;
 
     public PdfProcessingService(List<FormExtractionStrategy> strategies,
-                                FormProcessingProperties properties) {
+                                FormProcessingProperties properties,
+                                StageArtifactStore artifactStore,
+                                ShardCoordinator shardCoordinator,
+                                FormResultStore resultStore,
+                                CpuBudget cpuBudget) {
         this.strategies = new EnumMap<>(ProcessingMode.class);
         for (FormExtractionStrategy strategy : strategies) {
             this.strategies.put(strategy.supportedMode(), strategy);
         }
         this.properties = properties;
+        this.artifactStore = artifactStore;
+        this.shardCoordinator = shardCoordinator;
+        this.resultStore = resultStore;
+        this.cpuBudget = cpuBudget;
     }
 
-    public PdfProcessingResult processPdf(MultipartFile pdfFile, ProcessingMode requestedMode) {
+    /**
+     * @param timeout how long extraction may take before the pages finished so far are returned as a
+     *                {@code PARTIAL} result; {@code null} for {@code deadline.default-timeout}
+     */
+    public PdfProcessingResult processPdf(MultipartFile pdfFile, ProcessingMode requestedMode, ExtractionScope scope,
+                                          Duration timeout) {
+        ExtractionDeadline deadline = deadline(timeout);
         ProcessingMode effectiveMode = requestedMode != null ? requestedMode : properties.getDefaultMode();
-        FormExtractionStrategy strategy = strategies.get(effectiveMode);
-        if (strategy == null) {
-            throw new IllegalArgumentException("No strategy registered for mode " + effectiveMode);
+        FormExtractionStrategy strategy = resolveStrategy(effectiveMode);
+
+        boolean uploaded = pdfFile != null && !pdfFile.isEmpty();
+        try (StageArtifactStore.Pin stored = artifactStore.isEnabled() && uploaded
+                ? artifactStore.storeSource(pdfFile, effectiveMode) : null) {
+            String documentId = stored != null ? stored.documentId()
+                    : resultStore.isEnabled() && uploaded ? StageArtifactStore.documentId(pdfFile) : null;
+
+            log.info("Processing request using mode {}", effectiveMode);
+            FormExtractionContext context = new FormExtractionContext(
+                    pdfFile, effectiveMode, documentId, null, scope, deadline);
+            // Sharded documents only wait here; the slots are taken by the workers that extract the shards.
+            FormDocument document = shardCoordinator.extract(pdfFile, effectiveMode, scope, deadline)
+                    .orElseGet(() -> extract(strategy, context));
+            String fileName = resolveFileName(pdfFile, effectiveMode);
+            long fileSize = pdfFile != null ? pdfFile.getSize() : 0L;
+
+            PdfProcessingResult result = new PdfProcessingResult(
+                    documentId, fileName, fileSize, effectiveMode, status(deadline), document, deadline.partialReason());
+            resultStore.put(result, scope);
+            return result;
+        }
+    }
+
+    /**
+     * Re-runs extraction on a previously stored source. Stages whose settings fingerprint is unchanged are
+     * reused; {@code from} additionally forces that stage and everything after it to be recomputed.
+     *
+     * @return empty when no source is stored under {@code documentId}
+     */
+    public Optional<PdfProcessingResult> reprocess(String documentId, ProcessingMode requestedMode, ArtifactStage from,
+                                                   ExtractionScope scope, Duration timeout) {
+        ExtractionDeadline deadline = deadline(timeout);
+        try (StageArtifactStore.Pin pin = artifactStore.pin(documentId)) {
+            return artifactStore.loadSource(documentId).map(source -> {
+                ProcessingMode effectiveMode = requestedMode != null ? requestedMode
+                        : source.mode() != null ? source.mode() : properties.getDefaultMode();
+                FormExtractionStrategy strategy = resolveStrategy(effectiveMode);
+                MultipartFile file = new PathMultipartFile(
+                        source.path(), source.originalFilename(), source.contentType(), source.size());
+
+                log.info("Re-processing document {} using mode {} from stage {}", documentId, effectiveMode,
+                        from != null ? from : "first invalidated");
+                FormDocument document = extract(strategy,
+                        new FormExtractionContext(file, effectiveMode, documentId, from, scope, deadline));
+                PdfProcessingResult result = new PdfProcessingResult(documentId, source.originalFilename(),
+                        source.size(), effectiveMode, status(deadline), document, deadline.partialReason());
+                resultStore.put(result, scope);
+                return result;
+            });
+        }
+    }
+
+    /**
+     * Extracts one page range of a queued document. Runs on the worker that leased the shard, so it never shards
+     * again; stage artifacts are shared with other shards of the same content through the document id.
+     *
+     * @param deadline the coordinator's deadline, or {@code null} for {@code deadline.default-timeout}
+     */
+    public FormDocument extractShard(MultipartFile file, ProcessingMode mode, ExtractionScope scope, Instant deadline) {
+        FormExtractionStrategy strategy = resolveStrategy(mode);
+        try (StageArtifactStore.Pin stored = artifactStore.isEnabled() ? artifactStore.storeSource(file, mode) : null) {
+            return extract(strategy, new FormExtractionContext(file, mode, stored != null ? stored.documentId() : null,
+                    null, scope, deadline != null ? ExtractionDeadline.at(deadline) : deadline(null)));
         }
+    }
+
+    private FormDocument extract(FormExtractionStrategy strategy, FormExtractionContext context) {
+        try (CpuBudget.Slot slot = cpuBudget.acquire(resolveFileName(context.sourceFile(), context.mode()));
+             ExtractionDeadline.Binding binding = context.deadline().bind()) {
+            return strategy.extract(context);
+        }
+    }
 
-        log.info("Processing request using mode {}", effectiveMode);
-        FormDocument document = strategy.extract(new FormExtractionContext(pdfFile, effectiveMode));
-        String fileName = resolveFileName(pdfFile, effectiveMode);
-        long fileSize = pdfFile != null ? pdfFile.getSize() : 0L;
+    // Starts when the request arrives, so time spent waiting for a CPU slot or memory counts against it.
+    private ExtractionDeadline deadline(Duration timeout) {
+        Duration max = properties.getDeadline().getMaxTimeout();
+        Duration effective = timeout != null ? timeout : properties.getDeadline().getDefaultTimeout();
+        return ExtractionDeadline.after(effective.compareTo(max) > 0 ? max : effective);
+    }
+
+    private static String status(ExtractionDeadline deadline) {
+        return deadline.partialReason() != null ? PdfProcessingResult.PARTIAL : PdfProcessingResult.PROCESSED;
+    }
 
-        return new PdfProcessingResult(fileName, fileSize, effectiveMode, "PROCESSED", document);
+    private FormExtractionStrategy resolveStrategy(ProcessingMode mode) {
+        FormExtractionStrategy strategy = strategies.get(mode);
+        if (strategy == null) {
+            throw new IllegalArgumentException("No strategy registered for mode " + mode);
+        }
+        return strategy;
     }
 
     private String resolveFileName(MultipartFile pdfFile, ProcessingMode mode) {
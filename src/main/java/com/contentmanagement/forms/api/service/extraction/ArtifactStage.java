@@ -0,0 +1,15 @@
+package com.contentmanagement.forms.api.service.extraction;
+
+/**
+ * Pipeline stages whose output is persisted by {@link StageArtifactStore}, in execution order. Re-processing from
+ * a stage discards that stage and everything after it.
+ */
+public enum ArtifactStage {
+    RENDER,
+    LAYOUT,
+    ENRICHED;
+
+    boolean isInvalidatedBy(ArtifactStage from) {
+        return from != null && compareTo(from) >= 0;
+    }
+}
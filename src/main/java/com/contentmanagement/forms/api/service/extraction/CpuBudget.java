@@ -0,0 +1,146 @@
+package com.contentmanagement.forms.api.service.extraction;
+
+import com.contentmanagement.forms.api.config.FormProcessingProperties;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import org.opencv.core.Core;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.actuate.info.Info;
+import org.springframework.boot.actuate.info.InfoContributor;
+import org.springframework.stereotype.Component;
+
+/**
+ * One CPU budget for the whole process. OpenCV's {@code parallel_for} and Tesseract's OpenMP both default to one
+ * thread per core, and every request thread that calls into them multiplies that. Here {@code cpu.cores} is split
+ * into extraction slots (how many extractions run at once) and native threads per extraction, so that the two
+ * multiplied never exceed the budget. OpenCV's thread count is set once its natives load; Tesseract's OpenMP can
+ * only be limited by exporting {@code OMP_THREAD_LIMIT} before the JVM starts, which is checked and reported here.
+ * The effective values are published under {@code cpu} in {@code /actuator/info}.
+ */
+@Component
+public class CpuBudget implements InfoContributor {
+
+    private static final Logger log = LoggerFactory.getLogger(CpuBudget.class);
+    private static final String OMP_THREAD_LIMIT = "OMP_THREAD_LIMIT";
+
+    private final FormProcessingProperties.Cpu settings;
+    private final int cores;
+    private final int slots;
+    private final int nativeThreads;
+    private final Semaphore permits;
+    private final String ompThreadLimit;
+
+    public CpuBudget(FormProcessingProperties properties) {
+        this.settings = properties.getCpu();
+        int available = Runtime.getRuntime().availableProcessors();
+        this.cores = settings.getCores() > 0 ? settings.getCores() : available;
+        int configuredSlots = settings.getConcurrentExtractions();
+        this.slots = configuredSlots > 0 ? Math.min(configuredSlots, cores) : cores;
+        this.nativeThreads = Math.max(1, cores / slots);
+        this.permits = new Semaphore(slots, true);
+        this.ompThreadLimit = checkOmpThreadLimit(nativeThreads);
+        log.info("CPU budget: {} core(s) of {} available, {} concurrent extraction(s) with {} native thread(s) each",
+                cores, available, slots, nativeThreads);
+    }
+
+    public int cores() {
+        return cores;
+    }
+
+    /** Extractions allowed to run at once; also the default number of shard workers. */
+    public int concurrentExtractions() {
+        return slots;
+    }
+
+    public int nativeThreadsPerExtraction() {
+        return nativeThreads;
+    }
+
+    public int activeExtractions() {
+        return slots - permits.availablePermits();
+    }
+
+    /**
+     * Blocks until an extraction slot is free.
+     *
+     * @throws IllegalStateException when no slot frees up within {@code cpu.acquire-timeout}
+     */
+    public Slot acquire(String label) {
+        try {
+            if (!permits.tryAcquire()) {
+                log.debug("{} waiting for one of {} extraction slot(s)", label, slots);
+                if (!permits.tryAcquire(settings.getAcquireTimeout().toNanos(), TimeUnit.NANOSECONDS)) {
+                    throw new IllegalStateException("Timed out after " + settings.getAcquireTimeout()
+                            + " waiting for an extraction slot for " + label);
+                }
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for an extraction slot for " + label, ex);
+        }
+        return new Slot(permits);
+    }
+
+    /** Called by {@link OpenCvSupport} right after the OpenCV natives are loaded. */
+    void applyToOpenCv() {
+        Core.setNumThreads(nativeThreads);
+        log.info("OpenCV limited to {} thread(s) per call", Core.getNumThreads());
+    }
+
+    @Override
+    public void contribute(Info.Builder builder) {
+        Map<String, Object> details = new LinkedHashMap<>();
+        details.put("cores", cores);
+        details.put("availableProcessors", Runtime.getRuntime().availableProcessors());
+        details.put("concurrentExtractions", slots);
+        details.put("activeExtractions", activeExtractions());
+        details.put("nativeThreadsPerExtraction", nativeThreads);
+        details.put("ompThreadLimit", ompThreadLimit);
+        builder.withDetail("cpu", details);
+    }
+
+    // Changing the environment of a running JVM races with getenv in other threads, and libgomp reads it only once.
+    private static String checkOmpThreadLimit(int threads) {
+        String inherited = System.getenv(OMP_THREAD_LIMIT);
+        if (inherited == null || inherited.isBlank()) {
+            log.warn("{} is not set, so Tesseract may start one thread per core in every extraction; export {}={} "
+                    + "before starting the JVM", OMP_THREAD_LIMIT, OMP_THREAD_LIMIT, threads);
+            return null;
+        }
+        try {
+            if (Integer.parseInt(inherited.trim()) > threads) {
+                log.warn("{}={} exceeds the {} native thread(s) per extraction of the CPU budget", OMP_THREAD_LIMIT,
+                        inherited, threads);
+            }
+        } catch (NumberFormatException ex) {
+            log.warn("Ignoring invalid {}={}", OMP_THREAD_LIMIT, inherited);
+        }
+        return inherited;
+    }
+
+    /**
+     * A held extraction slot; closing it frees the holding thread's {@link ScratchMats} buffers and lets the next
+     * waiting extraction start. Close it on the thread that acquired it.
+     */
+    public static final class Slot implements AutoCloseable {
+
+        private final Semaphore permits;
+        private boolean closed;
+
+        private Slot(Semaphore permits) {
+            this.permits = permits;
+        }
+
+        @Override
+        public void close() {
+            if (!closed) {
+                closed = true;
+                ScratchMats.releaseThread();
+                permits.release();
+            }
+        }
+    }
+}
@@ -9,6 +9,38 @@ public record DetectedComponent(
         Rect boundingBox,
         String text,
         double confidence,
-        WidgetType widgetType
+        WidgetType widgetType,
+        double inkRatio,
+        Boolean checked,
+        TableGrid table
 ) {
+
+    public DetectedComponent(int index, DetectedComponentType type, Rect boundingBox, String text, double confidence,
+                             WidgetType widgetType, double inkRatio, Boolean checked) {
+        this(index, type, boundingBox, text, confidence, widgetType, inkRatio, checked, null);
+    }
+
+    public DetectedComponent withIndex(int newIndex) {
+        return new DetectedComponent(newIndex, type, boundingBox, text, confidence, widgetType, inkRatio, checked, table);
+    }
+
+    /** Moves the component by the offset between the boxes, keeping any table grid aligned with it. */
+    public DetectedComponent withBoundingBox(Rect newBoundingBox) {
+        TableGrid moved = table != null
+                ? table.translate(newBoundingBox.x - boundingBox.x, newBoundingBox.y - boundingBox.y)
+                : null;
+        return new DetectedComponent(index, type, newBoundingBox, text, confidence, widgetType, inkRatio, checked, moved);
+    }
+
+    public DetectedComponent withText(String newText) {
+        return new DetectedComponent(index, type, boundingBox, newText, confidence, widgetType, inkRatio, checked, table);
+    }
+
+    public DetectedComponent withChecked(Boolean newChecked) {
+        return new DetectedComponent(index, type, boundingBox, text, confidence, widgetType, inkRatio, newChecked, table);
+    }
+
+    public DetectedComponent withTable(TableGrid newTable) {
+        return new DetectedComponent(index, type, boundingBox, text, confidence, widgetType, inkRatio, checked, newTable);
+    }
 }
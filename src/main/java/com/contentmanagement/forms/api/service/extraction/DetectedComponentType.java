@@ -2,6 +2,7 @@ package com.contentmanagement.forms.api.service.extraction;
 
 public enum DetectedComponentType {
     TEXT,
+    PARAGRAPH,
     FIELD,
     GROUP,
     TABLE,
@@ -11,6 +11,11 @@ class DetectionDiagnostics {
     private static final double CONFIDENCE_THRESHOLD = 0.5d;
 
     private final List<LowConfidenceEntry> lowConfidenceEntries = new ArrayList<>();
+    private int blankRegionsSkipped;
+    private int checkboxesResolved;
+    private int tableRowsRead;
+    private int tableCellsRead;
+    private int vectorPages;
 
     void record(PageLayout layout) {
         for (DetectedComponent component : layout.components()) {
@@ -25,7 +30,37 @@ class DetectionDiagnostics {
         }
     }
 
+    void recordBlankRegionSkipped() {
+        blankRegionsSkipped++;
+    }
+
+    void recordCheckboxResolved() {
+        checkboxesResolved++;
+    }
+
+    void recordTableRowRead(int cells) {
+        tableRowsRead++;
+        tableCellsRead += cells;
+    }
+
+    void recordVectorPage() {
+        vectorPages++;
+    }
+
     void logSummary(Logger logger) {
+        if (vectorPages > 0) {
+            logger.info("Read the layout of {} page(s) from vector graphics without rendering.", vectorPages);
+        }
+
+        if (blankRegionsSkipped > 0 || checkboxesResolved > 0) {
+            logger.info("Skipped OCR for {} blank region(s); resolved {} checkbox(es) from pixel fill.",
+                    blankRegionsSkipped, checkboxesResolved);
+        }
+
+        if (tableRowsRead > 0) {
+            logger.info("Read {} table cell(s) with {} row-level OCR call(s).", tableCellsRead, tableRowsRead);
+        }
+
         if (lowConfidenceEntries.isEmpty()) {
             logger.info("All detected elements met the 50% confidence threshold.");
             return;
@@ -0,0 +1,317 @@
+package com.contentmanagement.forms.api.service.extraction;
+
+import java.awt.Graphics2D;
+import java.awt.geom.Point2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.awt.image.IndexColorModel;
+import java.awt.image.Raster;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import org.apache.pdfbox.contentstream.PDFGraphicsStreamEngine;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.font.PDFont;
+import org.apache.pdfbox.pdmodel.graphics.color.PDColorSpace;
+import org.apache.pdfbox.pdmodel.graphics.color.PDDeviceGray;
+import org.apache.pdfbox.pdmodel.graphics.color.PDDeviceRGB;
+import org.apache.pdfbox.pdmodel.graphics.color.PDICCBased;
+import org.apache.pdfbox.pdmodel.graphics.image.PDImage;
+import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
+import org.apache.pdfbox.pdmodel.graphics.state.RenderingMode;
+import org.apache.pdfbox.pdmodel.interactive.annotation.PDAnnotation;
+import org.apache.pdfbox.util.Matrix;
+import org.apache.pdfbox.util.Vector;
+import org.opencv.core.Core;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.MatOfByte;
+import org.opencv.core.Rect;
+import org.opencv.core.Scalar;
+import org.opencv.core.Size;
+import org.opencv.imgcodecs.Imgcodecs;
+import org.opencv.imgproc.Imgproc;
+
+/**
+ * The one image of a scanned page, when that image is all the page shows, decoded once and handed to OpenCV as it
+ * is stored instead of being rendered through {@code PDFRenderer}.
+ */
+final class EmbeddedScanImage extends PDFGraphicsStreamEngine {
+
+    // Placement matrices carry float error and scanners pad by a point or two; the rendered page would crop it.
+    private static final float COVERAGE_TOLERANCE_POINTS = 2f;
+    private static final double COVERAGE_TOLERANCE_RATIO = 0.01;
+    private static final double MAX_SKEW = 1e-3;
+    private static final int EDGE_SLACK_PX = 2;
+
+    private final PDRectangle cropBox;
+    private PDImage image;
+    private int images;
+    private boolean disqualified;
+
+    private EmbeddedScanImage(PDPage page) {
+        super(page);
+        this.cropBox = page.getCropBox();
+    }
+
+    /** The page's scan image, or {@code null} when the page has to be rendered. */
+    static EmbeddedScanImage find(PDPage page) throws IOException {
+        for (PDAnnotation annotation : page.getAnnotations()) {
+            if (!annotation.isHidden() && !annotation.isNoView() && annotation.getNormalAppearanceStream() != null) {
+                return null;
+            }
+        }
+        EmbeddedScanImage scan = new EmbeddedScanImage(page);
+        scan.processPage(page);
+        return !scan.disqualified && scan.images == 1 ? scan : null;
+    }
+
+    /**
+     * Decodes the image into a Mat of {@code width} x {@code height}, turned by the page's {@code rotation} as
+     * the renderer would turn it. Intermediate Mats are tracked by {@code scope}; the returned one is not.
+     *
+     * @throws IOException when the image cannot be decoded, e.g. JBIG2 without an image reader
+     */
+    Mat decode(int width, int height, int rotation, NativeScope scope) throws IOException {
+        ExtractionEvents.MatConversion event = new ExtractionEvents.MatConversion();
+        event.begin();
+        Mat mat = readSamples(scope);
+        long inputBytes = mat.total() * mat.channels();
+        int turns = Math.floorMod(rotation, 360) / 90;
+        if (turns > 0) {
+            Mat rotated = new Mat();
+            Core.rotate(scope.track(mat), rotated, turns == 1 ? Core.ROTATE_90_CLOCKWISE
+                    : turns == 2 ? Core.ROTATE_180 : Core.ROTATE_90_COUNTERCLOCKWISE);
+            mat = rotated;
+        }
+        if (Math.abs(mat.cols() - width) <= EDGE_SLACK_PX && Math.abs(mat.rows() - height) <= EDGE_SLACK_PX) {
+            mat = fitted(mat, width, height, scope);
+        } else {
+            Mat resized = new Mat();
+            boolean shrinking = (double) width * height < (double) mat.cols() * mat.rows();
+            Imgproc.resize(scope.track(mat), resized, new Size(width, height), 0, 0,
+                    shrinking ? Imgproc.INTER_AREA : Imgproc.INTER_LINEAR);
+            mat = resized;
+        }
+        if (event.shouldCommit()) {
+            event.pageIndex = ExtractionEvents.currentPage();
+            event.mats = 1;
+            event.width = mat.cols();
+            event.height = mat.rows();
+            event.channels = mat.channels();
+            event.inputBytes = inputBytes;
+            event.commit();
+        }
+        return mat;
+    }
+
+    // The renderer floors the page size (a 3300-row letter scan renders 3299 rows); trim or pad, never resample.
+    private static Mat fitted(Mat mat, int width, int height, NativeScope scope) {
+        if (mat.cols() == width && mat.rows() == height) {
+            return mat;
+        }
+        Mat trimmed = scope.track(new Mat(scope.track(mat),
+                new Rect(0, 0, Math.min(width, mat.cols()), Math.min(height, mat.rows()))));
+        Mat fitted = new Mat();
+        Core.copyMakeBorder(trimmed, fitted, 0, height - trimmed.rows(), 0, width - trimmed.cols(),
+                Core.BORDER_CONSTANT, Scalar.all(255));
+        return fitted;
+    }
+
+    /**
+     * Plain 8-bit gray or RGB samples skip {@code getImage()}, which converts every pixel through the colour space
+     * into an RGB image: a JPEG goes to OpenCV's decoder as stored, other filters are undone by PDFBox and the
+     * samples copied as they are. Bilevel, indexed and other images are left to PDFBox.
+     */
+    private Mat readSamples(NativeScope scope) throws IOException {
+        int components = plainComponents();
+        if (components > 0 && image instanceof PDImageXObject xObject) {
+            List<COSName> filters = xObject.getStream().getFilters();
+            if (filters.size() == 1 && COSName.DCT_DECODE.equals(filters.get(0))) {
+                byte[] jpeg;
+                try (InputStream in = xObject.getCOSObject().createRawInputStream()) {
+                    jpeg = in.readAllBytes();
+                }
+                Mat mat = Imgcodecs.imdecode(scope.track(new MatOfByte(jpeg)), Imgcodecs.IMREAD_UNCHANGED);
+                if (mat.channels() == components && mat.cols() == image.getWidth() && mat.rows() == image.getHeight()) {
+                    return mat;
+                }
+                // Something OpenCV reads differently from PDFBox, such as a CMYK-encoded JPEG.
+                mat.release();
+                return toMat(image.getImage());
+            }
+        }
+        if (components > 0) {
+            int length = image.getWidth() * image.getHeight() * components;
+            byte[] samples;
+            try (InputStream in = image.createInputStream()) {
+                samples = in.readNBytes(length);
+            }
+            if (samples.length == length) {
+                Mat mat = new Mat(image.getHeight(), image.getWidth(), components == 1 ? CvType.CV_8UC1 : CvType.CV_8UC3);
+                mat.put(0, 0, samples);
+                if (components == 3) {
+                    Imgproc.cvtColor(mat, mat, Imgproc.COLOR_RGB2BGR);
+                }
+                return mat;
+            }
+        }
+        return toMat(image.getImage());
+    }
+
+    // 1 or 3 when every sample is one byte of gray or RGB, as stored; 0 for anything that needs converting.
+    private int plainComponents() throws IOException {
+        if (image.getBitsPerComponent() != 8 || image.getDecode() != null) {
+            return 0;
+        }
+        PDColorSpace colorSpace = image.getColorSpace();
+        if (!(colorSpace instanceof PDDeviceGray || colorSpace instanceof PDDeviceRGB || colorSpace instanceof PDICCBased)) {
+            return 0;
+        }
+        int components = colorSpace.getNumberOfComponents();
+        return components == 1 || components == 3 ? components : 0;
+    }
+
+    private static Mat grayMat(int width, int height, byte[] levels) {
+        Mat mat = new Mat(height, width, CvType.CV_8UC1);
+        mat.put(0, 0, levels);
+        return mat;
+    }
+
+    private static Mat toMat(BufferedImage image) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        Raster raster = image.getRaster();
+        switch (image.getType()) {
+            case BufferedImage.TYPE_BYTE_GRAY:
+                return grayMat(width, height, (byte[]) raster.getDataElements(0, 0, width, height, null));
+            case BufferedImage.TYPE_BYTE_BINARY: {
+                // Palette indices of a 1-bit image; the palette says which of them is black.
+                IndexColorModel palette = (IndexColorModel) image.getColorModel();
+                byte[] levels = new byte[palette.getMapSize()];
+                for (int i = 0; i < levels.length; i++) {
+                    int luma = palette.getRed(i) * 299 + palette.getGreen(i) * 587 + palette.getBlue(i) * 114;
+                    levels[i] = (byte) (luma / 1000);
+                }
+                int[] samples = raster.getSamples(0, 0, width, height, 0, (int[]) null);
+                byte[] gray = new byte[samples.length];
+                for (int i = 0; i < samples.length; i++) {
+                    gray[i] = levels[samples[i]];
+                }
+                return grayMat(width, height, gray);
+            }
+            default: {
+                BufferedImage bgr = image;
+                if (image.getType() != BufferedImage.TYPE_3BYTE_BGR) {
+                    bgr = new BufferedImage(width, height, BufferedImage.TYPE_3BYTE_BGR);
+                    Graphics2D graphics = bgr.createGraphics();
+                    try {
+                        graphics.drawImage(image, 0, 0, null);
+                    } finally {
+                        graphics.dispose();
+                    }
+                }
+                Mat mat = new Mat(height, width, CvType.CV_8UC3);
+                mat.put(0, 0, ((DataBufferByte) bgr.getRaster().getDataBuffer()).getData());
+                return mat;
+            }
+        }
+    }
+
+    @Override
+    public void drawImage(PDImage drawn) throws IOException {
+        images++;
+        image = drawn;
+        Matrix ctm = getGraphicsState().getCurrentTransformationMatrix();
+        boolean transparent = drawn.isStencil()
+                || getGraphicsState().getNonStrokeAlphaConstant() < 1
+                || (drawn instanceof PDImageXObject xObject && (xObject.getSoftMask() != null || xObject.getMask() != null));
+        // Images are drawn into the unit square; an upright one has no shear and positive scales.
+        boolean upright = Math.abs(ctm.getShearX()) < MAX_SKEW && Math.abs(ctm.getShearY()) < MAX_SKEW
+                && ctm.getScaleX() > 0 && ctm.getScaleY() > 0;
+        if (transparent || !upright || !coversCropBox(ctm)) {
+            disqualified = true;
+        }
+    }
+
+    private boolean coversCropBox(Matrix ctm) {
+        return near(ctm.getTranslateX(), cropBox.getLowerLeftX(), cropBox.getWidth())
+                && near(ctm.getTranslateY(), cropBox.getLowerLeftY(), cropBox.getHeight())
+                && near(ctm.getTranslateX() + ctm.getScaleX(), cropBox.getUpperRightX(), cropBox.getWidth())
+                && near(ctm.getTranslateY() + ctm.getScaleY(), cropBox.getUpperRightY(), cropBox.getHeight());
+    }
+
+    private static boolean near(double actual, double expected, double side) {
+        return Math.abs(actual - expected) <= Math.max(COVERAGE_TOLERANCE_POINTS, side * COVERAGE_TOLERANCE_RATIO);
+    }
+
+    @Override
+    protected void showGlyph(Matrix textRenderingMatrix, PDFont font, int code, Vector displacement) {
+        RenderingMode mode = getGraphicsState().getTextState().getRenderingMode();
+        if (mode != RenderingMode.NEITHER && mode != RenderingMode.NEITHER_CLIP) {
+            disqualified = true;
+        }
+    }
+
+    // Anything painted before the image is hidden under it; anything after it is part of the page.
+    private void painted() {
+        if (images > 0) {
+            disqualified = true;
+        }
+    }
+
+    @Override
+    public void strokePath() {
+        painted();
+    }
+
+    @Override
+    public void fillPath(int windingRule) {
+        painted();
+    }
+
+    @Override
+    public void fillAndStrokePath(int windingRule) {
+        painted();
+    }
+
+    @Override
+    public void shadingFill(COSName shadingName) {
+        painted();
+    }
+
+    @Override
+    public void appendRectangle(Point2D p0, Point2D p1, Point2D p2, Point2D p3) {
+    }
+
+    @Override
+    public void clip(int windingRule) {
+    }
+
+    @Override
+    public void moveTo(float x, float y) {
+    }
+
+    @Override
+    public void lineTo(float x, float y) {
+    }
+
+    @Override
+    public void curveTo(float x1, float y1, float x2, float y2, float x3, float y3) {
+    }
+
+    @Override
+    public Point2D getCurrentPoint() {
+        return new Point2D.Float();
+    }
+
+    @Override
+    public void closePath() {
+    }
+
+    @Override
+    public void endPath() {
+    }
+}
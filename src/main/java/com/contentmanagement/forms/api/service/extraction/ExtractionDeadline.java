@@ -0,0 +1,98 @@
+package com.contentmanagement.forms.api.service.extraction;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Point in time by which an extraction must stop. Strategies check it between
+ * pages and components and return the pages finished so far once it has passed; Tesseract is handed the
+ * remaining time and a cancel callback so a single slow region cannot overrun it. The deadline is a wall-clock
+ * instant so it can travel with a shard to another JVM.
+ *
+ * <p>The service binds the deadline to the extracting thread ({@link #bind()}) for code that has no access to
+ * the {@link FormExtractionContext}, such as the OCR engine.
+ */
+public final class ExtractionDeadline {
+
+    private static final ThreadLocal<ExtractionDeadline> CURRENT = new ThreadLocal<>();
+
+    private final Instant end;
+    private volatile String partialReason;
+
+    private ExtractionDeadline(Instant end) {
+        this.end = end;
+    }
+
+    public static ExtractionDeadline unbounded() {
+        return new ExtractionDeadline(null);
+    }
+
+    public static ExtractionDeadline after(Duration timeout) {
+        return new ExtractionDeadline(Instant.now().plus(timeout));
+    }
+
+    public static ExtractionDeadline at(Instant end) {
+        return new ExtractionDeadline(end);
+    }
+
+    /** The deadline bound to the calling thread, or an unbounded one. */
+    static ExtractionDeadline current() {
+        ExtractionDeadline bound = CURRENT.get();
+        return bound != null ? bound : unbounded();
+    }
+
+    /** The instant by which extraction must stop, or {@code null} when there is none. */
+    public Instant end() {
+        return end;
+    }
+
+    public boolean expired() {
+        return end != null && !Instant.now().isBefore(end);
+    }
+
+    /** @throws ExtractionDeadlineExceededException once the deadline has passed */
+    void check() {
+        if (expired()) {
+            throw new ExtractionDeadlineExceededException("Extraction deadline " + end + " has passed");
+        }
+    }
+
+    /** Milliseconds left, clamped to {@code [0, Integer.MAX_VALUE]}; {@code Integer.MAX_VALUE} when unbounded. */
+    int remainingMillis() {
+        if (end == null) {
+            return Integer.MAX_VALUE;
+        }
+        long millis = Duration.between(Instant.now(), end).toMillis();
+        return (int) Math.max(0, Math.min(Integer.MAX_VALUE, millis));
+    }
+
+    /** Records that extraction stopped early; the result is then reported as partial. */
+    public void markStopped(int finishedPages, int plannedPages) {
+        partialReason = "Deadline reached after " + finishedPages + " of " + plannedPages + " page(s)";
+    }
+
+    /** Why the extraction returned early, or {@code null} when it finished every page. */
+    public String partialReason() {
+        return partialReason;
+    }
+
+    /** Makes this the thread's {@link #current()} deadline until the binding is closed. */
+    public Binding bind() {
+        ExtractionDeadline previous = CURRENT.get();
+        CURRENT.set(this);
+        return () -> {
+            if (previous != null) {
+                CURRENT.set(previous);
+            } else {
+                CURRENT.remove();
+            }
+        };
+    }
+
+    @FunctionalInterface
+    public interface Binding extends AutoCloseable {
+
+        @Override
+        void close();
+    }
+}
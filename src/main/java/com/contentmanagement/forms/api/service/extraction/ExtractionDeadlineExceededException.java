@@ -0,0 +1,9 @@
+package com.contentmanagement.forms.api.service.extraction;
+
+/** Thrown from deadline checks inside a page; strategies catch it and return the pages finished before it. */
+final class ExtractionDeadlineExceededException extends RuntimeException {
+
+    ExtractionDeadlineExceededException(String message) {
+        super(message);
+    }
+}
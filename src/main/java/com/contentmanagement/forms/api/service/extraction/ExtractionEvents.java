@@ -0,0 +1,235 @@
+package com.contentmanagement.forms.api.service.extraction;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Java Flight Recorder events around the native-heavy extraction stages, so a recording can tell which page,
+ * region and stage the JNI frames underneath belong to. They are enabled by default and show up under
+ * "Content Management / Form Extraction" in JDK Mission Control.
+ *
+ * <p>Stages follow the JFR idiom: construct, {@code begin()}, do the work, then fill in and {@code commit()} only
+ * if {@code shouldCommit()}. When no recording is running the JIT removes the event allocation and the checks
+ * are a load and a branch; the fields are never computed. OCR is several layers below the page loop, so the page
+ * being extracted is bound to the thread ({@link #onPage(int)}) rather than passed down.
+ */
+final class ExtractionEvents {
+
+    static final String SOURCE_PDF_TEXT = "PDF_TEXT";
+    static final String SOURCE_TESSERACT = "TESSERACT";
+    static final String SOURCE_OCR_CACHE = "OCR_CACHE";
+
+    private static final ThreadLocal<Integer> CURRENT_PAGE = new ThreadLocal<>();
+
+    private ExtractionEvents() {
+    }
+
+    /** Marks the thread as working on {@code pageIndex} until the returned binding is closed. */
+    static PageBinding onPage(int pageIndex) {
+        Integer previous = CURRENT_PAGE.get();
+        CURRENT_PAGE.set(pageIndex);
+        return () -> {
+            if (previous != null) {
+                CURRENT_PAGE.set(previous);
+            } else {
+                CURRENT_PAGE.remove();
+            }
+        };
+    }
+
+    /** The page bound by {@link #onPage(int)}, or -1 outside of a page. */
+    static int currentPage() {
+        Integer page = CURRENT_PAGE.get();
+        return page != null ? page : -1;
+    }
+
+    @FunctionalInterface
+    interface PageBinding extends AutoCloseable {
+
+        @Override
+        void close();
+    }
+
+    @Name("com.contentmanagement.forms.PdfLoad")
+    @Label("PDF Load")
+    @Description("PDFBox parsing an uploaded PDF")
+    @Category({"Content Management", "Form Extraction"})
+    @StackTrace(false)
+    static final class PdfLoad extends Event {
+
+        @Label("File Name")
+        String fileName;
+
+        @Label("File Size")
+        @DataAmount
+        long fileSize;
+
+        @Label("Pages")
+        int pages;
+    }
+
+    @Name("com.contentmanagement.forms.PageRender")
+    @Label("Page Render")
+    @Description("Rasterising one PDF page, decoding its scan image or loading the stored rendering")
+    @Category({"Content Management", "Form Extraction"})
+    @StackTrace(false)
+    static final class PageRender extends Event {
+
+        @Label("Page Index")
+        int pageIndex;
+
+        @Label("DPI")
+        float dpi;
+
+        @Label("Width (px)")
+        int width;
+
+        @Label("Height (px)")
+        int height;
+
+        @Label("Clipped")
+        @Description("Only a region of interest was rendered")
+        boolean clipped;
+
+        @Label("From Artifact Store")
+        boolean stored;
+
+        @Label("Embedded Image")
+        @Description("The page's scan image was decoded directly instead of rendering the page")
+        boolean embedded;
+    }
+
+    @Name("com.contentmanagement.forms.MatConversion")
+    @Label("Mat Conversion")
+    @Description("Copying a rendered page into a Mat, or decoding an uploaded image into Mats")
+    @Category({"Content Management", "Form Extraction"})
+    @StackTrace(false)
+    static final class MatConversion extends Event {
+
+        @Label("Page Index")
+        @Description("The page of the first Mat")
+        int pageIndex;
+
+        @Label("Mats")
+        int mats;
+
+        @Label("Width (px)")
+        int width;
+
+        @Label("Height (px)")
+        int height;
+
+        @Label("Channels")
+        int channels;
+
+        @Label("Input Size")
+        @DataAmount
+        long inputBytes;
+    }
+
+    @Name("com.contentmanagement.forms.LayoutAnalysis")
+    @Label("Layout Analysis")
+    @Description("OpenCV component and table detection on one page")
+    @Category({"Content Management", "Form Extraction"})
+    @StackTrace(false)
+    static final class LayoutAnalysis extends Event {
+
+        @Label("Page Index")
+        int pageIndex;
+
+        @Label("Width (px)")
+        int width;
+
+        @Label("Height (px)")
+        int height;
+
+        @Label("Pixel Scale")
+        double pixelScale;
+
+        @Label("Components")
+        int components;
+
+        @Label("Fields")
+        int fields;
+
+        @Label("Tables")
+        int tables;
+    }
+
+    @Name("com.contentmanagement.forms.VectorLayout")
+    @Label("Vector Layout")
+    @Description("Reading one page's layout from its vector graphics instead of rendering it")
+    @Category({"Content Management", "Form Extraction"})
+    @StackTrace(false)
+    static final class VectorLayout extends Event {
+
+        @Label("Page Index")
+        int pageIndex;
+
+        @Label("Glyphs")
+        int glyphs;
+
+        @Label("Rulings")
+        int rulings;
+
+        @Label("Components")
+        int components;
+
+        @Label("Accepted")
+        @Description("The page qualified and was not rendered")
+        boolean accepted;
+    }
+
+    @Name("com.contentmanagement.forms.OcrRegion")
+    @Label("OCR Region")
+    @Description("Reading the text of one region from the PDF text layer, the OCR cache or Tesseract")
+    @Category({"Content Management", "Form Extraction"})
+    @StackTrace(false)
+    static final class OcrRegion extends Event {
+
+        @Label("Page Index")
+        int pageIndex;
+
+        @Label("Source")
+        @Description("PDF_TEXT, OCR_CACHE or TESSERACT")
+        String source;
+
+        @Label("Profile")
+        String profile;
+
+        @Label("X (px)")
+        @Description("Left edge within the analysed image, which is the clip when a region of interest was given")
+        int x;
+
+        @Label("Y (px)")
+        int y;
+
+        @Label("Width (px)")
+        int width;
+
+        @Label("Height (px)")
+        int height;
+
+        @Label("Characters")
+        int characters;
+    }
+
+    @Name("com.contentmanagement.forms.Assembly")
+    @Label("Document Assembly")
+    @Description("Turning page layouts into the form document")
+    @Category({"Content Management", "Form Extraction"})
+    @StackTrace(false)
+    static final class Assembly extends Event {
+
+        @Label("Pages")
+        int pages;
+
+        @Label("Components")
+        int components;
+    }
+}
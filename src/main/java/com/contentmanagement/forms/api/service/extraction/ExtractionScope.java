@@ -0,0 +1,306 @@
+package com.contentmanagement.forms.api.service.extraction;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SortedSet;
+import java.util.StringJoiner;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import org.opencv.core.Rect;
+
+/**
+ * Restricts an extraction to a set of pages and, per page, to regions of interest. Pages are zero-based here
+ * and one-based in the request syntax. Regions are given in PDF points with a top-left origin on the page as
+ * stored, before any {@code /Rotate}, and scaled by the render DPI; for image uploads a point is one pixel.
+ *
+ * <p>Request syntax: {@code pages=1-3,5} and {@code regions=1:36,72,540,200;2:0,0,612,300}.
+ *
+ * @param pages sorted, non-overlapping zero-based page ranges to process, or {@code null} for every page
+ * @param regions zero-based page index to the regions of interest on that page
+ */
+public record ExtractionScope(List<PageRange> pages, Map<Integer, List<RegionOfInterest>> regions) {
+
+    public static final ExtractionScope ALL = new ExtractionScope(null, Map.of());
+
+    private static final int MAX_PAGE_NUMBER = 100_000;
+
+    public static ExtractionScope parse(String pageSpec, String regionSpec) {
+        List<PageRange> pages = null;
+        if (pageSpec != null && !pageSpec.isBlank()) {
+            List<PageRange> ranges = new ArrayList<>();
+            for (String part : pageSpec.split(",")) {
+                String token = part.trim();
+                int dash = token.indexOf('-');
+                int first = parsePageNumber(dash < 0 ? token : token.substring(0, dash));
+                int last = dash < 0 ? first : parsePageNumber(token.substring(dash + 1));
+                if (last < first) {
+                    throw new IllegalArgumentException("Invalid page range '" + token + "'");
+                }
+                ranges.add(new PageRange(first - 1, last - 1));
+            }
+            pages = merge(ranges);
+        }
+
+        Map<Integer, List<RegionOfInterest>> regions = new TreeMap<>();
+        if (regionSpec != null && !regionSpec.isBlank()) {
+            for (String part : regionSpec.split(";")) {
+                String token = part.trim();
+                int colon = token.indexOf(':');
+                if (colon < 0) {
+                    throw new IllegalArgumentException("Region '" + token + "' must have the form page:x,y,width,height");
+                }
+                int page = parsePageNumber(token.substring(0, colon)) - 1;
+                regions.computeIfAbsent(page, ignored -> new ArrayList<>())
+                        .add(RegionOfInterest.parse(token.substring(colon + 1)));
+            }
+        }
+
+        if (pages == null && regions.isEmpty()) {
+            return ALL;
+        }
+        return new ExtractionScope(pages, Collections.unmodifiableMap(regions));
+    }
+
+    public boolean includesPage(int pageIndex) {
+        if (pages == null) {
+            return true;
+        }
+        for (PageRange range : pages) {
+            if (pageIndex < range.first()) {
+                return false;
+            }
+            if (pageIndex <= range.last()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** The first page to process. */
+    public int firstPage() {
+        return pages == null ? 0 : pages.get(0).first();
+    }
+
+    /** One past the last page to process; {@link Integer#MAX_VALUE} when every page is included. */
+    public int endPage() {
+        return pages == null ? Integer.MAX_VALUE : pages.get(pages.size() - 1).last() + 1;
+    }
+
+    public boolean hasRegions() {
+        return !regions.isEmpty();
+    }
+
+    /** Whether this scope selects every page without regions, i.e. the whole document. */
+    public boolean unrestricted() {
+        return pages == null && regions.isEmpty();
+    }
+
+    /** The pages in the one-based request syntax, e.g. {@code 1-3,5}, or {@code null} for every page. */
+    public String pageSpec() {
+        return pages == null ? null : pages.stream().map(PageRange::toString).collect(Collectors.joining(","));
+    }
+
+    /** The regions in the request syntax, e.g. {@code 1:36.00,72.00,540.00,200.00}, or {@code null} for none. */
+    public String regionSpec() {
+        if (regions.isEmpty()) {
+            return null;
+        }
+        StringJoiner spec = new StringJoiner(";");
+        regions.forEach((page, pageRegions) -> pageRegions.forEach(region -> spec.add((page + 1) + ":" + region)));
+        return spec.toString();
+    }
+
+    /** This scope narrowed to {@code shardPages}, keeping only the regions that fall on those pages. */
+    public ExtractionScope forPages(SortedSet<Integer> shardPages) {
+        Map<Integer, List<RegionOfInterest>> shardRegions = new TreeMap<>();
+        List<PageRange> ranges = new ArrayList<>();
+        for (int page : shardPages) {
+            List<RegionOfInterest> pageRegions = regions.get(page);
+            if (pageRegions != null) {
+                shardRegions.put(page, pageRegions);
+            }
+            ranges.add(new PageRange(page, page));
+        }
+        return new ExtractionScope(merge(ranges), Collections.unmodifiableMap(shardRegions));
+    }
+
+    /** Canonical description of the regions, for artifact fingerprints. Empty when the whole page is used. */
+    String renderKey() {
+        return regions.isEmpty() ? "" : "|roi=" + regions;
+    }
+
+    /**
+     * The page's regions in pixels of the page as rendered, i.e. at {@code scale} and turned by the page's
+     * {@code rotation} into the {@code pageWidth} x {@code pageHeight} image; {@code null} when the page has no
+     * regions and must be processed in full.
+     */
+    List<Rect> regionPixels(int pageIndex, double scale, int rotation, int pageWidth, int pageHeight) {
+        List<RegionOfInterest> pageRegions = regions.get(pageIndex);
+        if (pageRegions == null) {
+            return null;
+        }
+        List<Rect> pixels = new ArrayList<>(pageRegions.size());
+        for (RegionOfInterest region : pageRegions) {
+            pixels.add(region.toPixels(scale, rotation, pageWidth, pageHeight));
+        }
+        return pixels;
+    }
+
+    /**
+     * Pixel rectangle covering all {@code regions}, clamped to the page; {@code null} when there are none and the
+     * page must be processed in full.
+     */
+    static Rect clip(List<Rect> regions, int pageWidth, int pageHeight) {
+        if (regions == null) {
+            return null;
+        }
+        int left = pageWidth;
+        int top = pageHeight;
+        int right = 0;
+        int bottom = 0;
+        for (Rect rect : regions) {
+            left = Math.min(left, rect.x);
+            top = Math.min(top, rect.y);
+            right = Math.max(right, rect.x + rect.width);
+            bottom = Math.max(bottom, rect.y + rect.height);
+        }
+        left = Math.max(0, left);
+        top = Math.max(0, top);
+        right = Math.min(pageWidth, right);
+        bottom = Math.min(pageHeight, bottom);
+        if (right <= left || bottom <= top) {
+            // Regions entirely outside the page: keep a 1px clip so the page yields no components.
+            return new Rect(0, 0, 1, 1);
+        }
+        return new Rect(left, top, right - left, bottom - top);
+    }
+
+    /** Keeps components (in clip coordinates) that intersect at least one of the page's {@code regions}. */
+    static PageLayout restrict(PageLayout layout, List<Rect> regions, Rect clip) {
+        if (clip == null) {
+            return layout;
+        }
+        List<Rect> targets = new ArrayList<>();
+        for (Rect rect : regions) {
+            targets.add(new Rect(rect.x - clip.x, rect.y - clip.y, rect.width, rect.height));
+        }
+        List<DetectedComponent> kept = new ArrayList<>();
+        for (DetectedComponent component : layout.components()) {
+            for (Rect target : targets) {
+                if (intersects(component.boundingBox(), target)) {
+                    kept.add(component);
+                    break;
+                }
+            }
+        }
+        return new PageLayout(layout.pageIndex(), layout.width(), layout.height(), kept);
+    }
+
+    /** Moves component boxes from clip coordinates back to page coordinates. */
+    static PageLayout toPageCoordinates(PageLayout layout, Rect clip) {
+        if (clip == null || (clip.x == 0 && clip.y == 0)) {
+            return layout;
+        }
+        List<DetectedComponent> moved = new ArrayList<>(layout.components().size());
+        for (DetectedComponent component : layout.components()) {
+            Rect box = component.boundingBox();
+            moved.add(component.withBoundingBox(new Rect(box.x + clip.x, box.y + clip.y, box.width, box.height)));
+        }
+        return new PageLayout(layout.pageIndex(), layout.width(), layout.height(), moved);
+    }
+
+    // Sorts the ranges and joins overlapping or adjacent ones.
+    private static List<PageRange> merge(List<PageRange> ranges) {
+        ranges.sort(Comparator.comparingInt(PageRange::first));
+        List<PageRange> merged = new ArrayList<>();
+        for (PageRange range : ranges) {
+            PageRange previous = merged.isEmpty() ? null : merged.get(merged.size() - 1);
+            if (previous != null && range.first() <= previous.last() + 1) {
+                merged.set(merged.size() - 1, new PageRange(previous.first(), Math.max(previous.last(), range.last())));
+            } else {
+                merged.add(range);
+            }
+        }
+        return List.copyOf(merged);
+    }
+
+    private static boolean intersects(Rect a, Rect b) {
+        return a.x < b.x + b.width && b.x < a.x + a.width && a.y < b.y + b.height && b.y < a.y + a.height;
+    }
+
+    private static int parsePageNumber(String value) {
+        try {
+            int page = Integer.parseInt(value.trim());
+            if (page < 1 || page > MAX_PAGE_NUMBER) {
+                throw new IllegalArgumentException("Page number " + page + " is out of range");
+            }
+            return page;
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("Invalid page number '" + value.trim() + "'", ex);
+        }
+    }
+
+    public record RegionOfInterest(double x, double y, double width, double height) {
+
+        static RegionOfInterest parse(String value) {
+            String[] parts = value.split(",");
+            if (parts.length != 4) {
+                throw new IllegalArgumentException("Region '" + value + "' must have four values: x,y,width,height");
+            }
+            try {
+                RegionOfInterest region = new RegionOfInterest(
+                        Double.parseDouble(parts[0].trim()),
+                        Double.parseDouble(parts[1].trim()),
+                        Double.parseDouble(parts[2].trim()),
+                        Double.parseDouble(parts[3].trim()));
+                if (!(region.width() > 0) || !(region.height() > 0)) {
+                    throw new IllegalArgumentException("Region '" + value + "' must have a positive size");
+                }
+                return region;
+            } catch (NumberFormatException ex) {
+                throw new IllegalArgumentException("Invalid region '" + value + "'", ex);
+            }
+        }
+
+        Rect toPixels(double scale) {
+            int left = (int) Math.floor(x * scale);
+            int top = (int) Math.floor(y * scale);
+            int right = (int) Math.ceil((x + width) * scale);
+            int bottom = (int) Math.ceil((y + height) * scale);
+            return new Rect(left, top, right - left, bottom - top);
+        }
+
+        /**
+         * The region in pixels of a page rendered at {@code scale} and turned clockwise by {@code rotation}
+         * degrees, as PDFBox renders {@code /Rotate}; {@code pageWidth} and {@code pageHeight} are the rendered size.
+         */
+        Rect toPixels(double scale, int rotation, int pageWidth, int pageHeight) {
+            Rect upright = toPixels(scale);
+            return switch (Math.floorMod(rotation, 360)) {
+                case 90 -> new Rect(pageWidth - upright.y - upright.height, upright.x, upright.height, upright.width);
+                case 180 -> new Rect(pageWidth - upright.x - upright.width, pageHeight - upright.y - upright.height,
+                        upright.width, upright.height);
+                case 270 -> new Rect(upright.y, pageHeight - upright.x - upright.width, upright.height, upright.width);
+                default -> upright;
+            };
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "%.2f,%.2f,%.2f,%.2f", x, y, width, height);
+        }
+    }
+
+    /** Zero-based, inclusive page range; printed in the one-based request syntax. */
+    public record PageRange(int first, int last) {
+
+        @Override
+        public String toString() {
+            return first == last ? Integer.toString(first + 1) : (first + 1) + "-" + (last + 1);
+        }
+    }
+}
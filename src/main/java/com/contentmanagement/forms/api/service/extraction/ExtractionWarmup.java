@@ -0,0 +1,132 @@
+package com.contentmanagement.forms.api.service.extraction;
+
+import com.contentmanagement.forms.api.config.FormProcessingProperties;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.Point;
+import org.opencv.core.Scalar;
+import org.opencv.imgproc.Imgproc;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Opt-in startup warm-up. Spring Boot publishes {@code ReadinessState.ACCEPTING_TRAFFIC} only after all
+ * {@link ApplicationRunner}s have returned, so {@code /actuator/health/readiness} stays {@code OUT_OF_SERVICE}
+ * until native libraries are loaded, tessdata is unpacked and the pipeline has run a few times on the sample
+ * images. Failures are logged and do not block startup; the first request then pays the cost instead.
+ */
+@Component
+@ConditionalOnProperty(prefix = "form.processing.warmup", name = "enabled", havingValue = "true")
+public class ExtractionWarmup implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(ExtractionWarmup.class);
+
+    private final FormProcessingProperties properties;
+    private final OpenCvSupport openCvSupport;
+    private final OpenCvImageLoader imageLoader;
+    private final TesseractOcrEngine ocrEngine;
+    private final OpenCvOnlyExtractionStrategy strategy;
+
+    public ExtractionWarmup(FormProcessingProperties properties,
+                            OpenCvSupport openCvSupport,
+                            OpenCvImageLoader imageLoader,
+                            TesseractOcrEngine ocrEngine,
+                            OpenCvOnlyExtractionStrategy strategy) {
+        this.properties = properties;
+        this.openCvSupport = openCvSupport;
+        this.imageLoader = imageLoader;
+        this.ocrEngine = ocrEngine;
+        this.strategy = strategy;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        long started = System.nanoTime();
+        log.info("Starting extraction warm-up");
+
+        try {
+            openCvSupport.ensureLoaded();
+        } catch (UnsatisfiedLinkError ex) {
+            log.warn("Warm-up skipped: OpenCV native libraries are unavailable", ex);
+            return;
+        }
+
+        if (properties.isOcrEnabled()) {
+            try {
+                NativeTesseractBootstrap.ensureLoaded();
+                ocrEngine.warmUp();
+            } catch (RuntimeException | LinkageError ex) {
+                log.warn("OCR warm-up failed; the first OCR request will initialise Tesseract", ex);
+            }
+        }
+
+        List<Mat> samples = new ArrayList<>();
+        Mat synthetic = loadSamples(samples);
+        try {
+            int iterations = Math.max(1, properties.getWarmup().getIterations());
+            for (int i = 0; i < iterations; i++) {
+                strategy.extractImages(samples);
+            }
+            log.info("Extraction warm-up finished in {} ms ({} iteration(s) over {} page(s))",
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started), iterations, samples.size());
+        } catch (RuntimeException ex) {
+            log.warn("Representative extraction failed during warm-up", ex);
+        } finally {
+            ScratchMats.releaseThread();
+            // Classpath samples are owned by the loader's cache; only the synthetic page is ours.
+            if (synthetic != null) {
+                synthetic.release();
+            }
+        }
+    }
+
+    private Mat loadSamples(List<Mat> samples) {
+        for (String resourcePath : properties.getFallbackImageResources()) {
+            try {
+                samples.add(imageLoader.loadClasspathImage(resourcePath));
+            } catch (RuntimeException ex) {
+                log.debug("Warm-up sample {} unavailable: {}", resourcePath, ex.getMessage());
+            }
+        }
+        if (samples.isEmpty()) {
+            log.info("No bundled sample images found; warming up on a synthetic form");
+            Mat synthetic = syntheticForm();
+            samples.add(synthetic);
+            return synthetic;
+        }
+        return null;
+    }
+
+    // A letter-sized page at 100 dpi with labelled text inputs, a text area and checkboxes.
+    private static Mat syntheticForm() {
+        Mat page = new Mat(1100, 850, CvType.CV_8UC3, new Scalar(255, 255, 255));
+        Scalar ink = new Scalar(20, 20, 20);
+        String[] labels = {"Full name", "Date of birth", "Account number", "Email address"};
+        int y = 80;
+        for (String label : labels) {
+            Imgproc.putText(page, label, new Point(60, y + 28), Imgproc.FONT_HERSHEY_SIMPLEX, 0.7, ink, 2);
+            Imgproc.rectangle(page, new Point(300, y), new Point(780, y + 44), ink, 2);
+            y += 90;
+        }
+        Imgproc.putText(page, "Comments", new Point(60, y + 28), Imgproc.FONT_HERSHEY_SIMPLEX, 0.7, ink, 2);
+        Imgproc.rectangle(page, new Point(60, y + 50), new Point(780, y + 250), ink, 2);
+        y += 310;
+        for (int i = 0; i < 3; i++) {
+            int x = 60 + i * 240;
+            Imgproc.rectangle(page, new Point(x, y), new Point(x + 28, y + 28), ink, 2);
+            if (i == 1) {
+                Imgproc.line(page, new Point(x + 5, y + 14), new Point(x + 12, y + 23), ink, 3);
+                Imgproc.line(page, new Point(x + 12, y + 23), new Point(x + 24, y + 5), ink, 3);
+            }
+            Imgproc.putText(page, "Option " + (i + 1), new Point(x + 40, y + 22), Imgproc.FONT_HERSHEY_SIMPLEX, 0.6, ink, 1);
+        }
+        return page;
+    }
+}
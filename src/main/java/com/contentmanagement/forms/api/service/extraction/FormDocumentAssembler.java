@@ -14,11 +14,15 @@ import com.contentmanagement.forms.api.model.LayoutSpec;
 import com.contentmanagement.forms.api.model.NodeRole;
 import com.contentmanagement.forms.api.model.NodeType;
 import com.contentmanagement.forms.api.model.PageSize;
+import com.contentmanagement.forms.api.model.TableColumn;
+import com.contentmanagement.forms.api.model.TableRow;
 import com.contentmanagement.forms.api.model.WidgetSpec;
 import com.contentmanagement.forms.api.model.WidgetType;
 import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import org.springframework.stereotype.Component;
 
 @Component
@@ -27,14 +31,44 @@ public class FormDocumentAssembler {
     private static final String SCHEMA_VERSION = "2.0";
 
     public FormDocument assemble(List<PageLayout> pageLayouts, String baseUnit) {
+        ExtractionEvents.Assembly event = new ExtractionEvents.Assembly();
+        event.begin();
         List<FormPage> pages = new ArrayList<>();
         for (PageLayout layout : pageLayouts) {
             pages.add(toFormPage(layout));
         }
         FormMeta meta = buildMeta(pageLayouts, baseUnit);
+        if (event.shouldCommit()) {
+            event.pages = pages.size();
+            event.components = pageLayouts.stream().mapToInt(layout -> layout.components().size()).sum();
+            event.commit();
+        }
         return new FormDocument(meta, pages);
     }
 
+    /**
+     * Joins documents extracted from disjoint page ranges of one source into a single document. Pages are
+     * ordered by index; the title is the first one found in page order.
+     */
+    public FormDocument merge(List<FormDocument> shards, String baseUnit) {
+        List<FormDocument> ordered = new ArrayList<>(shards);
+        ordered.sort(Comparator.comparingInt(
+                shard -> shard.pages().isEmpty() ? Integer.MAX_VALUE : shard.pages().get(0).index()));
+        List<FormPage> pages = new ArrayList<>();
+        String title = null;
+        PageSize pageSize = null;
+        for (FormDocument shard : ordered) {
+            pages.addAll(shard.pages());
+            if (shard.meta() != null) {
+                title = title != null ? title : shard.meta().title();
+                pageSize = pageSize != null ? pageSize : shard.meta().pageSize();
+            }
+        }
+        pages.sort(Comparator.comparingInt(FormPage::index));
+        String normalizedUnit = (baseUnit == null || baseUnit.isBlank()) ? "px" : baseUnit;
+        return new FormDocument(new FormMeta(SCHEMA_VERSION, title, null, null, normalizedUnit, pageSize, pages.size()), pages);
+    }
+
     private FormMeta buildMeta(List<PageLayout> pageLayouts, String baseUnit) {
         String normalizedUnit = (baseUnit == null || baseUnit.isBlank()) ? "px" : baseUnit;
         if (pageLayouts.isEmpty()) {
@@ -68,6 +102,8 @@ public class FormDocumentAssembler {
                 null,
                 null,
                 new ArrayList<>(flowOrder),
+                null,
+                null,
                 null
         );
 
@@ -77,11 +113,11 @@ public class FormDocumentAssembler {
 
     private LayoutNode toLayoutNode(DetectedComponent component, String nodeId) {
         NodeType nodeType = mapNodeType(component.type());
-        WidgetSpec widgetSpec = mapWidget(component.widgetType());
+        WidgetSpec widgetSpec = mapWidget(component.widgetType(), component.checked());
         return new LayoutNode(
                 nodeId,
                 nodeType,
-                NodeRole.UNKNOWN,
+                component.type() == DetectedComponentType.PARAGRAPH ? NodeRole.PARAGRAPH : NodeRole.UNKNOWN,
                 null,
                 new Geometry(new BoundingBox(component.boundingBox().x, component.boundingBox().y, component.boundingBox().width, component.boundingBox().height)),
                 null,
@@ -89,10 +125,39 @@ public class FormDocumentAssembler {
                 null,
                 widgetSpec,
                 null,
-                null
+                null,
+                component.table() != null ? toColumns(component.table()) : null,
+                component.table() != null ? toRows(component.table(), nodeId) : null
         );
     }
 
+    private List<TableColumn> toColumns(TableGrid table) {
+        List<TableColumn> columns = new ArrayList<>(table.columnCount());
+        for (int column = 0; column < table.columnCount(); column++) {
+            columns.add(new TableColumn(columnKey(column), null, (double) table.cell(0, column).width));
+        }
+        return columns;
+    }
+
+    private List<TableRow> toRows(TableGrid table, String nodeId) {
+        List<TableRow> rows = new ArrayList<>(table.rowCount());
+        for (int row = 0; row < table.rowCount(); row++) {
+            Map<String, String> cells = new LinkedHashMap<>();
+            for (int column = 0; column < table.columnCount(); column++) {
+                String text = normalize(table.text(row, column));
+                if (text != null) {
+                    cells.put(columnKey(column), text);
+                }
+            }
+            rows.add(new TableRow(nodeId + "-row-" + row, cells));
+        }
+        return rows;
+    }
+
+    private String columnKey(int column) {
+        return "c" + column;
+    }
+
     private String resolveDocumentTitle(List<PageLayout> pageLayouts) {
         return pageLayouts.stream()
                 .flatMap(layout -> layout.components().stream()
@@ -113,16 +178,16 @@ public class FormDocumentAssembler {
         return trimmed.isEmpty() ? null : trimmed.replaceAll("\s+", " ");
     }
 
-    private WidgetSpec mapWidget(WidgetType widgetType) {
+    private WidgetSpec mapWidget(WidgetType widgetType, Boolean checked) {
         if (widgetType == null) {
             return null;
         }
-        return new WidgetSpec(widgetType, null, null, null);
+        return new WidgetSpec(widgetType, null, null, null, checked);
     }
 
     private NodeType mapNodeType(DetectedComponentType type) {
         return switch (type) {
-            case TEXT -> NodeType.TEXT;
+            case TEXT, PARAGRAPH -> NodeType.TEXT;
             case FIELD -> NodeType.FIELD;
             case TABLE -> NodeType.TABLE;
             case IMAGE -> NodeType.IMAGE;
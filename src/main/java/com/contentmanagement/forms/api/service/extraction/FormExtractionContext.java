@@ -3,5 +3,27 @@ package com.contentmanagement.forms.api.service.extraction;
 import com.contentmanagement.forms.api.model.ProcessingMode;
 import org.springframework.web.multipart.MultipartFile;
 
-public record FormExtractionContext(MultipartFile sourceFile, ProcessingMode mode) {
+/**
+ * @param documentId content key of the stored source, or {@code null} when stage artifacts are not persisted
+ * @param invalidateFrom earliest stage to recompute even if a matching artifact exists, or {@code null}
+ * @param scope pages and regions of interest to process
+ * @param deadline when to stop and return the pages finished so far
+ */
+public record FormExtractionContext(
+        MultipartFile sourceFile,
+        ProcessingMode mode,
+        String documentId,
+        ArtifactStage invalidateFrom,
+        ExtractionScope scope,
+        ExtractionDeadline deadline
+) {
+
+    public FormExtractionContext {
+        scope = scope != null ? scope : ExtractionScope.ALL;
+        deadline = deadline != null ? deadline : ExtractionDeadline.unbounded();
+    }
+
+    public FormExtractionContext(MultipartFile sourceFile, ProcessingMode mode) {
+        this(sourceFile, mode, null, null, ExtractionScope.ALL, null);
+    }
 }
@@ -0,0 +1,31 @@
+package com.contentmanagement.forms.api.service.extraction;
+
+import com.contentmanagement.forms.api.config.FormProcessingProperties;
+import com.contentmanagement.forms.api.model.WidgetType;
+import org.springframework.stereotype.Component;
+
+/**
+ * Decides from the interior ink density measured by {@link OpenCvLayoutAnalyzer} whether a region is worth an
+ * OCR call. Checkboxes never are: their state is read straight from the fill ratio.
+ */
+@Component
+public class InkDensityGate {
+
+    private final FormProcessingProperties properties;
+
+    public InkDensityGate(FormProcessingProperties properties) {
+        this.properties = properties;
+    }
+
+    public boolean isCheckbox(DetectedComponent component) {
+        return component.widgetType() == WidgetType.CHECKBOX;
+    }
+
+    public boolean isChecked(DetectedComponent component) {
+        return component.inkRatio() >= properties.getCheckboxCheckedInkThreshold();
+    }
+
+    public boolean isBlank(DetectedComponent component) {
+        return component.inkRatio() < properties.getBlankRegionInkThreshold();
+    }
+}
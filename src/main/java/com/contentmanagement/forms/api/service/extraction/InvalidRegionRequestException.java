@@ -0,0 +1,9 @@
+package com.contentmanagement.forms.api.service.extraction;
+
+/** Thrown by {@link RegionOcrService} for a region, profile or page the request got wrong. */
+public class InvalidRegionRequestException extends RuntimeException {
+
+    public InvalidRegionRequestException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,164 @@
+package com.contentmanagement.forms.api.service.extraction;
+
+import com.contentmanagement.forms.api.config.FormProcessingProperties;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Admission control for page rendering: reserves each PDF's estimated peak render cost from one shared budget,
+ * lowering the DPI of pages that could not fit on their own.
+ */
+@Component
+public class MemoryGovernor {
+
+    private static final Logger log = LoggerFactory.getLogger(MemoryGovernor.class);
+
+    // Per rendered pixel: PDFBox's INT_RGB image plus the BGR copy on the heap, then the page Mat and the
+    // analyzer's grey, blurred, binary and ruling masks in native memory.
+    static final int HEAP_BYTES_PER_PIXEL = 7;
+    static final int NATIVE_BYTES_PER_PIXEL = 9;
+
+    private final FormProcessingProperties.Memory settings;
+    private final long budget;
+    private final ReentrantLock lock = new ReentrantLock(true);
+    private final Condition released = lock.newCondition();
+    private long reserved;
+
+    public MemoryGovernor(FormProcessingProperties properties) {
+        this.settings = properties.getMemory();
+        DataSize configured = settings.getBudget();
+        this.budget = configured != null ? configured.toBytes() : Runtime.getRuntime().maxMemory() / 2;
+    }
+
+    /**
+     * Lowers the planned DPI of pages that cannot fit on their own and blocks until the peak cost fits the budget.
+     *
+     * @param plannedDpis preferred DPI by page index
+     * @param pageAreas page area in square points by page index; zero for pages that will not be rendered
+     * @throws IllegalStateException when the budget does not free up within {@code memory.acquire-timeout}
+     */
+    Reservation reserve(String label, float[] plannedDpis, double[] pageAreas) {
+        float[] dpis = plannedDpis.clone();
+        if (!settings.isEnabled()) {
+            return new Reservation(this, dpis, 0);
+        }
+
+        long peak = 0;
+        int degraded = 0;
+        float lowest = Float.MAX_VALUE;
+        for (int page = 0; page < pageAreas.length; page++) {
+            float dpi = dpis[page];
+            long cost = cost(pageAreas[page], dpi);
+            if (cost > budget) {
+                float lowered = (float) Math.max(settings.getMinDpi(),
+                        Math.floor(dpi * Math.sqrt((double) budget / cost)));
+                if (lowered < dpi) {
+                    dpis[page] = lowered;
+                    cost = cost(pageAreas[page], lowered);
+                    degraded++;
+                    lowest = Math.min(lowest, lowered);
+                }
+            }
+            peak = Math.max(peak, cost);
+        }
+        if (degraded > 0) {
+            log.info("Rendering {} page(s) of {} at a lower DPI (down to {}) to fit the {} MB memory budget",
+                    degraded, label, (int) lowest, budget >> 20);
+        }
+        long request = Math.min(peak, budget);
+        acquire(label, request);
+        return new Reservation(this, dpis, request);
+    }
+
+    /** Everything besides the page itself that decides how far its DPI is lowered, for artifact fingerprints. */
+    String renderKey() {
+        return settings.isEnabled() ? "budget=" + budget + ",min=" + settings.getMinDpi() : "unbounded";
+    }
+
+    public long budgetBytes() {
+        return budget;
+    }
+
+    public long reservedBytes() {
+        lock.lock();
+        try {
+            return reserved;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    static long cost(double areaInPoints, float dpi) {
+        double scale = dpi / 72.0;
+        return (long) (areaInPoints * scale * scale) * (HEAP_BYTES_PER_PIXEL + NATIVE_BYTES_PER_PIXEL);
+    }
+
+    private void acquire(String label, long bytes) {
+        long remaining = settings.getAcquireTimeout().toNanos();
+        lock.lock();
+        try {
+            if (reserved + bytes > budget) {
+                log.info("{} needs {} MB; waiting for {} MB of the {} MB memory budget to be released",
+                        label, bytes >> 20, (reserved + bytes - budget) >> 20, budget >> 20);
+            }
+            while (reserved + bytes > budget) {
+                if (remaining <= 0) {
+                    throw new IllegalStateException("Timed out after " + settings.getAcquireTimeout()
+                            + " waiting for " + (bytes >> 20) + " MB of memory budget for " + label);
+                }
+                remaining = released.awaitNanos(remaining);
+            }
+            reserved += bytes;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for memory budget for " + label, ex);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void release(long bytes) {
+        if (bytes == 0) {
+            return;
+        }
+        lock.lock();
+        try {
+            reserved -= bytes;
+            released.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** A granted share of the budget together with the DPI each page must be rendered at. */
+    static final class Reservation implements AutoCloseable {
+
+        private final MemoryGovernor governor;
+        private final float[] dpis;
+        private final long bytes;
+        private boolean closed;
+
+        private Reservation(MemoryGovernor governor, float[] dpis, long bytes) {
+            this.governor = governor;
+            this.dpis = dpis;
+            this.bytes = bytes;
+        }
+
+        float dpi(int pageIndex) {
+            return dpis[pageIndex];
+        }
+
+        @Override
+        public void close() {
+            if (!closed) {
+                closed = true;
+                governor.release(bytes);
+            }
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.contentmanagement.forms.api.service.extraction;
+
+import com.contentmanagement.forms.api.config.FormProcessingProperties;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import org.slf4j.Logger;
+import org.springframework.stereotype.Component;
+
+@Component
+public class NativeResourceTracker {
+
+    private final boolean debugEnabled;
+    private final ConcurrentMap<String, StageCounters> stages = new ConcurrentHashMap<>();
+
+    public NativeResourceTracker(FormProcessingProperties properties) {
+        this.debugEnabled = properties.isNativeLeakDetectionEnabled();
+    }
+
+    public NativeScope open(String stage) {
+        return new NativeScope(stage, this);
+    }
+
+    public boolean isDebugEnabled() {
+        return debugEnabled;
+    }
+
+    public Map<String, Long> outstandingByStage() {
+        Map<String, Long> outstanding = new TreeMap<>();
+        stages.forEach((stage, counters) -> outstanding.put(stage, counters.outstanding()));
+        return outstanding;
+    }
+
+    void recordAllocated(String stage, int count) {
+        if (debugEnabled && count > 0) {
+            counters(stage).allocated.add(count);
+        }
+    }
+
+    void recordReleased(String stage, int count) {
+        if (debugEnabled && count > 0) {
+            counters(stage).released.add(count);
+        }
+    }
+
+    void recordLeakedScope(String stage, int count) {
+        if (debugEnabled) {
+            StageCounters counters = counters(stage);
+            counters.leakedScopes.increment();
+            counters.leakedMats.add(count);
+        }
+    }
+
+    void logSummary(Logger logger) {
+        if (!debugEnabled) {
+            return;
+        }
+        stages.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey())
+                .forEach(entry -> {
+                    StageCounters counters = entry.getValue();
+                    long leakedScopes = counters.leakedScopes.sum();
+                    if (leakedScopes > 0) {
+                        logger.warn("Native stage '{}': {} scope(s) were never closed and leaked {} Mat(s) until GC; allocated={} released={} outstanding={}",
+                                entry.getKey(), leakedScopes, counters.leakedMats.sum(),
+                                counters.allocated.sum(), counters.released.sum(), counters.outstanding());
+                    } else {
+                        logger.info("Native stage '{}': allocated={} released={} outstanding={}",
+                                entry.getKey(), counters.allocated.sum(), counters.released.sum(), counters.outstanding());
+                    }
+                });
+    }
+
+    private StageCounters counters(String stage) {
+        return stages.computeIfAbsent(stage, ignored -> new StageCounters());
+    }
+
+    private static final class StageCounters {
+
+        private final LongAdder allocated = new LongAdder();
+        private final LongAdder released = new LongAdder();
+        private final LongAdder leakedScopes = new LongAdder();
+        private final LongAdder leakedMats = new LongAdder();
+
+        private long outstanding() {
+            return allocated.sum() - released.sum();
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.contentmanagement.forms.api.service.extraction;
+
+import java.lang.ref.Cleaner;
+import java.util.ArrayList;
+import java.util.List;
+import org.opencv.core.Mat;
+
+/**
+ * Arena for native OpenCV allocations. Every {@link Mat} created while processing a page or region is
+ * registered with the scope that owns the work and is released deterministically when the scope closes,
+ * instead of waiting for the JVM finalizer to notice that a tiny Java wrapper holds megabytes of native memory.
+ */
+public final class NativeScope implements AutoCloseable {
+
+    private static final Cleaner CLEANER = Cleaner.create();
+
+    private final State state;
+    private final Cleaner.Cleanable cleanable;
+
+    NativeScope(String stage, NativeResourceTracker tracker) {
+        this.state = new State(stage, tracker);
+        this.cleanable = tracker.isDebugEnabled() ? CLEANER.register(this, state) : null;
+    }
+
+    public <T extends Mat> T track(T mat) {
+        if (mat != null) {
+            state.mats.add(mat);
+            state.tracker.recordAllocated(state.stage, 1);
+        }
+        return mat;
+    }
+
+    public <T extends Mat> List<T> trackAll(List<T> mats) {
+        state.mats.addAll(mats);
+        state.tracker.recordAllocated(state.stage, mats.size());
+        return mats;
+    }
+
+    public String stage() {
+        return state.stage;
+    }
+
+    @Override
+    public void close() {
+        state.closed = true;
+        if (cleanable != null) {
+            cleanable.clean();
+        } else {
+            state.run();
+        }
+    }
+
+    // Kept free of references to the owning scope so the Cleaner can observe it becoming unreachable.
+    private static final class State implements Runnable {
+
+        private final String stage;
+        private final NativeResourceTracker tracker;
+        private final List<Mat> mats = new ArrayList<>();
+        private volatile boolean closed;
+
+        private State(String stage, NativeResourceTracker tracker) {
+            this.stage = stage;
+            this.tracker = tracker;
+        }
+
+        @Override
+        public void run() {
+            int count = mats.size();
+            if (!closed) {
+                tracker.recordLeakedScope(stage, count);
+            }
+            for (int i = mats.size() - 1; i >= 0; i--) {
+                mats.get(i).release();
+            }
+            mats.clear();
+            tracker.recordReleased(stage, count);
+        }
+    }
+}
@@ -1,7 +1,6 @@
 package com.contentmanagement.forms.api.service.extraction;
 
 import java.io.File;
-import java.io.IOException;
 
 import org.bytedeco.javacpp.Loader;
 import org.bytedeco.leptonica.presets.leptonica;
@@ -37,7 +36,7 @@ final class NativeTesseractBootstrap {
 
                 loaded = true;
                 log.info("Initialized Tesseract native libraries from {}", tessLibrary.getParentFile());
-            } catch (UnsatisfiedLinkError | IOException ex) {
+            } catch (UnsatisfiedLinkError ex) {
                 throw new IllegalStateException("Unable to load Bytedeco native libraries", ex);
             } catch (RuntimeException ex) {
                 throw new IllegalStateException("Unexpected error while loading native libraries", ex);
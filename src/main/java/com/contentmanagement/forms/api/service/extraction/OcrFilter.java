@@ -0,0 +1,30 @@
+package com.contentmanagement.forms.api.service.extraction;
+
+import org.opencv.core.Mat;
+import org.opencv.core.Size;
+import org.opencv.imgproc.Imgproc;
+
+public enum OcrFilter {
+    MEDIAN {
+        @Override
+        void apply(Mat source, Mat target) {
+            Imgproc.medianBlur(source, target, 3);
+        }
+    },
+    GAUSSIAN {
+        @Override
+        void apply(Mat source, Mat target) {
+            Imgproc.GaussianBlur(source, target, GAUSSIAN_KERNEL, 0);
+        }
+    },
+    BILATERAL {
+        @Override
+        void apply(Mat source, Mat target) {
+            Imgproc.bilateralFilter(source, target, 7, 60, 60);
+        }
+    };
+
+    private static final Size GAUSSIAN_KERNEL = new Size(3, 3);
+
+    abstract void apply(Mat source, Mat target);
+}
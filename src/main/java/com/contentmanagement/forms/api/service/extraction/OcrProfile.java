@@ -0,0 +1,35 @@
+package com.contentmanagement.forms.api.service.extraction;
+
+import java.util.List;
+
+public record OcrProfile(
+        String name,
+        int pageSegMode,
+        double scaleFactor,
+        int targetTextHeightPx,
+        double minScale,
+        double maxScale,
+        List<OcrFilter> filters,
+        boolean morphologyClose,
+        String characterWhitelist
+) {
+
+    static final String DEFAULT_NAME = "block";
+
+    // Matches the behaviour before profiles existed: uniform block, 2x upscale, bilateral filter.
+    static OcrProfile legacyDefault() {
+        return new OcrProfile(DEFAULT_NAME, 6, 2.0, 0, 1.0, 2.0, List.of(OcrFilter.BILATERAL), true, null);
+    }
+
+    /**
+     * With a target text height the region is scaled so its height lands near that many pixels, which is what
+     * single-line and single-character regions need; otherwise the fixed factor applies.
+     */
+    double scaleFor(int regionHeight) {
+        if (targetTextHeightPx <= 0 || regionHeight <= 0) {
+            return scaleFactor;
+        }
+        double adaptive = targetTextHeightPx / (double) regionHeight;
+        return Math.max(minScale, Math.min(maxScale, adaptive));
+    }
+}
@@ -0,0 +1,93 @@
+package com.contentmanagement.forms.api.service.extraction;
+
+import com.contentmanagement.forms.api.config.FormProcessingProperties;
+import com.contentmanagement.forms.api.model.WidgetType;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import org.springframework.stereotype.Component;
+
+/**
+ * Resolves the OCR profile for a detected component: the widget type mapping wins, then the component type
+ * mapping, then the default profile. Profiles are validated once at startup so a typo fails fast instead of
+ * silently falling back per region.
+ */
+@Component
+public class OcrProfileRegistry {
+
+    private final Map<String, OcrProfile> profiles = new LinkedHashMap<>();
+    private final Map<WidgetType, OcrProfile> byWidgetType = new EnumMap<>(WidgetType.class);
+    private final Map<DetectedComponentType, OcrProfile> byComponentType = new EnumMap<>(DetectedComponentType.class);
+    private final OcrProfile defaultProfile;
+
+    public OcrProfileRegistry(FormProcessingProperties properties) {
+        FormProcessingProperties.OcrProfiles settings = properties.getOcrProfiles();
+        settings.getDefinitions().forEach((name, definition) -> profiles.put(name, toProfile(name, definition)));
+        profiles.putIfAbsent(OcrProfile.DEFAULT_NAME, OcrProfile.legacyDefault());
+
+        this.defaultProfile = require(settings.getDefaultProfile(), "default-profile");
+        settings.getByWidgetType().forEach((type, name) ->
+                byWidgetType.put(WidgetType.valueOf(type.toUpperCase(Locale.ROOT)), require(name, "by-widget-type." + type)));
+        settings.getByComponentType().forEach((type, name) ->
+                byComponentType.put(DetectedComponentType.valueOf(type.toUpperCase(Locale.ROOT)), require(name, "by-component-type." + type)));
+    }
+
+    public OcrProfile select(DetectedComponent component) {
+        if (component.widgetType() != null) {
+            OcrProfile profile = byWidgetType.get(component.widgetType());
+            if (profile != null) {
+                return profile;
+            }
+        }
+        return byComponentType.getOrDefault(component.type(), defaultProfile);
+    }
+
+    /** The profile configured for {@code widgetType}, else the default profile. */
+    public OcrProfile forWidget(WidgetType widgetType) {
+        return byWidgetType.getOrDefault(widgetType, defaultProfile);
+    }
+
+    public OcrProfile defaultProfile() {
+        return defaultProfile;
+    }
+
+    public OcrProfile get(String name) {
+        return require(name, "profile");
+    }
+
+    public Collection<OcrProfile> all() {
+        return profiles.values();
+    }
+
+    private OcrProfile require(String name, String setting) {
+        OcrProfile profile = profiles.get(name);
+        if (profile == null) {
+            throw new IllegalStateException("Unknown OCR profile '" + name + "' referenced by form.processing.ocr-profiles." + setting);
+        }
+        return profile;
+    }
+
+    private OcrProfile toProfile(String name, FormProcessingProperties.OcrProfiles.Definition definition) {
+        List<OcrFilter> filters = new ArrayList<>();
+        for (String filter : definition.getFilters()) {
+            if (filter != null && !filter.isBlank()) {
+                filters.add(OcrFilter.valueOf(filter.trim().toUpperCase(Locale.ROOT)));
+            }
+        }
+        String whitelist = definition.getCharacterWhitelist();
+        return new OcrProfile(
+                name,
+                definition.getPageSegMode(),
+                definition.getScaleFactor(),
+                definition.getTargetTextHeightPx(),
+                definition.getMinScale(),
+                definition.getMaxScale(),
+                List.copyOf(filters),
+                definition.isMorphologyClose(),
+                whitelist == null || whitelist.isBlank() ? null : whitelist);
+    }
+}
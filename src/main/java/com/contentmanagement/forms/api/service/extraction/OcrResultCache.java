@@ -0,0 +1,145 @@
+package com.contentmanagement.forms.api.service.extraction;
+
+import com.contentmanagement.forms.api.config.FormProcessingProperties;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import org.slf4j.Logger;
+import org.springframework.stereotype.Component;
+
+/**
+ * Bounded LRU of OCR results keyed by the perceptual hash of the preprocessed region and a coarse size bucket.
+ * A lookup first tries the exact hash and then, when {@code max-hamming-distance} is above zero, scans the entries
+ * of the same size bucket for the closest hash within it. Only printed labels are looked up here, never field
+ * values: two different values of the same shape can hash alike, and a hit would hand one document's text to another.
+ */
+@Component
+public class OcrResultCache {
+
+    private final FormProcessingProperties.OcrCache settings;
+    private final Object lock = new Object();
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(256, 0.75f, true);
+    private final Map<String, List<Entry>> buckets = new HashMap<>();
+
+    private final LongAdder exactHits = new LongAdder();
+    private final LongAdder nearHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public OcrResultCache(FormProcessingProperties properties) {
+        this.settings = properties.getOcrCache();
+    }
+
+    public boolean isEnabled() {
+        return settings.isEnabled() && settings.getMaxEntries() > 0;
+    }
+
+    public String bucketOf(String variant, int width, int height) {
+        int step = Math.max(1, settings.getSizeBucketPx());
+        return variant + ':' + (width / step) + 'x' + (height / step);
+    }
+
+    /**
+     * @return the cached entry, or {@code null} on a miss. A hit may carry a {@code null} text when the region
+     * was previously recognised as empty.
+     */
+    public Entry lookup(String bucket, long hash) {
+        synchronized (lock) {
+            Entry exact = entries.get(new Key(bucket, hash));
+            if (exact != null) {
+                exactHits.increment();
+                return exact;
+            }
+            Entry closest = null;
+            int bestDistance = settings.getMaxHammingDistance() + 1;
+            List<Entry> candidates = buckets.get(bucket);
+            if (candidates != null) {
+                for (Entry candidate : candidates) {
+                    int distance = PerceptualHash.distance(hash, candidate.hash());
+                    if (distance < bestDistance) {
+                        bestDistance = distance;
+                        closest = candidate;
+                    }
+                }
+            }
+            if (closest == null) {
+                misses.increment();
+                return null;
+            }
+            // Touch the entry so frequently matched labels stay resident.
+            entries.get(new Key(bucket, closest.hash()));
+            nearHits.increment();
+            return closest;
+        }
+    }
+
+    public void put(String bucket, long hash, String text) {
+        Entry entry = new Entry(bucket, hash, text);
+        synchronized (lock) {
+            Entry previous = entries.put(new Key(bucket, hash), entry);
+            List<Entry> bucketEntries = buckets.computeIfAbsent(bucket, ignored -> new ArrayList<>());
+            if (previous != null) {
+                bucketEntries.remove(previous);
+            }
+            bucketEntries.add(entry);
+            evictOverflow();
+        }
+    }
+
+    public Statistics statistics() {
+        int size;
+        synchronized (lock) {
+            size = entries.size();
+        }
+        return new Statistics(exactHits.sum(), nearHits.sum(), misses.sum(), evictions.sum(), size);
+    }
+
+    void logSummary(Logger logger) {
+        if (!isEnabled()) {
+            return;
+        }
+        Statistics statistics = statistics();
+        logger.info("OCR cache: exactHits={} nearHits={} misses={} hitRatio={} size={} evictions={}",
+                statistics.exactHits(),
+                statistics.nearHits(),
+                statistics.misses(),
+                String.format(Locale.ROOT, "%.3f", statistics.hitRatio()),
+                statistics.size(),
+                statistics.evictions());
+    }
+
+    private void evictOverflow() {
+        Iterator<Map.Entry<Key, Entry>> iterator = entries.entrySet().iterator();
+        while (entries.size() > settings.getMaxEntries() && iterator.hasNext()) {
+            Entry eldest = iterator.next().getValue();
+            iterator.remove();
+            List<Entry> bucketEntries = buckets.get(eldest.bucket());
+            if (bucketEntries != null) {
+                bucketEntries.remove(eldest);
+                if (bucketEntries.isEmpty()) {
+                    buckets.remove(eldest.bucket());
+                }
+            }
+            evictions.increment();
+        }
+    }
+
+    private record Key(String bucket, long hash) {
+    }
+
+    public record Entry(String bucket, long hash, String text) {
+    }
+
+    public record Statistics(long exactHits, long nearHits, long misses, long evictions, int size) {
+
+        public double hitRatio() {
+            long lookups = exactHits + nearHits + misses;
+            return lookups == 0 ? 0d : (exactHits + nearHits) / (double) lookups;
+        }
+    }
+}
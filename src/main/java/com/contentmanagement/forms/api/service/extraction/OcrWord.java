@@ -0,0 +1,11 @@
+package com.contentmanagement.forms.api.service.extraction;
+
+import org.opencv.core.Rect;
+
+/**
+ * A recognised word with its box in the coordinates of the image handed to OCR.
+ *
+ * @param confidence Tesseract's word confidence, 0-100
+ */
+record OcrWord(String text, Rect box, float confidence) {
+}
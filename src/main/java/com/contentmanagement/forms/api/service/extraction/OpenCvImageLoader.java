@@ -1,31 +1,133 @@
 package com.contentmanagement.forms.api.service.extraction;
 
+import jakarta.annotation.PreDestroy;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import org.opencv.core.CvType;
 import org.opencv.core.Mat;
 import org.opencv.core.MatOfByte;
+import org.opencv.core.Range;
 import org.opencv.imgcodecs.Imgcodecs;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.ResourceLoader;
 import org.springframework.stereotype.Component;
+import org.springframework.web.multipart.MultipartFile;
 
 @Component
 public class OpenCvImageLoader {
 
     private static final Logger log = LoggerFactory.getLogger(OpenCvImageLoader.class);
+    private static final int STREAM_CHUNK_BYTES = 64 * 1024;
 
     private final ResourceLoader resourceLoader;
     private final OpenCvSupport openCvSupport;
+    private final ConcurrentMap<String, Mat> classpathImages = new ConcurrentHashMap<>();
 
     public OpenCvImageLoader(ResourceLoader resourceLoader, OpenCvSupport openCvSupport) {
         this.resourceLoader = resourceLoader;
         this.openCvSupport = openCvSupport;
     }
 
+    /**
+     * Returns the decoded classpath image, decoding it only on first use. The Mat is shared between requests:
+     * callers must treat it as read-only and must not release it.
+     */
     public Mat loadClasspathImage(String resourcePath) {
         openCvSupport.ensureLoaded();
+        return classpathImages.computeIfAbsent(resourcePath, this::decodeClasspathImage);
+    }
+
+    /**
+     * Decodes every page of an uploaded PNG, JPEG or (multi-page) TIFF. The upload is streamed in fixed-size
+     * chunks straight into a native buffer, so the encoded file is never held on the Java heap. Grayscale
+     * scans stay single-channel. The caller owns the returned Mats.
+     *
+     * @throws UnsupportedUploadException when the upload is empty, too large or not a decodable image
+     */
+    public List<Mat> decodeUpload(MultipartFile file) {
+        return decodeUpload(file, 0, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Decodes only the frames {@code [firstPage, endPage)}; the first returned Mat is page {@code firstPage}.
+     * Returns an empty list when the file has fewer than {@code firstPage + 1} pages.
+     */
+    public List<Mat> decodeUpload(MultipartFile file, int firstPage, int endPage) {
+        openCvSupport.ensureLoaded();
+        long size = file.getSize();
+        if (size <= 0 || size > Integer.MAX_VALUE) {
+            throw new UnsupportedUploadException("Unsupported upload size " + size + " for " + file.getOriginalFilename());
+        }
+
+        ExtractionEvents.MatConversion event = new ExtractionEvents.MatConversion();
+        event.begin();
+        Mat encoded = new Mat(1, (int) size, CvType.CV_8UC1);
+        try {
+            try (InputStream inputStream = file.getInputStream()) {
+                streamInto(inputStream, encoded, (int) size);
+            }
+            List<Mat> pages = new ArrayList<>();
+            boolean decoded = firstPage == 0 && endPage == Integer.MAX_VALUE
+                    ? Imgcodecs.imdecodemulti(encoded, Imgcodecs.IMREAD_ANYCOLOR, pages)
+                    : Imgcodecs.imdecodemulti(encoded, Imgcodecs.IMREAD_ANYCOLOR, pages, new Range(firstPage, endPage));
+            if (firstPage > 0 && pages.isEmpty() && canDecode(encoded)) {
+                return pages;
+            }
+            if (!decoded || pages.isEmpty()) {
+                pages.forEach(Mat::release);
+                throw new UnsupportedUploadException("Unsupported or corrupt image: " + file.getOriginalFilename());
+            }
+            log.debug("Decoded {} page(s) from upload {}", pages.size(), file.getOriginalFilename());
+            if (event.shouldCommit()) {
+                event.pageIndex = firstPage;
+                event.mats = pages.size();
+                event.width = pages.get(0).cols();
+                event.height = pages.get(0).rows();
+                event.channels = pages.get(0).channels();
+                event.inputBytes = size;
+                event.commit();
+            }
+            return pages;
+        } catch (IOException ex) {
+            log.error("Unable to read upload {}", file.getOriginalFilename(), ex);
+            throw new IllegalStateException("Unable to read upload: " + file.getOriginalFilename(), ex);
+        } finally {
+            encoded.release();
+        }
+    }
+
+    /** Whether the upload starts with the PDF header, i.e. belongs to PDFBox rather than to an image codec. */
+    public static boolean isPdf(MultipartFile file) {
+        try (InputStream in = file.getInputStream()) {
+            return "%PDF".equals(new String(in.readNBytes(4), StandardCharsets.US_ASCII));
+        } catch (IOException ex) {
+            throw new IllegalStateException("Unable to read upload " + file.getOriginalFilename(), ex);
+        }
+    }
+
+    private static boolean canDecode(Mat encoded) {
+        List<Mat> first = new ArrayList<>(1);
+        try {
+            return Imgcodecs.imdecodemulti(encoded, Imgcodecs.IMREAD_ANYCOLOR, first, new Range(0, 1)) && !first.isEmpty();
+        } finally {
+            first.forEach(Mat::release);
+        }
+    }
+
+    @PreDestroy
+    void releaseCachedImages() {
+        classpathImages.values().forEach(Mat::release);
+        classpathImages.clear();
+    }
+
+    private Mat decodeClasspathImage(String resourcePath) {
         Resource resource = resourceLoader.getResource("classpath:" + resourcePath);
         if (!resource.exists()) {
             throw new IllegalArgumentException("Resource not found: " + resourcePath);
@@ -34,9 +136,14 @@ public class OpenCvImageLoader {
         try (InputStream inputStream = resource.getInputStream()) {
             byte[] bytes = inputStream.readAllBytes();
             MatOfByte mob = new MatOfByte(bytes);
-            Mat mat = Imgcodecs.imdecode(mob, Imgcodecs.IMREAD_COLOR);
-            mob.release();
+            Mat mat;
+            try {
+                mat = Imgcodecs.imdecode(mob, Imgcodecs.IMREAD_COLOR);
+            } finally {
+                mob.release();
+            }
             if (mat.empty()) {
+                mat.release();
                 throw new IllegalStateException("Failed to decode image: " + resourcePath);
             }
             return mat;
@@ -45,4 +152,17 @@ public class OpenCvImageLoader {
             throw new IllegalStateException("Unable to load image: " + resourcePath, ex);
         }
     }
+
+    private static void streamInto(InputStream inputStream, Mat target, int length) throws IOException {
+        byte[] chunk = new byte[STREAM_CHUNK_BYTES];
+        int offset = 0;
+        while (offset < length) {
+            int read = inputStream.read(chunk, 0, Math.min(chunk.length, length - offset));
+            if (read == -1) {
+                throw new IOException("Upload ended after " + offset + " of " + length + " bytes");
+            }
+            target.put(0, offset, chunk, 0, read);
+            offset += read;
+        }
+    }
 }
@@ -22,38 +22,154 @@ public class OpenCvLayoutAnalyzer {
 
     private static final Logger log = LoggerFactory.getLogger(OpenCvLayoutAnalyzer.class);
 
-    private static final double MIN_COMPONENT_AREA_RATIO = 0.0005;
-    private static final double MAX_COMPONENT_AREA_RATIO = 0.8;
+    // Bump whenever detection or classification output changes so persisted layouts are recomputed.
+    static final int ALGORITHM_VERSION = 6;
+    // Pixel thresholds below are tuned for pages rendered at this resolution and scaled for any other.
+    static final float REFERENCE_DPI = 200f;
+
+    static final double MIN_COMPONENT_AREA_RATIO = 0.0005;
+    static final double MAX_COMPONENT_AREA_RATIO = 0.8;
+    private static final int BLUR_KERNEL_PX = 5;
+    private static final int THRESHOLD_BLOCK_PX = 35;
+    private static final int CLOSE_KERNEL_PX = 3;
+    private static final int SPECK_PX = 4;
+    private static final int FIELD_MAX_SIDE_PX = 80;
+    // Square fields larger than this (photo or signature boxes) are read as text, not ticked.
+    private static final int CHECKBOX_MAX_SIDE_PX = 40;
+    private static final int TEXTAREA_MIN_HEIGHT_PX = 60;
+    private static final double INTERIOR_INSET_RATIO = 0.15;
+    private static final int INTERIOR_MIN_INSET_PX = 2;
+    static final int TABLE_CONTAINMENT_TOLERANCE_PX = 3;
+    private static final int TEXT_PADDING_MIN_PX = 2;
+    private static final double TEXT_PADDING_RATIO = 0.15;
+    // Index of the parent and first child in each findContours hierarchy entry.
+    private static final int HIERARCHY_FIRST_CHILD = 2;
+    private static final int HIERARCHY_PARENT = 3;
+    // A child covering this much of its parent makes the parent a drawn box rather than a glyph.
+    private static final double HOLLOW_CHILD_AREA_RATIO = 0.6;
+
+    private static final int SLOT_GRAY = 0;
+    private static final int SLOT_BLURRED = 1;
+    private static final int SLOT_BINARY = 2;
+
+    private final NativeResourceTracker nativeResources;
+    private final ScratchMats scratch = new ScratchMats(3);
+    private final RulingTableDetector tableDetector = new RulingTableDetector();
+
+    public OpenCvLayoutAnalyzer(NativeResourceTracker nativeResources) {
+        this.nativeResources = nativeResources;
+    }
 
     public PageLayout analyze(Mat image, int pageIndex) {
-        double width = image.width();
-        double height = image.height();
-        Mat processed = preprocess(image);
-        List<MatOfPoint> contours = new ArrayList<>();
-        Mat hierarchy = new Mat();
-        Imgproc.findContours(processed, contours, hierarchy, Imgproc.RETR_TREE, Imgproc.CHAIN_APPROX_SIMPLE);
+        return analyze(image, pageIndex, image.width(), image.height());
+    }
 
+    public PageLayout analyze(Mat image, int pageIndex, double width, double height) {
+        return analyze(image, pageIndex, width, height, 1.0);
+    }
+
+    /**
+     * Analyzes an image that may be a clipped part of a page. Area thresholds and the reported layout size refer
+     * to the full page, so a region of interest yields the same components it would on the whole page; boxes
+     * stay relative to {@code image}. {@code pixelScale} is the render DPI over {@link #REFERENCE_DPI}; every
+     * threshold given in pixels is multiplied by it, so a page yields the same components at any resolution.
+     */
+    public PageLayout analyze(Mat image, int pageIndex, double width, double height, double pixelScale) {
+        ExtractionEvents.LayoutAnalysis event = new ExtractionEvents.LayoutAnalysis();
+        event.begin();
         List<DetectedComponent> components = new ArrayList<>();
-        int index = 0;
-        for (MatOfPoint contour : contours) {
-            Rect rect = Imgproc.boundingRect(contour);
-            if (rect.height <= 4 || rect.width <= 4) {
-                continue;
+        int speck = scaled(SPECK_PX, pixelScale);
+        try (NativeScope scope = nativeResources.open("layout")) {
+            Mat processed = preprocess(image, pixelScale);
+            List<TableGrid> tables = tableDetector.detect(processed, width, height, pixelScale, scope);
+            List<MatOfPoint> contours = new ArrayList<>();
+            Mat hierarchy = scope.track(new Mat());
+            Imgproc.findContours(processed, contours, hierarchy, Imgproc.RETR_TREE, Imgproc.CHAIN_APPROX_SIMPLE);
+            scope.trackAll(contours);
+
+            Rect[] rects = new Rect[contours.size()];
+            for (int i = 0; i < rects.length; i++) {
+                rects[i] = Imgproc.boundingRect(contours.get(i));
             }
-            double area = rect.area();
+            int[] links = new int[contours.size() * 4];
+            if (!contours.isEmpty()) {
+                hierarchy.get(0, 0, links);
+            }
+
             double pageArea = width * height;
-            double areaRatio = area / pageArea;
-            if (areaRatio < MIN_COMPONENT_AREA_RATIO || areaRatio > MAX_COMPONENT_AREA_RATIO) {
-                continue;
+            double maxFragmentHeight = TextLineGrouper.maxFragmentHeight(height);
+            List<Rect> candidates = new ArrayList<>();
+            List<Rect> fragments = new ArrayList<>();
+            for (int i = 0; i < rects.length; i++) {
+                Rect rect = rects[i];
+                if (rect.height <= speck && rect.width <= speck) {
+                    continue;
+                }
+                // Cells, rulings and cell content are represented by the table's grid instead.
+                if (insideAnyTable(rect, tables, scaled(TABLE_CONTAINMENT_TOLERANCE_PX, pixelScale))) {
+                    continue;
+                }
+                boolean thin = rect.height <= speck || rect.width <= speck;
+                if (rect.height <= maxFragmentHeight && !isHollow(i, rects, links)) {
+                    // Glyph holes and marks belong to the fragment that encloses them.
+                    int parent = links[i * 4 + HIERARCHY_PARENT];
+                    if (parent < 0 || rects[parent].height > maxFragmentHeight) {
+                        fragments.add(rect);
+                    } else if (isHollow(parent, rects, links) && rect.area() < rects[parent].area() * HOLLOW_CHILD_AREA_RATIO) {
+                        // Content of a small drawn box, but not the inner edge of its border.
+                        fragments.add(rect);
+                    }
+                    continue;
+                }
+                double areaRatio = rect.area() / pageArea;
+                if (thin || areaRatio < MIN_COMPONENT_AREA_RATIO || areaRatio > MAX_COMPONENT_AREA_RATIO) {
+                    continue;
+                }
+                candidates.add(rect);
             }
-            DetectedComponentType type = classify(rect);
-            WidgetType widgetType = inferWidgetType(type, rect);
-            double confidence = computeConfidence(processed, rect);
-            components.add(new DetectedComponent(index++, type, rect, null, confidence, widgetType));
-        }
 
-        processed.release();
-        hierarchy.release();
+            List<Rect> kept = OverlapSuppressor.suppress(candidates, pixelScale);
+            int suppressed = candidates.size() - kept.size();
+            if (suppressed > 0) {
+                log.info("Suppressed {} overlapping contour(s) on page {}; {} remain", suppressed, pageIndex, kept.size());
+            }
+
+            // Fragments are grouped before the area filter, which on its own would drop most single words.
+            List<TextLineGrouper.Region> regions = new ArrayList<>();
+            int grouped = 0;
+            for (TextLineGrouper.Region region : TextLineGrouper.group(kept, fragments, height)) {
+                if (region.fragments() > 0 && region.box().area() / pageArea < MIN_COMPONENT_AREA_RATIO) {
+                    continue;
+                }
+                if (region.fragments() > 1) {
+                    grouped += region.fragments();
+                }
+                regions.add(region.fragments() > 0
+                        ? padded(region, maxFragmentHeight, scaled(TEXT_PADDING_MIN_PX, pixelScale), image.cols(), image.rows())
+                        : region);
+            }
+            if (grouped > 0) {
+                log.info("Grouped {} text fragment(s) on page {} into lines and paragraphs; {} region(s) in total",
+                        grouped, pageIndex, regions.size());
+            }
+
+            int index = 0;
+            for (TextLineGrouper.Region region : regions) {
+                Rect rect = region.box();
+                DetectedComponentType type = region.type() != null ? region.type() : classify(rect, pixelScale);
+                WidgetType widgetType = inferWidgetType(type, rect, pixelScale);
+                double confidence = computeConfidence(processed, rect, scope);
+                double inkRatio = computeInteriorInkRatio(processed, rect, pixelScale, scope);
+                components.add(new DetectedComponent(index++, type, rect, null, confidence, widgetType, inkRatio, null));
+            }
+
+            // Ink density says nothing about a table; rulings confirmed in both directions are certain enough.
+            for (TableGrid table : tables) {
+                Rect bounds = table.bounds();
+                components.add(new DetectedComponent(index++, DetectedComponentType.TABLE, bounds, null, 1.0, null,
+                        computeInteriorInkRatio(processed, bounds, pixelScale, scope), null, table));
+            }
+        }
 
         components.sort(Comparator
                 .comparingInt((DetectedComponent c) -> c.boundingBox().y)
@@ -62,7 +178,7 @@ public class OpenCvLayoutAnalyzer {
         List<DetectedComponent> reindexed = new ArrayList<>(components.size());
         int order = 0;
         for (DetectedComponent component : components) {
-            reindexed.add(new DetectedComponent(order++, component.type(), component.boundingBox(), component.text(), component.confidence(), component.widgetType()));
+            reindexed.add(component.withIndex(order++));
         }
 
         reindexed.stream()
@@ -76,32 +192,98 @@ public class OpenCvLayoutAnalyzer {
                         component.boundingBox().width,
                         component.boundingBox().height,
                         String.format(Locale.ROOT, "%.3f", component.confidence())));
+        reindexed.stream()
+                .filter(component -> component.table() != null)
+                .forEach(component -> log.info(
+                        "Table detected on page {} (#{}): {} row(s) x {} column(s) bbox[x={},y={},w={},h={}]",
+                        pageIndex,
+                        component.index(),
+                        component.table().rowCount(),
+                        component.table().columnCount(),
+                        component.boundingBox().x,
+                        component.boundingBox().y,
+                        component.boundingBox().width,
+                        component.boundingBox().height));
+        if (event.shouldCommit()) {
+            event.pageIndex = pageIndex;
+            event.width = image.cols();
+            event.height = image.rows();
+            event.pixelScale = pixelScale;
+            event.components = reindexed.size();
+            event.fields = (int) reindexed.stream()
+                    .filter(component -> component.type() == DetectedComponentType.FIELD)
+                    .count();
+            event.tables = (int) reindexed.stream().filter(component -> component.table() != null).count();
+            event.commit();
+        }
         return new PageLayout(pageIndex, width, height, reindexed);
     }
 
-    private Mat preprocess(Mat image) {
-        Mat gray = new Mat();
-        Imgproc.cvtColor(image, gray, Imgproc.COLOR_BGR2GRAY);
-        Mat blurred = new Mat();
-        Imgproc.GaussianBlur(gray, blurred, new Size(5, 5), 0);
-        Mat binary = new Mat();
+    // Ink boxes start at the glyph edge, but PDF text positions sit on the glyph origin a little to the left.
+    private TextLineGrouper.Region padded(TextLineGrouper.Region region, double lineHeight, int minPad,
+                                         int imageWidth, int imageHeight) {
+        Rect box = region.box();
+        int pad = Math.max(minPad, (int) Math.round(Math.min(box.height, lineHeight) * TEXT_PADDING_RATIO));
+        int left = Math.max(0, box.x - pad);
+        int top = Math.max(0, box.y - pad);
+        int right = Math.min(imageWidth, box.x + box.width + pad);
+        int bottom = Math.min(imageHeight, box.y + box.height + pad);
+        return new TextLineGrouper.Region(new Rect(left, top, right - left, bottom - top), region.type(), region.fragments());
+    }
+
+    // A bordered box (checkbox, input) has an inner contour almost as large as itself; a glyph's holes are small.
+    private static boolean isHollow(int contour, Rect[] rects, int[] links) {
+        double area = rects[contour].area();
+        for (int child = links[contour * 4 + HIERARCHY_FIRST_CHILD]; child >= 0; child = links[child * 4]) {
+            if (rects[child].area() >= area * HOLLOW_CHILD_AREA_RATIO) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static boolean insideAnyTable(Rect rect, List<TableGrid> tables, int tolerance) {
+        for (TableGrid table : tables) {
+            Rect bounds = table.bounds();
+            if (rect.x >= bounds.x - tolerance
+                    && rect.y >= bounds.y - tolerance
+                    && rect.x + rect.width <= bounds.x + bounds.width + tolerance
+                    && rect.y + rect.height <= bounds.y + bounds.height + tolerance) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Returns a per-thread scratch buffer that stays valid until the next call on this thread.
+    private Mat preprocess(Mat image, double pixelScale) {
+        int rows = image.rows();
+        int cols = image.cols();
+        Mat gray = image;
+        if (image.channels() != 1) {
+            gray = scratch.acquire(SLOT_GRAY, rows, cols, CvType.CV_8UC1);
+            Imgproc.cvtColor(image, gray, Imgproc.COLOR_BGR2GRAY);
+        }
+        Mat blurred = scratch.acquire(SLOT_BLURRED, rows, cols, CvType.CV_8UC1);
+        int blur = odd(scaled(BLUR_KERNEL_PX, pixelScale));
+        Imgproc.GaussianBlur(gray, blurred, new Size(blur, blur), 0);
+        Mat binary = scratch.acquire(SLOT_BINARY, rows, cols, CvType.CV_8UC1);
         Imgproc.adaptiveThreshold(blurred, binary, 255,
                 Imgproc.ADAPTIVE_THRESH_GAUSSIAN_C,
-                Imgproc.THRESH_BINARY_INV, 35, 5);
-        Mat kernel = Imgproc.getStructuringElement(Imgproc.MORPH_RECT, new Size(3, 3));
-        Imgproc.morphologyEx(binary, binary, Imgproc.MORPH_CLOSE, kernel);
-        gray.release();
-        blurred.release();
-        kernel.release();
+                Imgproc.THRESH_BINARY_INV, Math.max(3, odd(scaled(THRESHOLD_BLOCK_PX, pixelScale))), 5);
+        int close = scaled(CLOSE_KERNEL_PX, pixelScale);
+        Imgproc.morphologyEx(binary, binary, Imgproc.MORPH_CLOSE,
+                ScratchMats.structuringElement(Imgproc.MORPH_RECT, close, close));
         return binary;
     }
 
-    private DetectedComponentType classify(Rect rect) {
+    static DetectedComponentType classify(Rect rect, double pixelScale) {
         double aspectRatio = rect.width / (double) rect.height;
-        if (aspectRatio >= 8 && rect.height < 80) {
+        int fieldMax = scaled(FIELD_MAX_SIDE_PX, pixelScale);
+        if (aspectRatio >= 8 && rect.height < fieldMax) {
             return DetectedComponentType.TEXT;
         }
-        if (rect.width < 80 && rect.height < 80) {
+        if (rect.width < fieldMax && rect.height < fieldMax) {
             return DetectedComponentType.FIELD;
         }
         if (rect.width > rect.height * 4) {
@@ -113,32 +295,49 @@ public class OpenCvLayoutAnalyzer {
         return DetectedComponentType.FIELD;
     }
 
-    private WidgetType inferWidgetType(DetectedComponentType type, Rect rect) {
+    static WidgetType inferWidgetType(DetectedComponentType type, Rect rect, double pixelScale) {
         if (type != DetectedComponentType.FIELD) {
             return null;
         }
         double aspectRatio = rect.width / (double) rect.height;
-        if (aspectRatio < 1.2) {
+        int checkboxMax = scaled(CHECKBOX_MAX_SIDE_PX, pixelScale);
+        if (aspectRatio < 1.2 && rect.width <= checkboxMax && rect.height <= checkboxMax) {
             return WidgetType.CHECKBOX;
         }
-        if (rect.height > 60) {
+        if (rect.height > scaled(TEXTAREA_MIN_HEIGHT_PX, pixelScale)) {
             return WidgetType.TEXTAREA;
         }
         return WidgetType.TEXT;
     }
 
-    private double computeConfidence(Mat binaryImage, Rect rect) {
+    private double computeConfidence(Mat binaryImage, Rect rect, NativeScope scope) {
         Rect safeRect = sanitize(rect, binaryImage.width(), binaryImage.height());
-        Mat roi = new Mat(binaryImage, safeRect);
-        Mat roi8U = new Mat();
-        roi.convertTo(roi8U, CvType.CV_8U);
-        Scalar mean = Core.mean(roi8U);
+        // The binary mask is already CV_8U, so the mean is taken on the ROI view without copying pixels.
+        Mat roi = scope.track(new Mat(binaryImage, safeRect));
+        Scalar mean = Core.mean(roi);
         double norm = mean.val[0] / 255.0;
-        roi8U.release();
-        roi.release();
         return Math.min(1.0, Math.max(0.0, norm));
     }
 
+    // Ink density inside the box with its border trimmed off, so an empty bordered field reads close to zero.
+    private double computeInteriorInkRatio(Mat binaryImage, Rect rect, double pixelScale, NativeScope scope) {
+        int inset = (int) Math.max(scaled(INTERIOR_MIN_INSET_PX, pixelScale),
+                Math.min(rect.width, rect.height) * INTERIOR_INSET_RATIO);
+        if (rect.width <= inset * 2 || rect.height <= inset * 2) {
+            return computeConfidence(binaryImage, rect, scope);
+        }
+        Rect interior = new Rect(rect.x + inset, rect.y + inset, rect.width - inset * 2, rect.height - inset * 2);
+        return computeConfidence(binaryImage, interior, scope);
+    }
+
+    static int scaled(int referencePx, double pixelScale) {
+        return Math.max(1, (int) Math.round(referencePx * pixelScale));
+    }
+
+    private static int odd(int value) {
+        return value % 2 == 0 ? value + 1 : value;
+    }
+
     private Rect sanitize(Rect rect, double maxWidth, double maxHeight) {
         int x = Math.max(0, rect.x);
         int y = Math.max(0, rect.y);
@@ -6,6 +6,7 @@ import com.contentmanagement.forms.api.model.ProcessingMode;
 import java.util.ArrayList;
 import java.util.List;
 import org.opencv.core.Mat;
+import org.opencv.core.Rect;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
@@ -21,17 +22,29 @@ public class OpenCvOnlyExtractionStrategy implements FormExtractionStrategy {
     private final OpenCvLayoutAnalyzer layoutAnalyzer;
     private final FormDocumentAssembler assembler;
     private final TesseractOcrEngine ocrEngine;
+    private final NativeResourceTracker nativeResources;
+    private final InkDensityGate inkGate;
+    private final StageArtifactStore artifactStore;
+    private final TableCellReader tableCellReader;
 
     public OpenCvOnlyExtractionStrategy(FormProcessingProperties properties,
                                         OpenCvImageLoader imageLoader,
                                         OpenCvLayoutAnalyzer layoutAnalyzer,
                                         FormDocumentAssembler assembler,
-                                        TesseractOcrEngine ocrEngine) {
+                                        TesseractOcrEngine ocrEngine,
+                                        NativeResourceTracker nativeResources,
+                                        InkDensityGate inkGate,
+                                        StageArtifactStore artifactStore,
+                                        TableCellReader tableCellReader) {
         this.properties = properties;
         this.imageLoader = imageLoader;
         this.layoutAnalyzer = layoutAnalyzer;
         this.assembler = assembler;
         this.ocrEngine = ocrEngine;
+        this.nativeResources = nativeResources;
+        this.inkGate = inkGate;
+        this.artifactStore = artifactStore;
+        this.tableCellReader = tableCellReader;
     }
 
     @Override
@@ -42,8 +55,10 @@ public class OpenCvOnlyExtractionStrategy implements FormExtractionStrategy {
     @Override
     public FormDocument extract(FormExtractionContext context) {
         MultipartFile sourceFile = context.sourceFile();
-        if (sourceFile != null) {
-            log.info("Received file '{}' but OPENCV_ONLY mode currently operates on configured resources", sourceFile.getOriginalFilename());
+        if (sourceFile != null && !sourceFile.isEmpty()) {
+            ExtractionScope extractionScope = context.scope();
+            return extractUpload(sourceFile, extractionScope, context.deadline(),
+                    artifactStore.open(context, "decode" + extractionScope.renderKey()));
         }
 
         List<String> resources = properties.getFallbackImageResources();
@@ -53,40 +68,147 @@ public class OpenCvOnlyExtractionStrategy implements FormExtractionStrategy {
 
         List<PageLayout> pages = new ArrayList<>();
         DetectionDiagnostics diagnostics = new DetectionDiagnostics();
+        int plannedPages = 0;
+        for (int pageIndex = 0; pageIndex < resources.size(); pageIndex++) {
+            plannedPages += context.scope().includesPage(pageIndex) ? 1 : 0;
+        }
+        ExtractionDeadline deadline = context.deadline();
         int pageIndex = 0;
         for (String resourcePath : resources) {
-            Mat image = imageLoader.loadClasspathImage(resourcePath);
-            try {
-                PageLayout layout = layoutAnalyzer.analyze(image, pageIndex);
-                diagnostics.record(layout);
-                pages.add(applyOcr(layout, image));
-                pageIndex++;
-            } finally {
+            if (context.scope().includesPage(pageIndex)) {
+                // Cached by the loader and shared between requests, so it is never released here.
+                Mat image = imageLoader.loadClasspathImage(resourcePath);
+                if (!analyzeWithin(deadline, image, pageIndex, diagnostics, StageArtifacts.disabled(), context.scope(),
+                        pages, plannedPages)) {
+                    break;
+                }
+            }
+            pageIndex++;
+        }
+        return assemble(pages, diagnostics, StageArtifacts.disabled());
+    }
+
+    private FormDocument extractUpload(MultipartFile sourceFile, ExtractionScope extractionScope,
+                                       ExtractionDeadline deadline, StageArtifacts artifacts) {
+        List<PageLayout> pages = new ArrayList<>();
+        DetectionDiagnostics diagnostics = new DetectionDiagnostics();
+        // Only the frames between the first and last requested page are decoded.
+        int firstPage = extractionScope.firstPage();
+        int endPage = extractionScope.endPage();
+        try (NativeScope scope = nativeResources.open("page")) {
+            List<Mat> images = scope.trackAll(imageLoader.decodeUpload(sourceFile, firstPage, endPage));
+            log.info("Processing {} page(s) from upload '{}'", images.size(), sourceFile.getOriginalFilename());
+            int plannedPages = 0;
+            for (int offset = 0; offset < images.size(); offset++) {
+                plannedPages += extractionScope.includesPage(firstPage + offset) ? 1 : 0;
+            }
+            for (int offset = 0; offset < images.size(); offset++) {
+                int pageIndex = firstPage + offset;
+                Mat image = images.get(offset);
+                if (extractionScope.includesPage(pageIndex)
+                        && !analyzeWithin(deadline, image, pageIndex, diagnostics, artifacts, extractionScope, pages,
+                        plannedPages)) {
+                    break;
+                }
+                // Drop each decoded page as soon as it is done; the scope still covers the rest on failure.
                 image.release();
             }
         }
+        return assemble(pages, diagnostics, artifacts);
+    }
 
+    /**
+     * Runs the same pipeline on images that are already decoded. The caller keeps ownership of the Mats; used by
+     * the startup warm-up.
+     */
+    FormDocument extractImages(List<Mat> images) {
+        List<PageLayout> pages = new ArrayList<>(images.size());
+        DetectionDiagnostics diagnostics = new DetectionDiagnostics();
+        for (int pageIndex = 0; pageIndex < images.size(); pageIndex++) {
+            pages.add(analyzePage(images.get(pageIndex), pageIndex, diagnostics, StageArtifacts.disabled(),
+                    ExtractionScope.ALL));
+        }
+        return assemble(pages, diagnostics, StageArtifacts.disabled());
+    }
+
+    /**
+     * Analyzes one page into {@code pages} unless the deadline has passed before or during it.
+     *
+     * @return {@code false} when extraction must stop; the deadline then records how far it got
+     */
+    private boolean analyzeWithin(ExtractionDeadline deadline, Mat image, int pageIndex, DetectionDiagnostics diagnostics,
+                                  StageArtifacts artifacts, ExtractionScope extractionScope, List<PageLayout> pages,
+                                  int plannedPages) {
+        try (ExtractionEvents.PageBinding onPage = ExtractionEvents.onPage(pageIndex)) {
+            deadline.check();
+            pages.add(analyzePage(image, pageIndex, diagnostics, artifacts, extractionScope));
+            return true;
+        } catch (ExtractionDeadlineExceededException ex) {
+            deadline.markStopped(pages.size(), plannedPages);
+            log.warn("{}; returning a partial result", deadline.partialReason());
+            return false;
+        }
+    }
+
+    // Regions of interest are pixel coordinates for images; only the clipped view is analyzed and OCR'd.
+    private PageLayout analyzePage(Mat image, int pageIndex, DetectionDiagnostics diagnostics,
+                                   StageArtifacts artifacts, ExtractionScope extractionScope) {
+        PageLayout stored = artifacts.loadEnriched(pageIndex);
+        if (stored != null) {
+            diagnostics.record(stored);
+            return stored;
+        }
+        List<Rect> regions = extractionScope.regionPixels(pageIndex, 1.0, 0, image.cols(), image.rows());
+        Rect clip = ExtractionScope.clip(regions, image.cols(), image.rows());
+        try (NativeScope scope = nativeResources.open("page")) {
+            Mat region = clip != null ? scope.track(new Mat(image, clip)) : image;
+            PageLayout layout = artifacts.loadLayout(pageIndex);
+            if (layout == null) {
+                layout = layoutAnalyzer.analyze(region, pageIndex, image.cols(), image.rows());
+                artifacts.saveLayout(layout);
+            }
+            layout = ExtractionScope.restrict(layout, regions, clip);
+            PageLayout enriched = ExtractionScope.toPageCoordinates(applyOcr(layout, region, diagnostics), clip);
+            diagnostics.record(enriched);
+            artifacts.saveEnriched(enriched);
+            return enriched;
+        }
+    }
+
+    private FormDocument assemble(List<PageLayout> pages, DetectionDiagnostics diagnostics, StageArtifacts artifacts) {
         FormDocument document = assembler.assemble(pages, properties.getBaseUnit());
         diagnostics.logSummary(log);
+        artifacts.logSummary(log);
+        nativeResources.logSummary(log);
+        ocrEngine.logCacheSummary(log);
         return document;
     }
 
-    private PageLayout applyOcr(PageLayout layout, Mat image) {
-        if (!properties.isOcrEnabled()) {
-            return layout;
-        }
-
+    private PageLayout applyOcr(PageLayout layout, Mat image, DetectionDiagnostics diagnostics) {
         List<DetectedComponent> enriched = new ArrayList<>(layout.components().size());
         for (DetectedComponent component : layout.components()) {
-            String text = ocrEngine.recognize(image, component.boundingBox());
-            enriched.add(new DetectedComponent(
-                    component.index(),
-                    component.type(),
-                    component.boundingBox(),
-                    text != null ? text : component.text(),
-                    component.confidence(),
-                    component.widgetType()
-            ));
+            if (component.table() != null) {
+                enriched.add(properties.isOcrEnabled()
+                        ? component.withTable(tableCellReader.read(image, component, diagnostics))
+                        : component);
+                continue;
+            }
+            if (inkGate.isCheckbox(component)) {
+                enriched.add(component.withChecked(inkGate.isChecked(component)));
+                diagnostics.recordCheckboxResolved();
+                continue;
+            }
+            if (!properties.isOcrEnabled()) {
+                enriched.add(component);
+                continue;
+            }
+            if (inkGate.isBlank(component)) {
+                enriched.add(component);
+                diagnostics.recordBlankRegionSkipped();
+                continue;
+            }
+            String text = ocrEngine.recognize(image, component);
+            enriched.add(text != null ? component.withText(text) : component);
         }
         return new PageLayout(layout.pageIndex(), layout.width(), layout.height(), enriched);
     }
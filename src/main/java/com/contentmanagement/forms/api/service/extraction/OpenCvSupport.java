@@ -1,6 +1,5 @@
 package com.contentmanagement.forms.api.service.extraction;
 
-import java.util.concurrent.atomic.AtomicBoolean;
 import nu.pattern.OpenCV;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -11,15 +10,28 @@ public class OpenCvSupport {
 
     private static final Logger log = LoggerFactory.getLogger(OpenCvSupport.class);
 
-    private final AtomicBoolean initialized = new AtomicBoolean(false);
+    private final CpuBudget cpuBudget;
+    private volatile boolean initialized;
 
+    public OpenCvSupport(CpuBudget cpuBudget) {
+        this.cpuBudget = cpuBudget;
+    }
+
+    /** Loads the natives once; concurrent callers wait until loading has finished rather than racing past it. */
     public void ensureLoaded() {
-        if (initialized.compareAndSet(false, true)) {
+        if (initialized) {
+            return;
+        }
+        synchronized (this) {
+            if (initialized) {
+                return;
+            }
             try {
                 OpenCV.loadShared();
                 log.info("OpenCV native libraries loaded");
+                cpuBudget.applyToOpenCv();
+                initialized = true;
             } catch (UnsatisfiedLinkError error) {
-                initialized.set(false);
                 log.error("Failed to load OpenCV native libraries", error);
                 throw error;
             }
@@ -0,0 +1,110 @@
+package com.contentmanagement.forms.api.service.extraction;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.opencv.core.Rect;
+
+/**
+ * Keeps one representative per physical box: drops contours that nearly coincide with, or sit just inside the
+ * border of, a larger box already kept.
+ */
+final class OverlapSuppressor {
+
+    private static final double MIN_DUPLICATE_IOU = 0.8;
+    // A box nested inside another with every edge this close to it is the inner edge of the same border.
+    private static final int NESTED_EDGE_SLACK_PX = 6;
+    private static final int CELL_PX = 64;
+
+    private OverlapSuppressor() {
+    }
+
+    /** Returns the boxes to keep, in their original order; the nesting slack is multiplied by {@code pixelScale}. */
+    static List<Rect> suppress(List<Rect> boxes, double pixelScale) {
+        int slack = OpenCvLayoutAnalyzer.scaled(NESTED_EDGE_SLACK_PX, pixelScale);
+        List<Integer> order = new ArrayList<>(boxes.size());
+        for (int i = 0; i < boxes.size(); i++) {
+            order.add(i);
+        }
+        order.sort(Comparator
+                .comparingDouble((Integer i) -> -boxes.get(i).area())
+                .thenComparingInt(i -> boxes.get(i).y)
+                .thenComparingInt(i -> boxes.get(i).x));
+
+        Map<Long, List<Rect>> grid = new HashMap<>();
+        boolean[] keep = new boolean[boxes.size()];
+        for (int i : order) {
+            Rect box = boxes.get(i);
+            if (!duplicatesKept(box, grid, slack)) {
+                keep[i] = true;
+                int[] cells = cellRange(box);
+                for (int row = cells[1]; row <= cells[3]; row++) {
+                    for (int column = cells[0]; column <= cells[2]; column++) {
+                        grid.computeIfAbsent(key(row, column), ignored -> new ArrayList<>()).add(box);
+                    }
+                }
+            }
+        }
+
+        List<Rect> kept = new ArrayList<>();
+        for (int i = 0; i < boxes.size(); i++) {
+            if (keep[i]) {
+                kept.add(boxes.get(i));
+            }
+        }
+        return kept;
+    }
+
+    private static boolean duplicatesKept(Rect box, Map<Long, List<Rect>> grid, int slack) {
+        int[] cells = cellRange(box);
+        for (int row = cells[1]; row <= cells[3]; row++) {
+            for (int column = cells[0]; column <= cells[2]; column++) {
+                for (Rect kept : grid.getOrDefault(key(row, column), List.of())) {
+                    if (isDuplicate(box, kept, slack)) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    // The candidate is never larger than {@code kept}, because boxes are visited by descending area.
+    private static boolean isDuplicate(Rect smaller, Rect kept, int slack) {
+        int left = Math.max(smaller.x, kept.x);
+        int top = Math.max(smaller.y, kept.y);
+        int right = Math.min(smaller.x + smaller.width, kept.x + kept.width);
+        int bottom = Math.min(smaller.y + smaller.height, kept.y + kept.height);
+        if (right <= left || bottom <= top) {
+            return false;
+        }
+        double intersection = (double) (right - left) * (bottom - top);
+        double union = smaller.area() + kept.area() - intersection;
+        if (intersection / union >= MIN_DUPLICATE_IOU) {
+            return true;
+        }
+        return smaller.x >= kept.x && smaller.y >= kept.y
+                && smaller.x - kept.x <= slack
+                && smaller.y - kept.y <= slack
+                && (kept.x + kept.width) - (smaller.x + smaller.width) <= slack
+                && (kept.y + kept.height) - (smaller.y + smaller.height) <= slack
+                && smaller.x + smaller.width <= kept.x + kept.width
+                && smaller.y + smaller.height <= kept.y + kept.height;
+    }
+
+    // First column, first row, last column, last row of the grid cells the box touches.
+    private static int[] cellRange(Rect box) {
+        return new int[] {
+                Math.floorDiv(box.x, CELL_PX),
+                Math.floorDiv(box.y, CELL_PX),
+                Math.floorDiv(box.x + box.width - 1, CELL_PX),
+                Math.floorDiv(box.y + box.height - 1, CELL_PX)
+        };
+    }
+
+    private static long key(int row, int column) {
+        return ((long) row << 32) | (column & 0xffffffffL);
+    }
+}
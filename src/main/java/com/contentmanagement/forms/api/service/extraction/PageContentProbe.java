@@ -0,0 +1,136 @@
+package com.contentmanagement.forms.api.service.extraction;
+
+import java.awt.geom.Point2D;
+import java.io.IOException;
+import java.util.Arrays;
+import org.apache.pdfbox.contentstream.PDFGraphicsStreamEngine;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.font.PDFont;
+import org.apache.pdfbox.pdmodel.graphics.image.PDImage;
+import org.apache.pdfbox.util.Matrix;
+import org.apache.pdfbox.util.Vector;
+
+/**
+ * Walks a page's content stream once, without rasterizing, and reports the signals that decide its render DPI:
+ * the size of the small print in the text layer and the resolution of the largest placed image. Glyph sizes are
+ * the em height in points after every transform, so scaled text reports the size it is actually printed at.
+ */
+final class PageContentProbe extends PDFGraphicsStreamEngine {
+
+    // The smallest text on a form is often a single footnote; the 5th percentile ignores such outliers.
+    private static final double SMALL_PRINT_PERCENTILE = 0.05;
+    // Glyphs below this are hidden text or artifacts, not something a reader has to make out.
+    private static final float MIN_GLYPH_POINTS = 2f;
+
+    /**
+     * @param smallPrintPoints em height of the page's small print in points, or {@code null} without a text layer
+     * @param imageDpi resolution of the image that covers most of the page, or {@code null} when there is none
+     * @param imageCoverage share of the page covered by that image
+     */
+    record Signals(Float smallPrintPoints, Float imageDpi, double imageCoverage) {
+    }
+
+    private final double pageArea;
+    private float[] glyphSizes = new float[256];
+    private int glyphCount;
+    private double bestCoverage;
+    private Float bestImageDpi;
+
+    private PageContentProbe(PDPage page) {
+        super(page);
+        PDRectangle cropBox = page.getCropBox();
+        this.pageArea = Math.max(1.0, (double) cropBox.getWidth() * cropBox.getHeight());
+    }
+
+    static Signals probe(PDPage page) throws IOException {
+        PageContentProbe probe = new PageContentProbe(page);
+        probe.processPage(page);
+        return new Signals(probe.smallPrint(), probe.bestImageDpi, probe.bestCoverage);
+    }
+
+    private Float smallPrint() {
+        if (glyphCount == 0) {
+            return null;
+        }
+        float[] sizes = Arrays.copyOf(glyphSizes, glyphCount);
+        Arrays.sort(sizes);
+        return sizes[(int) Math.floor((glyphCount - 1) * SMALL_PRINT_PERCENTILE)];
+    }
+
+    @Override
+    protected void showGlyph(Matrix textRenderingMatrix, PDFont font, int code, Vector displacement)
+            throws IOException {
+        float size = Math.abs(textRenderingMatrix.getScalingFactorY());
+        if (size < MIN_GLYPH_POINTS || code == ' ') {
+            return;
+        }
+        if (glyphCount == glyphSizes.length) {
+            glyphSizes = Arrays.copyOf(glyphSizes, glyphCount * 2);
+        }
+        glyphSizes[glyphCount++] = size;
+    }
+
+    @Override
+    public void drawImage(PDImage image) {
+        // Images are drawn into the unit square, so the CTM scale is their placed size in points.
+        Matrix ctm = getGraphicsState().getCurrentTransformationMatrix();
+        double width = Math.abs(ctm.getScalingFactorX());
+        double height = Math.abs(ctm.getScalingFactorY());
+        double coverage = Math.min(1.0, width * height / pageArea);
+        if (width > 0 && coverage > bestCoverage) {
+            bestCoverage = coverage;
+            bestImageDpi = (float) (image.getWidth() * 72.0 / width);
+        }
+    }
+
+    @Override
+    public void appendRectangle(Point2D p0, Point2D p1, Point2D p2, Point2D p3) {
+    }
+
+    @Override
+    public void clip(int windingRule) {
+    }
+
+    @Override
+    public void moveTo(float x, float y) {
+    }
+
+    @Override
+    public void lineTo(float x, float y) {
+    }
+
+    @Override
+    public void curveTo(float x1, float y1, float x2, float y2, float x3, float y3) {
+    }
+
+    @Override
+    public Point2D getCurrentPoint() {
+        return new Point2D.Float();
+    }
+
+    @Override
+    public void closePath() {
+    }
+
+    @Override
+    public void endPath() {
+    }
+
+    @Override
+    public void strokePath() {
+    }
+
+    @Override
+    public void fillPath(int windingRule) {
+    }
+
+    @Override
+    public void fillAndStrokePath(int windingRule) {
+    }
+
+    @Override
+    public void shadingFill(COSName shadingName) {
+    }
+}
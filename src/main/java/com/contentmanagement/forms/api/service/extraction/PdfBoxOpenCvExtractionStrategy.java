@@ -3,6 +3,7 @@ package com.contentmanagement.forms.api.service.extraction;
 import com.contentmanagement.forms.api.config.FormProcessingProperties;
 import com.contentmanagement.forms.api.model.FormDocument;
 import com.contentmanagement.forms.api.model.ProcessingMode;
+import java.awt.Color;
 import java.awt.Graphics2D;
 import java.awt.geom.Rectangle2D;
 import java.awt.image.BufferedImage;
@@ -22,6 +23,7 @@ import org.apache.pdfbox.rendering.PDFRenderer;
 import org.apache.pdfbox.text.PDFTextStripperByArea;
 import org.opencv.core.CvType;
 import org.opencv.core.Mat;
+import org.opencv.core.Rect;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
@@ -31,21 +33,41 @@ import org.springframework.web.multipart.MultipartFile;
 public class PdfBoxOpenCvExtractionStrategy implements FormExtractionStrategy {
 
     private static final Logger log = LoggerFactory.getLogger(PdfBoxOpenCvExtractionStrategy.class);
-    private static final float RENDER_DPI = 200f;
 
     private final OpenCvLayoutAnalyzer layoutAnalyzer;
     private final FormDocumentAssembler assembler;
     private final FormProcessingProperties properties;
     private final TesseractOcrEngine ocrEngine;
+    private final OpenCvSupport openCvSupport;
+    private final NativeResourceTracker nativeResources;
+    private final InkDensityGate inkGate;
+    private final StageArtifactStore artifactStore;
+    private final TableCellReader tableCellReader;
+    private final MemoryGovernor memoryGovernor;
+    private final RenderDpiPolicy dpiPolicy;
 
     public PdfBoxOpenCvExtractionStrategy(OpenCvLayoutAnalyzer layoutAnalyzer,
                                           FormDocumentAssembler assembler,
                                           FormProcessingProperties properties,
-                                          TesseractOcrEngine ocrEngine) {
+                                          TesseractOcrEngine ocrEngine,
+                                          OpenCvSupport openCvSupport,
+                                          NativeResourceTracker nativeResources,
+                                          InkDensityGate inkGate,
+                                          StageArtifactStore artifactStore,
+                                          TableCellReader tableCellReader,
+                                          MemoryGovernor memoryGovernor,
+                                          RenderDpiPolicy dpiPolicy) {
         this.layoutAnalyzer = layoutAnalyzer;
         this.assembler = assembler;
         this.properties = properties;
         this.ocrEngine = ocrEngine;
+        this.openCvSupport = openCvSupport;
+        this.nativeResources = nativeResources;
+        this.inkGate = inkGate;
+        this.artifactStore = artifactStore;
+        this.tableCellReader = tableCellReader;
+        this.memoryGovernor = memoryGovernor;
+        this.dpiPolicy = dpiPolicy;
     }
 
     @Override
@@ -68,76 +90,313 @@ public class PdfBoxOpenCvExtractionStrategy implements FormExtractionStrategy {
         }
 
         log.debug("Processing PDF {} ({} bytes) using PDFBox+OpenCV", file.getOriginalFilename(), pdfBytes.length);
+        openCvSupport.ensureLoaded();
 
         try (RandomAccessRead rar = new RandomAccessReadBuffer(pdfBytes);
-             PDDocument document = Loader.loadPDF(rar)) {
+             PDDocument document = loadPdf(rar, file.getOriginalFilename(), pdfBytes.length);
+             MemoryGovernor.Reservation memory = reserveMemory(document, context.scope(), file.getOriginalFilename())) {
             PDFRenderer renderer = new PDFRenderer(document);
             List<PageLayout> pageLayouts = new ArrayList<>();
             DetectionDiagnostics diagnostics = new DetectionDiagnostics();
+            ExtractionScope extractionScope = context.scope();
+            StageArtifacts artifacts = artifactStore.open(context, "pdfbox:dpi=" + dpiPolicy.renderKey()
+                    + "|memory=" + memoryGovernor.renderKey() + "|vector=" + properties.getVectorLayout().isEnabled()
+                    + "|scan=" + properties.getScanImage().isEnabled()
+                    + extractionScope.renderKey());
 
-            for (int pageIndex = 0; pageIndex < document.getNumberOfPages(); pageIndex++) {
-                PDPage page = document.getPage(pageIndex);
-                BufferedImage rendered = renderer.renderImageWithDPI(pageIndex, RENDER_DPI, ImageType.RGB);
-                Mat mat = bufferedImageToMat(rendered);
-                try {
-                    PageLayout layout = layoutAnalyzer.analyze(mat, pageIndex);
-                    diagnostics.record(layout);
-                    pageLayouts.add(enrichWithText(layout, page, rendered, mat));
-                } finally {
-                    mat.release();
+            int pageCount = document.getNumberOfPages();
+            int plannedPages = 0;
+            for (int pageIndex = 0; pageIndex < pageCount; pageIndex++) {
+                plannedPages += extractionScope.includesPage(pageIndex) ? 1 : 0;
+            }
+            ExtractionDeadline deadline = context.deadline();
+            for (int pageIndex = 0; pageIndex < pageCount; pageIndex++) {
+                if (!extractionScope.includesPage(pageIndex)) {
+                    continue;
+                }
+                if (deadline.expired()) {
+                    deadline.markStopped(pageLayouts.size(), plannedPages);
+                    break;
                 }
+                try (ExtractionEvents.PageBinding onPage = ExtractionEvents.onPage(pageIndex)) {
+                    pageLayouts.add(extractPage(document, renderer, pageIndex, memory.dpi(pageIndex), extractionScope,
+                            artifacts, diagnostics));
+                } catch (ExtractionDeadlineExceededException ex) {
+                    // The unfinished page is dropped; everything before it is returned.
+                    deadline.markStopped(pageLayouts.size(), plannedPages);
+                    break;
+                }
+            }
+            if (deadline.partialReason() != null) {
+                log.warn("{} for {}; returning a partial result", deadline.partialReason(), file.getOriginalFilename());
+            }
+            if (extractionScope.pages() != null && extractionScope.endPage() > pageCount) {
+                log.info("Ignoring requested pages beyond the last page ({}) of {}", pageCount, file.getOriginalFilename());
             }
 
             FormDocument assembled = assembler.assemble(pageLayouts, properties.getBaseUnit());
             diagnostics.logSummary(log);
+            artifacts.logSummary(log);
+            nativeResources.logSummary(log);
+            ocrEngine.logCacheSummary(log);
             return assembled;
         } catch (IOException ex) {
             throw new IllegalStateException("Failed to process PDF file", ex);
         }
     }
 
-    private PageLayout enrichWithText(PageLayout layout, PDPage page, BufferedImage rendered, Mat mat) throws IOException {
+    private static PDDocument loadPdf(RandomAccessRead source, String fileName, long fileSize) throws IOException {
+        ExtractionEvents.PdfLoad event = new ExtractionEvents.PdfLoad();
+        event.begin();
+        PDDocument document = Loader.loadPDF(source);
+        if (event.shouldCommit()) {
+            event.fileName = fileName;
+            event.fileSize = fileSize;
+            event.pages = document.getNumberOfPages();
+            event.commit();
+        }
+        return document;
+    }
+
+    private PageLayout extractPage(PDDocument document, PDFRenderer renderer, int pageIndex, float dpi,
+                                   ExtractionScope extractionScope, StageArtifacts artifacts,
+                                   DetectionDiagnostics diagnostics) throws IOException {
+        PageLayout stored = artifacts.loadEnriched(pageIndex);
+        if (stored != null) {
+            diagnostics.record(stored);
+            return stored;
+        }
+        PDPage page = document.getPage(pageIndex);
+        float scale = dpi / 72f;
+        int pageWidth = renderedSize(page, true, scale);
+        int pageHeight = renderedSize(page, false, scale);
+        List<Rect> regions = extractionScope.regionPixels(pageIndex, scale, page.getRotation(), pageWidth, pageHeight);
+        Rect clip = ExtractionScope.clip(regions, pageWidth, pageHeight);
+        PageLayout vector = properties.getVectorLayout().isEnabled()
+                ? VectorLayoutExtractor.extract(page, pageIndex, scale, pageWidth, pageHeight, clip,
+                        properties.getVectorLayout())
+                : null;
+        if (vector != null) {
+            PageLayout enriched = ExtractionScope.toPageCoordinates(
+                    enrichWithText(ExtractionScope.restrict(vector, regions, clip), page, null, clip, scale, diagnostics),
+                    clip);
+            diagnostics.recordVectorPage();
+            diagnostics.record(enriched);
+            artifacts.saveEnriched(enriched);
+            return enriched;
+        }
+        try (NativeScope scope = nativeResources.open("page")) {
+            Mat mat = scope.track(renderPage(renderer, page, pageIndex, scale, pageWidth, pageHeight, clip, artifacts,
+                    scope));
+            PageLayout layout = artifacts.loadLayout(pageIndex);
+            if (layout == null) {
+                layout = layoutAnalyzer.analyze(mat, pageIndex, pageWidth, pageHeight,
+                        dpi / OpenCvLayoutAnalyzer.REFERENCE_DPI);
+                artifacts.saveLayout(layout);
+            }
+            layout = ExtractionScope.restrict(layout, regions, clip);
+            PageLayout enriched = ExtractionScope.toPageCoordinates(
+                    enrichWithText(layout, page, mat, clip, scale, diagnostics), clip);
+            diagnostics.record(enriched);
+            artifacts.saveEnriched(enriched);
+            return enriched;
+        }
+    }
+
+    // Plans every page's DPI up front so the memory reservation covers the largest page as it will be rendered.
+    private MemoryGovernor.Reservation reserveMemory(PDDocument document, ExtractionScope scope, String label) {
+        int pageCount = document.getNumberOfPages();
+        float[] dpis = new float[pageCount];
+        double[] areas = new double[pageCount];
+        for (int pageIndex = 0; pageIndex < pageCount; pageIndex++) {
+            if (scope.includesPage(pageIndex)) {
+                PDPage page = document.getPage(pageIndex);
+                PDRectangle cropBox = page.getCropBox();
+                areas[pageIndex] = (double) cropBox.getWidth() * cropBox.getHeight();
+                dpis[pageIndex] = dpiPolicy.choose(page, pageIndex);
+            }
+        }
+        return memoryGovernor.reserve(label, dpis, areas);
+    }
+
+    // Same size PDFRenderer.renderImageWithDPI produces, including the swap for rotated pages.
+    private static int renderedSize(PDPage page, boolean horizontal, float scale) {
+        PDRectangle cropBox = page.getCropBox();
+        boolean rotated = page.getRotation() % 180 != 0;
+        float points = horizontal != rotated ? cropBox.getWidth() : cropBox.getHeight();
+        return (int) Math.max(Math.floor(points * scale), 1);
+    }
+
+    private Mat renderPage(PDFRenderer renderer, PDPage page, int pageIndex, float scale, int pageWidth,
+                           int pageHeight, Rect clip, StageArtifacts artifacts, NativeScope scope) throws IOException {
+        ExtractionEvents.PageRender event = new ExtractionEvents.PageRender();
+        event.begin();
+        Mat stored = artifacts.loadRendered(pageIndex);
+        if (stored != null) {
+            commit(event, pageIndex, scale, stored, clip != null, true, false);
+            return stored;
+        }
+        Mat scan = properties.getScanImage().isEnabled()
+                ? decodeScanImage(page, pageIndex, pageWidth, pageHeight, clip, scope)
+                : null;
+        if (scan != null) {
+            commit(event, pageIndex, scale, scan, clip != null, false, true);
+            artifacts.saveRendered(pageIndex, scan);
+            return scan;
+        }
+        BufferedImage rendered = clip == null
+                ? renderer.renderImage(pageIndex, scale, ImageType.RGB)
+                : renderClipped(renderer, pageIndex, scale, clip);
+        event.end();
+        Mat mat = bufferedImageToMat(rendered);
+        commit(event, pageIndex, scale, mat, clip != null, false, false);
+        artifacts.saveRendered(pageIndex, mat);
+        return mat;
+    }
+
+    // A page that is one scan image is decoded at the size it would render at, skipping Java2D; null renders it.
+    private Mat decodeScanImage(PDPage page, int pageIndex, int pageWidth, int pageHeight, Rect clip,
+                                NativeScope scope) {
+        try {
+            EmbeddedScanImage scan = EmbeddedScanImage.find(page);
+            if (scan == null) {
+                return null;
+            }
+            Mat mat = scan.decode(pageWidth, pageHeight, page.getRotation(), scope);
+            if (clip == null) {
+                return mat;
+            }
+            return scope.track(new Mat(scope.track(mat), clip)).clone();
+        } catch (IOException | RuntimeException ex) {
+            log.debug("Rendering page {} instead of decoding its scan image: {}", pageIndex + 1, ex.getMessage());
+            return null;
+        }
+    }
+
+    // Ended before the Mat copy when rendered, which has its own event.
+    private static void commit(ExtractionEvents.PageRender event, int pageIndex, float scale, Mat mat, boolean clipped,
+                               boolean stored, boolean embedded) {
+        if (event.shouldCommit()) {
+            event.pageIndex = pageIndex;
+            event.dpi = scale * 72f;
+            event.width = mat.cols();
+            event.height = mat.rows();
+            event.clipped = clipped;
+            event.stored = stored;
+            event.embedded = embedded;
+            event.commit();
+        }
+    }
+
+    // Rasterizes only the clip rectangle of the page instead of the full page.
+    private BufferedImage renderClipped(PDFRenderer renderer, int pageIndex, float scale, Rect clip) throws IOException {
+        BufferedImage image = new BufferedImage(clip.width, clip.height, BufferedImage.TYPE_3BYTE_BGR);
+        Graphics2D graphics = image.createGraphics();
+        try {
+            graphics.setBackground(Color.WHITE);
+            graphics.clearRect(0, 0, clip.width, clip.height);
+            graphics.translate(-clip.x, -clip.y);
+            renderer.renderPageToGraphics(pageIndex, graphics, scale);
+        } finally {
+            graphics.dispose();
+        }
+        return image;
+    }
+
+    // Without a Mat (a page read from its vector graphics) the text layer is complete and nothing is OCR'd.
+    private PageLayout enrichWithText(PageLayout layout, PDPage page, Mat mat, Rect clip, float scale,
+                                      DetectionDiagnostics diagnostics) throws IOException {
         PDFTextStripperByArea stripper = new PDFTextStripperByArea();
         stripper.setSortByPosition(true);
 
-        PDRectangle mediaBox = page.getMediaBox();
-        double scaleX = rendered.getWidth() / mediaBox.getWidth();
-        double scaleY = rendered.getHeight() / mediaBox.getHeight();
-
+        int originX = clip != null ? clip.x : 0;
+        int originY = clip != null ? clip.y : 0;
         for (DetectedComponent component : layout.components()) {
-            String key = regionKey(layout.pageIndex(), component.index());
-            Rectangle2D.Double rect = new Rectangle2D.Double(
-                    component.boundingBox().x / scaleX,
-                    component.boundingBox().y / scaleY,
-                    component.boundingBox().width / scaleX,
-                    component.boundingBox().height / scaleY
-            );
-            stripper.addRegion(key, rect);
+            TableGrid table = component.table();
+            if (table != null) {
+                // Each cell is its own text region; the table as a whole has no text of its own.
+                for (int row = 0; row < table.rowCount(); row++) {
+                    for (int column = 0; column < table.columnCount(); column++) {
+                        stripper.addRegion(cellKey(layout.pageIndex(), component.index(), row, column),
+                                toPdfRegion(table.cell(row, column), originX, originY, scale));
+                    }
+                }
+                continue;
+            }
+            stripper.addRegion(regionKey(layout.pageIndex(), component.index()),
+                    toPdfRegion(component.boundingBox(), originX, originY, scale));
         }
 
         stripper.extractRegions(page);
         List<DetectedComponent> enriched = new ArrayList<>(layout.components().size());
 
         for (DetectedComponent component : layout.components()) {
+            if (component.table() != null) {
+                enriched.add(enrichTable(layout.pageIndex(), component, stripper, mat, diagnostics));
+                continue;
+            }
+            ExtractionEvents.OcrRegion event = new ExtractionEvents.OcrRegion();
+            event.begin();
             String key = regionKey(layout.pageIndex(), component.index());
             String raw = stripper.getTextForRegion(key);
             String normalized = normalize(raw);
-            if (normalized == null && properties.isOcrEnabled()) {
-                normalized = ocrEngine.recognize(mat, component.boundingBox());
+            if (normalized != null && event.shouldCommit()) {
+                Rect box = component.boundingBox();
+                event.pageIndex = layout.pageIndex();
+                event.source = ExtractionEvents.SOURCE_PDF_TEXT;
+                event.x = box.x;
+                event.y = box.y;
+                event.width = box.width;
+                event.height = box.height;
+                event.characters = normalized.length();
+                event.commit();
+            }
+            if (inkGate.isCheckbox(component)) {
+                enriched.add(component.withText(normalized).withChecked(inkGate.isChecked(component)));
+                diagnostics.recordCheckboxResolved();
+                continue;
             }
-            enriched.add(new DetectedComponent(
-                    component.index(),
-                    component.type(),
-                    component.boundingBox(),
-                    normalized,
-                    component.confidence(),
-                    component.widgetType()
-            ));
+            if (normalized == null && properties.isOcrEnabled() && mat != null) {
+                if (inkGate.isBlank(component)) {
+                    diagnostics.recordBlankRegionSkipped();
+                } else {
+                    normalized = ocrEngine.recognize(mat, component);
+                }
+            }
+            enriched.add(component.withText(normalized));
         }
 
         return new PageLayout(layout.pageIndex(), layout.width(), layout.height(), enriched);
     }
 
+    // Text layer first; rows without any embedded text are OCR'd one row band at a time.
+    private DetectedComponent enrichTable(int pageIndex, DetectedComponent component, PDFTextStripperByArea stripper,
+                                          Mat mat, DetectionDiagnostics diagnostics) {
+        TableGrid table = component.table();
+        List<List<String>> cells = new ArrayList<>(table.rowCount());
+        for (int row = 0; row < table.rowCount(); row++) {
+            List<String> texts = new ArrayList<>(table.columnCount());
+            for (int column = 0; column < table.columnCount(); column++) {
+                texts.add(normalize(stripper.getTextForRegion(cellKey(pageIndex, component.index(), row, column))));
+            }
+            cells.add(texts);
+        }
+        DetectedComponent withText = component.withTable(table.withCells(cells));
+        if (!properties.isOcrEnabled() || mat == null) {
+            return withText;
+        }
+        return withText.withTable(tableCellReader.read(mat, withText, diagnostics));
+    }
+
+    private static Rectangle2D.Double toPdfRegion(Rect box, int originX, int originY, float scale) {
+        return new Rectangle2D.Double(
+                (box.x + originX) / scale,
+                (box.y + originY) / scale,
+                box.width / scale,
+                box.height / scale
+        );
+    }
+
     private String normalize(String raw) {
         if (raw == null) {
             return null;
@@ -150,18 +409,36 @@ public class PdfBoxOpenCvExtractionStrategy implements FormExtractionStrategy {
         return String.format(Locale.ROOT, "p%02d_c%04d", pageIndex, componentIndex);
     }
 
+    private String cellKey(int pageIndex, int componentIndex, int row, int column) {
+        return String.format(Locale.ROOT, "p%02d_c%04d_r%03d_k%03d", pageIndex, componentIndex, row, column);
+    }
+
     private Mat bufferedImageToMat(BufferedImage image) {
-        BufferedImage converted = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_3BYTE_BGR);
-        Graphics2D graphics = converted.createGraphics();
-        try {
-            graphics.drawImage(image, 0, 0, null);
-        } finally {
-            graphics.dispose();
+        ExtractionEvents.MatConversion event = new ExtractionEvents.MatConversion();
+        event.begin();
+        BufferedImage converted = image;
+        if (image.getType() != BufferedImage.TYPE_3BYTE_BGR) {
+            converted = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_3BYTE_BGR);
+            Graphics2D graphics = converted.createGraphics();
+            try {
+                graphics.drawImage(image, 0, 0, null);
+            } finally {
+                graphics.dispose();
+            }
         }
 
         byte[] data = ((DataBufferByte) converted.getRaster().getDataBuffer()).getData();
         Mat mat = new Mat(converted.getHeight(), converted.getWidth(), CvType.CV_8UC3);
         mat.put(0, 0, data);
+        if (event.shouldCommit()) {
+            event.pageIndex = ExtractionEvents.currentPage();
+            event.mats = 1;
+            event.width = mat.cols();
+            event.height = mat.rows();
+            event.channels = mat.channels();
+            event.inputBytes = data.length;
+            event.commit();
+        }
         return mat;
     }
 }
@@ -0,0 +1,71 @@
+package com.contentmanagement.forms.api.service.extraction;
+
+import java.util.Arrays;
+import org.opencv.core.Core;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.Size;
+import org.opencv.imgproc.Imgproc;
+
+/**
+ * 64-bit DCT perceptual hash. The region is reduced to 32x32, transformed with a DCT, and the lowest 8x8
+ * frequencies are compared with their median. Isolated scanner specks and slight stroke-width changes only
+ * touch high frequencies, so near-identical prints land within a few bits of each other.
+ */
+final class PerceptualHash {
+
+    private static final int SAMPLE_SIZE = 32;
+    private static final int HASH_SIZE = 8;
+    private static final Size SAMPLE = new Size(SAMPLE_SIZE, SAMPLE_SIZE);
+
+    private static final int SLOT_SAMPLE = 0;
+    private static final int SLOT_FLOAT = 1;
+    private static final int SLOT_DCT = 2;
+
+    private static final ScratchMats SCRATCH = new ScratchMats(3);
+    private static final ThreadLocal<float[]> COEFFICIENTS =
+            ThreadLocal.withInitial(() -> new float[SAMPLE_SIZE * SAMPLE_SIZE]);
+    private static final ThreadLocal<float[]> LOW_FREQUENCIES =
+            ThreadLocal.withInitial(() -> new float[HASH_SIZE * HASH_SIZE]);
+
+    private PerceptualHash() {
+    }
+
+    static long compute(Mat grayOrBinary) {
+        Mat sample = SCRATCH.acquire(SLOT_SAMPLE, SAMPLE_SIZE, SAMPLE_SIZE, CvType.CV_8UC1);
+        Imgproc.resize(grayOrBinary, sample, SAMPLE, 0, 0, Imgproc.INTER_AREA);
+        Mat asFloat = SCRATCH.acquire(SLOT_FLOAT, SAMPLE_SIZE, SAMPLE_SIZE, CvType.CV_32FC1);
+        sample.convertTo(asFloat, CvType.CV_32F);
+        Mat dct = SCRATCH.acquire(SLOT_DCT, SAMPLE_SIZE, SAMPLE_SIZE, CvType.CV_32FC1);
+        Core.dct(asFloat, dct);
+
+        float[] coefficients = COEFFICIENTS.get();
+        dct.get(0, 0, coefficients);
+        float[] low = LOW_FREQUENCIES.get();
+        for (int row = 0; row < HASH_SIZE; row++) {
+            System.arraycopy(coefficients, row * SAMPLE_SIZE, low, row * HASH_SIZE, HASH_SIZE);
+        }
+
+        // The DC term only encodes overall brightness, so it is left out of the median and the hash.
+        float median = median(low);
+        long hash = 0L;
+        for (int i = 1; i < low.length; i++) {
+            if (low[i] > median) {
+                hash |= 1L << i;
+            }
+        }
+        return hash;
+    }
+
+    static int distance(long first, long second) {
+        return Long.bitCount(first ^ second);
+    }
+
+    private static float median(float[] values) {
+        float[] sorted = new float[values.length - 1];
+        System.arraycopy(values, 1, sorted, 0, sorted.length);
+        Arrays.sort(sorted);
+        int middle = sorted.length / 2;
+        return sorted.length % 2 == 0 ? (sorted[middle - 1] + sorted[middle]) / 2f : sorted[middle];
+    }
+}
@@ -0,0 +1,270 @@
+package com.contentmanagement.forms.api.service.extraction;
+
+import com.contentmanagement.forms.api.config.FormProcessingProperties;
+import com.contentmanagement.forms.api.model.PdfProcessingResult;
+import com.contentmanagement.forms.api.model.RegionOcrRequest;
+import com.contentmanagement.forms.api.model.RegionOcrResult;
+import jakarta.annotation.PreDestroy;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.io.RandomAccessReadBuffer;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.rendering.ImageType;
+import org.apache.pdfbox.rendering.PDFRenderer;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.Rect;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.multipart.MultipartFile;
+
+/**
+ * Reads text from boxes the caller already knows, skipping layout analysis: one page of a PDF or image is
+ * rasterised (in grayscale, at the page's usual render DPI) and each box goes straight to
+ * {@link TesseractOcrEngine}. A request holds one extraction slot of the {@link CpuBudget} and spreads its boxes
+ * over as many threads as a slot has native threads; the threads come from a shared pool sized to the budget's
+ * cores, so their Tesseract sessions are reused across requests. The request deadline applies as it does to
+ * {@code /api/pdf}: boxes not read by then come back without text and the result is {@code PARTIAL}.
+ */
+@Component
+public class RegionOcrService {
+
+    private static final Logger log = LoggerFactory.getLogger(RegionOcrService.class);
+
+    private final FormProcessingProperties properties;
+    private final TesseractOcrEngine ocrEngine;
+    private final OcrProfileRegistry profiles;
+    private final OpenCvSupport openCvSupport;
+    private final OpenCvImageLoader imageLoader;
+    private final NativeResourceTracker nativeResources;
+    private final RenderDpiPolicy dpiPolicy;
+    private final MemoryGovernor memoryGovernor;
+    private final CpuBudget cpuBudget;
+    private final ExecutorService workers;
+
+    public RegionOcrService(FormProcessingProperties properties,
+                            TesseractOcrEngine ocrEngine,
+                            OcrProfileRegistry profiles,
+                            OpenCvSupport openCvSupport,
+                            OpenCvImageLoader imageLoader,
+                            NativeResourceTracker nativeResources,
+                            RenderDpiPolicy dpiPolicy,
+                            MemoryGovernor memoryGovernor,
+                            CpuBudget cpuBudget) {
+        this.properties = properties;
+        this.ocrEngine = ocrEngine;
+        this.profiles = profiles;
+        this.openCvSupport = openCvSupport;
+        this.imageLoader = imageLoader;
+        this.nativeResources = nativeResources;
+        this.dpiPolicy = dpiPolicy;
+        this.memoryGovernor = memoryGovernor;
+        this.cpuBudget = cpuBudget;
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(cpuBudget.cores(), runnable -> {
+            Thread thread = new Thread(runnable, "region-ocr-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public boolean isAvailable() {
+        return properties.isOcrEnabled();
+    }
+
+    /**
+     * @param pageIndex zero-based page of the PDF or (multi-page) image
+     * @param timeout   how long reading may take; {@code null} for {@code deadline.default-timeout}
+     * @throws InvalidRegionRequestException for a page the file does not have, an unknown profile or an empty box
+     * @throws UnsupportedUploadException      when the file is neither a readable PDF nor a decodable image
+     */
+    public RegionOcrResult recognize(MultipartFile file, int pageIndex, List<RegionOcrRequest> regions,
+                                     Duration timeout) {
+        if (file == null || file.isEmpty()) {
+            throw new InvalidRegionRequestException("A PDF or image file is required");
+        }
+        if (regions == null || regions.isEmpty()) {
+            throw new InvalidRegionRequestException("At least one region is required");
+        }
+        OcrProfile[] selected = new OcrProfile[regions.size()];
+        for (int i = 0; i < regions.size(); i++) {
+            RegionOcrRequest region = regions.get(i);
+            if (!(region.width() > 0) || !(region.height() > 0)) {
+                throw new InvalidRegionRequestException("Region " + label(region, i) + " must have a positive size");
+            }
+            selected[i] = region.profile() != null ? profileNamed(region.profile())
+                    : region.widgetType() != null ? profiles.forWidget(region.widgetType())
+                    : profiles.defaultProfile();
+        }
+
+        ExtractionDeadline deadline = deadline(timeout);
+        openCvSupport.ensureLoaded();
+        RegionOcrResult.RegionText[] texts = new RegionOcrResult.RegionText[regions.size()];
+        // The memory reservation of a rendered PDF page is held until every region has been read from it.
+        try (CpuBudget.Slot slot = cpuBudget.acquire(file.getOriginalFilename());
+             NativeScope scope = nativeResources.open("region-ocr");
+             LoadedPage page = OpenCvImageLoader.isPdf(file) ? renderPdfPage(file, pageIndex) : decodeImagePage(file, pageIndex)) {
+            scope.track(page.mat());
+            int threads = Math.min(cpuBudget.nativeThreadsPerExtraction(), regions.size());
+            AtomicInteger next = new AtomicInteger();
+            List<Future<?>> tasks = new ArrayList<>(threads);
+            for (int thread = 0; thread < threads; thread++) {
+                tasks.add(workers.submit(() -> readRegions(page, pageIndex, regions, selected, texts, next, deadline)));
+            }
+            for (Future<?> task : tasks) {
+                task.get();
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while reading regions of " + file.getOriginalFilename(), ex);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException("Failed to read regions of " + file.getOriginalFilename(), ex.getCause());
+        }
+
+        long read = Arrays.stream(texts).filter(text -> text != null).count();
+        String detail = null;
+        for (int i = 0; i < texts.length; i++) {
+            if (texts[i] == null) {
+                texts[i] = new RegionOcrResult.RegionText(regions.get(i).id(), selected[i].name(), null, null);
+            }
+        }
+        if (read < regions.size()) {
+            detail = "Deadline reached after " + read + " of " + regions.size() + " region(s)";
+            log.warn("{} for {}; returning a partial result", detail, file.getOriginalFilename());
+        }
+        return new RegionOcrResult(file.getOriginalFilename(), pageIndex + 1,
+                detail != null ? PdfProcessingResult.PARTIAL : PdfProcessingResult.PROCESSED, detail, List.of(texts));
+    }
+
+    // Runs on a pool thread; threads of one request take boxes from the shared counter until none or no time is left.
+    private void readRegions(LoadedPage page, int pageIndex, List<RegionOcrRequest> regions,
+                             OcrProfile[] selected, RegionOcrResult.RegionText[] texts, AtomicInteger next,
+                             ExtractionDeadline deadline) {
+        try (ExtractionDeadline.Binding binding = deadline.bind();
+             ExtractionEvents.PageBinding onPage = ExtractionEvents.onPage(pageIndex)) {
+            int i;
+            while ((i = next.getAndIncrement()) < regions.size()) {
+                RegionOcrRequest region = regions.get(i);
+                Rect box = new ExtractionScope.RegionOfInterest(region.x(), region.y(), region.width(), region.height())
+                        .toPixels(page.scale(), page.rotation(), page.mat().cols(), page.mat().rows());
+                List<OcrWord> words = ocrEngine.recognizeWords(page.mat(), box, selected[i]);
+                texts[i] = toRegionText(region.id(), selected[i], words);
+            }
+        } catch (ExtractionDeadlineExceededException ex) {
+            // Unread boxes stay null and are reported without text.
+        } finally {
+            ScratchMats.releaseThread();
+        }
+    }
+
+    private static RegionOcrResult.RegionText toRegionText(String id, OcrProfile profile, List<OcrWord> words) {
+        if (words.isEmpty()) {
+            return new RegionOcrResult.RegionText(id, profile.name(), null, null);
+        }
+        StringBuilder text = new StringBuilder();
+        double weightedConfidence = 0;
+        int characters = 0;
+        for (OcrWord word : words) {
+            if (!text.isEmpty()) {
+                text.append(' ');
+            }
+            text.append(word.text());
+            weightedConfidence += (double) word.confidence() * word.text().length();
+            characters += word.text().length();
+        }
+        return new RegionOcrResult.RegionText(id, profile.name(), text.toString(),
+                Math.max(0, Math.min(1, weightedConfidence / characters / 100.0)));
+    }
+
+    private LoadedPage renderPdfPage(MultipartFile file, int pageIndex) {
+        try (PDDocument document = Loader.loadPDF(new RandomAccessReadBuffer(file.getInputStream()))) {
+            int pageCount = document.getNumberOfPages();
+            if (pageIndex >= pageCount) {
+                throw new InvalidRegionRequestException(file.getOriginalFilename() + " has " + pageCount + " page(s)");
+            }
+            PDPage page = document.getPage(pageIndex);
+            PDRectangle cropBox = page.getCropBox();
+            float[] dpis = new float[pageCount];
+            double[] areas = new double[pageCount];
+            dpis[pageIndex] = dpiPolicy.choose(page, pageIndex);
+            areas[pageIndex] = (double) cropBox.getWidth() * cropBox.getHeight();
+            MemoryGovernor.Reservation memory = memoryGovernor.reserve(file.getOriginalFilename(), dpis, areas);
+            try {
+                double scale = memory.dpi(pageIndex) / 72.0;
+                BufferedImage image = new PDFRenderer(document).renderImage(pageIndex, (float) scale, ImageType.GRAY);
+                byte[] data = ((DataBufferByte) image.getRaster().getDataBuffer()).getData();
+                Mat mat = new Mat(image.getHeight(), image.getWidth(), CvType.CV_8UC1);
+                mat.put(0, 0, data);
+                return new LoadedPage(mat, scale, page.getRotation(), memory);
+            } catch (RuntimeException | IOException ex) {
+                memory.close();
+                throw ex;
+            }
+        } catch (IOException ex) {
+            throw new UnsupportedUploadException("Unable to read PDF " + file.getOriginalFilename(), ex);
+        }
+    }
+
+    private LoadedPage decodeImagePage(MultipartFile file, int pageIndex) {
+        List<Mat> pages = imageLoader.decodeUpload(file, pageIndex, pageIndex + 1);
+        if (pages.isEmpty()) {
+            throw new InvalidRegionRequestException(file.getOriginalFilename() + " has no page " + (pageIndex + 1));
+        }
+        return new LoadedPage(pages.get(0), 1.0, 0, null);
+    }
+
+    // Starts when the request arrives, like the deadline of /api/pdf.
+    private ExtractionDeadline deadline(Duration timeout) {
+        Duration max = properties.getDeadline().getMaxTimeout();
+        Duration effective = timeout != null ? timeout : properties.getDeadline().getDefaultTimeout();
+        return ExtractionDeadline.after(effective.compareTo(max) > 0 ? max : effective);
+    }
+
+    private OcrProfile profileNamed(String name) {
+        return profiles.all().stream()
+                .filter(profile -> profile.name().equals(name))
+                .findFirst()
+                .orElseThrow(() -> new InvalidRegionRequestException("Unknown OCR profile '" + name + "'"));
+    }
+
+    private static String label(RegionOcrRequest region, int index) {
+        return region.id() != null ? "'" + region.id() + "'" : "#" + (index + 1);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        workers.shutdownNow();
+    }
+
+    /**
+     * A page ready for OCR: pixels per point, the page's {@code /Rotate} as rendered, and the memory reservation of
+     * a rendered PDF page ({@code null} for images), released on close.
+     */
+    private record LoadedPage(Mat mat, double scale, int rotation, MemoryGovernor.Reservation memory)
+            implements AutoCloseable {
+
+        @Override
+        public void close() {
+            if (memory != null) {
+                memory.close();
+            }
+        }
+    }
+}
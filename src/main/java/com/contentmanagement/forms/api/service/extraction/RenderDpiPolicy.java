@@ -0,0 +1,85 @@
+package com.contentmanagement.forms.api.service.extraction;
+
+import com.contentmanagement.forms.api.config.FormProcessingProperties;
+import java.io.IOException;
+import java.util.Locale;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * Picks the render DPI of a PDF page from signals that cost a content-stream walk rather than a render:
+ * <ul>
+ *   <li>a page dominated by one image (a scan) renders at the image's own resolution, since more pixels add
+ *       nothing and fewer throw scan detail away;</li>
+ *   <li>otherwise the small print of the text layer is rendered at {@code target-font-height-px} per em, so large
+ *       type is not oversampled and fine print still reaches OCR at a readable size;</li>
+ *   <li>pages with neither use {@code default-dpi}.</li>
+ * </ul>
+ * The result is clamped to {@code min-dpi}..{@code max-dpi} and lowered further for pages whose pixel count would
+ * exceed {@code max-page-pixels}.
+ */
+@Component
+public class RenderDpiPolicy {
+
+    private static final Logger log = LoggerFactory.getLogger(RenderDpiPolicy.class);
+
+    // A placed image covering this much of the page makes it a scan.
+    private static final double SCAN_COVERAGE = 0.8;
+
+    private final FormProcessingProperties.RenderDpi settings;
+
+    public RenderDpiPolicy(FormProcessingProperties properties) {
+        this.settings = properties.getRenderDpi();
+    }
+
+    /** The settings that decide a page's DPI, for artifact fingerprints; the choice itself is per page. */
+    String renderKey() {
+        return settings.isAdaptive()
+                ? "adaptive:" + settings.getMinDpi() + "-" + settings.getMaxDpi() + ",font=" + settings.getTargetFontHeightPx()
+                        + ",pixels=" + settings.getMaxPagePixels() + ",default=" + settings.getDefaultDpi()
+                : Integer.toString(settings.getDefaultDpi());
+    }
+
+    float choose(PDPage page, int pageIndex) {
+        if (!settings.isAdaptive()) {
+            return settings.getDefaultDpi();
+        }
+        PageContentProbe.Signals signals;
+        try {
+            signals = PageContentProbe.probe(page);
+        } catch (IOException | RuntimeException ex) {
+            log.warn("Unable to inspect page {} for its render DPI; using {}: {}", pageIndex + 1,
+                    settings.getDefaultDpi(), ex.getMessage());
+            return settings.getDefaultDpi();
+        }
+
+        double dpi;
+        String reason;
+        if (signals.imageDpi() != null && signals.imageCoverage() >= SCAN_COVERAGE) {
+            // Placement matrices carry float error; 199.99 is a 200 dpi scan.
+            dpi = Math.round(signals.imageDpi());
+            reason = "scan resolution";
+        } else if (signals.smallPrintPoints() != null) {
+            dpi = settings.getTargetFontHeightPx() * 72.0 / signals.smallPrintPoints();
+            reason = String.format(Locale.ROOT, "%.1fpt small print", signals.smallPrintPoints());
+        } else {
+            dpi = settings.getDefaultDpi();
+            reason = "no text or scan";
+        }
+        dpi = Math.max(settings.getMinDpi(), Math.min(settings.getMaxDpi(), dpi));
+
+        PDRectangle cropBox = page.getCropBox();
+        double area = (double) cropBox.getWidth() * cropBox.getHeight();
+        double pixelCap = 72.0 * Math.sqrt(settings.getMaxPagePixels() / Math.max(1.0, area));
+        if (dpi > pixelCap) {
+            dpi = pixelCap;
+            reason += ", page size";
+        }
+        float chosen = (float) Math.floor(dpi);
+        log.debug("Page {} renders at {} dpi ({})", pageIndex + 1, (int) chosen, reason);
+        return chosen;
+    }
+}
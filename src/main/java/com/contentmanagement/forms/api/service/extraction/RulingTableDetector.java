@@ -0,0 +1,111 @@
+package com.contentmanagement.forms.api.service.extraction;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.opencv.core.Core;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.MatOfPoint;
+import org.opencv.core.Rect;
+import org.opencv.imgproc.Imgproc;
+
+/**
+ * Finds ruled tables in a binary ink mask. Opening the mask with long horizontal and vertical kernels keeps only
+ * ruling lines; every connected patch of rulings that yields at least two rows and two columns becomes a
+ * {@link TableGrid}. Row and column edges come from the projection of the line masks, so text inside the cells
+ * never produces an edge. Ruling lengths scale with the full page size so a clipped region finds the same tables.
+ */
+final class RulingTableDetector {
+
+    private static final int SLOT_HORIZONTAL = 0;
+    private static final int SLOT_VERTICAL = 1;
+    private static final int SLOT_GRID = 2;
+
+    // Minimum ruling length as a fraction of the page side; much longer than any glyph stroke.
+    private static final int RULING_LENGTH_DIVISOR = 40;
+    private static final int MIN_RULING_PX = 20;
+    private static final double MIN_TABLE_AREA_RATIO = 0.005;
+    // A ruling must span this share of the table to count as a row or column edge.
+    private static final double MIN_RULING_COVERAGE = 0.5;
+    private static final int MIN_CELL_PX = 8;
+
+    private final ScratchMats scratch = new ScratchMats(3);
+
+    /**
+     * Returns the tables found in {@code binary} (ink is non-zero), in the mask's coordinates. Pixel minimums are
+     * multiplied by {@code pixelScale}, as in {@link OpenCvLayoutAnalyzer}.
+     */
+    List<TableGrid> detect(Mat binary, double pageWidth, double pageHeight, double pixelScale, NativeScope scope) {
+        int rows = binary.rows();
+        int cols = binary.cols();
+        int minRuling = OpenCvLayoutAnalyzer.scaled(MIN_RULING_PX, pixelScale);
+        int horizontalLength = Math.max(minRuling, (int) (pageWidth / RULING_LENGTH_DIVISOR));
+        int verticalLength = Math.max(minRuling, (int) (pageHeight / RULING_LENGTH_DIVISOR));
+
+        Mat horizontal = scratch.acquire(SLOT_HORIZONTAL, rows, cols, CvType.CV_8UC1);
+        Imgproc.morphologyEx(binary, horizontal, Imgproc.MORPH_OPEN,
+                ScratchMats.structuringElement(Imgproc.MORPH_RECT, horizontalLength, 1));
+        Mat vertical = scratch.acquire(SLOT_VERTICAL, rows, cols, CvType.CV_8UC1);
+        Imgproc.morphologyEx(binary, vertical, Imgproc.MORPH_OPEN,
+                ScratchMats.structuringElement(Imgproc.MORPH_RECT, 1, verticalLength));
+
+        Mat grid = scratch.acquire(SLOT_GRID, rows, cols, CvType.CV_8UC1);
+        Core.bitwise_or(horizontal, vertical, grid);
+        // Rulings that stop a pixel or two short of each other still belong to the same table.
+        Imgproc.dilate(grid, grid, ScratchMats.structuringElement(Imgproc.MORPH_RECT, 3, 3));
+
+        List<MatOfPoint> contours = new ArrayList<>();
+        Mat hierarchy = scope.track(new Mat());
+        Imgproc.findContours(grid, contours, hierarchy, Imgproc.RETR_EXTERNAL, Imgproc.CHAIN_APPROX_SIMPLE);
+        scope.trackAll(contours);
+
+        double minArea = pageWidth * pageHeight * MIN_TABLE_AREA_RATIO;
+        List<TableGrid> tables = new ArrayList<>();
+        for (MatOfPoint contour : contours) {
+            Rect rect = Imgproc.boundingRect(contour);
+            if (rect.area() < minArea) {
+                continue;
+            }
+            int minCell = OpenCvLayoutAnalyzer.scaled(MIN_CELL_PX, pixelScale);
+            List<Integer> rowEdges = edges(horizontal, rect, 1, rect.width, rect.y, minCell, scope);
+            List<Integer> columnEdges = edges(vertical, rect, 0, rect.height, rect.x, minCell, scope);
+            if (rowEdges.size() >= 3 && columnEdges.size() >= 3) {
+                tables.add(new TableGrid(rowEdges, columnEdges, null));
+            }
+        }
+        return tables;
+    }
+
+    /**
+     * Projects the line mask inside {@code rect} onto one axis and returns the centre of every run of lines that
+     * covers enough of the table. {@code dim} follows {@link Core#reduce}: 1 collapses columns (row profile), 0
+     * collapses rows (column profile).
+     */
+    private static List<Integer> edges(Mat lines, Rect rect, int dim, int span, int origin, int minCell,
+                                       NativeScope scope) {
+        Mat roi = scope.track(new Mat(lines, rect));
+        Mat profile = scope.track(new Mat());
+        Core.reduce(roi, profile, dim, Core.REDUCE_SUM, CvType.CV_32S);
+        int[] sums = new int[(int) profile.total()];
+        profile.get(0, 0, sums);
+
+        long threshold = (long) (span * MIN_RULING_COVERAGE) * 255;
+        List<Integer> edges = new ArrayList<>();
+        int runStart = -1;
+        for (int i = 0; i <= sums.length; i++) {
+            boolean ruling = i < sums.length && sums[i] >= threshold;
+            if (ruling && runStart < 0) {
+                runStart = i;
+            } else if (!ruling && runStart >= 0) {
+                int centre = origin + (runStart + i - 1) / 2;
+                if (!edges.isEmpty() && centre - edges.get(edges.size() - 1) < minCell) {
+                    edges.set(edges.size() - 1, (edges.get(edges.size() - 1) + centre) / 2);
+                } else {
+                    edges.add(centre);
+                }
+                runStart = -1;
+            }
+        }
+        return List.copyOf(edges);
+    }
+}
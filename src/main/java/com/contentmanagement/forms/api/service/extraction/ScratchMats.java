@@ -0,0 +1,114 @@
+package com.contentmanagement.forms.api.service.extraction;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.opencv.core.Mat;
+import org.opencv.core.Size;
+import org.opencv.imgproc.Imgproc;
+
+/**
+ * Per-thread, grow-only scratch buffers for preprocessing pipelines. Each slot keeps a backing {@link Mat}
+ * that only ever grows; callers receive either the backing buffer itself or a cached ROI view of the requested
+ * size, so a steady stream of same-sized pages or regions performs no native pixel allocations. OpenCV
+ * functions write into a destination of the right size and type in place, which is what keeps the views valid.
+ *
+ * <p>Buffers are owned by the worker thread and kept for the length of one extraction; they are not registered
+ * with a {@link NativeScope} but freed by {@link #releaseThread}, which closing a {@link CpuBudget.Slot} calls.
+ * Views are only valid until the same slot is acquired again on that thread.
+ */
+final class ScratchMats {
+
+    private static final Map<String, Mat> STRUCTURING_ELEMENTS = new ConcurrentHashMap<>();
+    // Every slot the current thread has created, across all instances, so they can be freed together.
+    private static final ThreadLocal<List<Slot>> THREAD_SLOTS = ThreadLocal.withInitial(ArrayList::new);
+
+    private final ThreadLocal<Slot[]> slots;
+
+    ScratchMats(int slotCount) {
+        this.slots = ThreadLocal.withInitial(() -> {
+            Slot[] created = new Slot[slotCount];
+            for (int i = 0; i < slotCount; i++) {
+                created[i] = new Slot();
+            }
+            THREAD_SLOTS.get().addAll(List.of(created));
+            return created;
+        });
+    }
+
+    /**
+     * Frees the buffers of every slot on the current thread. They are allocated again on the next acquire, so a
+     * thread that has finished its extraction pins no native memory while it sits idle in a pool.
+     */
+    static void releaseThread() {
+        for (Slot slot : THREAD_SLOTS.get()) {
+            slot.release();
+        }
+    }
+
+    Mat acquire(int slot, int rows, int cols, int type) {
+        return slots.get()[slot].view(rows, cols, type);
+    }
+
+    /**
+     * Shared, read-only structuring element. Kernels are only read by the morphology functions, so a single
+     * instance per shape and size is safe to use from every thread.
+     */
+    static Mat structuringElement(int shape, int width, int height) {
+        String key = shape + ":" + width + "x" + height;
+        return STRUCTURING_ELEMENTS.computeIfAbsent(key,
+                ignored -> Imgproc.getStructuringElement(shape, new Size(width, height)));
+    }
+
+    private static final class Slot {
+
+        private Mat backing;
+        private Mat view;
+
+        private Mat view(int rows, int cols, int type) {
+            if (backing == null || backing.type() != type || rows > backing.rows() || cols > backing.cols()) {
+                grow(rows, cols, type);
+            }
+            if (rows == backing.rows() && cols == backing.cols()) {
+                return backing;
+            }
+            if (view != null && view.rows() == rows && view.cols() == cols) {
+                return view;
+            }
+            if (view != null) {
+                view.release();
+            }
+            view = backing.submat(0, rows, 0, cols);
+            return view;
+        }
+
+        private void release() {
+            if (view != null) {
+                view.release();
+                view = null;
+            }
+            if (backing != null) {
+                backing.release();
+                backing = null;
+            }
+        }
+
+        private void grow(int rows, int cols, int type) {
+            int targetRows = rows;
+            int targetCols = cols;
+            if (backing != null && backing.type() == type) {
+                targetRows = Math.max(rows, backing.rows());
+                targetCols = Math.max(cols, backing.cols());
+            }
+            if (view != null) {
+                view.release();
+                view = null;
+            }
+            if (backing != null) {
+                backing.release();
+            }
+            backing = new Mat(targetRows, targetCols, type);
+        }
+    }
+}
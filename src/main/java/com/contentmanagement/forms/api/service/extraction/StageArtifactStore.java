@@ -0,0 +1,446 @@
+package com.contentmanagement.forms.api.service.extraction;
+
+import com.contentmanagement.forms.api.config.FormProcessingProperties;
+import com.contentmanagement.forms.api.model.ProcessingMode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.multipart.MultipartFile;
+
+/**
+ * Local store for per-stage pipeline output. Sources are keyed by the SHA-256 of their content (the document
+ * id); every stage directory is additionally keyed by a fingerprint of the settings that produced it, chained
+ * from the upstream stage. Changing OCR settings therefore only invalidates {@link ArtifactStage#ENRICHED},
+ * while a new render DPI or a bumped {@link OpenCvLayoutAnalyzer#ALGORITHM_VERSION} invalidates everything
+ * downstream of it.
+ *
+ * <p>Opening a run touches the directories it uses. After an upload, a background thread deletes stage directories
+ * and documents not used for {@code artifacts.ttl}, then the least recently used documents until the store fits
+ * {@code artifacts.max-size}. Documents pinned by a running request are never evicted.
+ *
+ * <pre>
+ * {root}/{documentId}/source.bin
+ * {root}/{documentId}/source.properties
+ * {root}/{documentId}/{stage}-{fingerprint}/page-0000.(png|json)
+ * </pre>
+ */
+@Component
+public class StageArtifactStore {
+
+    // Bump when enrichment logic changes in a way the OCR settings do not capture.
+    static final int ENRICHMENT_VERSION = 1;
+
+    private static final Logger log = LoggerFactory.getLogger(StageArtifactStore.class);
+
+    private static final Pattern DOCUMENT_ID = Pattern.compile("[0-9a-f]{64}");
+    private static final String SOURCE_FILE = "source.bin";
+    private static final String SOURCE_META = "source.properties";
+
+    private final FormProcessingProperties properties;
+    private final OcrProfileRegistry profiles;
+    private final ObjectMapper objectMapper;
+    // Pin counts of documents a request is reading or writing; guarded by this.
+    private final Map<String, Integer> pinned = new HashMap<>();
+    private final AtomicBoolean evictionQueued = new AtomicBoolean();
+    private final ExecutorService evictor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "artifact-eviction");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public StageArtifactStore(FormProcessingProperties properties,
+                              OcrProfileRegistry profiles,
+                              ObjectMapper objectMapper) {
+        this.properties = properties;
+        this.profiles = profiles;
+        this.objectMapper = objectMapper;
+    }
+
+    public boolean isEnabled() {
+        return properties.getArtifacts().isEnabled();
+    }
+
+    /**
+     * Streams the upload into the store and returns it pinned under its document id; close the pin once the
+     * request is done with the document. Uploading identical content again reuses the stored copy and everything
+     * derived from it.
+     */
+    public Pin storeSource(MultipartFile file, ProcessingMode mode) {
+        Path root = root();
+        try {
+            Files.createDirectories(root);
+            Path temp = Files.createTempFile(root, "upload-", ".tmp");
+            try {
+                MessageDigest digest = sha256();
+                try (InputStream in = new DigestInputStream(file.getInputStream(), digest)) {
+                    Files.copy(in, temp, StandardCopyOption.REPLACE_EXISTING);
+                }
+                String documentId = HexFormat.of().formatHex(digest.digest());
+                Pin pin = pin(documentId);
+                try {
+                    Path directory = Files.createDirectories(root.resolve(documentId));
+                    if (!Files.isRegularFile(directory.resolve(SOURCE_FILE))) {
+                        move(temp, directory.resolve(SOURCE_FILE));
+                    }
+
+                    Properties meta = new Properties();
+                    if (file.getOriginalFilename() != null) {
+                        meta.setProperty("original-filename", file.getOriginalFilename());
+                    }
+                    if (file.getContentType() != null) {
+                        meta.setProperty("content-type", file.getContentType());
+                    }
+                    meta.setProperty("mode", mode.name());
+                    writeAtomically(directory.resolve(SOURCE_META), target -> {
+                        try (OutputStream out = Files.newOutputStream(target)) {
+                            meta.store(out, null);
+                        }
+                    });
+                    touch(directory);
+                } catch (IOException | RuntimeException ex) {
+                    pin.close();
+                    throw ex;
+                }
+                scheduleEviction();
+                return pin;
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        } catch (IOException ex) {
+            throw new IllegalStateException("Unable to store source " + file.getOriginalFilename(), ex);
+        }
+    }
+
+    /** Keeps {@code documentId} from being evicted until the returned pin is closed. */
+    public synchronized Pin pin(String documentId) {
+        pinned.merge(documentId, 1, Integer::sum);
+        return new Pin(this, documentId);
+    }
+
+    private synchronized void unpin(String documentId) {
+        pinned.computeIfPresent(documentId, (id, count) -> count > 1 ? count - 1 : null);
+    }
+
+    /** The id {@link #storeSource} would assign to {@code file}, computed without storing anything. */
+    public static String documentId(MultipartFile file) {
+        MessageDigest digest = sha256();
+        try (InputStream in = new DigestInputStream(file.getInputStream(), digest)) {
+            in.transferTo(OutputStream.nullOutputStream());
+        } catch (IOException ex) {
+            throw new IllegalStateException("Unable to read " + file.getOriginalFilename(), ex);
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    public Optional<StoredSource> loadSource(String documentId) {
+        Path directory = documentDirectory(documentId);
+        if (directory == null || !Files.isRegularFile(directory.resolve(SOURCE_FILE))) {
+            return Optional.empty();
+        }
+        Properties meta = new Properties();
+        Path metaFile = directory.resolve(SOURCE_META);
+        try {
+            if (Files.isRegularFile(metaFile)) {
+                try (InputStream in = Files.newInputStream(metaFile)) {
+                    meta.load(in);
+                }
+            }
+            Path source = directory.resolve(SOURCE_FILE);
+            String mode = meta.getProperty("mode");
+            return Optional.of(new StoredSource(
+                    documentId,
+                    source,
+                    meta.getProperty("original-filename", documentId),
+                    meta.getProperty("content-type"),
+                    mode != null ? ProcessingMode.valueOf(mode) : null,
+                    Files.size(source)));
+        } catch (IOException ex) {
+            throw new IllegalStateException("Unable to read stored source " + documentId, ex);
+        }
+    }
+
+    /**
+     * Opens the artifacts of one extraction run. {@code renderSettings} describes everything that affects the
+     * rendered pixels (strategy, DPI, ...). Returns a no-op handle when persistence is disabled or the context
+     * has no document id.
+     */
+    StageArtifacts open(FormExtractionContext context, String renderSettings) {
+        Path directory = isEnabled() ? documentDirectory(context.documentId()) : null;
+        if (directory == null) {
+            return StageArtifacts.disabled();
+        }
+        String render = fingerprint(context.mode().name(), renderSettings);
+        String layout = fingerprint(render, "layout", Integer.toString(OpenCvLayoutAnalyzer.ALGORITHM_VERSION));
+        String enriched = fingerprint(layout, "enriched", Integer.toString(ENRICHMENT_VERSION), ocrSettings());
+        touch(directory);
+        for (String stage : List.of("render-" + render, "layout-" + layout, "enriched-" + enriched)) {
+            touch(directory.resolve(stage));
+        }
+        return new StageArtifacts(directory, objectMapper, context.invalidateFrom(), render, layout, enriched);
+    }
+
+    private String ocrSettings() {
+        FormProcessingProperties.OcrProfiles settings = properties.getOcrProfiles();
+        FormProcessingProperties.OcrCache cache = properties.getOcrCache();
+        StringBuilder builder = new StringBuilder()
+                .append(properties.isOcrEnabled()).append('|')
+                .append(properties.getOcrLanguage()).append('|')
+                .append(properties.getBlankRegionInkThreshold()).append('|')
+                .append(properties.getCheckboxCheckedInkThreshold()).append('|')
+                .append(cache.isEnabled() && cache.getMaxEntries() > 0).append(',')
+                .append(cache.getMaxHammingDistance()).append(',')
+                .append(cache.getSizeBucketPx()).append('|')
+                .append(profiles.defaultProfile()).append('|')
+                .append(new TreeMap<>(settings.getByWidgetType())).append('|')
+                .append(new TreeMap<>(settings.getByComponentType()));
+        profiles.all().stream()
+                .sorted(Comparator.comparing(OcrProfile::name))
+                .forEach(profile -> builder.append('|').append(profile));
+        return builder.toString();
+    }
+
+    private Path root() {
+        String configured = properties.getArtifacts().getDirectory();
+        if (configured == null || configured.isBlank()) {
+            return Paths.get(System.getProperty("java.io.tmpdir"), "content-management-forms", "artifacts");
+        }
+        return Paths.get(configured);
+    }
+
+    private Path documentDirectory(String documentId) {
+        if (documentId == null || !DOCUMENT_ID.matcher(documentId).matches()) {
+            return null;
+        }
+        return root().resolve(documentId);
+    }
+
+    // At most one eviction runs and one waits; uploads arriving meanwhile are covered by the waiting one.
+    private void scheduleEviction() {
+        if (evictionQueued.compareAndSet(false, true)) {
+            evictor.execute(() -> {
+                evictionQueued.set(false);
+                evict();
+            });
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        evictor.shutdownNow();
+    }
+
+    /**
+     * Deletes stage directories and documents unused for {@code artifacts.ttl} (and leftovers of interrupted
+     * uploads), then the least recently used documents until the store fits {@code artifacts.max-size}. Pinned
+     * documents are skipped but count towards the size.
+     */
+    void evict() {
+        Path root = root();
+        Instant expired = Instant.now().minus(properties.getArtifacts().getTtl());
+        List<Entry> entries = new ArrayList<>();
+        long pinnedBytes = 0;
+        try (Stream<Path> children = Files.list(root)) {
+            for (Path child : children.toList()) {
+                try {
+                    Instant lastUsed = Files.getLastModifiedTime(child).toInstant();
+                    if (!DOCUMENT_ID.matcher(child.getFileName().toString()).matches()) {
+                        if (lastUsed.isBefore(expired)) {
+                            deleteTree(child);
+                        }
+                        continue;
+                    }
+                    if (isPinned(child)) {
+                        pinnedBytes += size(child);
+                        continue;
+                    }
+                    if (lastUsed.isBefore(expired)) {
+                        deleteUnlessPinned(child, child);
+                        continue;
+                    }
+                    // Fingerprints of settings no run has used for a while, e.g. from before a configuration change.
+                    try (Stream<Path> stages = Files.list(child)) {
+                        for (Path stage : stages.filter(Files::isDirectory).toList()) {
+                            if (Files.getLastModifiedTime(stage).toInstant().isBefore(expired)) {
+                                deleteUnlessPinned(child, stage);
+                            }
+                        }
+                    }
+                    entries.add(new Entry(child, lastUsed, size(child)));
+                } catch (NoSuchFileException ex) {
+                    // Deleted while scanning.
+                }
+            }
+        } catch (IOException ex) {
+            log.warn("Unable to scan artifact store {}: {}", root, ex.getMessage());
+            return;
+        }
+
+        long budget = properties.getArtifacts().getMaxSize().toBytes();
+        long total = pinnedBytes + entries.stream().mapToLong(Entry::bytes).sum();
+        entries.sort(Comparator.comparing(Entry::lastUsed));
+        int evicted = 0;
+        for (Entry entry : entries) {
+            if (total <= budget) {
+                break;
+            }
+            if (deleteUnlessPinned(entry.directory(), entry.directory())) {
+                total -= entry.bytes();
+                evicted++;
+            }
+        }
+        if (evicted > 0) {
+            log.info("Evicted artifacts of {} document(s); {} bytes remain", evicted, total);
+        }
+    }
+
+    private synchronized boolean isPinned(Path directory) {
+        return pinned.containsKey(directory.getFileName().toString());
+    }
+
+    // Holds the lock while deleting so a request cannot pin the document halfway through.
+    private synchronized boolean deleteUnlessPinned(Path document, Path directory) {
+        if (isPinned(document)) {
+            return false;
+        }
+        deleteTree(directory);
+        return true;
+    }
+
+    // Directory modification times double as last-use times for eviction; missing directories are skipped.
+    private static void touch(Path directory) {
+        try {
+            Files.setLastModifiedTime(directory, FileTime.from(Instant.now()));
+        } catch (IOException ex) {
+            // Only affects eviction order.
+        }
+    }
+
+    private static long size(Path directory) throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            long total = 0;
+            for (Path file : files.filter(Files::isRegularFile).toList()) {
+                total += Files.size(file);
+            }
+            return total;
+        }
+    }
+
+    private static void deleteTree(Path directory) {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(file);
+            }
+        } catch (IOException ex) {
+            log.warn("Unable to delete {}: {}", directory, ex.getMessage());
+        }
+    }
+
+    private static String fingerprint(String... parts) {
+        MessageDigest digest = sha256();
+        for (String part : parts) {
+            digest.update(part.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+        }
+        return HexFormat.of().formatHex(digest.digest(), 0, 8);
+    }
+
+    static void writeAtomically(Path target, PathWriter writer) throws IOException {
+        Path temp = target.resolveSibling("tmp-" + System.nanoTime() + "-" + target.getFileName());
+        try {
+            writer.write(temp);
+            move(temp, target);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private static void move(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException ex) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 is not available", ex);
+        }
+    }
+
+    @FunctionalInterface
+    interface PathWriter {
+        void write(Path target) throws IOException;
+    }
+
+    private record Entry(Path directory, Instant lastUsed, long bytes) {
+    }
+
+    /** A document a request is using; see {@link #pin}. */
+    public static final class Pin implements AutoCloseable {
+
+        private final StageArtifactStore store;
+        private final String documentId;
+        private boolean closed;
+
+        private Pin(StageArtifactStore store, String documentId) {
+            this.store = store;
+            this.documentId = documentId;
+        }
+
+        public String documentId() {
+            return documentId;
+        }
+
+        @Override
+        public void close() {
+            if (!closed) {
+                closed = true;
+                store.unpin(documentId);
+            }
+        }
+    }
+
+    public record StoredSource(
+            String documentId,
+            Path path,
+            String originalFilename,
+            String contentType,
+            ProcessingMode mode,
+            long size
+    ) {
+    }
+}
@@ -0,0 +1,221 @@
+package com.contentmanagement.forms.api.service.extraction;
+
+import com.contentmanagement.forms.api.model.WidgetType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import org.opencv.core.Mat;
+import org.opencv.core.MatOfInt;
+import org.opencv.core.Rect;
+import org.opencv.imgcodecs.Imgcodecs;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Stage artifacts of one extraction run, opened through {@link StageArtifactStore#open}. Loads return
+ * {@code null} when the artifact is missing, unreadable or invalidated for this run, in which case the caller
+ * recomputes the stage and saves the result. Persistence is an optimisation only: write failures are logged
+ * and never fail the request. Not thread-safe; one instance per request.
+ */
+public final class StageArtifacts {
+
+    private static final Logger log = LoggerFactory.getLogger(StageArtifacts.class);
+    private static final StageArtifacts DISABLED = new StageArtifacts(null, null, null, null, null, null);
+    // Rendered pages are rewritten rarely and read back often; favour encode speed over size.
+    private static final int PNG_COMPRESSION = 1;
+
+    private final Path documentDirectory;
+    private final ObjectMapper objectMapper;
+    private final ArtifactStage invalidateFrom;
+    private final Map<ArtifactStage, String> fingerprints = new EnumMap<>(ArtifactStage.class);
+    private final Map<ArtifactStage, int[]> counters = new EnumMap<>(ArtifactStage.class);
+
+    StageArtifacts(Path documentDirectory,
+                   ObjectMapper objectMapper,
+                   ArtifactStage invalidateFrom,
+                   String renderFingerprint,
+                   String layoutFingerprint,
+                   String enrichedFingerprint) {
+        this.documentDirectory = documentDirectory;
+        this.objectMapper = objectMapper;
+        this.invalidateFrom = invalidateFrom;
+        if (documentDirectory != null) {
+            fingerprints.put(ArtifactStage.RENDER, renderFingerprint);
+            fingerprints.put(ArtifactStage.LAYOUT, layoutFingerprint);
+            fingerprints.put(ArtifactStage.ENRICHED, enrichedFingerprint);
+            for (ArtifactStage stage : ArtifactStage.values()) {
+                counters.put(stage, new int[2]);
+            }
+        }
+    }
+
+    static StageArtifacts disabled() {
+        return DISABLED;
+    }
+
+    public boolean isEnabled() {
+        return documentDirectory != null;
+    }
+
+    /** Returns the stored rendering of the page; the caller owns the Mat. */
+    public Mat loadRendered(int pageIndex) {
+        Path file = pageFile(ArtifactStage.RENDER, pageIndex, "png");
+        if (file == null) {
+            return null;
+        }
+        Mat image = Imgcodecs.imread(file.toString(), Imgcodecs.IMREAD_UNCHANGED);
+        if (image.empty()) {
+            image.release();
+            log.warn("Discarding unreadable rendered page {}", file);
+            return null;
+        }
+        counters.get(ArtifactStage.RENDER)[0]++;
+        return image;
+    }
+
+    public void saveRendered(int pageIndex, Mat image) {
+        save(ArtifactStage.RENDER, pageIndex, "png", target -> {
+            MatOfInt params = new MatOfInt(Imgcodecs.IMWRITE_PNG_COMPRESSION, PNG_COMPRESSION);
+            try {
+                if (!Imgcodecs.imwrite(target.toString(), image, params)) {
+                    throw new IOException("PNG encoder rejected page " + pageIndex);
+                }
+            } finally {
+                params.release();
+            }
+        });
+    }
+
+    public PageLayout loadLayout(int pageIndex) {
+        return loadLayout(ArtifactStage.LAYOUT, pageIndex);
+    }
+
+    public void saveLayout(PageLayout layout) {
+        saveLayout(ArtifactStage.LAYOUT, layout);
+    }
+
+    public PageLayout loadEnriched(int pageIndex) {
+        return loadLayout(ArtifactStage.ENRICHED, pageIndex);
+    }
+
+    public void saveEnriched(PageLayout layout) {
+        saveLayout(ArtifactStage.ENRICHED, layout);
+    }
+
+    public void logSummary(Logger logger) {
+        if (!isEnabled()) {
+            return;
+        }
+        StringBuilder summary = new StringBuilder();
+        counters.forEach((stage, counts) -> summary
+                .append(' ').append(stage.name().toLowerCase(Locale.ROOT))
+                .append("[reused=").append(counts[0]).append(" computed=").append(counts[1]).append(']'));
+        logger.info("Stage artifacts {}:{}", documentDirectory.getFileName(), summary);
+    }
+
+    private PageLayout loadLayout(ArtifactStage stage, int pageIndex) {
+        Path file = pageFile(stage, pageIndex, "json");
+        if (file == null) {
+            return null;
+        }
+        try {
+            PageLayout layout = objectMapper.readValue(file.toFile(), StoredPageLayout.class).toLayout();
+            counters.get(stage)[0]++;
+            return layout;
+        } catch (IOException | RuntimeException ex) {
+            log.warn("Discarding unreadable {} artifact {}", stage, file, ex);
+            return null;
+        }
+    }
+
+    private void saveLayout(ArtifactStage stage, PageLayout layout) {
+        save(stage, layout.pageIndex(), "json",
+                target -> objectMapper.writeValue(target.toFile(), StoredPageLayout.of(layout)));
+    }
+
+    private Path pageFile(ArtifactStage stage, int pageIndex, String extension) {
+        if (!isEnabled() || stage.isInvalidatedBy(invalidateFrom)) {
+            return null;
+        }
+        Path file = stageDirectory(stage).resolve(fileName(pageIndex, extension));
+        return Files.isRegularFile(file) ? file : null;
+    }
+
+    private void save(ArtifactStage stage, int pageIndex, String extension, StageArtifactStore.PathWriter writer) {
+        if (!isEnabled()) {
+            return;
+        }
+        counters.get(stage)[1]++;
+        try {
+            Path directory = Files.createDirectories(stageDirectory(stage));
+            StageArtifactStore.writeAtomically(directory.resolve(fileName(pageIndex, extension)), writer);
+        } catch (IOException | RuntimeException ex) {
+            log.warn("Unable to persist {} artifact for page {} of {}", stage, pageIndex, documentDirectory.getFileName(), ex);
+        }
+    }
+
+    private Path stageDirectory(ArtifactStage stage) {
+        return documentDirectory.resolve(stage.name().toLowerCase(Locale.ROOT) + "-" + fingerprints.get(stage));
+    }
+
+    private static String fileName(int pageIndex, String extension) {
+        return String.format(Locale.ROOT, "page-%04d.%s", pageIndex, extension);
+    }
+
+    // Flat, OpenCV-free representations so the JSON stays stable if the in-memory records grow.
+    record StoredPageLayout(int pageIndex, double width, double height, List<StoredComponent> components) {
+
+        static StoredPageLayout of(PageLayout layout) {
+            List<StoredComponent> components = new ArrayList<>(layout.components().size());
+            for (DetectedComponent component : layout.components()) {
+                Rect box = component.boundingBox();
+                TableGrid table = component.table();
+                components.add(new StoredComponent(component.index(), component.type(), box.x, box.y, box.width,
+                        box.height, component.text(), component.confidence(), component.widgetType(),
+                        component.inkRatio(), component.checked(),
+                        table != null ? table.rowEdges() : null,
+                        table != null ? table.columnEdges() : null,
+                        table != null ? table.cells() : null));
+            }
+            return new StoredPageLayout(layout.pageIndex(), layout.width(), layout.height(), components);
+        }
+
+        PageLayout toLayout() {
+            List<DetectedComponent> detected = new ArrayList<>(components.size());
+            for (StoredComponent component : components) {
+                TableGrid table = component.rowEdges() != null && component.columnEdges() != null
+                        ? new TableGrid(component.rowEdges(), component.columnEdges(), component.cells())
+                        : null;
+                detected.add(new DetectedComponent(component.index(), component.type(),
+                        new Rect(component.x(), component.y(), component.width(), component.height()),
+                        component.text(), component.confidence(), component.widgetType(), component.inkRatio(),
+                        component.checked(), table));
+            }
+            return new PageLayout(pageIndex, width, height, detected);
+        }
+    }
+
+    record StoredComponent(
+            int index,
+            DetectedComponentType type,
+            int x,
+            int y,
+            int width,
+            int height,
+            String text,
+            double confidence,
+            WidgetType widgetType,
+            double inkRatio,
+            Boolean checked,
+            List<Integer> rowEdges,
+            List<Integer> columnEdges,
+            List<List<String>> cells
+    ) {
+    }
+}
@@ -0,0 +1,97 @@
+package com.contentmanagement.forms.api.service.extraction;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.opencv.core.Mat;
+import org.opencv.core.Rect;
+import org.springframework.stereotype.Component;
+
+/**
+ * Fills the cells of a detected table with OCR. Each row is recognised in a single call over the full-width row
+ * band and the returned words are assigned to columns by their horizontal centre, so a table costs one OCR call
+ * per row instead of one per cell.
+ */
+@Component
+public class TableCellReader {
+
+    // Keeps horizontal rulings out of the row band.
+    private static final int RULING_INSET_PX = 3;
+    // Narrow "words" sitting on a vertical ruling are the ruling itself (read as '|', 'l', 'I', ...).
+    private static final int MAX_RULING_ARTIFACT_WIDTH_PX = 6;
+
+    private final TesseractOcrEngine ocrEngine;
+    private final OcrProfileRegistry profiles;
+
+    public TableCellReader(TesseractOcrEngine ocrEngine, OcrProfileRegistry profiles) {
+        this.ocrEngine = ocrEngine;
+        this.profiles = profiles;
+    }
+
+    /**
+     * OCRs every row that has no text yet and returns the grid with the recognised cell text. Cells that already
+     * hold text (for example from a PDF text layer) are kept as they are.
+     */
+    TableGrid read(Mat image, DetectedComponent component, DetectionDiagnostics diagnostics) {
+        TableGrid table = component.table();
+        OcrProfile profile = profiles.select(component);
+        List<List<String>> cells = new ArrayList<>(table.rowCount());
+        for (int row = 0; row < table.rowCount(); row++) {
+            List<String> texts = new ArrayList<>(table.columnCount());
+            boolean empty = true;
+            for (int column = 0; column < table.columnCount(); column++) {
+                String text = table.text(row, column);
+                texts.add(text);
+                empty &= text == null;
+            }
+            if (empty) {
+                readRow(image, table, row, profile, texts);
+                diagnostics.recordTableRowRead(table.columnCount());
+            }
+            cells.add(texts);
+        }
+        return table.withCells(cells);
+    }
+
+    private void readRow(Mat image, TableGrid table, int row, OcrProfile profile, List<String> texts) {
+        Rect band = table.row(row);
+        if (band.width <= RULING_INSET_PX * 2 || band.height <= RULING_INSET_PX * 2) {
+            return;
+        }
+        Rect inner = new Rect(band.x + RULING_INSET_PX, band.y + RULING_INSET_PX,
+                band.width - RULING_INSET_PX * 2, band.height - RULING_INSET_PX * 2);
+
+        List<StringBuilder> builders = new ArrayList<>(texts.size());
+        for (int column = 0; column < texts.size(); column++) {
+            builders.add(new StringBuilder());
+        }
+        for (OcrWord word : ocrEngine.recognizeWords(image, inner, profile)) {
+            double centre = word.box().x + word.box().width / 2.0;
+            if (word.box().width <= MAX_RULING_ARTIFACT_WIDTH_PX && onColumnEdge(table, centre)) {
+                continue;
+            }
+            int column = table.columnAt(centre);
+            if (column < 0) {
+                continue;
+            }
+            StringBuilder builder = builders.get(column);
+            if (!builder.isEmpty()) {
+                builder.append(' ');
+            }
+            builder.append(word.text());
+        }
+        for (int column = 0; column < texts.size(); column++) {
+            if (!builders.get(column).isEmpty()) {
+                texts.set(column, builders.get(column).toString());
+            }
+        }
+    }
+
+    private static boolean onColumnEdge(TableGrid table, double x) {
+        for (int edge : table.columnEdges()) {
+            if (Math.abs(x - edge) <= RULING_INSET_PX) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,76 @@
+package com.contentmanagement.forms.api.service.extraction;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.opencv.core.Rect;
+
+/**
+ * Cell structure of a ruled table. Edges are the centre lines of the detected rulings in image pixels, so a
+ * table with {@code n} rows has {@code n + 1} row edges. Cell text is filled in by the enrichment stage and is
+ * {@code null} until then; individual cells are {@code null} when they hold no text.
+ *
+ * @param rowEdges ascending y coordinates of the horizontal rulings
+ * @param columnEdges ascending x coordinates of the vertical rulings
+ * @param cells cell text by row, then column
+ */
+public record TableGrid(List<Integer> rowEdges, List<Integer> columnEdges, List<List<String>> cells) {
+
+    public int rowCount() {
+        return rowEdges.size() - 1;
+    }
+
+    public int columnCount() {
+        return columnEdges.size() - 1;
+    }
+
+    /** The area enclosed by the outer rulings. */
+    public Rect bounds() {
+        int left = columnEdges.get(0);
+        int top = rowEdges.get(0);
+        return new Rect(left, top, columnEdges.get(columnEdges.size() - 1) - left, rowEdges.get(rowEdges.size() - 1) - top);
+    }
+
+    public Rect cell(int row, int column) {
+        return new Rect(columnEdges.get(column), rowEdges.get(row),
+                columnEdges.get(column + 1) - columnEdges.get(column), rowEdges.get(row + 1) - rowEdges.get(row));
+    }
+
+    /** The full-width band of one row, used to OCR every cell of the row in a single call. */
+    public Rect row(int row) {
+        Rect bounds = bounds();
+        return new Rect(bounds.x, rowEdges.get(row), bounds.width, rowEdges.get(row + 1) - rowEdges.get(row));
+    }
+
+    /** Index of the column whose span contains {@code x}, or {@code -1} when it lies outside the table. */
+    public int columnAt(double x) {
+        for (int column = 0; column < columnCount(); column++) {
+            if (x >= columnEdges.get(column) && x < columnEdges.get(column + 1)) {
+                return column;
+            }
+        }
+        return -1;
+    }
+
+    public String text(int row, int column) {
+        if (cells == null || row >= cells.size() || column >= cells.get(row).size()) {
+            return null;
+        }
+        return cells.get(row).get(column);
+    }
+
+    public TableGrid withCells(List<List<String>> newCells) {
+        return new TableGrid(rowEdges, columnEdges, newCells);
+    }
+
+    public TableGrid translate(int dx, int dy) {
+        return new TableGrid(shift(rowEdges, dy), shift(columnEdges, dx), cells);
+    }
+
+    private static List<Integer> shift(List<Integer> edges, int offset) {
+        List<Integer> shifted = new ArrayList<>(edges.size());
+        for (int edge : edges) {
+            shifted.add(edge + offset);
+        }
+        return List.copyOf(shifted);
+    }
+}
@@ -0,0 +1,192 @@
+package com.contentmanagement.forms.api.service.extraction;
+
+import com.contentmanagement.forms.api.config.FormProcessingProperties;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Locale;
+import java.util.Properties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.core.io.support.ResourcePatternResolver;
+import org.springframework.stereotype.Component;
+
+/**
+ * Unpacks classpath traineddata into a directory that survives restarts. A manifest records size, last-modified
+ * time and SHA-256 of every file; a file is reused only when the classpath source still matches and the cached
+ * copy hashes to the recorded value, otherwise it is copied again through a temp file and an atomic move so a
+ * crash or a concurrent instance never leaves a truncated model behind.
+ */
+@Component
+public class TessDataCache {
+
+    private static final Logger log = LoggerFactory.getLogger(TessDataCache.class);
+    private static final String TRAINED_DATA_GLOB = "**/*.traineddata";
+    private static final String MANIFEST = "manifest.properties";
+
+    private final FormProcessingProperties properties;
+    private final ResourceLoader resourceLoader;
+
+    public TessDataCache(FormProcessingProperties properties, ResourceLoader resourceLoader) {
+        this.properties = properties;
+        this.resourceLoader = resourceLoader;
+    }
+
+    public Path unpack(String location) throws IOException {
+        String base = location.substring("classpath:".length());
+        if (base.startsWith("/")) {
+            base = base.substring(1);
+        }
+
+        ResourcePatternResolver resolver = new PathMatchingResourcePatternResolver(resourceLoader);
+        String pattern = String.format(Locale.ROOT, "classpath*:%s/%s", base, TRAINED_DATA_GLOB);
+        Resource[] resources = resolver.getResources(pattern);
+        if (resources.length == 0) {
+            throw new IllegalStateException("No *.traineddata resources found under " + location);
+        }
+
+        Path directory = cacheDirectory();
+        Files.createDirectories(directory);
+        Properties manifest = readManifest(directory);
+
+        int reused = 0;
+        int unpacked = 0;
+        for (Resource resource : resources) {
+            String filename = resource.getFilename();
+            if (filename == null || filename.isBlank()) {
+                continue;
+            }
+            if (isCurrent(directory.resolve(filename), resource, manifest)) {
+                reused++;
+                continue;
+            }
+            copy(resource, directory, filename, manifest);
+            unpacked++;
+        }
+        if (unpacked > 0) {
+            writeManifest(directory, manifest);
+        }
+
+        log.info("Tessdata cache {}: {} file(s) reused, {} unpacked", directory, reused, unpacked);
+        return directory;
+    }
+
+    private Path cacheDirectory() {
+        String configured = properties.getTessDataCacheDir();
+        if (configured == null || configured.isBlank()) {
+            return Paths.get(System.getProperty("java.io.tmpdir"), "content-management-forms", "tessdata");
+        }
+        return Paths.get(configured);
+    }
+
+    private boolean isCurrent(Path target, Resource resource, Properties manifest) throws IOException {
+        String name = target.getFileName().toString();
+        String size = manifest.getProperty(name + ".size");
+        String lastModified = manifest.getProperty(name + ".last-modified");
+        String sha256 = manifest.getProperty(name + ".sha256");
+        if (size == null || lastModified == null || sha256 == null || !Files.isRegularFile(target)) {
+            return false;
+        }
+        try {
+            long expectedSize = Long.parseLong(size);
+            if (expectedSize != resource.contentLength()
+                    || Long.parseLong(lastModified) != lastModified(resource)
+                    || expectedSize != Files.size(target)) {
+                return false;
+            }
+        } catch (NumberFormatException ex) {
+            return false;
+        }
+        try (InputStream in = Files.newInputStream(target)) {
+            return sha256.equals(digest(in));
+        }
+    }
+
+    private void copy(Resource resource, Path directory, String filename, Properties manifest) throws IOException {
+        Path temp = Files.createTempFile(directory, filename, ".tmp");
+        try {
+            MessageDigest digest = sha256();
+            try (InputStream in = new DigestInputStream(resource.getInputStream(), digest)) {
+                Files.copy(in, temp, StandardCopyOption.REPLACE_EXISTING);
+            }
+            move(temp, directory.resolve(filename));
+            manifest.setProperty(filename + ".size", Long.toString(resource.contentLength()));
+            manifest.setProperty(filename + ".last-modified", Long.toString(lastModified(resource)));
+            manifest.setProperty(filename + ".sha256", HexFormat.of().formatHex(digest.digest()));
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private Properties readManifest(Path directory) {
+        Properties manifest = new Properties();
+        Path file = directory.resolve(MANIFEST);
+        if (Files.isRegularFile(file)) {
+            try (InputStream in = Files.newInputStream(file)) {
+                manifest.load(in);
+            } catch (IOException | IllegalArgumentException ex) {
+                log.warn("Ignoring unreadable tessdata manifest {}", file, ex);
+                manifest.clear();
+            }
+        }
+        return manifest;
+    }
+
+    private void writeManifest(Path directory, Properties manifest) throws IOException {
+        Path temp = Files.createTempFile(directory, MANIFEST, ".tmp");
+        try {
+            try (OutputStream out = Files.newOutputStream(temp)) {
+                manifest.store(out, "tessdata cache manifest");
+            }
+            move(temp, directory.resolve(MANIFEST));
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private static void move(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException ex) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static long lastModified(Resource resource) {
+        try {
+            return resource.lastModified();
+        } catch (IOException ex) {
+            return 0L;
+        }
+    }
+
+    private static String digest(InputStream in) throws IOException {
+        MessageDigest digest = sha256();
+        byte[] buffer = new byte[64 * 1024];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            digest.update(buffer, 0, read);
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 is not available", ex);
+        }
+    }
+}
@@ -1,82 +1,224 @@
 package com.contentmanagement.forms.api.service.extraction;
 
-import java.awt.image.BufferedImage;
+import jakarta.annotation.PreDestroy;
 import java.io.IOException;
-import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.StandardCopyOption;
-import java.util.Locale;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.atomic.AtomicReference;
 
+import org.opencv.core.CvType;
 import org.opencv.core.Mat;
 import org.opencv.core.Rect;
-import org.opencv.core.Size;
+import org.opencv.core.Scalar;
 import org.opencv.imgproc.Imgproc;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.ResourceLoader;
-import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
-import org.springframework.core.io.support.ResourcePatternResolver;
 import org.springframework.stereotype.Component;
 
 import com.contentmanagement.forms.api.config.FormProcessingProperties;
 
-import net.sourceforge.tess4j.ITesseract;
-import net.sourceforge.tess4j.Tesseract;
 import net.sourceforge.tess4j.TesseractException;
 
 @Component
 public class TesseractOcrEngine {
 
     private static final Logger log = LoggerFactory.getLogger(TesseractOcrEngine.class);
-    private static final String TRAINED_DATA_GLOB = "**/*.traineddata";
+
+    private static final int SLOT_GRAY = 0;
+    private static final int SLOT_SCALED = 1;
+    private static final int SLOT_FILTERED = 2;
 
     private final FormProcessingProperties properties;
     private final ResourceLoader resourceLoader;
+    private final NativeResourceTracker nativeResources;
+    private final OcrResultCache resultCache;
+    private final OcrProfileRegistry profiles;
+    private final TessDataCache tessDataCache;
 
-    private final ThreadLocal<ITesseract> tesseractThreadLocal = ThreadLocal.withInitial(this::createConfiguredInstance);
+    // Initialised engines of all profiles, shared by all threads and bounded in total by how many can OCR at once.
+    private final SessionPool sessions;
     private final AtomicReference<Path> resolvedTessDataDirectory = new AtomicReference<>();
-
-    public TesseractOcrEngine(FormProcessingProperties properties, ResourceLoader resourceLoader) {
+    private final ScratchMats scratch = new ScratchMats(3);
+
+    public TesseractOcrEngine(FormProcessingProperties properties,
+                              ResourceLoader resourceLoader,
+                              NativeResourceTracker nativeResources,
+                              OcrResultCache resultCache,
+                              OcrProfileRegistry profiles,
+                              TessDataCache tessDataCache,
+                              CpuBudget cpuBudget) {
         this.properties = properties;
         this.resourceLoader = resourceLoader;
+        this.nativeResources = nativeResources;
+        this.resultCache = resultCache;
+        this.profiles = profiles;
+        this.tessDataCache = tessDataCache;
+        // Every extraction slot may OCR on up to its native thread count at once (see RegionOcrService).
+        this.sessions = new SessionPool(cpuBudget.concurrentExtractions() * cpuBudget.nativeThreadsPerExtraction());
+    }
+
+    public String recognize(Mat source, DetectedComponent component) {
+        return recognize(source, component.boundingBox(), profiles.select(component), isStaticLabel(component));
     }
 
     public String recognize(Mat source, Rect region) {
+        return recognize(source, region, profiles.defaultProfile());
+    }
+
+    public String recognize(Mat source, Rect region, OcrProfile profile) {
+        return recognize(source, region, profile, false);
+    }
+
+    // Labels repeat across documents of one form; anything a user fills in must never come out of the cache.
+    private static boolean isStaticLabel(DetectedComponent component) {
+        return component.type() == DetectedComponentType.TEXT && component.widgetType() == null;
+    }
+
+    private String recognize(Mat source, Rect region, OcrProfile profile, boolean cacheable) {
         if (!properties.isOcrEnabled()) {
             return null;
         }
 
+        // Every OCR call is a checkpoint; the exception unwinds to the strategy's page loop.
+        ExtractionDeadline.current().check();
         Rect clipped = clip(region, source.width(), source.height());
         if (clipped.width <= 0 || clipped.height <= 0) {
             return null;
         }
 
-        Mat roi = new Mat(source, clipped);
-        try {
-            Mat prepared = preprocess(roi);
+        ExtractionEvents.OcrRegion event = new ExtractionEvents.OcrRegion();
+        event.begin();
+        try (NativeScope scope = nativeResources.open("ocr")) {
+            Mat roi = scope.track(new Mat(source, clipped));
+            Mat prepared = preprocess(roi, profile);
+            if (!cacheable || !resultCache.isEnabled()) {
+                return commit(event, ExtractionEvents.SOURCE_TESSERACT, profile, clipped, doOcr(prepared, profile));
+            }
+
+            long hash = PerceptualHash.compute(prepared);
+            String variant = properties.getOcrLanguage() + ':' + profile.name();
+            String bucket = resultCache.bucketOf(variant, clipped.width, clipped.height);
+            OcrResultCache.Entry cached = resultCache.lookup(bucket, hash);
+            if (cached != null) {
+                return commit(event, ExtractionEvents.SOURCE_OCR_CACHE, profile, clipped, cached.text());
+            }
+            String text = doOcr(prepared, profile);
+            resultCache.put(bucket, hash, text);
+            return commit(event, ExtractionEvents.SOURCE_TESSERACT, profile, clipped, text);
+        } catch (TesseractException ex) {
+            log.warn("OCR failed", ex);
+            return null;
+        }
+    }
+
+    /**
+     * Recognises a region in one call and returns its words with boxes in {@code source} coordinates. Word
+     * results are not cached; only the text of a whole label is cached, by {@link #recognize(Mat, DetectedComponent)}.
+     */
+    List<OcrWord> recognizeWords(Mat source, Rect region, OcrProfile profile) {
+        if (!properties.isOcrEnabled()) {
+            return List.of();
+        }
+
+        ExtractionDeadline.current().check();
+        Rect clipped = clip(region, source.width(), source.height());
+        if (clipped.width <= 0 || clipped.height <= 0) {
+            return List.of();
+        }
+
+        ExtractionEvents.OcrRegion event = new ExtractionEvents.OcrRegion();
+        event.begin();
+        try (NativeScope scope = nativeResources.open("ocr")) {
+            Mat roi = scope.track(new Mat(source, clipped));
+            Mat prepared = preprocess(roi, profile);
+            double scaleX = prepared.cols() / (double) roi.cols();
+            double scaleY = prepared.rows() / (double) roi.rows();
+            List<OcrWord> recognized;
+            TesseractSession session = borrow(profile);
             try {
-                BufferedImage image = matToBufferedImage(prepared);
-                return doOcr(image);
+                recognized = session.recognizeWords(prepared, ExtractionDeadline.current());
             } finally {
-                prepared.release();
+                giveBack(session);
+            }
+            List<OcrWord> words = new ArrayList<>();
+            for (OcrWord word : recognized) {
+                Rect box = word.box();
+                int left = clipped.x + (int) Math.floor(box.x / scaleX);
+                int top = clipped.y + (int) Math.floor(box.y / scaleY);
+                int right = clipped.x + (int) Math.ceil((box.x + box.width) / scaleX);
+                int bottom = clipped.y + (int) Math.ceil((box.y + box.height) / scaleY);
+                words.add(new OcrWord(word.text(), new Rect(left, top, right - left, bottom - top), word.confidence()));
+            }
+            if (event.shouldCommit()) {
+                commit(event, ExtractionEvents.SOURCE_TESSERACT, profile, clipped,
+                        String.join(" ", words.stream().map(OcrWord::text).toList()));
+            }
+            return words;
+        } catch (TesseractException ex) {
+            log.warn("OCR failed", ex);
+            return List.of();
+        }
+    }
+
+    /**
+     * Resolves tessdata and opens the first pooled session of every profile, running one recognition through it so
+     * request threads borrow an engine that is already initialised. With more profiles than the pool holds, the
+     * last ones warmed up stay open.
+     */
+    public void warmUp() {
+        if (!properties.isOcrEnabled()) {
+            return;
+        }
+        Mat blank = new Mat(32, 128, CvType.CV_8UC1, Scalar.all(255));
+        try {
+            for (OcrProfile profile : profiles.all()) {
+                TesseractSession session = borrow(profile);
+                try {
+                    session.recognize(blank, ExtractionDeadline.unbounded());
+                } finally {
+                    giveBack(session);
+                }
             }
+        } catch (TesseractException ex) {
+            throw new IllegalStateException("Tesseract warm-up recognition failed", ex);
         } finally {
-            roi.release();
+            blank.release();
         }
     }
 
-    private ITesseract createConfiguredInstance() {
+    void logCacheSummary(Logger logger) {
+        resultCache.logSummary(logger);
+    }
+
+    @PreDestroy
+    void closeSessions() {
+        sessions.close();
+    }
+
+    private TesseractSession borrow(OcrProfile profile) {
+        return sessions.borrow(profile, ExtractionDeadline.current());
+    }
+
+    private void giveBack(TesseractSession session) {
+        sessions.giveBack(session);
+    }
+
+    private TesseractSession openSession(OcrProfile profile) {
         NativeTesseractBootstrap.ensureLoaded();
         Path tessDataDir = resolveTessDataPath();
-        Tesseract tesseract = new Tesseract();
-        tesseract.setDatapath(tessDataDir.toAbsolutePath().toString());
-        tesseract.setLanguage(properties.getOcrLanguage());
-        tesseract.setPageSegMode(6); // Assume a uniform block of text.
-        tesseract.setOcrEngineMode(1); // LSTM only.
-        tesseract.setTessVariable("preserve_interword_spaces", "1");
-        return tesseract;
+        TesseractSession session = TesseractSession.open(
+                tessDataDir.toAbsolutePath().toString(), properties.getOcrLanguage(), profile);
+        log.debug("Opened Tesseract session for profile {} on {}", profile.name(), Thread.currentThread().getName());
+        return session;
     }
 
     private Path resolveTessDataPath() {
@@ -98,7 +240,7 @@ public class TesseractOcrEngine {
 
             try {
                 if (location.startsWith("classpath:")) {
-                    Path directory = unpackClasspathTessData(location);
+                    Path directory = tessDataCache.unpack(location);
                     resolvedTessDataDirectory.set(directory);
                     return directory;
                 }
@@ -116,83 +258,72 @@ public class TesseractOcrEngine {
         }
     }
 
-    private Path unpackClasspathTessData(String location) throws IOException {
-        String base = location.substring("classpath:".length());
-        if (base.startsWith("/")) {
-            base = base.substring(1);
-        }
-
-        ResourcePatternResolver resolver = new PathMatchingResourcePatternResolver(resourceLoader);
-        String pattern = String.format(Locale.ROOT, "classpath*:%s/%s", base, TRAINED_DATA_GLOB);
-        Resource[] resources = resolver.getResources(pattern);
-        if (resources.length == 0) {
-            throw new IllegalStateException("No *.traineddata resources found under " + location);
+    private static String commit(ExtractionEvents.OcrRegion event, String source, OcrProfile profile, Rect region,
+                                 String text) {
+        if (event.shouldCommit()) {
+            event.pageIndex = ExtractionEvents.currentPage();
+            event.source = source;
+            event.profile = profile.name();
+            event.x = region.x;
+            event.y = region.y;
+            event.width = region.width;
+            event.height = region.height;
+            event.characters = text != null ? text.length() : 0;
+            event.commit();
         }
-
-        Path tempDir = Files.createTempDirectory("tessdata-");
-        tempDir.toFile().deleteOnExit();
-
-        for (Resource resource : resources) {
-            String filename = resource.getFilename();
-            if (filename == null || filename.isBlank()) {
-                continue;
-            }
-            Path target = tempDir.resolve(filename);
-            Files.copy(resource.getInputStream(), target, StandardCopyOption.REPLACE_EXISTING);
-        }
-
-        return tempDir;
+        return text;
     }
 
-    private String doOcr(BufferedImage image) {
+    private String doOcr(Mat prepared, OcrProfile profile) throws TesseractException {
+        String raw;
+        TesseractSession session = borrow(profile);
         try {
-            String raw = tesseractThreadLocal.get().doOCR(image);
-            if (raw == null) {
-                return null;
-            }
-            String normalized = raw.trim().replaceAll("\\s+", " ");
-            return normalized.isEmpty() ? null : normalized;
-        } catch (TesseractException ex) {
-            log.warn("OCR failed", ex);
+            raw = session.recognize(prepared, ExtractionDeadline.current());
+        } finally {
+            giveBack(session);
+        }
+        if (raw == null) {
             return null;
         }
+        String normalized = raw.trim().replaceAll("\\s+", " ");
+        return normalized.isEmpty() ? null : normalized;
     }
 
-    private Mat preprocess(Mat roi) {
-        Mat gray = new Mat();
-        Imgproc.cvtColor(roi, gray, Imgproc.COLOR_BGR2GRAY);
-
-        Mat scaled = new Mat();
-        Imgproc.resize(gray, scaled, new Size(), 2.0, 2.0, Imgproc.INTER_LINEAR);
-
-        Mat denoised = new Mat();
-        Imgproc.bilateralFilter(scaled, denoised, 7, 60, 60);
-
-        Mat binary = new Mat();
-        Imgproc.threshold(denoised, binary, 0, 255, Imgproc.THRESH_BINARY | Imgproc.THRESH_OTSU);
-
-        Mat kernel = Imgproc.getStructuringElement(Imgproc.MORPH_RECT, new Size(3, 3));
-        Imgproc.morphologyEx(binary, binary, Imgproc.MORPH_CLOSE, kernel);
-
-        gray.release();
-        scaled.release();
-        denoised.release();
-        kernel.release();
+    // Works entirely in per-thread scratch buffers; the returned Mat is reused by the next call on this thread.
+    private Mat preprocess(Mat roi, OcrProfile profile) {
+        Mat gray = scratch.acquire(SLOT_GRAY, roi.rows(), roi.cols(), CvType.CV_8UC1);
+        if (roi.channels() == 1) {
+            roi.copyTo(gray);
+        } else {
+            Imgproc.cvtColor(roi, gray, Imgproc.COLOR_BGR2GRAY);
+        }
 
-        return binary;
-    }
+        Mat current = gray;
+        int currentSlot = SLOT_GRAY;
+        double scale = profile.scaleFor(roi.rows());
+        if (scale != 1.0) {
+            int scaledRows = Math.max(1, (int) Math.round(roi.rows() * scale));
+            int scaledCols = Math.max(1, (int) Math.round(roi.cols() * scale));
+            current = scratch.acquire(SLOT_SCALED, scaledRows, scaledCols, CvType.CV_8UC1);
+            Imgproc.resize(gray, current, current.size(), 0, 0, scale > 1.0 ? Imgproc.INTER_LINEAR : Imgproc.INTER_AREA);
+            currentSlot = SLOT_SCALED;
+        }
 
-    private BufferedImage matToBufferedImage(Mat mat) {
-        int width = mat.cols();
-        int height = mat.rows();
-        int channels = mat.channels();
+        // Filters ping-pong between two scratch slots so a chain of any length needs no extra buffers.
+        for (OcrFilter filter : profile.filters()) {
+            int targetSlot = currentSlot == SLOT_FILTERED ? SLOT_SCALED : SLOT_FILTERED;
+            Mat target = scratch.acquire(targetSlot, current.rows(), current.cols(), CvType.CV_8UC1);
+            filter.apply(current, target);
+            current = target;
+            currentSlot = targetSlot;
+        }
 
-        int imageType = channels > 1 ? BufferedImage.TYPE_3BYTE_BGR : BufferedImage.TYPE_BYTE_GRAY;
-        BufferedImage image = new BufferedImage(width, height, imageType);
-        byte[] data = new byte[width * height * channels];
-        mat.get(0, 0, data);
-        image.getRaster().setDataElements(0, 0, width, height, data);
-        return image;
+        Imgproc.threshold(current, current, 0, 255, Imgproc.THRESH_BINARY | Imgproc.THRESH_OTSU);
+        if (profile.morphologyClose()) {
+            Imgproc.morphologyEx(current, current, Imgproc.MORPH_CLOSE,
+                    ScratchMats.structuringElement(Imgproc.MORPH_RECT, 3, 3));
+        }
+        return current;
     }
 
     private Rect clip(Rect rect, double maxWidth, double maxHeight) {
@@ -202,4 +333,95 @@ public class TesseractOcrEngine {
         int height = Math.min(rect.height, (int) Math.max(1, maxHeight - y));
         return new Rect(x, y, width, height);
     }
+
+    /**
+     * Sessions of every profile, opened on demand up to a fixed total. At the cap, a borrower whose profile has no
+     * idle session closes the longest-idle session of another profile to open its own, or waits for a returned one.
+     */
+    private final class SessionPool {
+
+        private static final long WAIT_SLICE_MILLIS = 250;
+
+        private final int capacity;
+        // All fields guarded by this.
+        private final Map<String, Deque<TesseractSession>> idleByProfile = new HashMap<>();
+        private final Deque<TesseractSession> idle = new ArrayDeque<>();
+        private final Set<TesseractSession> opened = new HashSet<>();
+        private int reserved;
+
+        private SessionPool(int capacity) {
+            this.capacity = Math.max(1, capacity);
+        }
+
+        // Waits in slices so an expired deadline ends the wait as it would end a recognition.
+        private TesseractSession borrow(OcrProfile profile, ExtractionDeadline deadline) {
+            TesseractSession evicted;
+            synchronized (this) {
+                Deque<TesseractSession> sameProfile =
+                        idleByProfile.computeIfAbsent(profile.name(), name -> new ArrayDeque<>());
+                while (true) {
+                    TesseractSession session = sameProfile.pollFirst();
+                    if (session != null) {
+                        idle.remove(session);
+                        return session;
+                    }
+                    evicted = idle.pollFirst();
+                    if (evicted != null) {
+                        idleByProfile.get(evicted.profile().name()).remove(evicted);
+                        opened.remove(evicted);
+                        reserved++;
+                        break;
+                    }
+                    if (opened.size() + reserved < capacity) {
+                        reserved++;
+                        break;
+                    }
+                    long wait = Math.min(WAIT_SLICE_MILLIS, deadline.remainingMillis());
+                    try {
+                        if (wait > 0) {
+                            wait(wait);
+                        }
+                    } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                        throw new IllegalStateException("Interrupted while waiting for a Tesseract session for profile "
+                                + profile.name(), ex);
+                    }
+                    deadline.check();
+                }
+            }
+            if (evicted != null) {
+                log.debug("Closing idle Tesseract session of profile {} to open one for {}", evicted.profile().name(),
+                        profile.name());
+                evicted.close();
+            }
+            TesseractSession session;
+            try {
+                session = openSession(profile);
+            } catch (RuntimeException | LinkageError ex) {
+                synchronized (this) {
+                    reserved--;
+                    notifyAll();
+                }
+                throw ex;
+            }
+            synchronized (this) {
+                reserved--;
+                opened.add(session);
+            }
+            return session;
+        }
+
+        private synchronized void giveBack(TesseractSession session) {
+            idleByProfile.computeIfAbsent(session.profile().name(), name -> new ArrayDeque<>()).addFirst(session);
+            idle.addLast(session);
+            notifyAll();
+        }
+
+        private synchronized void close() {
+            opened.forEach(TesseractSession::close);
+            opened.clear();
+            idle.clear();
+            idleByProfile.clear();
+        }
+    }
 }
@@ -0,0 +1,171 @@
+package com.contentmanagement.forms.api.service.extraction;
+
+import com.sun.jna.Pointer;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import net.sourceforge.tess4j.ITessAPI;
+import net.sourceforge.tess4j.TessAPI;
+import net.sourceforge.tess4j.TesseractException;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.Rect;
+
+/**
+ * One initialised Tesseract engine bound to a single OCR profile. {@code Tesseract.doOCR} from Tess4J
+ * initialises and disposes the native engine (including loading the traineddata model) on every call; a session
+ * keeps the handle alive in {@link TesseractOcrEngine}'s pool and only clears recognition results between
+ * regions. Images are handed over zero-copy straight from the 8-bit {@link Mat} buffer. Every recognition runs
+ * under a Tesseract monitor carrying the caller's {@link ExtractionDeadline}, so it is aborted inside the native
+ * call rather than after it.
+ *
+ * <p>Not thread-safe: the pool lends each session to one thread at a time.
+ */
+final class TesseractSession implements AutoCloseable {
+
+    private static final int OEM_LSTM_ONLY = 1;
+
+    private final TessAPI api;
+    private final ITessAPI.TessBaseAPI handle;
+    private final OcrProfile profile;
+    private volatile ExtractionDeadline activeDeadline;
+    // Kept in a field so the native callback cannot be garbage collected; Tesseract may poll it from its own threads.
+    private final ITessAPI.TessCancelFunc cancelFunc = (cancelThis, words) -> {
+        ExtractionDeadline deadline = activeDeadline;
+        return deadline != null && deadline.expired();
+    };
+
+    private TesseractSession(TessAPI api, ITessAPI.TessBaseAPI handle, OcrProfile profile) {
+        this.api = api;
+        this.handle = handle;
+        this.profile = profile;
+    }
+
+    static TesseractSession open(String dataPath, String language, OcrProfile profile) {
+        TessAPI api = TessAPI.INSTANCE;
+        ITessAPI.TessBaseAPI handle = api.TessBaseAPICreate();
+        if (api.TessBaseAPIInit2(handle, dataPath, language, OEM_LSTM_ONLY) != 0) {
+            api.TessBaseAPIDelete(handle);
+            throw new IllegalStateException("Unable to initialise Tesseract for language '" + language + "' from " + dataPath);
+        }
+        api.TessBaseAPISetPageSegMode(handle, profile.pageSegMode());
+        api.TessBaseAPISetVariable(handle, "preserve_interword_spaces", "1");
+        if (profile.characterWhitelist() != null) {
+            api.TessBaseAPISetVariable(handle, "tessedit_char_whitelist", profile.characterWhitelist());
+        }
+        return new TesseractSession(api, handle, profile);
+    }
+
+    OcrProfile profile() {
+        return profile;
+    }
+
+    /**
+     * Recognises a single-channel 8-bit image. The Mat may be a non-continuous ROI view; its row stride is
+     * passed through as bytes-per-line.
+     */
+    String recognize(Mat gray, ExtractionDeadline deadline) throws TesseractException {
+        setImage(gray);
+        try {
+            recognizeImage(deadline);
+            Pointer text = api.TessBaseAPIGetUTF8Text(handle);
+            if (text == null) {
+                return null;
+            }
+            return readText(text);
+        } finally {
+            api.TessBaseAPIClear(handle);
+        }
+    }
+
+    /**
+     * Recognises the image like {@link #recognize(Mat, ExtractionDeadline)} but returns the individual words with their boxes, so one
+     * call can serve several regions that are laid out side by side.
+     */
+    List<OcrWord> recognizeWords(Mat gray, ExtractionDeadline deadline) throws TesseractException {
+        setImage(gray);
+        try {
+            recognizeImage(deadline);
+            ITessAPI.TessResultIterator iterator = api.TessBaseAPIGetIterator(handle);
+            if (iterator == null) {
+                return List.of();
+            }
+            try {
+                // The page iterator is a view of the result iterator and is freed with it.
+                ITessAPI.TessPageIterator page = api.TessResultIteratorGetPageIterator(iterator);
+                IntBuffer left = IntBuffer.allocate(1);
+                IntBuffer top = IntBuffer.allocate(1);
+                IntBuffer right = IntBuffer.allocate(1);
+                IntBuffer bottom = IntBuffer.allocate(1);
+                List<OcrWord> words = new ArrayList<>();
+                do {
+                    Pointer text = api.TessResultIteratorGetUTF8Text(iterator, ITessAPI.TessPageIteratorLevel.RIL_WORD);
+                    if (text == null) {
+                        continue;
+                    }
+                    String word = readText(text).trim();
+                    if (word.isEmpty()
+                            || api.TessPageIteratorBoundingBox(page, ITessAPI.TessPageIteratorLevel.RIL_WORD,
+                                    left, top, right, bottom) != ITessAPI.TRUE) {
+                        continue;
+                    }
+                    Rect box = new Rect(left.get(0), top.get(0), right.get(0) - left.get(0), bottom.get(0) - top.get(0));
+                    words.add(new OcrWord(word, box,
+                            api.TessResultIteratorConfidence(iterator, ITessAPI.TessPageIteratorLevel.RIL_WORD)));
+                } while (api.TessResultIteratorNext(iterator, ITessAPI.TessPageIteratorLevel.RIL_WORD) == ITessAPI.TRUE);
+                return words;
+            } finally {
+                api.TessResultIteratorDelete(iterator);
+            }
+        } finally {
+            api.TessBaseAPIClear(handle);
+        }
+    }
+
+    private void setImage(Mat gray) {
+        if (gray.type() != CvType.CV_8UC1) {
+            throw new IllegalArgumentException("Tesseract sessions expect CV_8UC1 input but got " + CvType.typeToString(gray.type()));
+        }
+        int width = gray.cols();
+        int height = gray.rows();
+        int bytesPerLine = (int) gray.step1(0);
+        long length = (long) bytesPerLine * (height - 1) + width;
+        ByteBuffer pixels = new Pointer(gray.dataAddr()).getByteBuffer(0, length);
+        api.TessBaseAPISetImage(handle, pixels, width, height, 1, bytesPerLine);
+    }
+
+    private void recognizeImage(ExtractionDeadline deadline) throws TesseractException {
+        deadline.check();
+        ITessAPI.ETEXT_DESC monitor = api.TessMonitorCreate();
+        activeDeadline = deadline;
+        try {
+            api.TessMonitorSetDeadlineMSecs(monitor, deadline.remainingMillis());
+            api.TessMonitorSetCancelFunc(monitor, cancelFunc);
+            int status = api.TessBaseAPIRecognize(handle, monitor);
+            // A cancelled or timed-out recognition may report success with partial text; neither is usable.
+            deadline.check();
+            if (status != 0) {
+                throw new TesseractException("Tesseract recognition failed for profile " + profile.name());
+            }
+        } finally {
+            activeDeadline = null;
+            api.TessMonitorDelete(monitor);
+        }
+    }
+
+    private String readText(Pointer text) {
+        try {
+            return text.getString(0, StandardCharsets.UTF_8.name());
+        } finally {
+            api.TessDeleteText(text);
+        }
+    }
+
+    @Override
+    public void close() {
+        api.TessBaseAPIEnd(handle);
+        api.TessBaseAPIDelete(handle);
+    }
+}
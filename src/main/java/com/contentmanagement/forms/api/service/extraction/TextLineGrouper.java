@@ -0,0 +1,205 @@
+package com.contentmanagement.forms.api.service.extraction;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.opencv.core.Rect;
+
+/**
+ * Merges word and glyph fragments into text lines and lines into paragraphs before classification, only ever
+ * joining fragments that share the same enclosing box.
+ */
+final class TextLineGrouper {
+
+    // Anything taller than this share of the page is a box or a block, not a run of text.
+    private static final double MAX_FRAGMENT_HEIGHT_RATIO = 1 / 60.0;
+    private static final double MIN_VERTICAL_OVERLAP = 0.5;
+    private static final double MAX_WORD_GAP_HEIGHTS = 1.5;
+    private static final double MAX_LINE_GAP_HEIGHTS = 0.8;
+    private static final double MAX_LINE_HEIGHT_RATIO = 1.6;
+    private static final double MIN_HORIZONTAL_OVERLAP = 0.5;
+
+    private TextLineGrouper() {
+    }
+
+    /**
+     * A region to classify. {@code type} is {@code TEXT} for a merged line, {@code PARAGRAPH} for merged lines
+     * and {@code null} when the box was left as it was and still needs classifying. {@code fragments} is zero
+     * for boxes that were passed through.
+     */
+    record Region(Rect box, DetectedComponentType type, int fragments) {
+    }
+
+    /**
+     * Groups {@code fragments} into lines and paragraphs; {@code boxes} are passed through unchanged and only
+     * serve as containers. Fragments are merged only with fragments whose smallest enclosing box is the same.
+     */
+    static List<Region> group(List<Rect> boxes, List<Rect> fragmentBoxes, double pageHeight) {
+        double maxFragmentHeight = maxFragmentHeight(pageHeight);
+        List<Region> regions = new ArrayList<>(boxes.size() + fragmentBoxes.size());
+        for (Rect box : boxes) {
+            regions.add(new Region(box, null, 0));
+        }
+        if (fragmentBoxes.isEmpty()) {
+            return regions;
+        }
+
+        // Boxes and fragments share one index space: boxes first, then fragments.
+        List<Rect> all = new ArrayList<>(boxes);
+        all.addAll(fragmentBoxes);
+        int[] container = new int[all.size()];
+        List<Integer> fragments = new ArrayList<>(fragmentBoxes.size());
+        for (int i = boxes.size(); i < all.size(); i++) {
+            fragments.add(i);
+            container[i] = smallestContainer(all.get(i), boxes);
+        }
+
+        // Lines: fragments side by side on a shared baseline.
+        UnionFind lines = new UnionFind(all.size());
+        fragments.sort(Comparator.comparingInt(i -> all.get(i).x));
+        double maxGap = MAX_WORD_GAP_HEIGHTS * maxFragmentHeight;
+        for (int a = 0; a < fragments.size(); a++) {
+            Rect left = all.get(fragments.get(a));
+            for (int b = a + 1; b < fragments.size(); b++) {
+                Rect right = all.get(fragments.get(b));
+                if (right.x > left.x + left.width + maxGap) {
+                    break;
+                }
+                if (container[fragments.get(a)] == container[fragments.get(b)] && sameLine(left, right)) {
+                    lines.union(fragments.get(a), fragments.get(b));
+                }
+            }
+        }
+        List<Line> lineList = collectLines(all, fragments, lines, container);
+
+        // Paragraphs: lines stacked with small leading and overlapping horizontal extent.
+        UnionFind paragraphs = new UnionFind(lineList.size());
+        lineList.sort(Comparator.comparingInt(line -> line.box().y));
+        double maxLeading = MAX_LINE_GAP_HEIGHTS * maxFragmentHeight;
+        for (int a = 0; a < lineList.size(); a++) {
+            Line upper = lineList.get(a);
+            for (int b = a + 1; b < lineList.size(); b++) {
+                Line lower = lineList.get(b);
+                if (lower.box().y > upper.box().y + upper.box().height + maxLeading) {
+                    break;
+                }
+                if (upper.container() == lower.container() && sameParagraph(upper.box(), lower.box())) {
+                    paragraphs.union(a, b);
+                }
+            }
+        }
+
+        Map<Integer, List<Line>> groups = new LinkedHashMap<>();
+        for (int i = 0; i < lineList.size(); i++) {
+            groups.computeIfAbsent(paragraphs.find(i), ignored -> new ArrayList<>()).add(lineList.get(i));
+        }
+        for (List<Line> group : groups.values()) {
+            Rect box = group.get(0).box();
+            int count = 0;
+            for (Line line : group) {
+                box = union(box, line.box());
+                count += line.fragments();
+            }
+            DetectedComponentType type = group.size() > 1
+                    ? DetectedComponentType.PARAGRAPH
+                    : count > 1 ? DetectedComponentType.TEXT : null;
+            regions.add(new Region(box, type, count));
+        }
+        return regions;
+    }
+
+    /** Height up to which a contour counts as a glyph or word fragment rather than a box. */
+    static double maxFragmentHeight(double pageHeight) {
+        return pageHeight * MAX_FRAGMENT_HEIGHT_RATIO;
+    }
+
+    private static boolean sameLine(Rect a, Rect b) {
+        int overlap = Math.min(a.y + a.height, b.y + b.height) - Math.max(a.y, b.y);
+        if (overlap < MIN_VERTICAL_OVERLAP * Math.min(a.height, b.height)) {
+            return false;
+        }
+        int gap = b.x - (a.x + a.width);
+        return gap <= MAX_WORD_GAP_HEIGHTS * Math.max(a.height, b.height);
+    }
+
+    private static boolean sameParagraph(Rect upper, Rect lower) {
+        double taller = Math.max(upper.height, lower.height);
+        double shorter = Math.max(1, Math.min(upper.height, lower.height));
+        if (taller / shorter > MAX_LINE_HEIGHT_RATIO) {
+            return false;
+        }
+        int leading = lower.y - (upper.y + upper.height);
+        if (leading > MAX_LINE_GAP_HEIGHTS * taller) {
+            return false;
+        }
+        int overlap = Math.min(upper.x + upper.width, lower.x + lower.width) - Math.max(upper.x, lower.x);
+        boolean leftAligned = Math.abs(upper.x - lower.x) <= taller;
+        return leftAligned || overlap >= MIN_HORIZONTAL_OVERLAP * Math.min(upper.width, lower.width);
+    }
+
+    private static List<Line> collectLines(List<Rect> boxes, List<Integer> fragments, UnionFind lines, int[] container) {
+        Map<Integer, Line> byRoot = new LinkedHashMap<>();
+        for (int i : fragments) {
+            byRoot.merge(lines.find(i), new Line(boxes.get(i), 1, container[i]),
+                    (existing, added) -> new Line(union(existing.box(), added.box()),
+                            existing.fragments() + 1, existing.container()));
+        }
+        return new ArrayList<>(byRoot.values());
+    }
+
+    private static int smallestContainer(Rect fragment, List<Rect> boxes) {
+        int best = -1;
+        double bestArea = Double.MAX_VALUE;
+        for (int i = 0; i < boxes.size(); i++) {
+            Rect box = boxes.get(i);
+            if (contains(box, fragment) && box.area() < bestArea) {
+                best = i;
+                bestArea = box.area();
+            }
+        }
+        return best;
+    }
+
+    private static boolean contains(Rect outer, Rect inner) {
+        return inner.x >= outer.x && inner.y >= outer.y
+                && inner.x + inner.width <= outer.x + outer.width
+                && inner.y + inner.height <= outer.y + outer.height;
+    }
+
+    private static Rect union(Rect a, Rect b) {
+        int left = Math.min(a.x, b.x);
+        int top = Math.min(a.y, b.y);
+        int right = Math.max(a.x + a.width, b.x + b.width);
+        int bottom = Math.max(a.y + a.height, b.y + b.height);
+        return new Rect(left, top, right - left, bottom - top);
+    }
+
+    private record Line(Rect box, int fragments, int container) {
+    }
+
+    private static final class UnionFind {
+
+        private final int[] parent;
+
+        private UnionFind(int size) {
+            parent = new int[size];
+            for (int i = 0; i < size; i++) {
+                parent[i] = i;
+            }
+        }
+
+        private int find(int i) {
+            while (parent[i] != i) {
+                parent[i] = parent[parent[i]];
+                i = parent[i];
+            }
+            return i;
+        }
+
+        private void union(int a, int b) {
+            parent[find(a)] = find(b);
+        }
+    }
+}
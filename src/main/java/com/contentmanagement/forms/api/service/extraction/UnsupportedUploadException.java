@@ -0,0 +1,13 @@
+package com.contentmanagement.forms.api.service.extraction;
+
+/** Thrown when an uploaded file cannot be decoded; the upload, not the server, is at fault. */
+public class UnsupportedUploadException extends RuntimeException {
+
+    public UnsupportedUploadException(String message) {
+        super(message);
+    }
+
+    public UnsupportedUploadException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,490 @@
+package com.contentmanagement.forms.api.service.extraction;
+
+import com.contentmanagement.forms.api.config.FormProcessingProperties;
+import com.contentmanagement.forms.api.model.WidgetType;
+import java.awt.geom.Point2D;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import org.apache.pdfbox.contentstream.PDFGraphicsStreamEngine;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.font.PDFont;
+import org.apache.pdfbox.pdmodel.graphics.image.PDImage;
+import org.apache.pdfbox.pdmodel.graphics.state.RenderingMode;
+import org.apache.pdfbox.pdmodel.interactive.annotation.PDAnnotation;
+import org.apache.pdfbox.util.Matrix;
+import org.apache.pdfbox.util.Vector;
+import org.opencv.core.Rect;
+
+/**
+ * Reads the layout of a born-digital page from its content stream instead of rendering it, producing the same
+ * layout {@link OpenCvLayoutAnalyzer} would; {@link #extract} returns {@code null} for pages that do not qualify.
+ */
+final class VectorLayoutExtractor extends PDFGraphicsStreamEngine {
+
+    // Glyph boxes span the em from ascender to descender; the baseline the text stripper matches sits inside.
+    private static final float GLYPH_ASCENT = 0.8f;
+    private static final float GLYPH_DESCENT = 0.25f;
+    private static final float MIN_GLYPH_POINTS = 2f;
+    // A stroke or fill thinner than this is a ruling rather than a shape.
+    private static final float MAX_RULING_POINTS = 3f;
+    // Segments within this slope of an axis still count as rulings.
+    private static final double AXIS_TOLERANCE_POINTS = 0.5;
+    // The same minimums RulingTableDetector applies to rulings found in pixels.
+    private static final int RULING_LENGTH_DIVISOR = 40;
+    private static final int MIN_RULING_PX = 20;
+    private static final int RULING_JOIN_PX = 3;
+    private static final double MIN_TABLE_AREA_RATIO = 0.005;
+    private static final double MIN_RULING_COVERAGE = 0.5;
+    private static final int MIN_CELL_PX = 8;
+
+    /** What one content-stream walk found, in pixels relative to the clip (or the page without one). */
+    private record Shapes(List<Rect> boxes, List<Rect> rulings, List<Rect> marks, List<Rect> glyphs) {
+    }
+
+    private final float scale;
+    private final double pageLeft;
+    private final double pageTop;
+    private final int clipX;
+    private final int clipY;
+    private final double pageArea;
+    private final Shapes shapes = new Shapes(new ArrayList<>(), new ArrayList<>(), new ArrayList<>(), new ArrayList<>());
+    private final List<List<Point2D.Double>> subpaths = new ArrayList<>();
+    private final List<Boolean> closed = new ArrayList<>();
+    private Point2D.Double currentPoint = new Point2D.Double();
+    private double largestImageCoverage;
+    // Glyphs the text layer cannot supply: no Unicode mapping, or drawn by an annotation appearance.
+    private int unreadableGlyphs;
+    private boolean inAnnotation;
+
+    private VectorLayoutExtractor(PDPage page, float scale, Rect clip) {
+        super(page);
+        PDRectangle cropBox = page.getCropBox();
+        this.scale = scale;
+        this.pageLeft = cropBox.getLowerLeftX();
+        this.pageTop = cropBox.getUpperRightY();
+        this.clipX = clip != null ? clip.x : 0;
+        this.clipY = clip != null ? clip.y : 0;
+        this.pageArea = Math.max(1.0, (double) cropBox.getWidth() * cropBox.getHeight());
+    }
+
+    /**
+     * Returns the layout of {@code page} in pixels at {@code scale} (relative to {@code clip} when one is given,
+     * like {@link OpenCvLayoutAnalyzer#analyze}), or {@code null} when the page has to be rendered instead.
+     * {@code width} and {@code height} are the full rendered page size.
+     */
+    static PageLayout extract(PDPage page, int pageIndex, float scale, int width, int height, Rect clip,
+                              FormProcessingProperties.VectorLayout settings) throws IOException {
+        ExtractionEvents.VectorLayout event = new ExtractionEvents.VectorLayout();
+        event.begin();
+        PageLayout layout = null;
+        VectorLayoutExtractor extractor = null;
+        if (page.getRotation() % 360 == 0) {
+            extractor = new VectorLayoutExtractor(page, scale, clip);
+            extractor.processPage(page);
+            // Widget borders of fillable forms live in annotation appearances, which the renderer draws too.
+            extractor.inAnnotation = true;
+            for (PDAnnotation annotation : page.getAnnotations()) {
+                if (!annotation.isHidden() && !annotation.isNoView()) {
+                    extractor.showAnnotation(annotation);
+                }
+            }
+            if (extractor.largestImageCoverage <= settings.getMaxImageCoverage() && extractor.unreadableGlyphs == 0) {
+                layout = extractor.layout(pageIndex, width, height, settings.getMinShapes());
+            }
+        }
+        if (event.shouldCommit()) {
+            event.pageIndex = pageIndex;
+            event.glyphs = extractor != null ? extractor.shapes.glyphs().size() : 0;
+            event.rulings = extractor != null ? extractor.shapes.rulings().size() : 0;
+            event.components = layout != null ? layout.components().size() : 0;
+            event.accepted = layout != null;
+            event.commit();
+        }
+        return layout;
+    }
+
+    private PageLayout layout(int pageIndex, int width, int height, int minShapes) {
+        double pixelScale = scale * 72f / OpenCvLayoutAnalyzer.REFERENCE_DPI;
+        double pageArea = (double) width * height;
+        List<TableGrid> tables = tables(width, height, pixelScale);
+        int tolerance = OpenCvLayoutAnalyzer.scaled(OpenCvLayoutAnalyzer.TABLE_CONTAINMENT_TOLERANCE_PX, pixelScale);
+
+        List<Rect> candidates = new ArrayList<>();
+        for (Rect box : shapes.boxes()) {
+            double areaRatio = box.area() / pageArea;
+            if (areaRatio >= OpenCvLayoutAnalyzer.MIN_COMPONENT_AREA_RATIO
+                    && areaRatio <= OpenCvLayoutAnalyzer.MAX_COMPONENT_AREA_RATIO
+                    && !OpenCvLayoutAnalyzer.insideAnyTable(box, tables, tolerance)) {
+                candidates.add(box);
+            }
+        }
+        List<Rect> kept = OverlapSuppressor.suppress(candidates, pixelScale);
+        int shapeCount = kept.size();
+        for (TableGrid table : tables) {
+            shapeCount += table.rowCount() * table.columnCount();
+        }
+        if (shapeCount < minShapes) {
+            return null;
+        }
+        List<Rect> fragments = new ArrayList<>();
+        for (Rect glyph : shapes.glyphs()) {
+            if (!OpenCvLayoutAnalyzer.insideAnyTable(glyph, tables, tolerance)) {
+                fragments.add(glyph);
+            }
+        }
+
+        List<DetectedComponent> components = new ArrayList<>();
+        int index = 0;
+        for (TextLineGrouper.Region region : TextLineGrouper.group(kept, fragments, height)) {
+            Rect rect = region.box();
+            if (region.fragments() > 0 && rect.area() / pageArea < OpenCvLayoutAnalyzer.MIN_COMPONENT_AREA_RATIO) {
+                continue;
+            }
+            DetectedComponentType type = region.type() != null
+                    ? region.type()
+                    : region.fragments() > 0 ? DetectedComponentType.TEXT : OpenCvLayoutAnalyzer.classify(rect, pixelScale);
+            WidgetType widgetType = OpenCvLayoutAnalyzer.inferWidgetType(type, rect, pixelScale);
+            // The geometry is exact, so confidence is certain as it is for ruled tables.
+            components.add(new DetectedComponent(index++, type, rect, null, 1.0, widgetType,
+                    interiorInkRatio(rect, pixelScale), null));
+        }
+        for (TableGrid table : tables) {
+            components.add(new DetectedComponent(index++, DetectedComponentType.TABLE, table.bounds(), null, 1.0, null,
+                    interiorInkRatio(table.bounds(), pixelScale), null, table));
+        }
+
+        components.sort(Comparator
+                .comparingInt((DetectedComponent c) -> c.boundingBox().y)
+                .thenComparingInt(c -> c.boundingBox().x));
+        List<DetectedComponent> reindexed = new ArrayList<>(components.size());
+        int order = 0;
+        for (DetectedComponent component : components) {
+            reindexed.add(component.withIndex(order++));
+        }
+        return new PageLayout(pageIndex, width, height, reindexed);
+    }
+
+    /**
+     * Groups rulings that touch into patches and turns every patch with at least two rows and two columns into a
+     * grid, as {@link RulingTableDetector} does with the line masks. Box edges are rulings too, so cells drawn
+     * one rectangle at a time form a table just like a drawn grid.
+     */
+    private List<TableGrid> tables(int width, int height, double pixelScale) {
+        int minRuling = OpenCvLayoutAnalyzer.scaled(MIN_RULING_PX, pixelScale);
+        int horizontalLength = Math.max(minRuling, width / RULING_LENGTH_DIVISOR);
+        int verticalLength = Math.max(minRuling, height / RULING_LENGTH_DIVISOR);
+        List<Rect> rulings = new ArrayList<>();
+        for (Rect ruling : shapes.rulings()) {
+            if (ruling.width >= horizontalLength || ruling.height >= verticalLength) {
+                rulings.add(ruling);
+            }
+        }
+        int join = OpenCvLayoutAnalyzer.scaled(RULING_JOIN_PX, pixelScale);
+        int[] parent = new int[rulings.size()];
+        for (int i = 0; i < parent.length; i++) {
+            parent[i] = i;
+        }
+        for (int a = 0; a < rulings.size(); a++) {
+            for (int b = a + 1; b < rulings.size(); b++) {
+                if (touches(rulings.get(a), rulings.get(b), join)) {
+                    parent[root(parent, a)] = root(parent, b);
+                }
+            }
+        }
+
+        double minArea = (double) width * height * MIN_TABLE_AREA_RATIO;
+        int minCell = OpenCvLayoutAnalyzer.scaled(MIN_CELL_PX, pixelScale);
+        List<TableGrid> tables = new ArrayList<>();
+        for (int group = 0; group < rulings.size(); group++) {
+            if (root(parent, group) != group) {
+                continue;
+            }
+            Rect bounds = null;
+            for (int i = 0; i < rulings.size(); i++) {
+                if (root(parent, i) == group) {
+                    bounds = bounds == null ? rulings.get(i) : union(bounds, rulings.get(i));
+                }
+            }
+            if (bounds.area() < minArea) {
+                continue;
+            }
+            List<Integer> rowEdges = new ArrayList<>();
+            List<Integer> columnEdges = new ArrayList<>();
+            for (int i = 0; i < rulings.size(); i++) {
+                Rect ruling = rulings.get(i);
+                if (root(parent, i) != group) {
+                    continue;
+                }
+                if (ruling.width >= bounds.width * MIN_RULING_COVERAGE && ruling.width >= ruling.height) {
+                    rowEdges.add(ruling.y + ruling.height / 2);
+                } else if (ruling.height >= bounds.height * MIN_RULING_COVERAGE) {
+                    columnEdges.add(ruling.x + ruling.width / 2);
+                }
+            }
+            rowEdges = merged(rowEdges, minCell);
+            columnEdges = merged(columnEdges, minCell);
+            if (rowEdges.size() >= 3 && columnEdges.size() >= 3) {
+                tables.add(new TableGrid(rowEdges, columnEdges, null));
+            }
+        }
+        return tables;
+    }
+
+    // Edges closer than a cell are the two sides of one thick or doubled line.
+    private static List<Integer> merged(List<Integer> edges, int minCell) {
+        edges.sort(null);
+        List<Integer> merged = new ArrayList<>();
+        for (int edge : edges) {
+            if (!merged.isEmpty() && edge - merged.get(merged.size() - 1) < minCell) {
+                merged.set(merged.size() - 1, (merged.get(merged.size() - 1) + edge) / 2);
+            } else {
+                merged.add(edge);
+            }
+        }
+        return List.copyOf(merged);
+    }
+
+    // Share of the box interior, with the border trimmed off as in OpenCvLayoutAnalyzer, covered by anything drawn.
+    private double interiorInkRatio(Rect rect, double pixelScale) {
+        int inset = (int) Math.max(OpenCvLayoutAnalyzer.scaled(2, pixelScale), Math.min(rect.width, rect.height) * 0.15);
+        Rect interior = rect.width > inset * 2 && rect.height > inset * 2
+                ? new Rect(rect.x + inset, rect.y + inset, rect.width - inset * 2, rect.height - inset * 2)
+                : rect;
+        double covered = 0;
+        for (Rect glyph : shapes.glyphs()) {
+            covered += intersectionArea(glyph, interior);
+        }
+        for (Rect ruling : shapes.rulings()) {
+            covered += intersectionArea(ruling, interior);
+        }
+        for (Rect mark : shapes.marks()) {
+            // A fill behind the whole box is a background, not something written in it.
+            if (!contains(mark, interior)) {
+                covered += intersectionArea(mark, interior);
+            }
+        }
+        return Math.min(1.0, covered / Math.max(1.0, interior.area()));
+    }
+
+    @Override
+    protected void showGlyph(Matrix textRenderingMatrix, PDFont font, int code, Vector displacement)
+            throws IOException {
+        RenderingMode mode = getGraphicsState().getTextState().getRenderingMode();
+        float size = Math.abs(textRenderingMatrix.getScalingFactorY());
+        if (mode == RenderingMode.NEITHER || mode == RenderingMode.NEITHER_CLIP || size < MIN_GLYPH_POINTS) {
+            return;
+        }
+        String unicode = font.toUnicode(code);
+        if (unicode == null || inAnnotation) {
+            unreadableGlyphs++;
+            return;
+        }
+        if (unicode.isBlank()) {
+            return;
+        }
+        double x = textRenderingMatrix.getTranslateX();
+        double baseline = textRenderingMatrix.getTranslateY();
+        double advance = Math.max(displacement.getX() * textRenderingMatrix.getScalingFactorX(), size * 0.2);
+        shapes.glyphs().add(toPixels(x, baseline + size * GLYPH_ASCENT, x + advance, baseline - size * GLYPH_DESCENT));
+    }
+
+    @Override
+    public void drawImage(PDImage image) {
+        Matrix ctm = getGraphicsState().getCurrentTransformationMatrix();
+        double coverage = Math.abs(ctm.getScalingFactorX() * ctm.getScalingFactorY()) / pageArea;
+        largestImageCoverage = Math.max(largestImageCoverage, Math.min(1.0, coverage));
+    }
+
+    @Override
+    public void appendRectangle(Point2D p0, Point2D p1, Point2D p2, Point2D p3) {
+        moveTo((float) p0.getX(), (float) p0.getY());
+        lineTo((float) p1.getX(), (float) p1.getY());
+        lineTo((float) p2.getX(), (float) p2.getY());
+        lineTo((float) p3.getX(), (float) p3.getY());
+        closePath();
+    }
+
+    @Override
+    public void clip(int windingRule) {
+        // The path stays pending until the painting operator that follows, usually n.
+    }
+
+    @Override
+    public void moveTo(float x, float y) {
+        currentPoint = new Point2D.Double(x, y);
+        List<Point2D.Double> subpath = new ArrayList<>();
+        subpath.add(currentPoint);
+        subpaths.add(subpath);
+        closed.add(false);
+    }
+
+    @Override
+    public void lineTo(float x, float y) {
+        if (subpaths.isEmpty()) {
+            moveTo(x, y);
+            return;
+        }
+        currentPoint = new Point2D.Double(x, y);
+        subpaths.get(subpaths.size() - 1).add(currentPoint);
+    }
+
+    @Override
+    public void curveTo(float x1, float y1, float x2, float y2, float x3, float y3) {
+        // Control points bound the curve, which is all a radio button or a rounded box needs; never a ruling.
+        lineTo(x1, y1);
+        lineTo(x2, y2);
+        lineTo(x3, y3);
+    }
+
+    @Override
+    public Point2D getCurrentPoint() {
+        return currentPoint;
+    }
+
+    @Override
+    public void closePath() {
+        if (!subpaths.isEmpty()) {
+            closed.set(closed.size() - 1, true);
+        }
+    }
+
+    @Override
+    public void endPath() {
+        subpaths.clear();
+        closed.clear();
+    }
+
+    @Override
+    public void strokePath() {
+        paint(true, false);
+    }
+
+    @Override
+    public void fillPath(int windingRule) {
+        paint(false, true);
+    }
+
+    @Override
+    public void fillAndStrokePath(int windingRule) {
+        paint(true, true);
+    }
+
+    @Override
+    public void shadingFill(COSName shadingName) {
+    }
+
+    private void paint(boolean stroke, boolean fill) {
+        double lineWidth = stroke ? getGraphicsState().getLineWidth() * currentScale() : 0;
+        for (int s = 0; s < subpaths.size(); s++) {
+            List<Point2D.Double> points = subpaths.get(s);
+            if (points.size() < 2) {
+                continue;
+            }
+            double[] bounds = bounds(points);
+            double thickness = Math.min(bounds[2] - bounds[0], bounds[3] - bounds[1]);
+            boolean isClosed = closed.get(s) || points.get(0).distance(points.get(points.size() - 1)) < AXIS_TOLERANCE_POINTS;
+            if (thickness + lineWidth <= MAX_RULING_POINTS) {
+                // Hairline rectangles and single strokes alike: one ruling along the longer side.
+                addRulingOrMark(bounds[0], bounds[1], bounds[2], bounds[3], lineWidth);
+            } else if (stroke && isClosed) {
+                // Out to the outer edge of the stroke, where the rendered page's contour runs.
+                double half = lineWidth / 2;
+                shapes.boxes().add(toPixels(bounds[0] - half, bounds[3] + half, bounds[2] + half, bounds[1] - half));
+                for (int i = 1; i <= points.size(); i++) {
+                    Point2D.Double from = points.get(i - 1);
+                    Point2D.Double to = points.get(i % points.size());
+                    addRulingOrMark(from.x, from.y, to.x, to.y, lineWidth);
+                }
+            } else if (stroke) {
+                for (int i = 1; i < points.size(); i++) {
+                    Point2D.Double from = points.get(i - 1);
+                    Point2D.Double to = points.get(i);
+                    addRulingOrMark(from.x, from.y, to.x, to.y, lineWidth);
+                }
+            } else {
+                shapes.marks().add(toPixels(bounds[0], bounds[3], bounds[2], bounds[1]));
+            }
+        }
+        subpaths.clear();
+        closed.clear();
+    }
+
+    private void addRulingOrMark(double x0, double y0, double x1, double y1, double lineWidth) {
+        double dx = Math.abs(x1 - x0);
+        double dy = Math.abs(y1 - y0);
+        if (dx < AXIS_TOLERANCE_POINTS && dy < AXIS_TOLERANCE_POINTS) {
+            return;
+        }
+        double half = lineWidth / 2;
+        Rect rect = toPixels(Math.min(x0, x1) - half, Math.max(y0, y1) + half,
+                Math.max(x0, x1) + half, Math.min(y0, y1) - half);
+        if (dx <= AXIS_TOLERANCE_POINTS + lineWidth || dy <= AXIS_TOLERANCE_POINTS + lineWidth) {
+            shapes.rulings().add(rect);
+        } else {
+            shapes.marks().add(rect);
+        }
+    }
+
+    // Line widths are in user space; the CTM's scale turns them into points on the page.
+    private double currentScale() {
+        Matrix ctm = getGraphicsState().getCurrentTransformationMatrix();
+        return Math.sqrt(Math.abs(ctm.getScalingFactorX() * ctm.getScalingFactorY()));
+    }
+
+    private static double[] bounds(List<Point2D.Double> points) {
+        double[] bounds = {Double.MAX_VALUE, Double.MAX_VALUE, -Double.MAX_VALUE, -Double.MAX_VALUE};
+        for (Point2D.Double point : points) {
+            bounds[0] = Math.min(bounds[0], point.x);
+            bounds[1] = Math.min(bounds[1], point.y);
+            bounds[2] = Math.max(bounds[2], point.x);
+            bounds[3] = Math.max(bounds[3], point.y);
+        }
+        return bounds;
+    }
+
+    // PDF points (origin bottom left) to pixels of the rendered page (origin top left), at least a pixel wide.
+    private Rect toPixels(double left, double top, double right, double bottom) {
+        int x = (int) Math.floor((left - pageLeft) * scale) - clipX;
+        int y = (int) Math.floor((pageTop - top) * scale) - clipY;
+        int x2 = (int) Math.ceil((right - pageLeft) * scale) - clipX;
+        int y2 = (int) Math.ceil((pageTop - bottom) * scale) - clipY;
+        return new Rect(x, y, Math.max(1, x2 - x), Math.max(1, y2 - y));
+    }
+
+    private static boolean touches(Rect a, Rect b, int slack) {
+        return a.x - slack <= b.x + b.width && b.x - slack <= a.x + a.width
+                && a.y - slack <= b.y + b.height && b.y - slack <= a.y + a.height;
+    }
+
+    private static boolean contains(Rect outer, Rect inner) {
+        return inner.x >= outer.x && inner.y >= outer.y
+                && inner.x + inner.width <= outer.x + outer.width
+                && inner.y + inner.height <= outer.y + outer.height;
+    }
+
+    private static double intersectionArea(Rect a, Rect b) {
+        int width = Math.min(a.x + a.width, b.x + b.width) - Math.max(a.x, b.x);
+        int height = Math.min(a.y + a.height, b.y + b.height) - Math.max(a.y, b.y);
+        return width > 0 && height > 0 ? (double) width * height : 0;
+    }
+
+    private static Rect union(Rect a, Rect b) {
+        int left = Math.min(a.x, b.x);
+        int top = Math.min(a.y, b.y);
+        int right = Math.max(a.x + a.width, b.x + b.width);
+        int bottom = Math.max(a.y + a.height, b.y + b.height);
+        return new Rect(left, top, right - left, bottom - top);
+    }
+
+    private static int root(int[] parent, int i) {
+        while (parent[i] != i) {
+            parent[i] = parent[parent[i]];
+            i = parent[i];
+        }
+        return i;
+    }
+}
@@ -0,0 +1,253 @@
+package com.contentmanagement.forms.api.service.queue;
+
+import com.contentmanagement.forms.api.config.FormProcessingProperties;
+import com.contentmanagement.forms.api.model.FormDocument;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.stream.Stream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Queue kept in a spool directory that several JVMs share, so shards of one upload are processed by every
+ * instance pointed at the same directory. There is no broker: a job is claimed by atomically renaming it from
+ * {@code pending/} to {@code leased/}, which exactly one process can win. A lease lasts
+ * {@code lease-duration} from the file's modification time, which the worker touches while it runs; any instance that polls after that moves the job back
+ * to {@code pending/}, so a killed worker costs one lease period, not the job. The leased file records the attempt
+ * number, so a worker whose lease expired cannot complete or fail the job once another worker has leased it again.
+ */
+@Component
+@ConditionalOnProperty(prefix = "form.processing.queue", name = "type", havingValue = "FILESYSTEM")
+public class FileSystemJobQueue implements JobQueue {
+
+    private static final Logger log = LoggerFactory.getLogger(FileSystemJobQueue.class);
+
+    private static final String SUFFIX = ".json";
+
+    private final ObjectMapper objectMapper;
+    private final int maxAttempts;
+    private final Duration leaseDuration;
+    private final Path pending;
+    private final Path leased;
+    private final Path outcomes;
+
+    public FileSystemJobQueue(FormProcessingProperties properties, ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+        this.maxAttempts = Math.max(1, properties.getQueue().getMaxAttempts());
+        this.leaseDuration = properties.getQueue().getLeaseDuration();
+        Path root = SpoolDirectory.root(properties);
+        this.pending = root.resolve("pending");
+        this.leased = root.resolve("leased");
+        this.outcomes = root.resolve("outcomes");
+        try {
+            Files.createDirectories(pending);
+            Files.createDirectories(leased);
+            Files.createDirectories(outcomes);
+        } catch (IOException ex) {
+            throw new IllegalStateException("Unable to create job spool under " + root, ex);
+        }
+    }
+
+    @Override
+    public void submit(ShardJob job) {
+        try {
+            SpoolDirectory.writeAtomically(pending.resolve(job.jobId() + SUFFIX), objectMapper.writeValueAsBytes(job));
+        } catch (IOException ex) {
+            throw new IllegalStateException("Unable to submit job " + job.jobId(), ex);
+        }
+    }
+
+    @Override
+    public Optional<ShardLease> lease(String workerId, Duration duration) {
+        reapExpired();
+        for (Path candidate : list(pending)) {
+            Path claimed = leased.resolve(candidate.getFileName());
+            if (!claim(candidate, claimed)) {
+                continue;
+            }
+            try {
+                Files.setLastModifiedTime(claimed, FileTime.from(Instant.now()));
+                ShardJob job = objectMapper.readValue(claimed.toFile(), ShardJob.class).nextAttempt();
+                if (Files.exists(outcomeFile(job.jobId()))) {
+                    // Re-queued after its lease expired, but the original worker finished it anyway.
+                    Files.deleteIfExists(claimed);
+                    continue;
+                }
+                SpoolDirectory.writeAtomically(claimed, objectMapper.writeValueAsBytes(job));
+                return Optional.of(new ShardLease(job, workerId, Instant.now().plus(duration)));
+            } catch (NoSuchFileException ex) {
+                // Reclaimed or discarded by another instance in the meantime.
+            } catch (IOException ex) {
+                log.warn("Skipping unreadable job file {}: {}", claimed, ex.getMessage());
+            }
+        }
+        return Optional.empty();
+    }
+
+    @Override
+    public boolean renew(ShardLease lease, Duration duration) {
+        // The lease period is this instance's lease-duration; the mtime only records that the holder is alive.
+        Path file = leased.resolve(lease.job().jobId() + SUFFIX);
+        if (!Objects.equals(leasedAttempt(file), lease.job().attempts())) {
+            // Completed, or expired and leased again by another worker.
+            return false;
+        }
+        try {
+            Files.setLastModifiedTime(file, FileTime.from(Instant.now()));
+            return true;
+        } catch (NoSuchFileException ex) {
+            return false;
+        } catch (IOException ex) {
+            throw new IllegalStateException("Unable to renew lease on job " + lease.job().jobId(), ex);
+        }
+    }
+
+    @Override
+    public void complete(ShardLease lease, FormDocument document) {
+        ShardJob job = lease.job();
+        Path file = leased.resolve(job.jobId() + SUFFIX);
+        Integer holder = leasedAttempt(file);
+        if (holder != null && holder != job.attempts()) {
+            log.info("Dropping late result of job {} attempt {}; attempt {} holds the lease", job.jobId(),
+                    job.attempts(), holder);
+            return;
+        }
+        writeOutcome(new ShardOutcome(job.jobId(), document, null, job.attempts(), lease.workerId()));
+        if (holder != null) {
+            deleteQuietly(file);
+        }
+        deleteQuietly(pending.resolve(job.jobId() + SUFFIX));
+    }
+
+    @Override
+    public void fail(ShardLease lease, String error) {
+        ShardJob job = lease.job();
+        Path file = leased.resolve(job.jobId() + SUFFIX);
+        if (!Objects.equals(leasedAttempt(file), job.attempts())) {
+            // The lease already expired; the job was returned to the queue without this worker.
+            return;
+        }
+        retryOrGiveUp(file, job, lease.workerId(), error);
+    }
+
+    @Override
+    public Optional<ShardOutcome> outcome(String jobId) {
+        Path file = outcomeFile(jobId);
+        try {
+            return Optional.of(objectMapper.readValue(file.toFile(), ShardOutcome.class));
+        } catch (IOException ex) {
+            if (Files.exists(file)) {
+                throw new IllegalStateException("Unable to read outcome of job " + jobId, ex);
+            }
+            return Optional.empty();
+        }
+    }
+
+    @Override
+    public void discard(String jobId) {
+        deleteQuietly(pending.resolve(jobId + SUFFIX));
+        deleteQuietly(leased.resolve(jobId + SUFFIX));
+        deleteQuietly(outcomeFile(jobId));
+    }
+
+    private void reapExpired() {
+        Instant cutoff = Instant.now().minus(leaseDuration);
+        for (Path file : list(leased)) {
+            try {
+                if (Files.getLastModifiedTime(file).toInstant().isAfter(cutoff)) {
+                    continue;
+                }
+                ShardJob job = objectMapper.readValue(file.toFile(), ShardJob.class);
+                log.info("Lease on job {} expired after attempt {}", job.jobId(), job.attempts());
+                retryOrGiveUp(file, job, null, "Lease expired after " + leaseDuration);
+            } catch (NoSuchFileException ex) {
+                // Completed or reclaimed by another instance.
+            } catch (IOException ex) {
+                log.warn("Skipping unreadable lease file {}: {}", file, ex.getMessage());
+            }
+        }
+    }
+
+    private void retryOrGiveUp(Path leasedFile, ShardJob job, String workerId, String error) {
+        if (job.attempts() >= maxAttempts) {
+            writeOutcome(new ShardOutcome(job.jobId(), null, error, job.attempts(), workerId));
+            deleteQuietly(leasedFile);
+        } else if (!claim(leasedFile, pending.resolve(leasedFile.getFileName()))) {
+            log.debug("Job {} was already returned to the queue", job.jobId());
+        }
+    }
+
+    /** Attempt number recorded in a leased file, or {@code null} when the job is no longer leased. */
+    private Integer leasedAttempt(Path file) {
+        try {
+            return objectMapper.readValue(Files.readAllBytes(file), ShardJob.class).attempts();
+        } catch (NoSuchFileException ex) {
+            return null;
+        } catch (IOException ex) {
+            throw new IllegalStateException("Unable to read lease " + file, ex);
+        }
+    }
+
+    private void writeOutcome(ShardOutcome outcome) {
+        Path file = outcomeFile(outcome.jobId());
+        if (Files.exists(file)) {
+            return;
+        }
+        try {
+            SpoolDirectory.writeAtomically(file, objectMapper.writeValueAsBytes(outcome));
+        } catch (IOException ex) {
+            throw new IllegalStateException("Unable to record outcome of job " + outcome.jobId(), ex);
+        }
+    }
+
+    private Path outcomeFile(String jobId) {
+        return outcomes.resolve(jobId + SUFFIX);
+    }
+
+    /** Atomic rename; {@code false} when another process moved or removed the file first. */
+    private static boolean claim(Path from, Path to) {
+        try {
+            Files.move(from, to, StandardCopyOption.ATOMIC_MOVE);
+            return true;
+        } catch (NoSuchFileException | FileAlreadyExistsException ex) {
+            return false;
+        } catch (IOException ex) {
+            throw new IllegalStateException("Unable to move " + from + " to " + to, ex);
+        }
+    }
+
+    private static List<Path> list(Path directory) {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files
+                    .filter(file -> {
+                        String name = file.getFileName().toString();
+                        return name.endsWith(SUFFIX) && !name.startsWith("tmp-");
+                    })
+                    .sorted()
+                    .toList();
+        } catch (IOException ex) {
+            throw new IllegalStateException("Unable to list " + directory, ex);
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException ex) {
+            log.warn("Unable to delete {}: {}", file, ex.getMessage());
+        }
+    }
+}
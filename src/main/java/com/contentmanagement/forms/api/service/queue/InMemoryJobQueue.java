@@ -0,0 +1,119 @@
+package com.contentmanagement.forms.api.service.queue;
+
+import com.contentmanagement.forms.api.config.FormProcessingProperties;
+import com.contentmanagement.forms.api.model.FormDocument;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Single-JVM queue: shards are spread over the local worker threads only. Useful on its own for large documents
+ * on a many-core box, and as the reference behaviour for {@link FileSystemJobQueue}.
+ */
+@Component
+@ConditionalOnProperty(prefix = "form.processing.queue", name = "type", havingValue = "IN_MEMORY", matchIfMissing = true)
+public class InMemoryJobQueue implements JobQueue {
+
+    private final int maxAttempts;
+    // Keyed by job id so pending jobs are leased in submission order, retries included.
+    private final TreeMap<String, ShardJob> pending = new TreeMap<>();
+    private final Map<String, ShardLease> leased = new HashMap<>();
+    private final Map<String, ShardOutcome> outcomes = new HashMap<>();
+
+    public InMemoryJobQueue(FormProcessingProperties properties) {
+        this.maxAttempts = Math.max(1, properties.getQueue().getMaxAttempts());
+    }
+
+    @Override
+    public synchronized void submit(ShardJob job) {
+        pending.put(job.jobId(), job);
+    }
+
+    @Override
+    public synchronized Optional<ShardLease> lease(String workerId, Duration leaseDuration) {
+        reapExpired();
+        Map.Entry<String, ShardJob> next = pending.pollFirstEntry();
+        if (next == null) {
+            return Optional.empty();
+        }
+        ShardLease lease = new ShardLease(next.getValue().nextAttempt(), workerId, Instant.now().plus(leaseDuration));
+        leased.put(next.getKey(), lease);
+        return Optional.of(lease);
+    }
+
+    @Override
+    public synchronized boolean renew(ShardLease lease, Duration leaseDuration) {
+        ShardLease current = leased.get(lease.job().jobId());
+        if (current == null || current.job().attempts() != lease.job().attempts()) {
+            return false;
+        }
+        leased.put(lease.job().jobId(), new ShardLease(current.job(), current.workerId(), Instant.now().plus(leaseDuration)));
+        return true;
+    }
+
+    @Override
+    public synchronized void complete(ShardLease lease, FormDocument document) {
+        ShardJob job = lease.job();
+        ShardLease current = leased.get(job.jobId());
+        if (current != null && current.job().attempts() != job.attempts()) {
+            // Expired and leased again; the newer attempt reports the outcome.
+            return;
+        }
+        leased.remove(job.jobId());
+        pending.remove(job.jobId());
+        outcomes.putIfAbsent(job.jobId(), new ShardOutcome(job.jobId(), document, null, job.attempts(), lease.workerId()));
+    }
+
+    @Override
+    public synchronized void fail(ShardLease lease, String error) {
+        ShardJob job = lease.job();
+        ShardLease current = leased.get(job.jobId());
+        if (current == null || current.job().attempts() != job.attempts()) {
+            // The lease already expired; the job was returned to the queue without this worker.
+            return;
+        }
+        leased.remove(job.jobId());
+        retryOrGiveUp(current.job(), lease.workerId(), error);
+    }
+
+    @Override
+    public synchronized Optional<ShardOutcome> outcome(String jobId) {
+        return Optional.ofNullable(outcomes.get(jobId));
+    }
+
+    @Override
+    public synchronized void discard(String jobId) {
+        pending.remove(jobId);
+        leased.remove(jobId);
+        outcomes.remove(jobId);
+    }
+
+    private void reapExpired() {
+        Instant now = Instant.now();
+        List<ShardLease> expired = new ArrayList<>();
+        for (ShardLease lease : leased.values()) {
+            if (lease.expiresAt().isBefore(now)) {
+                expired.add(lease);
+            }
+        }
+        for (ShardLease lease : expired) {
+            leased.remove(lease.job().jobId());
+            retryOrGiveUp(lease.job(), lease.workerId(), "Lease held by " + lease.workerId() + " expired");
+        }
+    }
+
+    private void retryOrGiveUp(ShardJob job, String workerId, String error) {
+        if (job.attempts() >= maxAttempts) {
+            outcomes.putIfAbsent(job.jobId(), new ShardOutcome(job.jobId(), null, error, job.attempts(), workerId));
+        } else {
+            pending.put(job.jobId(), job);
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.contentmanagement.forms.api.service.queue;
+
+import com.contentmanagement.forms.api.model.FormDocument;
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Hands shard jobs from the coordinating instance to workers. A job is leased rather than removed: a worker that
+ * dies mid-shard simply stops renewing its lease and lets it expire, after which the job becomes available again until it has been
+ * attempted {@code form.processing.queue.max-attempts} times. Outcomes stay in the queue until the coordinator
+ * discards them.
+ */
+public interface JobQueue {
+
+    void submit(ShardJob job);
+
+    /** Claims the oldest pending job for {@code leaseDuration}, first returning expired leases to the queue. */
+    Optional<ShardLease> lease(String workerId, Duration leaseDuration);
+
+    /**
+     * Extends a lease that is still held by {@code leaseDuration} from now, so a shard that runs longer than one
+     * lease period is not handed out again. Returns {@code false} once the lease has expired or been completed.
+     */
+    boolean renew(ShardLease lease, Duration leaseDuration);
+
+    /** Records the result. Ignored when the lease expired and a later attempt holds the job. */
+    void complete(ShardLease lease, FormDocument document);
+
+    /**
+     * Returns the job to the queue, or records it as failed once it has used up its attempts. Ignored when the
+     * lease has expired, so a late failure cannot disturb a later attempt.
+     */
+    void fail(ShardLease lease, String error);
+
+    Optional<ShardOutcome> outcome(String jobId);
+
+    /** Forgets the job and its outcome, wherever it currently is. */
+    void discard(String jobId);
+}
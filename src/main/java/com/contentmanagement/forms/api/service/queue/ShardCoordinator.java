@@ -0,0 +1,187 @@
+package com.contentmanagement.forms.api.service.queue;
+
+import com.contentmanagement.forms.api.config.FormProcessingProperties;
+import com.contentmanagement.forms.api.model.FormDocument;
+import com.contentmanagement.forms.api.model.ProcessingMode;
+import com.contentmanagement.forms.api.service.extraction.ExtractionDeadline;
+import com.contentmanagement.forms.api.service.extraction.ExtractionScope;
+import com.contentmanagement.forms.api.service.extraction.FormDocumentAssembler;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.UUID;
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.multipart.MultipartFile;
+
+/**
+ * Splits a large PDF into page ranges of {@code form.processing.queue.shard-pages}, queues one job per range and
+ * reassembles the shard documents in page order once every shard has an outcome. The upload is copied into the
+ * spool first so workers in other JVMs can read it. Image uploads and documents that fit in a single shard are
+ * left to the caller to process in-line.
+ */
+@Component
+public class ShardCoordinator {
+
+    private static final Logger log = LoggerFactory.getLogger(ShardCoordinator.class);
+
+    private final FormProcessingProperties properties;
+    private final JobQueue queue;
+    private final FormDocumentAssembler assembler;
+
+    public ShardCoordinator(FormProcessingProperties properties, JobQueue queue, FormDocumentAssembler assembler) {
+        this.properties = properties;
+        this.queue = queue;
+        this.assembler = assembler;
+    }
+
+    public boolean isEnabled() {
+        return properties.getQueue().isEnabled();
+    }
+
+    /**
+     * Extracts {@code file} through the queue. Once {@code deadline} passes, the shards finished so far are
+     * merged and the rest are abandoned.
+     *
+     * @return empty when the document is not worth sharding and should be processed directly
+     */
+    public Optional<FormDocument> extract(MultipartFile file, ProcessingMode mode, ExtractionScope scope,
+                                          ExtractionDeadline deadline) {
+        if (!isEnabled() || mode != ProcessingMode.PDF_BOX_WITH_OPENCV || file == null || file.isEmpty()) {
+            return Optional.empty();
+        }
+        String batchId = UUID.randomUUID().toString();
+        String sourcePath = "sources/" + batchId + ".bin";
+        Path source = spoolSource(SpoolDirectory.root(properties).resolve(sourcePath), file);
+        List<String> jobIds = new ArrayList<>();
+        try {
+            List<SortedSet<Integer>> shards = plan(source, scope);
+            if (shards.size() < 2) {
+                return Optional.empty();
+            }
+            long submitted = System.currentTimeMillis();
+            for (int shard = 0; shard < shards.size(); shard++) {
+                String jobId = String.format("%013d-%s-%04d", submitted, batchId, shard);
+                queue.submit(new ShardJob(jobId, batchId, shard, sourcePath, file.getOriginalFilename(),
+                        file.getContentType(), file.getSize(), mode, scope.forPages(shards.get(shard)), 0,
+                        deadline.end()));
+                jobIds.add(jobId);
+            }
+            log.info("Queued {} shard(s) of {} pages for {} (batch {})", shards.size(),
+                    properties.getQueue().getShardPages(), file.getOriginalFilename(), batchId);
+
+            List<FormDocument> documents = awaitOutcomes(jobIds, deadline);
+            // Shards stopped by the same deadline come back short rather than failed.
+            int plannedPages = shards.stream().mapToInt(SortedSet::size).sum();
+            int finishedPages = documents.stream().mapToInt(document -> document.pages().size()).sum();
+            if (finishedPages < plannedPages) {
+                deadline.markStopped(finishedPages, plannedPages);
+                log.warn("{} for {}; merging the finished shards", deadline.partialReason(), file.getOriginalFilename());
+            }
+            return Optional.of(assembler.merge(documents, properties.getBaseUnit()));
+        } finally {
+            jobIds.forEach(queue::discard);
+            try {
+                Files.deleteIfExists(source);
+            } catch (IOException ex) {
+                log.warn("Unable to delete spooled source {}: {}", source, ex.getMessage());
+            }
+        }
+    }
+
+    private List<FormDocument> awaitOutcomes(List<String> jobIds, ExtractionDeadline extractionDeadline) {
+        FormProcessingProperties.Queue settings = properties.getQueue();
+        Instant deadline = Instant.now().plus(settings.getResultTimeout());
+        FormDocument[] documents = new FormDocument[jobIds.size()];
+        int remaining = jobIds.size();
+        while (remaining > 0) {
+            for (int shard = 0; shard < jobIds.size(); shard++) {
+                if (documents[shard] != null) {
+                    continue;
+                }
+                Optional<ShardOutcome> outcome = queue.outcome(jobIds.get(shard));
+                if (outcome.isEmpty()) {
+                    continue;
+                }
+                if (outcome.get().failed()) {
+                    throw new IllegalStateException("Shard " + shard + " failed after " + outcome.get().attempts()
+                            + " attempt(s): " + outcome.get().error());
+                }
+                documents[shard] = outcome.get().document();
+                remaining--;
+            }
+            if (remaining > 0) {
+                if (extractionDeadline.expired()) {
+                    return Arrays.stream(documents).filter(Objects::nonNull).toList();
+                }
+                if (Instant.now().isAfter(deadline)) {
+                    throw new IllegalStateException(remaining + " shard(s) had no result after "
+                            + settings.getResultTimeout() + "; are any workers polling " + SpoolDirectory.root(properties) + "?");
+                }
+                sleep(settings.getPollInterval());
+            }
+        }
+        return List.of(documents);
+    }
+
+    private List<SortedSet<Integer>> plan(Path source, ExtractionScope scope) {
+        int pageCount;
+        try (PDDocument document = Loader.loadPDF(source.toFile())) {
+            pageCount = document.getNumberOfPages();
+        } catch (IOException ex) {
+            throw new IllegalStateException("Unable to read uploaded PDF", ex);
+        }
+        int shardPages = Math.max(1, properties.getQueue().getShardPages());
+        List<SortedSet<Integer>> shards = new ArrayList<>();
+        SortedSet<Integer> current = new TreeSet<>();
+        for (int page = 0; page < pageCount; page++) {
+            if (!scope.includesPage(page)) {
+                continue;
+            }
+            current.add(page);
+            if (current.size() == shardPages) {
+                shards.add(current);
+                current = new TreeSet<>();
+            }
+        }
+        if (!current.isEmpty()) {
+            shards.add(current);
+        }
+        return shards;
+    }
+
+    private static Path spoolSource(Path target, MultipartFile file) {
+        try {
+            Files.createDirectories(target.getParent());
+            try (InputStream in = file.getInputStream()) {
+                Files.copy(in, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+            return target;
+        } catch (IOException ex) {
+            throw new IllegalStateException("Unable to spool " + file.getOriginalFilename(), ex);
+        }
+    }
+
+    private static void sleep(Duration interval) {
+        try {
+            Thread.sleep(interval.toMillis());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for shard results", ex);
+        }
+    }
+}
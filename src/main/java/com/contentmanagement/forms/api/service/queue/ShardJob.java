@@ -0,0 +1,36 @@
+package com.contentmanagement.forms.api.service.queue;
+
+import com.contentmanagement.forms.api.model.ProcessingMode;
+import com.contentmanagement.forms.api.service.extraction.ExtractionScope;
+import java.time.Instant;
+
+/**
+ * One page range of a document. The source lives in the shared spool directory so any worker can read it.
+ *
+ * @param jobId sortable id; jobs are leased in id order
+ * @param batchId id shared by all shards of one document
+ * @param shard zero-based position of this shard in the document
+ * @param sourcePath the spooled upload, relative to the spool root so workers that mount the spool elsewhere
+ *                   still find it
+ * @param attempts number of times the job has been leased so far
+ * @param deadline when the coordinator stops waiting for results; the worker stops at the same instant
+ */
+public record ShardJob(
+        String jobId,
+        String batchId,
+        int shard,
+        String sourcePath,
+        String originalFilename,
+        String contentType,
+        long size,
+        ProcessingMode mode,
+        ExtractionScope scope,
+        int attempts,
+        Instant deadline
+) {
+
+    ShardJob nextAttempt() {
+        return new ShardJob(jobId, batchId, shard, sourcePath, originalFilename, contentType, size, mode, scope,
+                attempts + 1, deadline);
+    }
+}
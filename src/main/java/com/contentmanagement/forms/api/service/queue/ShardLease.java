@@ -0,0 +1,6 @@
+package com.contentmanagement.forms.api.service.queue;
+
+import java.time.Instant;
+
+public record ShardLease(ShardJob job, String workerId, Instant expiresAt) {
+}
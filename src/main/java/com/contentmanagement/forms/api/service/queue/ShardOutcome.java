@@ -0,0 +1,13 @@
+package com.contentmanagement.forms.api.service.queue;
+
+import com.contentmanagement.forms.api.model.FormDocument;
+
+/**
+ * Result of a shard: the extracted pages, or the last error once every attempt failed.
+ */
+public record ShardOutcome(String jobId, FormDocument document, String error, int attempts, String workerId) {
+
+    public boolean failed() {
+        return error != null;
+    }
+}
@@ -0,0 +1,163 @@
+package com.contentmanagement.forms.api.service.queue;
+
+import com.contentmanagement.forms.api.config.FormProcessingProperties;
+import com.contentmanagement.forms.api.model.FormDocument;
+import com.contentmanagement.forms.api.service.PathMultipartFile;
+import com.contentmanagement.forms.api.service.PdfProcessingService;
+import com.contentmanagement.forms.api.service.extraction.CpuBudget;
+import jakarta.annotation.PreDestroy;
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Polls the job queue on {@code form.processing.queue.workers} threads and runs each leased shard through
+ * {@link PdfProcessingService#extractShard}. Left unset, there is one worker per extraction slot of the
+ * {@link CpuBudget}. Set {@code workers=0} for an instance that only accepts uploads and coordinates. Leases are
+ * renewed three times per {@code lease-duration} while a shard runs, so only a worker that died loses its lease.
+ */
+@Component
+public class ShardWorker {
+
+    private static final Logger log = LoggerFactory.getLogger(ShardWorker.class);
+
+    private final FormProcessingProperties properties;
+    private final JobQueue queue;
+    private final PdfProcessingService processingService;
+    private final CpuBudget cpuBudget;
+    private final String instanceId = ManagementFactory.getRuntimeMXBean().getName();
+    private final List<ExecutorService> executors = new ArrayList<>();
+    private ScheduledExecutorService renewals;
+    private volatile boolean running;
+
+    public ShardWorker(FormProcessingProperties properties, JobQueue queue, PdfProcessingService processingService,
+                       CpuBudget cpuBudget) {
+        this.properties = properties;
+        this.queue = queue;
+        this.processingService = processingService;
+        this.cpuBudget = cpuBudget;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        FormProcessingProperties.Queue settings = properties.getQueue();
+        int workers = settings.getWorkers() != null ? settings.getWorkers() : cpuBudget.concurrentExtractions();
+        if (!settings.isEnabled() || workers <= 0) {
+            return;
+        }
+        running = true;
+        renewals = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "shard-lease-renewal");
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (int i = 1; i <= workers; i++) {
+            String threadName = "shard-worker-" + i;
+            String workerId = instanceId + "/" + i;
+            ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, threadName);
+                thread.setDaemon(true);
+                return thread;
+            });
+            executor.execute(() -> poll(workerId));
+            executors.add(executor);
+        }
+        log.info("Started {} shard worker(s) on {} queue", workers, settings.getType());
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (renewals != null) {
+            renewals.shutdownNow();
+        }
+        for (ExecutorService executor : executors) {
+            executor.shutdownNow();
+        }
+        for (ExecutorService executor : executors) {
+            try {
+                executor.awaitTermination(5, TimeUnit.SECONDS);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void poll(String workerId) {
+        FormProcessingProperties.Queue settings = properties.getQueue();
+        while (running && !Thread.currentThread().isInterrupted()) {
+            Optional<ShardLease> lease;
+            try {
+                lease = queue.lease(workerId, settings.getLeaseDuration());
+            } catch (RuntimeException ex) {
+                log.warn("Unable to poll the job queue: {}", ex.getMessage());
+                lease = Optional.empty();
+            }
+            if (lease.isEmpty()) {
+                if (!sleep(settings.getPollInterval())) {
+                    return;
+                }
+                continue;
+            }
+            run(lease.get());
+        }
+    }
+
+    private void run(ShardLease lease) {
+        ShardJob job = lease.job();
+        log.info("{} processing shard {} of batch {} (pages {}, attempt {})", lease.workerId(), job.shard(),
+                job.batchId(), job.scope().pages(), job.attempts());
+        Duration leaseDuration = properties.getQueue().getLeaseDuration();
+        long period = Math.max(1, leaseDuration.toMillis() / 3);
+        ScheduledFuture<?> renewal = renewals.scheduleAtFixedRate(() -> renew(lease, leaseDuration),
+                period, period, TimeUnit.MILLISECONDS);
+        try {
+            FormDocument document = processingService.extractShard(
+                    new PathMultipartFile(SpoolDirectory.root(properties).resolve(job.sourcePath()), job.originalFilename(),
+                            job.contentType(), job.size()),
+                    job.mode(), job.scope(), job.deadline());
+            queue.complete(lease, document);
+        } catch (RuntimeException | LinkageError ex) {
+            log.warn("Shard {} of batch {} failed on attempt {}", job.shard(), job.batchId(), job.attempts(), ex);
+            queue.fail(lease, ex.getClass().getSimpleName() + ": " + ex.getMessage());
+        } finally {
+            renewal.cancel(false);
+        }
+    }
+
+    private void renew(ShardLease lease, Duration leaseDuration) {
+        try {
+            if (!queue.renew(lease, leaseDuration)) {
+                log.warn("{} lost its lease on shard {} of batch {}; it may be processed twice", lease.workerId(),
+                        lease.job().shard(), lease.job().batchId());
+            }
+        } catch (RuntimeException ex) {
+            // A throwing task would cancel the schedule; keep trying until the shard finishes.
+            log.warn("Unable to renew lease on shard {} of batch {}: {}", lease.job().shard(), lease.job().batchId(),
+                    ex.getMessage());
+        }
+    }
+
+    private static boolean sleep(Duration interval) {
+        try {
+            Thread.sleep(interval.toMillis());
+            return true;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.contentmanagement.forms.api.service.queue;
+
+import com.contentmanagement.forms.api.config.FormProcessingProperties;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Layout of the spool shared by every instance. Point {@code form.processing.queue.directory} at the same
+ * directory (a shared mount when the instances run on different hosts) to let them work on each other's shards.
+ *
+ * <pre>
+ * {root}/sources/{batchId}.bin
+ * {root}/pending/{jobId}.json
+ * {root}/leased/{jobId}.json
+ * {root}/outcomes/{jobId}.json
+ * </pre>
+ */
+final class SpoolDirectory {
+
+    private SpoolDirectory() {
+    }
+
+    static Path root(FormProcessingProperties properties) {
+        String configured = properties.getQueue().getDirectory();
+        if (configured == null || configured.isBlank()) {
+            return Paths.get(System.getProperty("java.io.tmpdir"), "content-management-forms", "queue");
+        }
+        return Paths.get(configured);
+    }
+
+    /** Writes to a temporary sibling first so readers in other processes never see a partial file. */
+    static void writeAtomically(Path target, byte[] content) throws IOException {
+        Path temp = target.resolveSibling("tmp-" + System.nanoTime() + "-" + target.getFileName());
+        try {
+            Files.write(temp, content);
+            try {
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException ex) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+}
@@ -0,0 +1,397 @@
+package com.contentmanagement.forms.api.service.result;
+
+import com.contentmanagement.forms.api.config.FormProcessingProperties;
+import com.contentmanagement.forms.api.model.FormPage;
+import com.contentmanagement.forms.api.model.LayoutNode;
+import com.contentmanagement.forms.api.model.NodeType;
+import com.contentmanagement.forms.api.model.PdfProcessingResult;
+import com.contentmanagement.forms.api.model.ProcessingMode;
+import com.contentmanagement.forms.api.model.StoredResultSummary;
+import com.contentmanagement.forms.api.service.extraction.ExtractionScope;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps the latest result for each document id, processing mode and extraction scope on local disk so clients
+ * can fetch it again, or one page at a time, without re-uploading. Like the stage directories of
+ * {@code StageArtifactStore}, every entry is keyed by a fingerprint of the scope (the canonical {@code pages} and
+ * {@code regions}), so results of one document in another mode or scope never overwrite each other. Every page
+ * is a separate gzipped JSON file next to a small summary, so reading a page or a few of its nodes never
+ * inflates the rest of the document.
+ *
+ * <pre>
+ * {root}/{documentId}/{mode}-{scopeFingerprint}/summary.json.gz
+ * {root}/{documentId}/{mode}-{scopeFingerprint}/page-0000.json.gz
+ * </pre>
+ *
+ * A result cut short by the deadline never replaces a complete one of the same mode and scope; the summary
+ * records its scope and status. Entries expire {@code results.ttl} after they were stored. When the store grows
+ * past {@code results.max-size} the least recently read entries are evicted first; reads refresh the entry
+ * directory's modification time.
+ */
+@Component
+public class FormResultStore {
+
+    private static final Logger log = LoggerFactory.getLogger(FormResultStore.class);
+
+    private static final Pattern DOCUMENT_ID = Pattern.compile("[0-9a-f]{64}");
+    private static final Pattern ENTRY = Pattern.compile("[A-Z_]+-[0-9a-f]{16}");
+    private static final String SUMMARY_FILE = "summary.json.gz";
+    // Staging directories are written within seconds; older ones were left behind by a crash.
+    private static final Duration STALE_STAGING = Duration.ofHours(1);
+
+    private final FormProcessingProperties properties;
+    private final ObjectMapper objectMapper;
+
+    public FormResultStore(FormProcessingProperties properties, ObjectMapper objectMapper) {
+        this.properties = properties;
+        this.objectMapper = objectMapper;
+    }
+
+    public boolean isEnabled() {
+        return properties.getResults().isEnabled();
+    }
+
+    /**
+     * Stores {@code result}, extracted within {@code scope}, in place of the earlier result for the same document,
+     * mode and scope unless that one is complete and this one is not. Failures are only logged.
+     */
+    public void put(PdfProcessingResult result, ExtractionScope scope) {
+        if (!isEnabled() || result.documentId() == null || result.document() == null
+                || result.processingMode() == null) {
+            return;
+        }
+        Path root = root();
+        String key = entryName(result.processingMode(), scope);
+        Path target = root.resolve(result.documentId()).resolve(key);
+        if (!PdfProcessingResult.PROCESSED.equals(result.status())
+                && read(target.resolve(SUMMARY_FILE), StoredResultSummary.class)
+                .filter(stored -> PdfProcessingResult.PROCESSED.equals(stored.status())
+                        && stored.expiresAt().isAfter(Instant.now()))
+                .isPresent()) {
+            log.info("Keeping the complete stored result for document {} instead of a {} result ({})",
+                    result.documentId(), result.status(), key);
+            return;
+        }
+        Path staging = root.resolve("tmp-" + System.nanoTime() + "-" + result.documentId() + "-" + key);
+        try {
+            Files.createDirectories(staging);
+            List<Integer> pages = new ArrayList<>();
+            for (FormPage page : result.document().pages()) {
+                write(staging.resolve(pageFile(page.index())), page);
+                pages.add(page.index());
+            }
+            Instant storedAt = Instant.now();
+            write(staging.resolve(SUMMARY_FILE), new StoredResultSummary(result.documentId(), result.fileName(),
+                    result.fileSize(), result.processingMode(), result.status(), result.detail(), scope.pageSpec(),
+                    scope.regionSpec(), result.document().meta(),
+                    pages, storedAt, storedAt.plus(properties.getResults().getTtl())));
+            Files.createDirectories(target.getParent());
+            replace(staging, target);
+        } catch (IOException ex) {
+            log.warn("Unable to store result for document {}: {}", result.documentId(), ex.getMessage());
+        } finally {
+            deleteTree(staging);
+        }
+        evict();
+    }
+
+    /**
+     * The summary of the result stored for {@code documentId} in {@code mode} and {@code scope}; a {@code null}
+     * mode picks the most recently stored result of that scope in any mode. The other readers select the same way.
+     */
+    public Optional<StoredResultSummary> summary(String documentId, ProcessingMode mode, ExtractionScope scope) {
+        return entry(documentId, mode, scope)
+                .flatMap(directory -> read(directory.resolve(SUMMARY_FILE), StoredResultSummary.class));
+    }
+
+    public Optional<FormPage> page(String documentId, ProcessingMode mode, ExtractionScope scope, int pageIndex) {
+        return entry(documentId, mode, scope)
+                .flatMap(directory -> read(directory.resolve(pageFile(pageIndex)), FormPage.class));
+    }
+
+    /** Pages {@code offset} to {@code offset + limit - 1} in stored order; empty when the result is unknown. */
+    public Optional<List<FormPage>> pages(String documentId, ProcessingMode mode, ExtractionScope scope, int offset,
+                                          int limit) {
+        return entry(documentId, mode, scope).flatMap(directory -> read(directory.resolve(SUMMARY_FILE), StoredResultSummary.class)
+                .map(summary -> {
+                    List<Integer> indices = summary.pages();
+                    int from = Math.min(Math.max(0, offset), indices.size());
+                    int to = Math.min(indices.size(), from + Math.max(0, limit));
+                    List<FormPage> slice = new ArrayList<>(to - from);
+                    for (int index : indices.subList(from, to)) {
+                        read(directory.resolve(pageFile(index)), FormPage.class).ifPresent(slice::add);
+                    }
+                    return slice;
+                }));
+    }
+
+    /**
+     * Nodes of one page, optionally narrowed to {@code ids} and to a node type; {@code null} filters match
+     * everything. Only that page is read.
+     */
+    public Optional<List<LayoutNode>> nodes(String documentId, ProcessingMode mode, ExtractionScope scope,
+                                            int pageIndex, Set<String> ids, NodeType type) {
+        return page(documentId, mode, scope, pageIndex).map(page -> page.nodes().stream()
+                .filter(node -> ids == null || ids.isEmpty() || ids.contains(node.id()))
+                .filter(node -> type == null || node.type() == type)
+                .toList());
+    }
+
+    /** Deletes the results of {@code documentId} in every mode and scope. */
+    public boolean delete(String documentId) {
+        Path directory = directory(documentId);
+        if (!isEnabled() || directory == null || !Files.isDirectory(directory)) {
+            return false;
+        }
+        deleteTree(directory);
+        return true;
+    }
+
+    private Optional<Path> entry(String documentId, ProcessingMode mode, ExtractionScope scope) {
+        Path document = directory(documentId);
+        if (!isEnabled() || document == null || !Files.isDirectory(document)) {
+            return Optional.empty();
+        }
+        List<Path> candidates = new ArrayList<>();
+        if (mode != null) {
+            candidates.add(document.resolve(entryName(mode, scope)));
+        } else {
+            String suffix = "-" + scopeFingerprint(scope);
+            try (Stream<Path> entries = Files.list(document)) {
+                entries.filter(entry -> entry.getFileName().toString().endsWith(suffix)).forEach(candidates::add);
+            } catch (IOException ex) {
+                return Optional.empty();
+            }
+        }
+        Instant now = Instant.now();
+        Path latest = null;
+        Instant latestStoredAt = null;
+        for (Path directory : candidates) {
+            Optional<StoredResultSummary> summary = read(directory.resolve(SUMMARY_FILE), StoredResultSummary.class);
+            if (summary.isEmpty()) {
+                continue;
+            }
+            if (summary.get().expiresAt().isBefore(now)) {
+                deleteTree(directory);
+                continue;
+            }
+            if (latestStoredAt == null || summary.get().storedAt().isAfter(latestStoredAt)) {
+                latest = directory;
+                latestStoredAt = summary.get().storedAt();
+            }
+        }
+        if (latest == null) {
+            return Optional.empty();
+        }
+        try {
+            Files.setLastModifiedTime(latest, FileTime.from(now));
+        } catch (IOException ex) {
+            // Only affects eviction order.
+        }
+        return Optional.of(latest);
+    }
+
+    /**
+     * Drops expired entries and staging directories left behind by a crash, then the least recently read entries
+     * until the store fits {@code max-size}. Document directories left without entries are removed.
+     */
+    void evict() {
+        Path root = root();
+        if (!Files.isDirectory(root)) {
+            return;
+        }
+        Instant now = Instant.now();
+        List<Entry> entries = new ArrayList<>();
+        try (Stream<Path> directories = Files.list(root)) {
+            List<Path> stored = new ArrayList<>();
+            for (Path directory : directories.toList()) {
+                if (DOCUMENT_ID.matcher(directory.getFileName().toString()).matches()) {
+                    stored.add(directory);
+                } else if (directory.getFileName().toString().startsWith("tmp-")
+                        && Files.getLastModifiedTime(directory).toInstant().isBefore(now.minus(STALE_STAGING))) {
+                    deleteTree(directory);
+                }
+            }
+            for (Path document : stored) {
+                List<Path> children;
+                try (Stream<Path> listed = Files.list(document)) {
+                    children = listed.toList();
+                } catch (NoSuchFileException ex) {
+                    continue;
+                }
+                int kept = 0;
+                for (Path directory : children) {
+                    Optional<StoredResultSummary> summary = ENTRY.matcher(directory.getFileName().toString()).matches()
+                            ? read(directory.resolve(SUMMARY_FILE), StoredResultSummary.class)
+                            : Optional.empty();
+                    if (summary.isEmpty() || summary.get().expiresAt().isBefore(now)) {
+                        deleteTree(directory);
+                        continue;
+                    }
+                    entries.add(new Entry(directory, Files.getLastModifiedTime(directory).toInstant(), size(directory)));
+                    kept++;
+                }
+                if (kept == 0) {
+                    deleteIfEmpty(document);
+                }
+            }
+        } catch (IOException ex) {
+            log.warn("Unable to scan result store {}: {}", root, ex.getMessage());
+            return;
+        }
+
+        long budget = properties.getResults().getMaxSize().toBytes();
+        long total = entries.stream().mapToLong(Entry::bytes).sum();
+        entries.sort(Comparator.comparing(Entry::lastRead));
+        int evicted = 0;
+        for (Entry entry : entries) {
+            if (total <= budget) {
+                break;
+            }
+            deleteTree(entry.directory());
+            deleteIfEmpty(entry.directory().getParent());
+            total -= entry.bytes();
+            evicted++;
+        }
+        if (evicted > 0) {
+            log.info("Evicted {} stored result(s); {} bytes remain", evicted, total);
+        }
+    }
+
+    private void write(Path file, Object value) throws IOException {
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(file))) {
+            objectMapper.writeValue(out, value);
+        }
+    }
+
+    private <T> Optional<T> read(Path file, Class<T> type) {
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(file))) {
+            return Optional.of(objectMapper.readValue(in, type));
+        } catch (NoSuchFileException ex) {
+            return Optional.empty();
+        } catch (IOException ex) {
+            log.warn("Ignoring unreadable stored result {}: {}", file, ex.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    private Path root() {
+        String configured = properties.getResults().getDirectory();
+        if (configured == null || configured.isBlank()) {
+            return Paths.get(System.getProperty("java.io.tmpdir"), "content-management-forms", "results");
+        }
+        return Paths.get(configured);
+    }
+
+    private Path directory(String documentId) {
+        if (documentId == null || !DOCUMENT_ID.matcher(documentId).matches()) {
+            return null;
+        }
+        return root().resolve(documentId);
+    }
+
+    private static String entryName(ProcessingMode mode, ExtractionScope scope) {
+        return mode.name() + "-" + scopeFingerprint(scope);
+    }
+
+    private static String scopeFingerprint(ExtractionScope scope) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 is not available", ex);
+        }
+        for (String part : new String[] {scope.pageSpec(), scope.regionSpec()}) {
+            digest.update((part != null ? part : "").getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+        }
+        return HexFormat.of().formatHex(digest.digest(), 0, 8);
+    }
+
+    private static String pageFile(int pageIndex) {
+        return String.format("page-%04d.json.gz", pageIndex);
+    }
+
+    // Moves the previous entry aside first so the rename into place never targets a non-empty directory.
+    private static void replace(Path staging, Path target) throws IOException {
+        Path previous = staging.resolveSibling("tmp-old-" + System.nanoTime() + "-"
+                + target.getParent().getFileName() + "-" + target.getFileName());
+        boolean hadPrevious = false;
+        try {
+            Files.move(target, previous, StandardCopyOption.ATOMIC_MOVE);
+            hadPrevious = true;
+        } catch (NoSuchFileException ex) {
+            // First result for this document.
+        }
+        try {
+            Files.move(staging, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException ex) {
+            Files.move(staging, target);
+        }
+        if (hadPrevious) {
+            deleteTree(previous);
+        }
+    }
+
+    private static long size(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            long total = 0;
+            for (Path file : files.toList()) {
+                total += Files.size(file);
+            }
+            return total;
+        }
+    }
+
+    private static void deleteIfEmpty(Path directory) {
+        try {
+            Files.deleteIfExists(directory);
+        } catch (IOException ex) {
+            // Still holds other entries, or one is being written.
+        }
+    }
+
+    private static void deleteTree(Path directory) {
+        if (!Files.exists(directory)) {
+            return;
+        }
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(file);
+            }
+        } catch (IOException ex) {
+            log.warn("Unable to delete {}: {}", directory, ex.getMessage());
+        }
+    }
+
+    private record Entry(Path directory, Instant lastRead, long bytes) {
+    }
+}
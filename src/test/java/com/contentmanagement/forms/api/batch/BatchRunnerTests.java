@@ -0,0 +1,107 @@
+package com.contentmanagement.forms.api.batch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.contentmanagement.forms.api.config.FormProcessingProperties;
+import com.contentmanagement.forms.api.model.FormDocument;
+import com.contentmanagement.forms.api.model.PdfProcessingResult;
+import com.contentmanagement.forms.api.model.ProcessingMode;
+import com.contentmanagement.forms.api.service.PdfProcessingService;
+import com.contentmanagement.forms.api.service.extraction.CpuBudget;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.DefaultApplicationArguments;
+import org.springframework.web.multipart.MultipartFile;
+
+class BatchRunnerTests {
+
+    @TempDir
+    Path input;
+
+    @TempDir
+    Path output;
+
+    private final PdfProcessingService processingService = mock(PdfProcessingService.class);
+    private final FormProcessingProperties properties = new FormProcessingProperties();
+
+    @BeforeEach
+    void createInputs() throws IOException {
+        Files.write(input.resolve("a.pdf"), new byte[] {1});
+        Files.write(input.resolve("b.png"), new byte[] {2});
+        properties.getBatch().setInputDirectory(input.toString());
+        properties.getBatch().setOutputDirectory(output.toString());
+        properties.getBatch().setParallelism(1);
+    }
+
+    @Test
+    void partialJsonResultsAreKeptAsideAndRetriedOnRestart() throws Exception {
+        answer("a.pdf", PdfProcessingResult.PARTIAL);
+        answer("b.png", PdfProcessingResult.PROCESSED);
+
+        assertThat(run()).isZero();
+
+        assertThat(output.resolve("a.pdf.json")).doesNotExist();
+        assertThat(output.resolve("a.pdf.partial.json")).exists();
+        assertThat(output.resolve("b.png.json")).exists();
+
+        answer("a.pdf", PdfProcessingResult.PROCESSED);
+        assertThat(run()).isZero();
+
+        assertThat(output.resolve("a.pdf.json")).exists();
+        assertThat(output.resolve("a.pdf.partial.json")).doesNotExist();
+        verify(processingService, times(1)).processPdf(source("b.png"), any(), any(), any());
+    }
+
+    @Test
+    void partialNdjsonLinesDoNotMarkTheInputAsDone() throws Exception {
+        properties.getBatch().setFormat(FormProcessingProperties.Batch.Format.NDJSON);
+        answer("a.pdf", PdfProcessingResult.PARTIAL);
+        answer("b.png", PdfProcessingResult.PROCESSED);
+        run();
+
+        answer("a.pdf", PdfProcessingResult.PROCESSED);
+        run();
+
+        List<String> lines = Files.readAllLines(output.resolve("results.ndjson"), StandardCharsets.UTF_8);
+        assertThat(lines).hasSize(3);
+        assertThat(lines.get(2)).contains("\"source\":\"a.pdf\"").contains(PdfProcessingResult.PROCESSED);
+    }
+
+    @Test
+    void aFailedInputSetsTheExitCodeWithoutExitingTheJvm() throws Exception {
+        answer("b.png", PdfProcessingResult.PROCESSED);
+        when(processingService.processPdf(source("a.pdf"), any(), any(), any()))
+                .thenThrow(new IllegalArgumentException("unreadable"));
+
+        assertThat(run()).isEqualTo(1);
+    }
+
+    private int run() throws Exception {
+        BatchRunner runner = new BatchRunner(processingService, properties, new CpuBudget(properties),
+                new ObjectMapper().findAndRegisterModules());
+        runner.run(new DefaultApplicationArguments());
+        return runner.getExitCode();
+    }
+
+    private void answer(String source, String status) {
+        when(processingService.processPdf(source(source), any(), any(), any())).thenReturn(new PdfProcessingResult(
+                null, source, 1, ProcessingMode.OPENCV_ONLY, status, new FormDocument(null, List.of()), null));
+    }
+
+    private static MultipartFile source(String name) {
+        return argThat(file -> file != null && name.equals(file.getOriginalFilename()));
+    }
+}
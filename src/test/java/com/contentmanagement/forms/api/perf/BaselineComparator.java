@@ -0,0 +1,65 @@
+package com.contentmanagement.forms.api.perf;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+final class BaselineComparator {
+
+    private final HarnessOptions options;
+
+    BaselineComparator(HarnessOptions options) {
+        this.options = options;
+    }
+
+    List<String> regressions(HarnessReport baseline, HarnessReport current) {
+        List<String> regressions = new ArrayList<>();
+        if (!baseline.workload().equals(current.workload())) {
+            regressions.add("Workload differs from baseline (" + baseline.workload() + " vs " + current.workload()
+                    + "); refresh the baseline with --update-baseline");
+            return regressions;
+        }
+
+        Map<Integer, LevelResult> reference = baseline.levels().stream()
+                .collect(Collectors.toMap(LevelResult::concurrency, Function.identity()));
+        for (LevelResult level : current.levels()) {
+            LevelResult expected = reference.get(level.concurrency());
+            if (expected == null) {
+                continue;
+            }
+            if (level.errors() > expected.errors()) {
+                regressions.add(format(level, "errors", expected.errors(), level.errors()));
+            }
+            checkUpper(regressions, level, "p50", expected.p50Millis(), level.p50Millis(), options.latencyTolerance());
+            checkUpper(regressions, level, "p95", expected.p95Millis(), level.p95Millis(), options.latencyTolerance());
+            checkUpper(regressions, level, "p99", expected.p99Millis(), level.p99Millis(), options.latencyTolerance());
+            if (level.pagesPerSecond() < expected.pagesPerSecond() * (1 - options.throughputTolerance())) {
+                regressions.add(format(level, "pages/sec", expected.pagesPerSecond(), level.pagesPerSecond()));
+            }
+            if (expected.peakHeapBytes() > 0 && level.peakHeapBytes() > 0) {
+                checkUpper(regressions, level, "peak heap bytes", expected.peakHeapBytes(), level.peakHeapBytes(),
+                        options.memoryTolerance());
+            }
+            if (expected.peakRssBytes() > 0 && level.peakRssBytes() > 0) {
+                checkUpper(regressions, level, "peak RSS bytes", expected.peakRssBytes(), level.peakRssBytes(),
+                        options.memoryTolerance());
+            }
+        }
+        return regressions;
+    }
+
+    private void checkUpper(List<String> regressions, LevelResult level, String metric,
+                            double expected, double actual, double tolerance) {
+        if (actual > expected * (1 + tolerance)) {
+            regressions.add(format(level, metric, expected, actual));
+        }
+    }
+
+    private String format(LevelResult level, String metric, double expected, double actual) {
+        return String.format(Locale.ROOT, "concurrency %d: %s regressed from %.2f to %.2f",
+                level.concurrency(), metric, expected, actual);
+    }
+}
@@ -0,0 +1,254 @@
+package com.contentmanagement.forms.api.perf;
+
+import com.contentmanagement.forms.api.ContentManagementFormsApiApplication;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Accuracy-versus-latency evaluation of {@code POST /api/pdf} against golden documents.
+ *
+ * <p>The corpus is a directory of inputs ({@code .pdf}, {@code .png}, {@code .jpg}, {@code .tif}) each paired
+ * with a golden {@code <name>.json} in the API's document schema, as in {@code form-178v2.sample.json}; without
+ * {@code --corpus} a synthetic one with generated goldens is used and written to {@code target/eval/corpus}.
+ * Every input is extracted once and scored ({@link QualityScore}), then timed over {@code --repeat} further
+ * passes. {@code --sweep.<property>=a|b|c} restarts the in-process application for every combination of the
+ * swept values, so one run shows what a setting buys in accuracy for what it costs in time; the configurations
+ * on the Pareto front are flagged. The OCR cache is off unless a sweep or {@code --app.} argument turns it on,
+ * as it would otherwise time cache hits. Run with {@code mvn -Peval test-compile exec:java}.
+ */
+public final class EvaluationHarness {
+
+    private static final Duration REQUEST_TIMEOUT = Duration.ofMinutes(5);
+    private static final Map<String, String> INPUT_TYPES = Map.of(
+            "pdf", "application/pdf",
+            "png", "image/png",
+            "jpg", "image/jpeg",
+            "jpeg", "image/jpeg",
+            "tif", "image/tiff",
+            "tiff", "image/tiff");
+    private static final Map<String, String> DEFAULT_APP_PROPERTIES = Map.of(
+            "server.port", "0",
+            "form.processing.ocr-cache.enabled", "false");
+
+    private final EvaluationOptions options;
+    private final HttpClient client = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+    private final ObjectMapper mapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+    private EvaluationHarness(EvaluationOptions options) {
+        this.options = options;
+    }
+
+    public static void main(String[] args) throws Exception {
+        EvaluationOptions options = EvaluationOptions.parse(args);
+        int exitCode = new EvaluationHarness(options).run();
+        System.exit(exitCode);
+    }
+
+    private record Sample(String name, byte[] content, String contentType, String mode, ScoredDocument golden,
+                          int pages) {
+    }
+
+    private int run() throws Exception {
+        List<Sample> corpus = options.corpus() != null ? readCorpus(options.corpus()) : generateCorpus();
+        if (corpus.isEmpty()) {
+            System.err.println("No input with a golden document found in " + options.corpus());
+            return 1;
+        }
+
+        List<EvaluationResult> results = new ArrayList<>();
+        for (Map<String, String> configuration : options.configurations()) {
+            ConfigurableApplicationContext application = null;
+            try {
+                String baseUrl = options.targetUrl();
+                if (options.inProcess()) {
+                    application = startApplication(configuration);
+                    int port = ((WebServerApplicationContext) application).getWebServer().getPort();
+                    baseUrl = "http://localhost:" + port;
+                }
+                EvaluationResult result = evaluate(baseUrl, corpus, configuration);
+                results.add(result);
+                print(result);
+            } finally {
+                if (application != null) {
+                    application.close();
+                }
+            }
+        }
+
+        results = EvaluationResult.markParetoFront(results);
+        System.out.println("Pareto front:");
+        results.stream().filter(EvaluationResult::pareto).forEach(this::print);
+
+        EvaluationReport report = new EvaluationReport(Instant.now().toString(),
+                options.corpus() != null ? options.corpus().toAbsolutePath().toString() : "synthetic",
+                corpus.size(), options.repeat(), options.minIou(), results);
+        Path parent = options.report().toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        mapper.writeValue(options.report().toFile(), report);
+        System.out.println("Report written to " + options.report().toAbsolutePath());
+        return results.stream().allMatch(result -> result.errors() == 0) ? 0 : 1;
+    }
+
+    private List<Sample> readCorpus(Path directory) throws IOException {
+        List<Sample> corpus = new ArrayList<>();
+        List<Path> inputs;
+        try (Stream<Path> files = Files.list(directory)) {
+            inputs = files.filter(Files::isRegularFile)
+                    .filter(file -> INPUT_TYPES.containsKey(extension(file)))
+                    .sorted()
+                    .toList();
+        }
+        for (Path input : inputs) {
+            String fileName = input.getFileName().toString();
+            String name = fileName.substring(0, fileName.lastIndexOf('.'));
+            Path goldenFile = input.resolveSibling(name + ".json");
+            if (!Files.exists(goldenFile)) {
+                System.err.println("Skipping " + fileName + ": no " + goldenFile.getFileName());
+                continue;
+            }
+            JsonNode golden = mapper.readTree(goldenFile.toFile());
+            String extension = extension(input);
+            String mode = options.mode() != null ? options.mode()
+                    : "pdf".equals(extension) ? "PDF_BOX_WITH_OPENCV" : "OPENCV_ONLY";
+            corpus.add(new Sample(fileName, Files.readAllBytes(input), INPUT_TYPES.get(extension), mode,
+                    ScoredDocument.from(golden), Math.max(1, golden.path("pages").size())));
+        }
+        return corpus;
+    }
+
+    private List<Sample> generateCorpus() throws IOException {
+        SyntheticFormGenerator generator = new SyntheticFormGenerator(options.seed());
+        Path directory = Path.of("target", "eval", "corpus");
+        Files.createDirectories(directory);
+        String mode = options.mode() != null ? options.mode() : "PDF_BOX_WITH_OPENCV";
+        List<Sample> corpus = new ArrayList<>(options.documents());
+        for (int i = 0; i < options.documents(); i++) {
+            SyntheticFormGenerator.Generated generated = generator.generateWithGolden(
+                    options.pagesPerDocument(), options.fieldsPerPage(), options.scannedRatio());
+            String name = "synthetic-" + i;
+            Files.write(directory.resolve(name + ".pdf"), generated.pdf());
+            mapper.writeValue(directory.resolve(name + ".json").toFile(), generated.golden());
+            corpus.add(new Sample(name + ".pdf", generated.pdf(), "application/pdf", mode,
+                    ScoredDocument.from(mapper.valueToTree(generated.golden())), options.pagesPerDocument()));
+        }
+        return corpus;
+    }
+
+    // Later sources win: harness defaults, then --app. arguments, then the swept values.
+    private ConfigurableApplicationContext startApplication(Map<String, String> configuration) {
+        Map<String, String> properties = new LinkedHashMap<>(DEFAULT_APP_PROPERTIES);
+        for (String arg : options.appArgs()) {
+            int separator = arg.indexOf('=');
+            properties.put(separator > 0 ? arg.substring(2, separator) : arg.substring(2),
+                    separator > 0 ? arg.substring(separator + 1) : "true");
+        }
+        properties.putAll(configuration);
+        String[] args = properties.entrySet().stream()
+                .map(property -> "--" + property.getKey() + "=" + property.getValue())
+                .toArray(String[]::new);
+        return SpringApplication.run(ContentManagementFormsApiApplication.class, args);
+    }
+
+    private EvaluationResult evaluate(String baseUrl, List<Sample> corpus, Map<String, String> configuration)
+            throws IOException, InterruptedException {
+        QualityScore quality = QualityScore.EMPTY;
+        int errors = 0;
+        int partial = 0;
+        for (Sample sample : corpus) {
+            HttpResponse<String> response = send(baseUrl, sample);
+            if (response == null || response.statusCode() / 100 != 2) {
+                errors++;
+                System.err.println(sample.name() + " failed"
+                        + (response != null ? " with " + response.statusCode() + ": " + response.body() : ""));
+                quality = quality.plus(QualityScore.score(sample.golden(),
+                        new ScoredDocument(Map.of()), options.minIou()));
+                continue;
+            }
+            JsonNode result = mapper.readTree(response.body());
+            if ("PARTIAL".equals(result.path("status").asText())) {
+                partial++;
+            }
+            quality = quality.plus(QualityScore.score(sample.golden(),
+                    ScoredDocument.from(result.path("document")), options.minIou()));
+        }
+
+        long[] latencies = new long[corpus.size() * options.repeat()];
+        for (int pass = 0; pass < options.repeat(); pass++) {
+            for (int i = 0; i < corpus.size(); i++) {
+                long begin = System.nanoTime();
+                HttpResponse<String> response = send(baseUrl, corpus.get(i));
+                latencies[pass * corpus.size() + i] = System.nanoTime() - begin;
+                if (response == null || response.statusCode() / 100 != 2) {
+                    errors++;
+                }
+            }
+        }
+        long pagesPerPass = corpus.stream().mapToLong(Sample::pages).sum();
+        return EvaluationResult.from(configuration, corpus.size(), errors, partial, latencies, pagesPerPass, quality);
+    }
+
+    private HttpResponse<String> send(String baseUrl, Sample sample) throws InterruptedException {
+        String boundary = "eval-" + UUID.randomUUID();
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/api/pdf?mode=" + sample.mode()))
+                .timeout(REQUEST_TIMEOUT)
+                .header("Content-Type", "multipart/form-data; boundary=" + boundary)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(LoadHarness.multipartBody(
+                        boundary, sample.content(), sample.name(), sample.contentType())))
+                .build();
+        try {
+            return client.send(request, HttpResponse.BodyHandlers.ofString());
+        } catch (IOException ex) {
+            return null;
+        }
+    }
+
+    private void print(EvaluationResult result) {
+        String configuration = result.configuration().isEmpty() ? "(defaults)"
+                : result.configuration().entrySet().stream()
+                        .map(property -> property.getKey() + "=" + property.getValue())
+                        .collect(Collectors.joining(" "));
+        System.out.printf(Locale.ROOT,
+                "mean=%8.1fms p95=%8.1fms pages/s=%6.2f precision=%.3f recall=%.3f f1=%.3f cer=%.3f errors=%d partial=%d %s%n",
+                result.meanMillis(),
+                result.p95Millis(),
+                result.pagesPerSecond(),
+                result.precision(),
+                result.recall(),
+                result.f1(),
+                result.characterErrorRate(),
+                result.errors(),
+                result.partial(),
+                configuration);
+    }
+
+    private static String extension(Path file) {
+        String name = file.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        return dot < 0 ? "" : name.substring(dot + 1).toLowerCase(Locale.ROOT);
+    }
+}
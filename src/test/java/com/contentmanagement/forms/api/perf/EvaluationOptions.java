@@ -0,0 +1,99 @@
+package com.contentmanagement.forms.api.perf;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+record EvaluationOptions(
+        String targetUrl,
+        Path corpus,
+        String mode,
+        int documents,
+        int pagesPerDocument,
+        int fieldsPerPage,
+        double scannedRatio,
+        long seed,
+        int repeat,
+        double minIou,
+        Map<String, List<String>> sweep,
+        Path report,
+        List<String> appArgs
+) {
+
+    private static final String SWEEP_PREFIX = "--sweep.";
+
+    static EvaluationOptions parse(String[] args) {
+        Map<String, String> values = new HashMap<>();
+        Map<String, List<String>> sweep = new LinkedHashMap<>();
+        List<String> appArgs = new ArrayList<>();
+        for (String arg : args) {
+            if (arg.startsWith("--app.")) {
+                appArgs.add("--" + arg.substring("--app.".length()));
+                continue;
+            }
+            if (arg.startsWith(SWEEP_PREFIX)) {
+                // Values are separated by '|' so that list-valued properties can keep their commas.
+                int separator = arg.indexOf('=');
+                if (separator < 0) {
+                    throw new IllegalArgumentException("Sweep without values: " + arg);
+                }
+                sweep.put(arg.substring(SWEEP_PREFIX.length(), separator),
+                        Arrays.stream(arg.substring(separator + 1).split("\\|")).map(String::trim).toList());
+                continue;
+            }
+            if (!arg.startsWith("--")) {
+                throw new IllegalArgumentException("Unrecognised argument: " + arg);
+            }
+            int separator = arg.indexOf('=');
+            String key = separator > 0 ? arg.substring(2, separator) : arg.substring(2);
+            String value = separator > 0 ? arg.substring(separator + 1) : "true";
+            values.put(key, value);
+        }
+
+        EvaluationOptions options = new EvaluationOptions(
+                values.get("target-url"),
+                values.containsKey("corpus") ? Path.of(values.get("corpus")) : null,
+                values.get("mode"),
+                Integer.parseInt(values.getOrDefault("documents", "4")),
+                Integer.parseInt(values.getOrDefault("pages", "2")),
+                Integer.parseInt(values.getOrDefault("fields", "24")),
+                Double.parseDouble(values.getOrDefault("scanned-ratio", "0.5")),
+                Long.parseLong(values.getOrDefault("seed", "178")),
+                Integer.parseInt(values.getOrDefault("repeat", "3")),
+                Double.parseDouble(values.getOrDefault("iou", "0.5")),
+                sweep,
+                Path.of(values.getOrDefault("report", "target/eval/report.json")),
+                List.copyOf(appArgs)
+        );
+        if (!options.inProcess() && !sweep.isEmpty()) {
+            throw new IllegalArgumentException("--sweep.* needs an in-process application; drop --target-url");
+        }
+        return options;
+    }
+
+    boolean inProcess() {
+        return targetUrl == null || targetUrl.isBlank();
+    }
+
+    /** Every combination of the swept values, in declaration order; a single empty one without a sweep. */
+    List<Map<String, String>> configurations() {
+        List<Map<String, String>> configurations = new ArrayList<>();
+        configurations.add(Map.of());
+        for (Map.Entry<String, List<String>> property : sweep.entrySet()) {
+            List<Map<String, String>> expanded = new ArrayList<>();
+            for (Map<String, String> configuration : configurations) {
+                for (String value : property.getValue()) {
+                    Map<String, String> next = new LinkedHashMap<>(configuration);
+                    next.put(property.getKey(), value);
+                    expanded.add(next);
+                }
+            }
+            configurations = expanded;
+        }
+        return configurations;
+    }
+}
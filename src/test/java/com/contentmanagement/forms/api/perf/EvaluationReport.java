@@ -0,0 +1,13 @@
+package com.contentmanagement.forms.api.perf;
+
+import java.util.List;
+
+record EvaluationReport(
+        String recordedAt,
+        String corpus,
+        int documents,
+        int repeat,
+        double minIou,
+        List<EvaluationResult> configurations
+) {
+}
@@ -0,0 +1,72 @@
+package com.contentmanagement.forms.api.perf;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+record EvaluationResult(
+        Map<String, String> configuration,
+        int documents,
+        int errors,
+        int partial,
+        double meanMillis,
+        double p95Millis,
+        double pagesPerSecond,
+        double precision,
+        double recall,
+        double f1,
+        double characterErrorRate,
+        boolean pareto
+) {
+
+    static EvaluationResult from(Map<String, String> configuration,
+                                 int documents,
+                                 int errors,
+                                 int partial,
+                                 long[] latenciesNanos,
+                                 long pagesPerPass,
+                                 QualityScore quality) {
+        long[] sorted = latenciesNanos.clone();
+        Arrays.sort(sorted);
+        double totalSeconds = Arrays.stream(sorted).sum() / 1_000_000_000d;
+        int passes = documents == 0 ? 0 : sorted.length / documents;
+        return new EvaluationResult(
+                configuration,
+                documents,
+                errors,
+                partial,
+                sorted.length == 0 ? 0 : Arrays.stream(sorted).average().orElse(0) / 1_000_000d,
+                sorted.length == 0 ? 0 : sorted[(int) Math.ceil(0.95 * sorted.length) - 1] / 1_000_000d,
+                totalSeconds > 0 ? pagesPerPass * passes / totalSeconds : 0,
+                quality.precision(),
+                quality.recall(),
+                quality.f1(),
+                quality.characterErrorRate(),
+                false);
+    }
+
+    /**
+     * Marks the configurations no other one beats on latency, detection F1 and character error rate at once:
+     * the trade-offs worth choosing between. Everything off the front is slower and no more accurate than
+     * something on it.
+     */
+    static List<EvaluationResult> markParetoFront(List<EvaluationResult> results) {
+        return results.stream()
+                .map(candidate -> candidate.withPareto(candidate.errors() == 0
+                        && results.stream().noneMatch(other -> other.errors() == 0 && other.dominates(candidate))))
+                .toList();
+    }
+
+    private boolean dominates(EvaluationResult other) {
+        boolean noWorse = meanMillis <= other.meanMillis && f1 >= other.f1
+                && characterErrorRate <= other.characterErrorRate;
+        boolean better = meanMillis < other.meanMillis || f1 > other.f1
+                || characterErrorRate < other.characterErrorRate;
+        return noWorse && better;
+    }
+
+    private EvaluationResult withPareto(boolean onFront) {
+        return new EvaluationResult(configuration, documents, errors, partial, meanMillis, p95Millis, pagesPerSecond,
+                precision, recall, f1, characterErrorRate, onFront);
+    }
+}
@@ -0,0 +1,76 @@
+package com.contentmanagement.forms.api.perf;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+record HarnessOptions(
+        String targetUrl,
+        Long targetPid,
+        String mode,
+        List<Integer> concurrencyLevels,
+        int requestsPerLevel,
+        int warmupRequests,
+        int documents,
+        int pagesPerDocument,
+        int fieldsPerPage,
+        double scannedRatio,
+        long seed,
+        Path baseline,
+        Path report,
+        boolean updateBaseline,
+        double latencyTolerance,
+        double throughputTolerance,
+        double memoryTolerance,
+        List<String> appArgs
+) {
+
+    static HarnessOptions parse(String[] args) {
+        Map<String, String> values = new HashMap<>();
+        List<String> appArgs = new ArrayList<>();
+        for (String arg : args) {
+            if (arg.startsWith("--app.")) {
+                appArgs.add("--" + arg.substring("--app.".length()));
+                continue;
+            }
+            if (!arg.startsWith("--")) {
+                throw new IllegalArgumentException("Unrecognised argument: " + arg);
+            }
+            int separator = arg.indexOf('=');
+            String key = separator > 0 ? arg.substring(2, separator) : arg.substring(2);
+            String value = separator > 0 ? arg.substring(separator + 1) : "true";
+            values.put(key, value);
+        }
+
+        return new HarnessOptions(
+                values.get("target-url"),
+                values.containsKey("target-pid") ? Long.parseLong(values.get("target-pid")) : null,
+                values.getOrDefault("mode", "PDF_BOX_WITH_OPENCV"),
+                Arrays.stream(values.getOrDefault("concurrency", "1,4,8").split(","))
+                        .map(String::trim)
+                        .map(Integer::parseInt)
+                        .toList(),
+                Integer.parseInt(values.getOrDefault("requests", "40")),
+                Integer.parseInt(values.getOrDefault("warmup", "8")),
+                Integer.parseInt(values.getOrDefault("documents", "6")),
+                Integer.parseInt(values.getOrDefault("pages", "2")),
+                Integer.parseInt(values.getOrDefault("fields", "24")),
+                Double.parseDouble(values.getOrDefault("scanned-ratio", "0.5")),
+                Long.parseLong(values.getOrDefault("seed", "178")),
+                Path.of(values.getOrDefault("baseline", "perf/baseline.json")),
+                Path.of(values.getOrDefault("report", "target/perf/report.json")),
+                Boolean.parseBoolean(values.getOrDefault("update-baseline", "false")),
+                Double.parseDouble(values.getOrDefault("latency-tolerance", "0.15")),
+                Double.parseDouble(values.getOrDefault("throughput-tolerance", "0.10")),
+                Double.parseDouble(values.getOrDefault("memory-tolerance", "0.20")),
+                List.copyOf(appArgs)
+        );
+    }
+
+    boolean inProcess() {
+        return targetUrl == null || targetUrl.isBlank();
+    }
+}
@@ -0,0 +1,28 @@
+package com.contentmanagement.forms.api.perf;
+
+import java.util.List;
+
+record HarnessReport(String recordedAt, Workload workload, List<LevelResult> levels) {
+
+    record Workload(
+            String mode,
+            int documents,
+            int pagesPerDocument,
+            int fieldsPerPage,
+            double scannedRatio,
+            long seed,
+            int requestsPerLevel
+    ) {
+
+        static Workload of(HarnessOptions options) {
+            return new Workload(
+                    options.mode(),
+                    options.documents(),
+                    options.pagesPerDocument(),
+                    options.fieldsPerPage(),
+                    options.scannedRatio(),
+                    options.seed(),
+                    options.requestsPerLevel());
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.contentmanagement.forms.api.perf;
+
+import java.util.Arrays;
+
+record LevelResult(
+        int concurrency,
+        int requests,
+        int errors,
+        double p50Millis,
+        double p95Millis,
+        double p99Millis,
+        double pagesPerSecond,
+        long peakHeapBytes,
+        long peakRssBytes
+) {
+
+    static LevelResult from(int concurrency,
+                            long[] latenciesNanos,
+                            int errors,
+                            long totalPages,
+                            long elapsedNanos,
+                            long peakHeapBytes,
+                            long peakRssBytes) {
+        // Failed requests are recorded as -1 and left out of the percentiles; they count as errors instead.
+        long[] sorted = Arrays.stream(latenciesNanos).filter(latency -> latency >= 0).sorted().toArray();
+        double seconds = elapsedNanos / 1_000_000_000d;
+        return new LevelResult(
+                concurrency,
+                latenciesNanos.length,
+                errors,
+                percentileMillis(sorted, 0.50),
+                percentileMillis(sorted, 0.95),
+                percentileMillis(sorted, 0.99),
+                seconds > 0 ? totalPages / seconds : 0,
+                peakHeapBytes,
+                peakRssBytes);
+    }
+
+    private static double percentileMillis(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(percentile * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(rank, sorted.length - 1))] / 1_000_000d;
+    }
+}
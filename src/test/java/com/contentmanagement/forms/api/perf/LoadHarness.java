@@ -0,0 +1,222 @@
+package com.contentmanagement.forms.api.perf;
+
+import com.contentmanagement.forms.api.ContentManagementFormsApiApplication;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Throughput and latency regression harness for {@code POST /api/pdf}.
+ *
+ * <p>Generates a synthetic PDF corpus, drives either an in-process instance of the application or an
+ * externally started one ({@code --target-url}) at each configured concurrency level, and compares the
+ * measured p50/p95/p99 latency, pages/sec and peak memory against a stored baseline. Any regression beyond
+ * the configured tolerances, or a missing baseline, exits non-zero. Run with
+ * {@code mvn -Pperf test-compile exec:java}.
+ */
+public final class LoadHarness {
+
+    private static final Duration REQUEST_TIMEOUT = Duration.ofMinutes(5);
+
+    private final HarnessOptions options;
+    private final HttpClient client = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+    private final ObjectMapper mapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+    private LoadHarness(HarnessOptions options) {
+        this.options = options;
+    }
+
+    public static void main(String[] args) throws Exception {
+        HarnessOptions options = HarnessOptions.parse(args);
+        int exitCode = new LoadHarness(options).run();
+        System.exit(exitCode);
+    }
+
+    private int run() throws Exception {
+        List<byte[]> corpus = generateCorpus();
+        ConfigurableApplicationContext application = null;
+        try {
+            String baseUrl = options.targetUrl();
+            if (options.inProcess()) {
+                application = startApplication();
+                int port = ((WebServerApplicationContext) application).getWebServer().getPort();
+                baseUrl = "http://localhost:" + port;
+            }
+            URI endpoint = URI.create(baseUrl + "/api/pdf?mode=" + options.mode());
+
+            runLevel(endpoint, corpus, 1, options.warmupRequests());
+
+            List<LevelResult> levels = new ArrayList<>();
+            for (int concurrency : options.concurrencyLevels()) {
+                LevelResult result = runLevel(endpoint, corpus, concurrency, options.requestsPerLevel());
+                levels.add(result);
+                print(result);
+            }
+
+            HarnessReport report = new HarnessReport(Instant.now().toString(), HarnessReport.Workload.of(options), levels);
+            write(options.report(), report);
+            return compareWithBaseline(report);
+        } finally {
+            if (application != null) {
+                application.close();
+            }
+        }
+    }
+
+    private List<byte[]> generateCorpus() throws IOException {
+        SyntheticFormGenerator generator = new SyntheticFormGenerator(options.seed());
+        List<byte[]> corpus = new ArrayList<>(options.documents());
+        for (int i = 0; i < options.documents(); i++) {
+            corpus.add(generator.generate(options.pagesPerDocument(), options.fieldsPerPage(), options.scannedRatio()));
+        }
+        return corpus;
+    }
+
+    private ConfigurableApplicationContext startApplication() {
+        List<String> args = new ArrayList<>();
+        args.add("--server.port=0");
+        args.addAll(options.appArgs());
+        return SpringApplication.run(ContentManagementFormsApiApplication.class, args.toArray(String[]::new));
+    }
+
+    private LevelResult runLevel(URI endpoint, List<byte[]> corpus, int concurrency, int requests)
+            throws InterruptedException {
+        long[] latencies = new long[requests];
+        AtomicInteger next = new AtomicInteger();
+        AtomicInteger completed = new AtomicInteger();
+        AtomicInteger errors = new AtomicInteger();
+
+        ExecutorService workers = Executors.newFixedThreadPool(concurrency);
+        long started;
+        long elapsed;
+        try (MemorySampler sampler = new MemorySampler(options.inProcess(), options.targetPid())) {
+            started = System.nanoTime();
+            for (int worker = 0; worker < concurrency; worker++) {
+                workers.submit(() -> {
+                    int request;
+                    while ((request = next.getAndIncrement()) < requests) {
+                        byte[] pdf = corpus.get(request % corpus.size());
+                        long begin = System.nanoTime();
+                        boolean ok = send(endpoint, pdf, request);
+                        latencies[request] = ok ? System.nanoTime() - begin : -1;
+                        if (ok) {
+                            completed.incrementAndGet();
+                        } else {
+                            errors.incrementAndGet();
+                        }
+                    }
+                });
+            }
+            workers.shutdown();
+            workers.awaitTermination(1, TimeUnit.HOURS);
+            elapsed = System.nanoTime() - started;
+
+            long pages = (long) completed.get() * options.pagesPerDocument();
+            return LevelResult.from(concurrency, latencies, errors.get(), pages, elapsed,
+                    sampler.peakHeapBytes(), sampler.peakRssBytes());
+        }
+    }
+
+    private boolean send(URI endpoint, byte[] pdf, int requestIndex) {
+        String boundary = "perf-" + UUID.randomUUID();
+        HttpRequest request = HttpRequest.newBuilder(endpoint)
+                .timeout(REQUEST_TIMEOUT)
+                .header("Content-Type", "multipart/form-data; boundary=" + boundary)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(
+                        multipartBody(boundary, pdf, "synthetic-" + requestIndex + ".pdf", "application/pdf")))
+                .build();
+        try {
+            HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+            return response.statusCode() / 100 == 2;
+        } catch (IOException ex) {
+            return false;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    static byte[] multipartBody(String boundary, byte[] content, String filename, String contentType) {
+        ByteArrayOutputStream body = new ByteArrayOutputStream(content.length + 256);
+        String header = "--" + boundary + "\r\n"
+                + "Content-Disposition: form-data; name=\"file\"; filename=\"" + filename + "\"\r\n"
+                + "Content-Type: " + contentType + "\r\n\r\n";
+        body.writeBytes(header.getBytes(StandardCharsets.US_ASCII));
+        body.writeBytes(content);
+        body.writeBytes(("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.US_ASCII));
+        return body.toByteArray();
+    }
+
+    private int compareWithBaseline(HarnessReport report) throws IOException {
+        Path baselinePath = options.baseline();
+        if (options.updateBaseline()) {
+            write(baselinePath, report);
+            System.out.println("Baseline written to " + baselinePath.toAbsolutePath());
+            return 0;
+        }
+        if (!Files.exists(baselinePath)) {
+            System.err.println("No baseline at " + baselinePath.toAbsolutePath()
+                    + "; record one on the reference machine with --update-baseline");
+            return 1;
+        }
+
+        HarnessReport baseline = mapper.readValue(baselinePath.toFile(), HarnessReport.class);
+        List<String> regressions = new BaselineComparator(options).regressions(baseline, report);
+        if (regressions.isEmpty()) {
+            System.out.println("No regressions against " + baselinePath.toAbsolutePath());
+            return 0;
+        }
+        System.err.println("PERFORMANCE REGRESSION against " + baselinePath.toAbsolutePath() + ":");
+        regressions.forEach(regression -> System.err.println("  " + regression));
+        return 1;
+    }
+
+    private void write(Path path, HarnessReport report) throws IOException {
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        mapper.writeValue(path.toFile(), report);
+    }
+
+    private void print(LevelResult result) {
+        System.out.printf(Locale.ROOT,
+                "concurrency=%-3d requests=%-4d errors=%-3d p50=%8.1fms p95=%8.1fms p99=%8.1fms pages/s=%7.2f heap=%s rss=%s%n",
+                result.concurrency(),
+                result.requests(),
+                result.errors(),
+                result.p50Millis(),
+                result.p95Millis(),
+                result.p99Millis(),
+                result.pagesPerSecond(),
+                megabytes(result.peakHeapBytes()),
+                megabytes(result.peakRssBytes()));
+    }
+
+    private String megabytes(long bytes) {
+        return bytes < 0 ? "n/a" : String.format(Locale.ROOT, "%.1fMB", bytes / (1024d * 1024d));
+    }
+}
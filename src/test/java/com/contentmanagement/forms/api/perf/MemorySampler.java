@@ -0,0 +1,80 @@
+package com.contentmanagement.forms.api.perf;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tracks peak heap and resident set size while a load level runs. Heap is only observable when the app runs
+ * in-process; RSS is read from {@code /proc/<pid>/status} and is unavailable on platforms without procfs.
+ */
+final class MemorySampler implements AutoCloseable {
+
+    private static final long SAMPLE_INTERVAL_MS = 50;
+
+    private final MemoryMXBean memoryBean = ManagementFactory.getMemoryMXBean();
+    private final boolean inProcess;
+    private final Path statusFile;
+    private final AtomicLong peakHeapBytes = new AtomicLong(-1);
+    private final AtomicLong peakRssBytes = new AtomicLong(-1);
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "perf-memory-sampler");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    MemorySampler(boolean inProcess, Long pid) {
+        this.inProcess = inProcess;
+        this.statusFile = pid != null ? Path.of("/proc", pid.toString(), "status") : Path.of("/proc/self/status");
+        scheduler.scheduleAtFixedRate(this::sample, 0, SAMPLE_INTERVAL_MS, TimeUnit.MILLISECONDS);
+    }
+
+    long peakHeapBytes() {
+        return peakHeapBytes.get();
+    }
+
+    long peakRssBytes() {
+        return peakRssBytes.get();
+    }
+
+    private void sample() {
+        if (inProcess) {
+            peakHeapBytes.accumulateAndGet(memoryBean.getHeapMemoryUsage().getUsed(), Math::max);
+        }
+        long rss = readRss();
+        if (rss > 0) {
+            peakRssBytes.accumulateAndGet(rss, Math::max);
+        }
+    }
+
+    private long readRss() {
+        if (!Files.isReadable(statusFile)) {
+            return -1;
+        }
+        try {
+            List<String> lines = Files.readAllLines(statusFile);
+            for (String line : lines) {
+                if (line.startsWith("VmRSS:")) {
+                    String[] parts = line.trim().split("\\s+");
+                    return Long.parseLong(parts[1]) * 1024L;
+                }
+            }
+        } catch (IOException | RuntimeException ex) {
+            return -1;
+        }
+        return -1;
+    }
+
+    @Override
+    public void close() {
+        sample();
+        scheduler.shutdownNow();
+    }
+}
@@ -0,0 +1,119 @@
+package com.contentmanagement.forms.api.perf;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Detection and text accuracy of one result against its golden, summed so scores of pages and documents add up
+ * (micro-averaged). Detection counts a predicted node as correct when it has the golden node's type and an IoU of
+ * at least the threshold, matching pairs greedily from the highest IoU down; golden nodes without a box are left
+ * out of detection and count only towards the page text. Text accuracy is the character error rate: the
+ * Levenshtein distance between the whitespace-normalised page texts in reading order over the golden length.
+ */
+record QualityScore(long goldenBoxes, long predictedBoxes, long matched, long editDistance, long referenceChars) {
+
+    static final QualityScore EMPTY = new QualityScore(0, 0, 0, 0, 0);
+
+    static QualityScore score(ScoredDocument golden, ScoredDocument predicted, double minIou) {
+        QualityScore total = EMPTY;
+        for (var entry : golden.pages().entrySet()) {
+            ScoredDocument.Page predictedPage = predicted.pages().get(entry.getKey());
+            total = total.plus(score(entry.getValue(), predictedPage != null ? predictedPage
+                    : new ScoredDocument.Page(List.of(), ""), minIou));
+        }
+        return total;
+    }
+
+    static QualityScore score(ScoredDocument.Page golden, ScoredDocument.Page predicted, double minIou) {
+        List<ScoredDocument.Node> goldenBoxes = boxed(golden.nodes());
+        // A golden page without any boxes says nothing about detection, so its predictions are not false positives.
+        List<ScoredDocument.Node> predictedBoxes = goldenBoxes.isEmpty() ? List.of() : boxed(predicted.nodes());
+
+        List<double[]> candidates = new ArrayList<>();
+        for (int g = 0; g < goldenBoxes.size(); g++) {
+            for (int p = 0; p < predictedBoxes.size(); p++) {
+                if (!goldenBoxes.get(g).type().equals(predictedBoxes.get(p).type())) {
+                    continue;
+                }
+                double iou = iou(goldenBoxes.get(g).box(), predictedBoxes.get(p).box());
+                if (iou >= minIou) {
+                    candidates.add(new double[] {iou, g, p});
+                }
+            }
+        }
+        candidates.sort(Comparator.comparingDouble((double[] candidate) -> -candidate[0]));
+        boolean[] goldenUsed = new boolean[goldenBoxes.size()];
+        boolean[] predictedUsed = new boolean[predictedBoxes.size()];
+        int matched = 0;
+        for (double[] candidate : candidates) {
+            int g = (int) candidate[1];
+            int p = (int) candidate[2];
+            if (!goldenUsed[g] && !predictedUsed[p]) {
+                goldenUsed[g] = true;
+                predictedUsed[p] = true;
+                matched++;
+            }
+        }
+
+        return new QualityScore(goldenBoxes.size(), predictedBoxes.size(), matched,
+                levenshtein(golden.text(), predicted.text()), golden.text().length());
+    }
+
+    QualityScore plus(QualityScore other) {
+        return new QualityScore(goldenBoxes + other.goldenBoxes, predictedBoxes + other.predictedBoxes,
+                matched + other.matched, editDistance + other.editDistance, referenceChars + other.referenceChars);
+    }
+
+    double precision() {
+        return predictedBoxes == 0 ? (goldenBoxes == 0 ? 1 : 0) : (double) matched / predictedBoxes;
+    }
+
+    double recall() {
+        return goldenBoxes == 0 ? 1 : (double) matched / goldenBoxes;
+    }
+
+    double f1() {
+        double precision = precision();
+        double recall = recall();
+        return precision + recall == 0 ? 0 : 2 * precision * recall / (precision + recall);
+    }
+
+    double characterErrorRate() {
+        return referenceChars == 0 ? (editDistance == 0 ? 0 : 1) : (double) editDistance / referenceChars;
+    }
+
+    private static List<ScoredDocument.Node> boxed(List<ScoredDocument.Node> nodes) {
+        return nodes.stream().filter(node -> node.box() != null).toList();
+    }
+
+    private static double iou(double[] a, double[] b) {
+        double width = Math.min(a[0] + a[2], b[0] + b[2]) - Math.max(a[0], b[0]);
+        double height = Math.min(a[1] + a[3], b[1] + b[3]) - Math.max(a[1], b[1]);
+        if (width <= 0 || height <= 0) {
+            return 0;
+        }
+        double intersection = width * height;
+        return intersection / (a[2] * a[3] + b[2] * b[3] - intersection);
+    }
+
+    private static long levenshtein(String reference, String hypothesis) {
+        int[] previous = new int[hypothesis.length() + 1];
+        int[] current = new int[hypothesis.length() + 1];
+        for (int j = 0; j <= hypothesis.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= reference.length(); i++) {
+            current[0] = i;
+            char expected = reference.charAt(i - 1);
+            for (int j = 1; j <= hypothesis.length(); j++) {
+                int substitution = previous[j - 1] + (expected == hypothesis.charAt(j - 1) ? 0 : 1);
+                current[j] = Math.min(substitution, Math.min(previous[j], current[j - 1]) + 1);
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return previous[hypothesis.length()];
+    }
+}
@@ -0,0 +1,111 @@
+package com.contentmanagement.forms.api.perf;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The parts of a form document that are scored: per page, the leaf nodes with their type, text and box, and the
+ * page text in reading order. Read from a JSON tree rather than {@code FormDocument} so golden files may use
+ * node types and attributes the API does not emit (such as {@code paragraph} nodes with {@code runs}). Boxes are
+ * divided by the page size (the page root's box, else {@code meta.pageSize}), which makes point-based goldens
+ * comparable with pixel-based results rendered at any DPI.
+ */
+record ScoredDocument(Map<Integer, Page> pages) {
+
+    record Page(List<Node> nodes, String text) {
+    }
+
+    /** A leaf node; {@code box} is {@code [x, y, w, h]} in page fractions, or {@code null} when it has none. */
+    record Node(String type, String text, double[] box) {
+    }
+
+    static ScoredDocument from(JsonNode document) {
+        double[] defaultSize = size(document.path("meta").path("pageSize"));
+        Map<Integer, Page> pages = new LinkedHashMap<>();
+        JsonNode pageNodes = document.path("pages");
+        for (int position = 0; position < pageNodes.size(); position++) {
+            JsonNode page = pageNodes.get(position);
+            int index = page.path("index").asInt(position);
+            pages.put(index, page(page, defaultSize));
+        }
+        return new ScoredDocument(pages);
+    }
+
+    private static Page page(JsonNode page, double[] defaultSize) {
+        double[] size = defaultSize;
+        Map<String, Node> byId = new LinkedHashMap<>();
+        int position = 0;
+        for (JsonNode node : page.path("nodes")) {
+            String type = node.path("type").asText("");
+            String id = node.path("id").asText("#" + position++);
+            if ("group".equals(type)) {
+                if ("page".equals(node.path("role").asText())) {
+                    double[] rootBox = box(node);
+                    if (rootBox != null && rootBox[2] > 0 && rootBox[3] > 0) {
+                        size = new double[] {rootBox[2], rootBox[3]};
+                    }
+                }
+                continue;
+            }
+            byId.put(id, new Node(type, text(node), box(node)));
+        }
+
+        List<Node> nodes = new ArrayList<>(byId.size());
+        for (Node node : byId.values()) {
+            nodes.add(size == null || node.box() == null ? new Node(node.type(), node.text(), null)
+                    : new Node(node.type(), node.text(), new double[] {
+                            node.box()[0] / size[0], node.box()[1] / size[1],
+                            node.box()[2] / size[0], node.box()[3] / size[1]}));
+        }
+
+        List<String> order = new ArrayList<>();
+        page.path("flowOrder").forEach(id -> order.add(id.asText()));
+        if (order.isEmpty()) {
+            order.addAll(byId.keySet());
+        }
+        Map<String, Node> remaining = new HashMap<>(byId);
+        StringBuilder text = new StringBuilder();
+        for (String id : order) {
+            Node node = remaining.remove(id);
+            if (node != null && node.text() != null) {
+                text.append(node.text()).append(' ');
+            }
+        }
+        return new Page(nodes, normalize(text.toString()));
+    }
+
+    private static String text(JsonNode node) {
+        if (node.hasNonNull("text")) {
+            return node.get("text").asText();
+        }
+        if (node.has("runs")) {
+            StringBuilder runs = new StringBuilder();
+            node.get("runs").forEach(run -> runs.append(run.path("text").asText()));
+            return runs.toString();
+        }
+        return null;
+    }
+
+    private static double[] box(JsonNode node) {
+        JsonNode bbox = node.path("geom").path("bbox");
+        if (!bbox.has("x") || !bbox.has("y") || !bbox.has("w") || !bbox.has("h")) {
+            return null;
+        }
+        return new double[] {bbox.get("x").asDouble(), bbox.get("y").asDouble(),
+                bbox.get("w").asDouble(), bbox.get("h").asDouble()};
+    }
+
+    private static double[] size(JsonNode pageSize) {
+        double w = pageSize.path("w").asDouble();
+        double h = pageSize.path("h").asDouble();
+        return w > 0 && h > 0 ? new double[] {w, h} : null;
+    }
+
+    static String normalize(String text) {
+        return text.strip().replaceAll("\\s+", " ");
+    }
+}
@@ -0,0 +1,246 @@
+package com.contentmanagement.forms.api.perf;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.pdmodel.font.Standard14Fonts;
+import org.apache.pdfbox.pdmodel.graphics.image.LosslessFactory;
+import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
+import org.apache.pdfbox.rendering.ImageType;
+import org.apache.pdfbox.rendering.PDFRenderer;
+
+/**
+ * Builds deterministic form-like PDFs for load testing. Born-digital pages carry a text layer and vector
+ * field borders; scanned pages are the same layout rasterised, degraded with noise and embedded as a single
+ * full-page image so they exercise the OCR path.
+ *
+ * <p>{@link #generateWithGolden} also returns what was drawn as a golden document in the API's schema (the same
+ * one as {@code form-178v2.sample.json}): every label and field with its box in points from the top-left corner,
+ * and the text written into it. Recording does not consume randomness, so both methods yield the same PDFs for a
+ * given seed.
+ */
+final class SyntheticFormGenerator {
+
+    private static final float MARGIN = 36f;
+    private static final float ROW_HEIGHT = 26f;
+    private static final float SCAN_DPI = 200f;
+    private static final String[] LABELS = {
+            "Policy Number", "Loan Number", "Property Address", "City", "State", "Zip",
+            "Date of Loss", "Cause of Loss", "Estimated Damage", "Insurance Carrier",
+            "Claim Number", "Adjuster", "Phone", "Email", "Borrower Name", "Servicer"
+    };
+
+    private final Random random;
+
+    SyntheticFormGenerator(long seed) {
+        this.random = new Random(seed);
+    }
+
+    /** A generated PDF and its golden document as a JSON-ready map. */
+    record Generated(byte[] pdf, Map<String, Object> golden) {
+    }
+
+    byte[] generate(int pageCount, int fieldsPerPage, double scannedRatio) throws IOException {
+        return generate(pageCount, fieldsPerPage, scannedRatio, null);
+    }
+
+    Generated generateWithGolden(int pageCount, int fieldsPerPage, double scannedRatio) throws IOException {
+        List<Map<String, Object>> pages = new ArrayList<>();
+        byte[] pdf = generate(pageCount, fieldsPerPage, scannedRatio, pages);
+        PDRectangle letter = PDRectangle.LETTER;
+        Map<String, Object> meta = new LinkedHashMap<>();
+        meta.put("schemaVersion", "2.0");
+        meta.put("baseUnit", "pt");
+        meta.put("pageSize", Map.of("w", letter.getWidth(), "h", letter.getHeight()));
+        meta.put("pages", pageCount);
+        Map<String, Object> golden = new LinkedHashMap<>();
+        golden.put("meta", meta);
+        golden.put("pages", pages);
+        return new Generated(pdf, golden);
+    }
+
+    private byte[] generate(int pageCount, int fieldsPerPage, double scannedRatio, List<Map<String, Object>> golden)
+            throws IOException {
+        try (PDDocument document = new PDDocument()) {
+            for (int pageIndex = 0; pageIndex < pageCount; pageIndex++) {
+                List<Map<String, Object>> nodes = golden != null ? new ArrayList<>() : null;
+                boolean scanned = random.nextDouble() < scannedRatio;
+                if (scanned) {
+                    addScannedPage(document, pageIndex, fieldsPerPage, nodes);
+                } else {
+                    PDPage page = new PDPage(PDRectangle.LETTER);
+                    document.addPage(page);
+                    drawForm(document, page, pageIndex, fieldsPerPage, nodes);
+                }
+                if (golden != null) {
+                    Map<String, Object> page = new LinkedHashMap<>();
+                    page.put("index", pageIndex);
+                    page.put("flowOrder", nodes.stream().map(node -> node.get("id")).toList());
+                    page.put("nodes", nodes);
+                    golden.add(page);
+                }
+            }
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            document.save(out);
+            return out.toByteArray();
+        }
+    }
+
+    private void addScannedPage(PDDocument target, int pageIndex, int fieldsPerPage, List<Map<String, Object>> nodes)
+            throws IOException {
+        BufferedImage scan;
+        try (PDDocument scratch = new PDDocument()) {
+            PDPage page = new PDPage(PDRectangle.LETTER);
+            scratch.addPage(page);
+            drawForm(scratch, page, pageIndex, fieldsPerPage, nodes);
+            scan = new PDFRenderer(scratch).renderImageWithDPI(0, SCAN_DPI, ImageType.GRAY);
+        }
+        addNoise(scan);
+
+        PDPage page = new PDPage(PDRectangle.LETTER);
+        target.addPage(page);
+        PDImageXObject image = LosslessFactory.createFromImage(target, scan);
+        try (PDPageContentStream content = new PDPageContentStream(target, page)) {
+            PDRectangle box = page.getMediaBox();
+            content.drawImage(image, 0, 0, box.getWidth(), box.getHeight());
+        }
+    }
+
+    // nodes collects the golden nodes of the page, or is null when no golden is wanted.
+    private void drawForm(PDDocument document, PDPage page, int pageIndex, int fieldsPerPage,
+                          List<Map<String, Object>> nodes) throws IOException {
+        PDRectangle box = page.getMediaBox();
+        PDType1Font bold = new PDType1Font(Standard14Fonts.FontName.HELVETICA_BOLD);
+        PDType1Font regular = new PDType1Font(Standard14Fonts.FontName.HELVETICA);
+        GoldenRecorder golden = new GoldenRecorder(nodes, pageIndex, box.getHeight());
+
+        try (PDPageContentStream content = new PDPageContentStream(document, page)) {
+            float top = box.getHeight() - MARGIN;
+            String title = String.format(Locale.ROOT, "Report of Hazard Insurance Loss - Page %d", pageIndex + 1);
+            writeText(content, bold, 14, MARGIN, top - 14, title);
+            golden.text("heading", bold, 14, MARGIN, top - 14, title);
+
+            float columnWidth = (box.getWidth() - 2 * MARGIN) / 2f;
+            float y = top - 48;
+            for (int field = 0; field < fieldsPerPage && y > MARGIN + ROW_HEIGHT; field++) {
+                int column = field % 2;
+                float x = MARGIN + column * columnWidth;
+                String label = LABELS[random.nextInt(LABELS.length)];
+                writeText(content, regular, 8, x, y + 2, label);
+                golden.text("label", regular, 8, x, y + 2, label);
+                if (random.nextInt(5) == 0) {
+                    float side = 10f;
+                    content.addRect(x + columnWidth - side - 12, y - 2, side, side);
+                    boolean checked = random.nextBoolean();
+                    if (checked) {
+                        content.moveTo(x + columnWidth - side - 10, y);
+                        content.lineTo(x + columnWidth - 14, y + side - 4);
+                    }
+                    content.stroke();
+                    golden.field("checkbox", x + columnWidth - side - 12, y - 2, side, side, null, checked);
+                } else {
+                    content.addRect(x + 90, y - 4, columnWidth - 108, 16);
+                    // Text objects may not interrupt path construction, so the border is stroked first.
+                    content.stroke();
+                    String value = null;
+                    if (random.nextBoolean()) {
+                        value = randomValue();
+                        writeText(content, regular, 9, x + 94, y, value);
+                    }
+                    golden.field("text", x + 90, y - 4, columnWidth - 108, 16, value, null);
+                }
+                if (column == 1) {
+                    y -= ROW_HEIGHT;
+                }
+            }
+        }
+    }
+
+    private void writeText(PDPageContentStream content, PDType1Font font, float size, float x, float y, String text)
+            throws IOException {
+        content.beginText();
+        content.setFont(font, size);
+        content.newLineAtOffset(x, y);
+        content.showText(text);
+        content.endText();
+    }
+
+    private String randomValue() {
+        return String.format(Locale.ROOT, "%08d", random.nextInt(100_000_000));
+    }
+
+    /** Converts what is drawn into golden nodes; every method is a no-op when no golden is being recorded. */
+    private static final class GoldenRecorder {
+
+        private final List<Map<String, Object>> nodes;
+        private final int pageIndex;
+        private final float pageHeight;
+
+        private GoldenRecorder(List<Map<String, Object>> nodes, int pageIndex, float pageHeight) {
+            this.nodes = nodes;
+            this.pageIndex = pageIndex;
+            this.pageHeight = pageHeight;
+        }
+
+        // The box spans the font's ascent and descent around the baseline at (x, y).
+        void text(String role, PDType1Font font, float size, float x, float y, String text) throws IOException {
+            if (nodes == null) {
+                return;
+            }
+            float width = font.getStringWidth(text) / 1000f * size;
+            float ascent = font.getFontDescriptor().getAscent() / 1000f * size;
+            float descent = -font.getFontDescriptor().getDescent() / 1000f * size;
+            Map<String, Object> node = node("text", x, y - descent, width, ascent + descent);
+            node.put("role", role);
+            node.put("text", text);
+            nodes.add(node);
+        }
+
+        void field(String widgetType, float x, float y, float width, float height, String value, Boolean checked) {
+            if (nodes == null) {
+                return;
+            }
+            Map<String, Object> node = node("field", x, y, width, height);
+            Map<String, Object> widget = new LinkedHashMap<>();
+            widget.put("type", widgetType);
+            if (checked != null) {
+                widget.put("checked", checked);
+            }
+            node.put("widget", widget);
+            if (value != null) {
+                node.put("text", value);
+            }
+            nodes.add(node);
+        }
+
+        // (x, y) is the bottom-left corner in PDF space; golden boxes are top-left based like the API's.
+        private Map<String, Object> node(String type, float x, float y, float width, float height) {
+            Map<String, Object> node = new LinkedHashMap<>();
+            node.put("id", String.format(Locale.ROOT, "p%d.n%d", pageIndex, nodes.size()));
+            node.put("type", type);
+            node.put("geom", Map.of("bbox", Map.of("x", x, "y", pageHeight - y - height, "w", width, "h", height)));
+            return node;
+        }
+    }
+
+    private void addNoise(BufferedImage image) {
+        int specks = image.getWidth() * image.getHeight() / 400;
+        for (int i = 0; i < specks; i++) {
+            int x = random.nextInt(image.getWidth());
+            int y = random.nextInt(image.getHeight());
+            int gray = random.nextBoolean() ? 0x202020 : 0xE0E0E0;
+            image.setRGB(x, y, gray);
+        }
+    }
+}
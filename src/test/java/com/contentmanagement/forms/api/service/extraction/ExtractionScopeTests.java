@@ -0,0 +1,130 @@
+package com.contentmanagement.forms.api.service.extraction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.List;
+import java.util.TreeSet;
+import org.junit.jupiter.api.Test;
+import org.opencv.core.Rect;
+
+class ExtractionScopeTests {
+
+    @Test
+    void blankSpecsSelectEverything() {
+        assertThat(ExtractionScope.parse(null, " ")).isSameAs(ExtractionScope.ALL);
+        assertThat(ExtractionScope.ALL.includesPage(99_999)).isTrue();
+        assertThat(ExtractionScope.ALL.firstPage()).isZero();
+        assertThat(ExtractionScope.ALL.endPage()).isEqualTo(Integer.MAX_VALUE);
+    }
+
+    @Test
+    void overlappingAndAdjacentRangesAreMergedWithoutExpandingThem() {
+        ExtractionScope scope = ExtractionScope.parse("7, 3-5, 1-100000, 4", null);
+
+        assertThat(scope.pages()).containsExactly(new ExtractionScope.PageRange(0, 99_999));
+
+        scope = ExtractionScope.parse("9-10,2,3,5-6", null);
+        assertThat(scope.pages()).containsExactly(
+                new ExtractionScope.PageRange(1, 2), new ExtractionScope.PageRange(4, 5),
+                new ExtractionScope.PageRange(8, 9));
+        assertThat(scope.includesPage(0)).isFalse();
+        assertThat(scope.includesPage(2)).isTrue();
+        assertThat(scope.includesPage(3)).isFalse();
+        assertThat(scope.includesPage(9)).isTrue();
+        assertThat(scope.includesPage(10)).isFalse();
+        assertThat(scope.firstPage()).isEqualTo(1);
+        assertThat(scope.endPage()).isEqualTo(10);
+        assertThat(scope.pages().toString()).isEqualTo("[2-3, 5-6, 9-10]");
+    }
+
+    @Test
+    void malformedPageSpecsAreRejected() {
+        for (String spec : List.of("0", "3-1", "a", "1-", "-2", "1,,2", "100001", "1-2-3")) {
+            assertThatThrownBy(() -> ExtractionScope.parse(spec, null))
+                    .as(spec)
+                    .isInstanceOf(IllegalArgumentException.class);
+        }
+    }
+
+    @Test
+    void malformedRegionSpecsAreRejected() {
+        for (String spec : List.of("36,72,540,200", "1:36,72,540", "1:36,72,0,200", "1:a,72,540,200",
+                "0:36,72,540,200", "1:36,72,540,NaN")) {
+            assertThatThrownBy(() -> ExtractionScope.parse(null, spec))
+                    .as(spec)
+                    .isInstanceOf(IllegalArgumentException.class);
+        }
+    }
+
+    @Test
+    void regionsAreGroupedByPageAndCoveredByOneClip() {
+        ExtractionScope scope = ExtractionScope.parse(null, "2:10,20,30,40; 2:100,5,10,10; 1:0,0,1,1");
+
+        assertThat(scope.regions()).containsOnlyKeys(0, 1);
+        assertThat(scope.regionPixels(2, 1.0, 0, 500, 500)).isNull();
+
+        List<Rect> pixels = scope.regionPixels(1, 2.0, 0, 500, 500);
+        assertThat(pixels).containsExactly(new Rect(20, 40, 60, 80), new Rect(200, 10, 20, 20));
+        assertThat(ExtractionScope.clip(pixels, 500, 500)).isEqualTo(new Rect(20, 10, 200, 110));
+        assertThat(ExtractionScope.clip(pixels, 150, 60)).isEqualTo(new Rect(20, 10, 130, 50));
+        assertThat(ExtractionScope.clip(List.of(new Rect(600, 600, 10, 10)), 500, 500))
+                .isEqualTo(new Rect(0, 0, 1, 1));
+    }
+
+    // A 100 x 200 point page at 1px per point: 200 x 100 pixels once turned by 90 or 270 degrees.
+    @Test
+    void regionsFollowThePageRotation() {
+        ExtractionScope scope = ExtractionScope.parse(null, "1:10,20,30,40");
+
+        assertThat(scope.regionPixels(0, 1.0, 0, 100, 200)).containsExactly(new Rect(10, 20, 30, 40));
+        assertThat(scope.regionPixels(0, 1.0, 90, 200, 100)).containsExactly(new Rect(140, 10, 40, 30));
+        assertThat(scope.regionPixels(0, 1.0, 180, 100, 200)).containsExactly(new Rect(60, 140, 30, 40));
+        assertThat(scope.regionPixels(0, 1.0, 270, 200, 100)).containsExactly(new Rect(20, 60, 40, 30));
+        assertThat(scope.regionPixels(0, 1.0, -90, 200, 100)).containsExactly(new Rect(20, 60, 40, 30));
+    }
+
+    @Test
+    void restrictKeepsComponentsTouchingARegion() {
+        List<Rect> regions = List.of(new Rect(100, 100, 50, 50));
+        Rect clip = ExtractionScope.clip(regions, 1000, 1000);
+        PageLayout layout = new PageLayout(0, 1000, 1000, List.of(
+                component(0, new Rect(10, 10, 5, 5)),
+                component(1, new Rect(45, 45, 10, 10)),
+                component(2, new Rect(50, 50, 5, 5))));
+
+        PageLayout restricted = ExtractionScope.restrict(layout, regions, clip);
+
+        assertThat(restricted.components()).extracting(DetectedComponent::index).containsExactly(0, 1);
+        assertThat(ExtractionScope.toPageCoordinates(restricted, clip).components().get(0).boundingBox())
+                .isEqualTo(new Rect(110, 110, 5, 5));
+        assertThat(ExtractionScope.restrict(layout, null, null)).isSameAs(layout);
+    }
+
+    @Test
+    void shardScopesKeepTheirOwnPagesAndRegions() {
+        ExtractionScope scope = ExtractionScope.parse("1-10", "2:0,0,5,5;9:0,0,5,5");
+
+        ExtractionScope shard = scope.forPages(new TreeSet<>(List.of(0, 1, 2, 4)));
+
+        assertThat(shard.pages()).containsExactly(
+                new ExtractionScope.PageRange(0, 2), new ExtractionScope.PageRange(4, 4));
+        assertThat(shard.regions()).containsOnlyKeys(1);
+    }
+
+    @Test
+    void scopesSurviveTheJobSpool() throws Exception {
+        ObjectMapper mapper = new ObjectMapper();
+        ExtractionScope scope = ExtractionScope.parse("1-3,8", "2:1.5,2,3,4");
+
+        ExtractionScope read = mapper.readValue(mapper.writeValueAsString(scope), ExtractionScope.class);
+
+        assertThat(read.pages()).isEqualTo(scope.pages());
+        assertThat(read.regions()).isEqualTo(scope.regions());
+    }
+
+    private static DetectedComponent component(int index, Rect box) {
+        return new DetectedComponent(index, DetectedComponentType.FIELD, box, null, 1.0, null, 0, null);
+    }
+}
@@ -0,0 +1,99 @@
+package com.contentmanagement.forms.api.service.extraction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.contentmanagement.forms.api.config.FormProcessingProperties;
+import java.time.Duration;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+class MemoryGovernorTests {
+
+    private static final double LETTER = 612 * 792;
+    private static final double A3 = 842 * 1191;
+
+    @Test
+    void costGrowsWithTheSquareOfTheDpi() {
+        assertThat(MemoryGovernor.cost(72 * 72, 72)).isEqualTo(72 * 72 * 16L);
+        assertThat(MemoryGovernor.cost(72 * 72, 144)).isEqualTo(4 * 72 * 72 * 16L);
+    }
+
+    @Test
+    void reservesThePeakPageAndKeepsTheDpiWhenItFits() {
+        MemoryGovernor governor = governor(DataSize.ofMegabytes(512), 100);
+
+        try (MemoryGovernor.Reservation reservation =
+                     governor.reserve("doc", new float[] {300, 300, 300}, new double[] {LETTER, A3, 0})) {
+            assertThat(reservation.dpi(0)).isEqualTo(300);
+            assertThat(reservation.dpi(1)).isEqualTo(300);
+            assertThat(governor.reservedBytes()).isEqualTo(MemoryGovernor.cost(A3, 300));
+        }
+        assertThat(governor.reservedBytes()).isZero();
+    }
+
+    @Test
+    void lowersTheDpiOfAPageThatCannotFitOnItsOwn() {
+        DataSize budget = DataSize.ofMegabytes(64);
+        MemoryGovernor governor = governor(budget, 100);
+        long fullCost = MemoryGovernor.cost(LETTER, 300);
+        float expected = (float) Math.floor(300 * Math.sqrt((double) budget.toBytes() / fullCost));
+
+        try (MemoryGovernor.Reservation reservation =
+                     governor.reserve("doc", new float[] {300, 150}, new double[] {LETTER, LETTER})) {
+            assertThat(reservation.dpi(0)).isEqualTo(expected).isLessThan(300);
+            assertThat(MemoryGovernor.cost(LETTER, reservation.dpi(0))).isLessThanOrEqualTo(budget.toBytes());
+            assertThat(reservation.dpi(1)).isEqualTo(150);
+            assertThat(governor.reservedBytes()).isEqualTo(MemoryGovernor.cost(LETTER, expected));
+        }
+    }
+
+    @Test
+    void neverGoesBelowTheMinimumDpiAndThenTakesTheWholeBudget() {
+        DataSize budget = DataSize.ofMegabytes(4);
+        MemoryGovernor governor = governor(budget, 100);
+
+        try (MemoryGovernor.Reservation reservation =
+                     governor.reserve("doc", new float[] {300}, new double[] {LETTER})) {
+            assertThat(reservation.dpi(0)).isEqualTo(100);
+            assertThat(governor.reservedBytes()).isEqualTo(budget.toBytes());
+        }
+    }
+
+    @Test
+    void waitsForTheBudgetAndTimesOutWhenItIsNotReleased() {
+        MemoryGovernor governor = governor(DataSize.ofMegabytes(64), 100);
+        MemoryGovernor.Reservation first = governor.reserve("first", new float[] {300}, new double[] {LETTER});
+
+        assertThatThrownBy(() -> governor.reserve("second", new float[] {300}, new double[] {LETTER}))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("second");
+
+        first.close();
+        first.close();
+        assertThat(governor.reservedBytes()).isZero();
+        governor.reserve("second", new float[] {300}, new double[] {LETTER}).close();
+    }
+
+    @Test
+    void disabledGovernorReservesNothing() {
+        FormProcessingProperties properties = new FormProcessingProperties();
+        properties.getMemory().setEnabled(false);
+        properties.getMemory().setBudget(DataSize.ofBytes(1));
+        MemoryGovernor governor = new MemoryGovernor(properties);
+
+        try (MemoryGovernor.Reservation reservation =
+                     governor.reserve("doc", new float[] {300}, new double[] {LETTER})) {
+            assertThat(reservation.dpi(0)).isEqualTo(300);
+            assertThat(governor.reservedBytes()).isZero();
+        }
+    }
+
+    private static MemoryGovernor governor(DataSize budget, int minDpi) {
+        FormProcessingProperties properties = new FormProcessingProperties();
+        properties.getMemory().setBudget(budget);
+        properties.getMemory().setMinDpi(minDpi);
+        properties.getMemory().setAcquireTimeout(Duration.ofMillis(50));
+        return new MemoryGovernor(properties);
+    }
+}
@@ -0,0 +1,60 @@
+package com.contentmanagement.forms.api.service.extraction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.opencv.core.Rect;
+
+class OverlapSuppressorTests {
+
+    @Test
+    void keepsTheLargerOfTwoNearlyIdenticalBoxes() {
+        Rect outer = new Rect(100, 100, 200, 40);
+        Rect doubled = new Rect(101, 101, 199, 39);
+
+        assertThat(OverlapSuppressor.suppress(List.of(doubled, outer), 1.0)).containsExactly(outer);
+    }
+
+    @Test
+    void dropsTheInnerEdgeOfABorderButKeepsBoxesNestedFurtherIn() {
+        Rect field = new Rect(100, 100, 300, 60);
+        Rect innerEdge = new Rect(104, 104, 292, 52);
+        Rect label = new Rect(120, 115, 80, 20);
+
+        assertThat(OverlapSuppressor.suppress(List.of(label, innerEdge, field), 1.0))
+                .containsExactly(label, field);
+    }
+
+    @Test
+    void nestingSlackScalesWithResolution() {
+        Rect field = new Rect(200, 200, 600, 60);
+        Rect innerEdge = new Rect(210, 210, 580, 40);
+
+        assertThat(OverlapSuppressor.suppress(List.of(field, innerEdge), 1.0)).containsExactly(field, innerEdge);
+        assertThat(OverlapSuppressor.suppress(List.of(field, innerEdge), 2.0)).containsExactly(field);
+    }
+
+    @Test
+    void keepsDisjointAndPartlyOverlappingBoxesInTheirOriginalOrder() {
+        Rect a = new Rect(0, 0, 50, 50);
+        Rect b = new Rect(30, 0, 50, 50);
+        Rect c = new Rect(500, 500, 10, 10);
+
+        assertThat(OverlapSuppressor.suppress(List.of(c, a, b), 1.0)).containsExactly(c, a, b);
+    }
+
+    @Test
+    void findsDuplicatesAcrossGridCellBoundaries() {
+        List<Rect> boxes = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            boxes.add(new Rect(i * 70 + 60, 60, 20, 20));
+            boxes.add(new Rect(i * 70 + 61, 61, 19, 19));
+        }
+
+        List<Rect> kept = OverlapSuppressor.suppress(boxes, 1.0);
+
+        assertThat(kept).hasSize(50).allSatisfy(box -> assertThat(box.width).isEqualTo(20));
+    }
+}
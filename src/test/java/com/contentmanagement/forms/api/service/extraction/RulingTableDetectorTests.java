@@ -0,0 +1,99 @@
+package com.contentmanagement.forms.api.service.extraction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+import com.contentmanagement.forms.api.config.FormProcessingProperties;
+import java.util.List;
+import nu.pattern.OpenCV;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.Point;
+import org.opencv.core.Scalar;
+import org.opencv.imgproc.Imgproc;
+
+class RulingTableDetectorTests {
+
+    private static final Scalar INK = new Scalar(255);
+
+    private final NativeScope scope = new NativeResourceTracker(new FormProcessingProperties()).open("test");
+    private final RulingTableDetector detector = new RulingTableDetector();
+
+    @BeforeAll
+    static void loadOpenCv() {
+        OpenCV.loadLocally();
+    }
+
+    @AfterEach
+    void release() {
+        scope.close();
+        ScratchMats.releaseThread();
+    }
+
+    @Test
+    void findsRowAndColumnEdgesOfARuledTableIgnoringCellText() {
+        Mat mask = blank();
+        for (int y : new int[] {100, 200, 300}) {
+            Imgproc.line(mask, new Point(100, y), new Point(500, y), INK, 3);
+        }
+        for (int x : new int[] {100, 300, 500}) {
+            Imgproc.line(mask, new Point(x, 100), new Point(x, 300), INK, 3);
+        }
+        // Glyph-sized strokes inside the cells must not become edges.
+        Imgproc.line(mask, new Point(150, 150), new Point(160, 150), INK, 2);
+        Imgproc.line(mask, new Point(400, 240), new Point(400, 252), INK, 2);
+
+        List<TableGrid> tables = detector.detect(mask, 600, 400, 1.0, scope);
+
+        assertThat(tables).hasSize(1);
+        TableGrid table = tables.get(0);
+        assertThat(table.rowCount()).isEqualTo(2);
+        assertThat(table.columnCount()).isEqualTo(2);
+        assertEdges(table.rowEdges(), 100, 200, 300);
+        assertEdges(table.columnEdges(), 100, 300, 500);
+        assertThat(table.cells()).isNull();
+    }
+
+    @Test
+    void rulingsCloserThanAMinimumCellAreMergedIntoOneEdge() {
+        Mat mask = blank();
+        for (int y : new int[] {100, 104, 200, 300}) {
+            Imgproc.line(mask, new Point(100, y), new Point(500, y), INK, 1);
+        }
+        for (int x : new int[] {100, 300, 500}) {
+            Imgproc.line(mask, new Point(x, 100), new Point(x, 300), INK, 1);
+        }
+
+        List<TableGrid> tables = detector.detect(mask, 600, 400, 1.0, scope);
+
+        assertThat(tables).hasSize(1);
+        assertEdges(tables.get(0).rowEdges(), 102, 200, 300);
+    }
+
+    @Test
+    void aPlainBoxOrATinyGridIsNotATable() {
+        Mat mask = blank();
+        Imgproc.rectangle(mask, new Point(50, 50), new Point(550, 350), INK, 2);
+        // Three-by-three grid whose area is below the table minimum for the page.
+        for (int offset : new int[] {0, 10, 20}) {
+            Imgproc.line(mask, new Point(80, 80 + offset), new Point(100, 80 + offset), INK, 1);
+            Imgproc.line(mask, new Point(80 + offset, 80), new Point(80 + offset, 100), INK, 1);
+        }
+
+        assertThat(detector.detect(mask, 600, 400, 1.0, scope)).isEmpty();
+    }
+
+    private Mat blank() {
+        return scope.track(Mat.zeros(400, 600, CvType.CV_8UC1));
+    }
+
+    private static void assertEdges(List<Integer> edges, int... expected) {
+        assertThat(edges).hasSize(expected.length);
+        for (int i = 0; i < expected.length; i++) {
+            assertThat(edges.get(i)).isCloseTo(expected[i], within(2));
+        }
+    }
+}
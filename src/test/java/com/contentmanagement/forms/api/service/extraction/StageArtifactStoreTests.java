@@ -0,0 +1,106 @@
+package com.contentmanagement.forms.api.service.extraction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.contentmanagement.forms.api.config.FormProcessingProperties;
+import com.contentmanagement.forms.api.model.ProcessingMode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.util.unit.DataSize;
+
+class StageArtifactStoreTests {
+
+    @TempDir
+    Path root;
+
+    private FormProcessingProperties properties;
+    private StageArtifactStore store;
+
+    @BeforeEach
+    void createStore() {
+        properties = new FormProcessingProperties();
+        properties.getArtifacts().setEnabled(true);
+        properties.getArtifacts().setDirectory(root.toString());
+        store = new StageArtifactStore(properties, new OcrProfileRegistry(properties), new ObjectMapper());
+    }
+
+    @AfterEach
+    void shutdown() {
+        store.shutdown();
+    }
+
+    @Test
+    void uploadsEvictUnpinnedDocumentsInTheBackground() throws InterruptedException {
+        properties.getArtifacts().setMaxSize(DataSize.ofBytes(1));
+        StageArtifactStore.Pin open = store.storeSource(upload("a"), ProcessingMode.OPENCV_ONLY);
+        String closed;
+        try (StageArtifactStore.Pin pin = store.storeSource(upload("b"), ProcessingMode.OPENCV_ONLY)) {
+            closed = pin.documentId();
+        }
+
+        try (StageArtifactStore.Pin pin = store.storeSource(upload("c"), ProcessingMode.OPENCV_ONLY)) {
+            awaitDeleted(root.resolve(closed));
+            assertThat(root.resolve(pin.documentId())).isDirectory();
+        }
+        assertThat(root.resolve(open.documentId())).isDirectory();
+        open.close();
+    }
+
+    @Test
+    void anExpiredDocumentIsKeptWhileARequestHasItPinned() throws IOException {
+        StageArtifactStore.Pin open = store.storeSource(upload("a"), ProcessingMode.OPENCV_ONLY);
+        String closed;
+        try (StageArtifactStore.Pin pin = store.storeSource(upload("b"), ProcessingMode.OPENCV_ONLY)) {
+            closed = pin.documentId();
+        }
+        FileTime old = FileTime.from(Instant.now().minus(properties.getArtifacts().getTtl()).minusSeconds(60));
+        Files.setLastModifiedTime(root.resolve(open.documentId()), old);
+        Files.setLastModifiedTime(root.resolve(closed), old);
+
+        store.evict();
+
+        assertThat(root.resolve(open.documentId()).resolve("source.bin")).exists();
+        assertThat(root.resolve(closed)).doesNotExist();
+        open.close();
+    }
+
+    @Test
+    void pinsAreCounted() throws IOException {
+        StageArtifactStore.Pin first = store.storeSource(upload("a"), ProcessingMode.OPENCV_ONLY);
+        StageArtifactStore.Pin second = store.pin(first.documentId());
+        Files.setLastModifiedTime(root.resolve(first.documentId()),
+                FileTime.from(Instant.now().minus(properties.getArtifacts().getTtl()).minusSeconds(60)));
+
+        first.close();
+        first.close();
+        store.evict();
+        assertThat(root.resolve(first.documentId())).exists();
+
+        second.close();
+        store.evict();
+        assertThat(root.resolve(first.documentId())).doesNotExist();
+    }
+
+    private static void awaitDeleted(Path directory) throws InterruptedException {
+        Instant giveUp = Instant.now().plus(Duration.ofSeconds(5));
+        while (Files.exists(directory) && Instant.now().isBefore(giveUp)) {
+            Thread.sleep(20);
+        }
+        assertThat(directory).doesNotExist();
+    }
+
+    private static MockMultipartFile upload(String content) {
+        return new MockMultipartFile("file", content + ".png", "image/png", content.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,54 @@
+package com.contentmanagement.forms.api.service.extraction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.opencv.core.Rect;
+
+class TableGridTests {
+
+    private final TableGrid grid = new TableGrid(List.of(10, 30, 60), List.of(100, 150, 250, 260), null);
+
+    @Test
+    void edgesDescribeRowsColumnsAndCells() {
+        assertThat(grid.rowCount()).isEqualTo(2);
+        assertThat(grid.columnCount()).isEqualTo(3);
+        assertThat(grid.bounds()).isEqualTo(new Rect(100, 10, 160, 50));
+        assertThat(grid.cell(1, 1)).isEqualTo(new Rect(150, 30, 100, 30));
+        assertThat(grid.row(0)).isEqualTo(new Rect(100, 10, 160, 20));
+    }
+
+    @Test
+    void columnAtIsHalfOpenAndRejectsPointsOutsideTheTable() {
+        assertThat(grid.columnAt(99.9)).isEqualTo(-1);
+        assertThat(grid.columnAt(100)).isZero();
+        assertThat(grid.columnAt(149.9)).isZero();
+        assertThat(grid.columnAt(150)).isEqualTo(1);
+        assertThat(grid.columnAt(259)).isEqualTo(2);
+        assertThat(grid.columnAt(260)).isEqualTo(-1);
+    }
+
+    @Test
+    void textIsNullUntilCellsAreFilledAndForShortRows() {
+        assertThat(grid.text(0, 0)).isNull();
+
+        TableGrid filled = grid.withCells(List.of(List.of("a", "b", "c"), List.of("d")));
+
+        assertThat(filled.text(0, 2)).isEqualTo("c");
+        assertThat(filled.text(1, 0)).isEqualTo("d");
+        assertThat(filled.text(1, 2)).isNull();
+        assertThat(filled.text(2, 0)).isNull();
+    }
+
+    @Test
+    void translateShiftsEdgesAndKeepsCells() {
+        TableGrid filled = grid.withCells(List.of(List.of("a")));
+
+        TableGrid moved = filled.translate(5, -10);
+
+        assertThat(moved.rowEdges()).containsExactly(0, 20, 50);
+        assertThat(moved.columnEdges()).containsExactly(105, 155, 255, 265);
+        assertThat(moved.text(0, 0)).isEqualTo("a");
+    }
+}
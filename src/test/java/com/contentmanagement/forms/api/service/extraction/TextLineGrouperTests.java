@@ -0,0 +1,80 @@
+package com.contentmanagement.forms.api.service.extraction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.contentmanagement.forms.api.service.extraction.TextLineGrouper.Region;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.opencv.core.Rect;
+
+class TextLineGrouperTests {
+
+    // Fragments up to 20px tall count as text; words join across gaps of up to 1.5 text heights.
+    private static final double PAGE_HEIGHT = 1200;
+
+    @Test
+    void wordsOnOneBaselineBecomeOneTextLine() {
+        List<Region> regions = TextLineGrouper.group(List.of(), List.of(
+                new Rect(190, 101, 50, 12), new Rect(100, 100, 40, 12), new Rect(150, 100, 30, 12)), PAGE_HEIGHT);
+
+        assertThat(regions).containsExactly(
+                new Region(new Rect(100, 100, 140, 13), DetectedComponentType.TEXT, 3));
+    }
+
+    @Test
+    void wideGapsAndVerticalOffsetsKeepFragmentsApart() {
+        List<Region> regions = TextLineGrouper.group(List.of(), List.of(
+                new Rect(100, 100, 40, 12), new Rect(300, 100, 40, 12), new Rect(145, 108, 40, 12)), PAGE_HEIGHT);
+
+        assertThat(regions).extracting(Region::type).containsOnlyNulls();
+        assertThat(regions).extracting(Region::fragments).containsOnly(1);
+        assertThat(regions).hasSize(3);
+    }
+
+    @Test
+    void closelyStackedAlignedLinesBecomeAParagraph() {
+        List<Region> regions = TextLineGrouper.group(List.of(), List.of(
+                new Rect(100, 100, 40, 12), new Rect(150, 100, 60, 12),
+                new Rect(100, 118, 70, 12), new Rect(180, 118, 20, 12),
+                // Too far below to share the paragraph.
+                new Rect(100, 160, 40, 12)), PAGE_HEIGHT);
+
+        assertThat(regions).containsExactly(
+                new Region(new Rect(100, 100, 110, 30), DetectedComponentType.PARAGRAPH, 4),
+                new Region(new Rect(100, 160, 40, 12), null, 1));
+    }
+
+    @Test
+    void fragmentsInDifferentContainersAreNeverMerged() {
+        Rect field = new Rect(90, 90, 100, 30);
+        Rect label = new Rect(100, 100, 40, 12);
+        Rect outside = new Rect(195, 100, 40, 12);
+        Rect below = new Rect(100, 122, 40, 12);
+
+        List<Region> regions = TextLineGrouper.group(List.of(field), List.of(label, outside, below), PAGE_HEIGHT);
+
+        assertThat(regions).containsExactly(
+                new Region(field, null, 0),
+                new Region(label, null, 1),
+                new Region(outside, null, 1),
+                new Region(below, null, 1));
+    }
+
+    @Test
+    void fragmentsUseTheirSmallestEnclosingBox() {
+        Rect outer = new Rect(0, 0, 600, 400);
+        Rect inner = new Rect(90, 90, 100, 30);
+        Rect inside = new Rect(100, 100, 40, 12);
+        Rect besideInOuter = new Rect(195, 100, 40, 12);
+        Rect alsoInside = new Rect(145, 100, 40, 12);
+
+        List<Region> regions = TextLineGrouper.group(List.of(outer, inner),
+                List.of(inside, besideInOuter, alsoInside), PAGE_HEIGHT);
+
+        assertThat(regions).containsExactly(
+                new Region(outer, null, 0),
+                new Region(inner, null, 0),
+                new Region(new Rect(100, 100, 85, 12), DetectedComponentType.TEXT, 2),
+                new Region(besideInOuter, null, 1));
+    }
+}
@@ -0,0 +1,240 @@
+package com.contentmanagement.forms.api.service.extraction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.contentmanagement.forms.api.config.FormProcessingProperties;
+import com.contentmanagement.forms.api.model.WidgetType;
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.io.IOException;
+import java.util.List;
+import nu.pattern.OpenCV;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.PDResources;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.pdmodel.font.Standard14Fonts;
+import org.apache.pdfbox.pdmodel.graphics.image.LosslessFactory;
+import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
+import org.apache.pdfbox.pdmodel.interactive.annotation.PDAnnotationWidget;
+import org.apache.pdfbox.pdmodel.interactive.annotation.PDAppearanceDictionary;
+import org.apache.pdfbox.pdmodel.interactive.annotation.PDAppearanceStream;
+import org.apache.pdfbox.rendering.ImageType;
+import org.apache.pdfbox.rendering.PDFRenderer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.Rect;
+
+class VectorLayoutExtractorTests {
+
+    // At the reference DPI every pixel threshold applies unscaled.
+    private static final float SCALE = OpenCvLayoutAnalyzer.REFERENCE_DPI / 72f;
+    private static final int WIDTH = (int) Math.floor(PDRectangle.LETTER.getWidth() * SCALE);
+    private static final int HEIGHT = (int) Math.floor(PDRectangle.LETTER.getHeight() * SCALE);
+    // Stroke width plus rounding at the box edges.
+    private static final int TOLERANCE_PX = 4;
+
+    private final FormProcessingProperties properties = new FormProcessingProperties();
+
+    @BeforeAll
+    static void loadOpenCv() {
+        OpenCV.loadLocally();
+    }
+
+    @AfterEach
+    void release() {
+        ScratchMats.releaseThread();
+    }
+
+    @Test
+    void aRuledGridBecomesATable() throws IOException {
+        try (PDDocument document = new PDDocument()) {
+            PDPage page = page(document, content -> grid(content, 72, 500, new float[] {150, 150, 150}, 3, 30));
+
+            PageLayout layout = extract(page);
+
+            assertThat(layout).isNotNull();
+            List<DetectedComponent> tables = ofType(layout, DetectedComponentType.TABLE);
+            assertThat(tables).hasSize(1);
+            TableGrid table = tables.get(0).table();
+            assertThat(table.rowCount()).isEqualTo(3);
+            assertThat(table.columnCount()).isEqualTo(3);
+            assertClose(tables.get(0).boundingBox(), pixels(72, 500, 450, 90));
+        }
+    }
+
+    @Test
+    void strokedBoxesBecomeFields() throws IOException {
+        try (PDDocument document = new PDDocument()) {
+            PDPage page = page(document, this::fields);
+
+            PageLayout layout = extract(page);
+
+            assertThat(layout).isNotNull();
+            List<DetectedComponent> fields = ofType(layout, DetectedComponentType.FIELD);
+            assertThat(fields).extracting(DetectedComponent::widgetType)
+                    .containsExactly(WidgetType.TEXT, WidgetType.TEXT, WidgetType.TEXTAREA);
+            assertClose(fields.get(0).boundingBox(), pixels(72, 700, 60, 16));
+            assertClose(fields.get(1).boundingBox(), pixels(72, 650, 40, 16));
+            assertClose(fields.get(2).boundingBox(), pixels(72, 550, 120, 60));
+        }
+    }
+
+    @Test
+    void annotationTextFallsBackToRendering() throws IOException {
+        try (PDDocument document = new PDDocument()) {
+            PDPage page = page(document, this::fields);
+            PDAnnotationWidget widget = new PDAnnotationWidget();
+            widget.setRectangle(new PDRectangle(300, 700, 120, 20));
+            PDAppearanceStream appearance = new PDAppearanceStream(document);
+            appearance.setBBox(new PDRectangle(120, 20));
+            PDResources resources = new PDResources();
+            resources.put(COSName.getPDFName("Helv"), new PDType1Font(Standard14Fonts.FontName.HELVETICA));
+            appearance.setResources(resources);
+            try (PDPageContentStream content = new PDPageContentStream(document, appearance)) {
+                content.beginText();
+                content.setFont(new PDType1Font(Standard14Fonts.FontName.HELVETICA), 10);
+                content.newLineAtOffset(2, 6);
+                content.showText("Filled in");
+                content.endText();
+            }
+            PDAppearanceDictionary appearances = new PDAppearanceDictionary();
+            appearances.setNormalAppearance(appearance);
+            widget.setAppearance(appearances);
+            page.getAnnotations().add(widget);
+
+            assertThat(extract(page)).isNull();
+        }
+    }
+
+    @Test
+    void aPageWithALargeImageFallsBackToRendering() throws IOException {
+        try (PDDocument document = new PDDocument()) {
+            BufferedImage photo = new BufferedImage(20, 20, BufferedImage.TYPE_INT_RGB);
+            PDImageXObject image = LosslessFactory.createFromImage(document, photo);
+            PDPage page = page(document, content -> {
+                fields(content);
+                content.drawImage(image, 300, 300, 250, 250);
+            });
+
+            assertThat(extract(page)).isNull();
+        }
+    }
+
+    @Test
+    void boxesMatchWhatTheRenderedPageAnalysisFinds() throws IOException {
+        try (PDDocument document = new PDDocument()) {
+            PDPage page = page(document, content -> {
+                fields(content);
+                grid(content, 72, 300, new float[] {150, 150, 150}, 3, 30);
+            });
+            PageLayout vector = extract(page);
+            PageLayout rendered;
+            Mat mat = render(document);
+            try {
+                rendered = new OpenCvLayoutAnalyzer(new NativeResourceTracker(properties))
+                        .analyze(mat, 0, WIDTH, HEIGHT, 1.0);
+            } finally {
+                mat.release();
+            }
+
+            assertThat(vector).isNotNull();
+            for (DetectedComponentType type : List.of(DetectedComponentType.FIELD, DetectedComponentType.TABLE)) {
+                List<DetectedComponent> expected = ofType(rendered, type);
+                List<DetectedComponent> actual = ofType(vector, type);
+                assertThat(actual).as(type.name()).hasSameSizeAs(expected).isNotEmpty();
+                for (int i = 0; i < expected.size(); i++) {
+                    assertClose(actual.get(i).boundingBox(), expected.get(i).boundingBox());
+                    assertThat(actual.get(i).widgetType()).isEqualTo(expected.get(i).widgetType());
+                }
+            }
+        }
+    }
+
+    private PageLayout extract(PDPage page) throws IOException {
+        return VectorLayoutExtractor.extract(page, 0, SCALE, WIDTH, HEIGHT, null, properties.getVectorLayout());
+    }
+
+    private void fields(PDPageContentStream content) throws IOException {
+        content.setStrokingColor(Color.BLACK);
+        content.setLineWidth(1);
+        content.addRect(72, 700, 60, 16);
+        content.addRect(72, 650, 40, 16);
+        content.addRect(72, 550, 120, 60);
+        content.stroke();
+    }
+
+    // Columns of the given widths and rows of one height, drawn as separate rulings from the top-left corner.
+    private static void grid(PDPageContentStream content, float left, float bottom, float[] columns, int rows,
+                             float rowHeight) throws IOException {
+        float width = 0;
+        for (float column : columns) {
+            width += column;
+        }
+        float top = bottom + rows * rowHeight;
+        content.setLineWidth(1);
+        for (int row = 0; row <= rows; row++) {
+            content.moveTo(left, top - row * rowHeight);
+            content.lineTo(left + width, top - row * rowHeight);
+        }
+        float x = left;
+        for (int column = 0; column <= columns.length; column++) {
+            content.moveTo(x, bottom);
+            content.lineTo(x, top);
+            x += column < columns.length ? columns[column] : 0;
+        }
+        content.stroke();
+    }
+
+    private static PDPage page(PDDocument document, Drawing drawing) throws IOException {
+        PDPage page = new PDPage(PDRectangle.LETTER);
+        document.addPage(page);
+        try (PDPageContentStream content = new PDPageContentStream(document, page)) {
+            content.beginText();
+            content.setFont(new PDType1Font(Standard14Fonts.FontName.HELVETICA), 11);
+            content.newLineAtOffset(72, 740);
+            content.showText("Application form");
+            content.endText();
+            drawing.draw(content);
+        }
+        return page;
+    }
+
+    private static Mat render(PDDocument document) throws IOException {
+        BufferedImage image = new PDFRenderer(document).renderImage(0, SCALE, ImageType.GRAY);
+        Mat mat = new Mat(image.getHeight(), image.getWidth(), CvType.CV_8UC1);
+        mat.put(0, 0, ((DataBufferByte) image.getRaster().getDataBuffer()).getData());
+        return mat;
+    }
+
+    // A box in PDF points (origin bottom left) as pixels of the rendered page.
+    private static Rect pixels(float x, float y, float width, float height) {
+        return new Rect(Math.round(x * SCALE), Math.round((PDRectangle.LETTER.getHeight() - y - height) * SCALE),
+                Math.round(width * SCALE), Math.round(height * SCALE));
+    }
+
+    private static List<DetectedComponent> ofType(PageLayout layout, DetectedComponentType type) {
+        return layout.components().stream().filter(component -> component.type() == type).toList();
+    }
+
+    private static void assertClose(Rect actual, Rect expected) {
+        assertThat(Math.abs(actual.x - expected.x)).as("left of %s vs %s", actual, expected).isLessThanOrEqualTo(TOLERANCE_PX);
+        assertThat(Math.abs(actual.y - expected.y)).as("top of %s vs %s", actual, expected).isLessThanOrEqualTo(TOLERANCE_PX);
+        assertThat(Math.abs(actual.x + actual.width - expected.x - expected.width))
+                .as("right of %s vs %s", actual, expected).isLessThanOrEqualTo(TOLERANCE_PX);
+        assertThat(Math.abs(actual.y + actual.height - expected.y - expected.height))
+                .as("bottom of %s vs %s", actual, expected).isLessThanOrEqualTo(TOLERANCE_PX);
+    }
+
+    @FunctionalInterface
+    private interface Drawing {
+        void draw(PDPageContentStream content) throws IOException;
+    }
+}
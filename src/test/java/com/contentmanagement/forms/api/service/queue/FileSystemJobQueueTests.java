@@ -0,0 +1,147 @@
+package com.contentmanagement.forms.api.service.queue;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.contentmanagement.forms.api.config.FormProcessingProperties;
+import com.contentmanagement.forms.api.model.ProcessingMode;
+import com.contentmanagement.forms.api.service.extraction.ExtractionScope;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class FileSystemJobQueueTests {
+
+    private static final Duration LEASE = Duration.ofMinutes(5);
+
+    @TempDir
+    Path spool;
+
+    private FileSystemJobQueue queue;
+
+    @BeforeEach
+    void createQueue() {
+        FormProcessingProperties properties = new FormProcessingProperties();
+        properties.getQueue().setDirectory(spool.toString());
+        properties.getQueue().setMaxAttempts(2);
+        properties.getQueue().setLeaseDuration(LEASE);
+        queue = new FileSystemJobQueue(properties, new ObjectMapper().findAndRegisterModules());
+        queue.submit(job("job-1"));
+    }
+
+    @Test
+    void aLeasedJobIsNotHandedOutTwice() {
+        assertThat(queue.lease("a", LEASE)).hasValueSatisfying(lease -> assertThat(lease.job().attempts()).isEqualTo(1));
+        assertThat(queue.lease("b", LEASE)).isEmpty();
+    }
+
+    @Test
+    void anExpiredLeaseIsReturnedAndLeasedAgain() throws IOException {
+        queue.lease("a", LEASE).orElseThrow();
+        expire("job-1");
+
+        Optional<ShardLease> second = queue.lease("b", LEASE);
+
+        assertThat(second).hasValueSatisfying(lease -> {
+            assertThat(lease.workerId()).isEqualTo("b");
+            assertThat(lease.job().attempts()).isEqualTo(2);
+        });
+    }
+
+    @Test
+    void leasesThatKeepExpiringEndInAFailedOutcome() throws IOException {
+        queue.lease("a", LEASE).orElseThrow();
+        expire("job-1");
+        queue.lease("b", LEASE).orElseThrow();
+        expire("job-1");
+
+        assertThat(queue.lease("c", LEASE)).isEmpty();
+        assertThat(queue.outcome("job-1")).hasValueSatisfying(outcome -> {
+            assertThat(outcome.failed()).isTrue();
+            assertThat(outcome.error()).startsWith("Lease expired");
+            assertThat(outcome.attempts()).isEqualTo(2);
+        });
+    }
+
+    @Test
+    void aRenewedLeaseSurvivesItsOriginalExpiry() throws IOException {
+        ShardLease lease = queue.lease("a", LEASE).orElseThrow();
+        expire("job-1");
+
+        assertThat(queue.renew(lease, LEASE)).isTrue();
+
+        assertThat(queue.lease("b", LEASE)).isEmpty();
+        assertThat(queue.outcome("job-1")).isEmpty();
+    }
+
+    @Test
+    void renewalFailsOnceTheJobWasLeasedAgainOrCompleted() throws IOException {
+        ShardLease first = queue.lease("a", LEASE).orElseThrow();
+        expire("job-1");
+        ShardLease second = queue.lease("b", LEASE).orElseThrow();
+
+        assertThat(queue.renew(first, LEASE)).isFalse();
+        assertThat(queue.renew(second, LEASE)).isTrue();
+
+        queue.complete(second, null);
+        assertThat(queue.renew(second, LEASE)).isFalse();
+    }
+
+    @Test
+    void failureIsRetriedUntilAttemptsAreUsedUp() {
+        queue.fail(queue.lease("a", LEASE).orElseThrow(), "first");
+        assertThat(queue.outcome("job-1")).isEmpty();
+
+        queue.fail(queue.lease("b", LEASE).orElseThrow(), "second");
+
+        assertThat(queue.outcome("job-1")).hasValueSatisfying(outcome -> {
+            assertThat(outcome.error()).isEqualTo("second");
+            assertThat(outcome.workerId()).isEqualTo("b");
+        });
+        assertThat(queue.lease("c", LEASE)).isEmpty();
+    }
+
+    @Test
+    void aLateResultIsDroppedWhileANewerAttemptHoldsTheLease() throws IOException {
+        ShardLease late = queue.lease("a", LEASE).orElseThrow();
+        expire("job-1");
+        ShardLease current = queue.lease("b", LEASE).orElseThrow();
+
+        queue.complete(late, null);
+
+        assertThat(queue.outcome("job-1")).isEmpty();
+        assertThat(queue.renew(current, LEASE)).isTrue();
+        queue.complete(current, null);
+        assertThat(queue.outcome("job-1")).hasValueSatisfying(outcome -> assertThat(outcome.workerId()).isEqualTo("b"));
+    }
+
+    @Test
+    void anExpiredLeaseThatFailsLateLeavesTheNewerAttemptAlone() throws IOException {
+        ShardLease late = queue.lease("a", LEASE).orElseThrow();
+        expire("job-1");
+        ShardLease current = queue.lease("b", LEASE).orElseThrow();
+
+        queue.fail(late, "late");
+
+        assertThat(queue.renew(current, LEASE)).isTrue();
+        assertThat(queue.lease("c", LEASE)).isEmpty();
+        assertThat(queue.outcome("job-1")).isEmpty();
+    }
+
+    private void expire(String jobId) throws IOException {
+        Files.setLastModifiedTime(spool.resolve("leased").resolve(jobId + ".json"),
+                FileTime.from(Instant.now().minus(LEASE).minusSeconds(1)));
+    }
+
+    private static ShardJob job(String jobId) {
+        return new ShardJob(jobId, "batch", 0, "sources/batch.bin", "source.pdf", "application/pdf", 1,
+                ProcessingMode.PDF_BOX_WITH_OPENCV, ExtractionScope.ALL, 0, Instant.now().plus(Duration.ofMinutes(30)));
+    }
+}
@@ -0,0 +1,56 @@
+package com.contentmanagement.forms.api.service.queue;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.contentmanagement.forms.api.config.FormProcessingProperties;
+import com.contentmanagement.forms.api.model.ProcessingMode;
+import com.contentmanagement.forms.api.service.extraction.ExtractionScope;
+import java.time.Duration;
+import java.time.Instant;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class InMemoryJobQueueTests {
+
+    private static final Duration LEASE = Duration.ofMinutes(5);
+
+    private InMemoryJobQueue queue;
+
+    @BeforeEach
+    void createQueue() {
+        FormProcessingProperties properties = new FormProcessingProperties();
+        properties.getQueue().setMaxAttempts(3);
+        queue = new InMemoryJobQueue(properties);
+        queue.submit(job("job-1"));
+    }
+
+    @Test
+    void anExpiredLeaseThatFailsLateLeavesTheNewerAttemptAlone() {
+        ShardLease late = queue.lease("a", Duration.ZERO.minusSeconds(1)).orElseThrow();
+        ShardLease current = queue.lease("b", LEASE).orElseThrow();
+        assertThat(current.job().attempts()).isEqualTo(2);
+
+        queue.fail(late, "late");
+
+        assertThat(queue.lease("c", LEASE)).isEmpty();
+        assertThat(queue.renew(current, LEASE)).isTrue();
+        queue.fail(current, "current");
+        assertThat(queue.lease("c", LEASE)).hasValueSatisfying(lease -> assertThat(lease.job().attempts()).isEqualTo(3));
+    }
+
+    @Test
+    void aLateResultIsDroppedWhileANewerAttemptHoldsTheLease() {
+        ShardLease late = queue.lease("a", Duration.ZERO.minusSeconds(1)).orElseThrow();
+        ShardLease current = queue.lease("b", LEASE).orElseThrow();
+
+        queue.complete(late, null);
+
+        assertThat(queue.outcome("job-1")).isEmpty();
+        assertThat(queue.renew(current, LEASE)).isTrue();
+    }
+
+    private static ShardJob job(String jobId) {
+        return new ShardJob(jobId, "batch", 0, "sources/batch.bin", "source.pdf", "application/pdf", 1,
+                ProcessingMode.PDF_BOX_WITH_OPENCV, ExtractionScope.ALL, 0, Instant.now().plus(Duration.ofMinutes(30)));
+    }
+}
@@ -0,0 +1,114 @@
+package com.contentmanagement.forms.api.service.result;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.contentmanagement.forms.api.config.FormProcessingProperties;
+import com.contentmanagement.forms.api.model.FormDocument;
+import com.contentmanagement.forms.api.model.FormPage;
+import com.contentmanagement.forms.api.model.PdfProcessingResult;
+import com.contentmanagement.forms.api.model.ProcessingMode;
+import com.contentmanagement.forms.api.service.extraction.ExtractionScope;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class FormResultStoreTests {
+
+    private static final String DOCUMENT_ID = "ab".repeat(32);
+    private static final ProcessingMode OPENCV = ProcessingMode.OPENCV_ONLY;
+    private static final ProcessingMode PDF_BOX = ProcessingMode.PDF_BOX_WITH_OPENCV;
+
+    @TempDir
+    Path root;
+
+    private FormProcessingProperties properties;
+    private FormResultStore store;
+
+    @BeforeEach
+    void createStore() {
+        properties = new FormProcessingProperties();
+        properties.getResults().setEnabled(true);
+        properties.getResults().setDirectory(root.toString());
+        store = new FormResultStore(properties, new ObjectMapper().findAndRegisterModules());
+    }
+
+    @Test
+    void aPartialResultNeverReplacesACompleteOne() {
+        store.put(result(OPENCV, PdfProcessingResult.PROCESSED, 3), ExtractionScope.ALL);
+
+        store.put(result(OPENCV, PdfProcessingResult.PARTIAL, 2), ExtractionScope.ALL);
+
+        assertThat(store.summary(DOCUMENT_ID, OPENCV, ExtractionScope.ALL)).hasValueSatisfying(summary -> {
+            assertThat(summary.status()).isEqualTo(PdfProcessingResult.PROCESSED);
+            assertThat(summary.pages()).containsExactly(0, 1, 2);
+        });
+    }
+
+    @Test
+    void resultsInAnotherModeOrScopeAreKeptSideBySide() {
+        ExtractionScope scoped = ExtractionScope.parse("1-2,4", "1:0,0,100,50");
+        store.put(result(OPENCV, PdfProcessingResult.PROCESSED, 3), ExtractionScope.ALL);
+        store.put(result(OPENCV, PdfProcessingResult.PARTIAL, 1), scoped);
+        store.put(result(PDF_BOX, PdfProcessingResult.PROCESSED, 2), ExtractionScope.ALL);
+
+        assertThat(store.summary(DOCUMENT_ID, OPENCV, ExtractionScope.ALL)).hasValueSatisfying(summary -> {
+            assertThat(summary.processingMode()).isEqualTo(OPENCV);
+            assertThat(summary.pages()).hasSize(3);
+        });
+        assertThat(store.summary(DOCUMENT_ID, OPENCV, ExtractionScope.parse("1,2,4", "1:0,0,100,50")))
+                .hasValueSatisfying(summary -> {
+                    assertThat(summary.status()).isEqualTo(PdfProcessingResult.PARTIAL);
+                    assertThat(summary.detail()).isEqualTo("stopped");
+                    assertThat(summary.requestedPages()).isEqualTo("1-2,4");
+                    assertThat(summary.requestedRegions()).isEqualTo("1:0.00,0.00,100.00,50.00");
+                });
+        assertThat(store.summary(DOCUMENT_ID, PDF_BOX, scoped)).isEmpty();
+        assertThat(store.summary(DOCUMENT_ID, null, ExtractionScope.ALL))
+                .hasValueSatisfying(summary -> assertThat(summary.processingMode()).isEqualTo(PDF_BOX));
+        assertThat(store.pages(DOCUMENT_ID, PDF_BOX, ExtractionScope.ALL, 0, 10)).hasValueSatisfying(pages ->
+                assertThat(pages).hasSize(2));
+
+        assertThat(store.delete(DOCUMENT_ID)).isTrue();
+        assertThat(store.summary(DOCUMENT_ID, null, ExtractionScope.ALL)).isEmpty();
+    }
+
+    @Test
+    void evictionRemovesExpiredEntriesAndTheirEmptyDocumentDirectory() throws IOException {
+        properties.getResults().setTtl(Duration.ZERO.minusSeconds(1));
+
+        // Every write ends with an eviction pass.
+        store.put(result(OPENCV, PdfProcessingResult.PROCESSED, 1), ExtractionScope.ALL);
+
+        assertThat(root.resolve(DOCUMENT_ID)).doesNotExist();
+    }
+
+    @Test
+    void evictionRemovesStagingDirectoriesLeftByACrash() throws IOException {
+        Path stale = Files.createDirectories(root.resolve("tmp-old-1-" + DOCUMENT_ID));
+        Files.setLastModifiedTime(stale, FileTime.from(Instant.now().minus(Duration.ofHours(2))));
+        Path inFlight = Files.createDirectories(root.resolve("tmp-2-" + DOCUMENT_ID));
+
+        store.evict();
+
+        assertThat(stale).doesNotExist();
+        assertThat(inFlight).exists();
+    }
+
+    private static PdfProcessingResult result(ProcessingMode mode, String status, int pages) {
+        List<FormPage> formPages = IntStream.range(0, pages)
+                .mapToObj(index -> new FormPage(index, List.of(), null, List.of()))
+                .toList();
+        return new PdfProcessingResult(DOCUMENT_ID, "form.pdf", 10, mode, status,
+                new FormDocument(null, formPages),
+                PdfProcessingResult.PARTIAL.equals(status) ? "stopped" : null);
+    }
+}